@@ -0,0 +1,72 @@
+package com.acabra.orderfullfilment.orderserver.benchmarks;
+
+import com.acabra.orderfullfilment.orderserver.config.CourierConfig;
+import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
+
+public final class BenchmarkConfig {
+
+    private BenchmarkConfig() {} //not for instantiation
+
+    /**
+     * The server configuration with the defaults of application.properties, in simulation mode no consumer
+     * threads are started so the benchmark thread is the only one dispatching events
+     */
+    public static OrderServerConfig simulation(int threadCount) {
+        String strategy = "fifo";
+        long periodShutDownMonitorMillis = 1500L;
+        int pollingMaxRetries = 2;
+        long pollingTimeMillis = 100L;
+        String dispatchMode = OrderServerConfig.DISPATCH_MODE_SIMULATION;
+        int batchSize = 64;
+        String queueType = OrderServerConfig.QUEUE_TYPE_PRIORITY;
+        int ringBufferSize = 65536;
+        String waitStrategy = "park";
+        long timerTickMillis = 1L;
+        String emulationMode = "scheduled";
+        String simulationOrdersFile = "orders.json";
+        double simulationOrdersPerSecond = 2d;
+        int ingestionThreads = 2;
+        int ingestionQueueCapacity = 1024;
+        int ingestionRetryAfterSeconds = 1;
+        int admissionMaxInFlightOrders = 0;
+        int admissionMaxQueueDepth = 0;
+        int admissionMinAvailableCouriers = 0;
+        long admissionP99TargetMillis = 0L;
+        long admissionEvaluationPeriodMillis = 1000L;
+        String fleetMode = "elastic";
+        long fleetMaxWaitMillis = 30000L;
+        long batchWindowMillis = 250L;
+        String dispatchTiming = "immediate";
+        long plannedDispatchMarginMillis = 1000L;
+        int cookStations = 0;
+        String cookStationsByDish = "";
+        String prepOrder = OrderServerConfig.PREP_ORDER_SHORTEST_PREP;
+        long metricsIntervalMillis = 10000L;
+        String kitchenLogDir = "";
+        return new OrderServerConfig(threadCount, strategy, periodShutDownMonitorMillis, pollingMaxRetries,
+                pollingTimeMillis, dispatchMode, batchSize, queueType, ringBufferSize, waitStrategy, timerTickMillis,
+                emulationMode, simulationOrdersFile, simulationOrdersPerSecond, ingestionThreads,
+                ingestionQueueCapacity, ingestionRetryAfterSeconds, admissionMaxInFlightOrders, admissionMaxQueueDepth,
+                admissionMinAvailableCouriers, admissionP99TargetMillis, admissionEvaluationPeriodMillis, fleetMode,
+                fleetMaxWaitMillis, batchWindowMillis, dispatchTiming, plannedDispatchMarginMillis, cookStations,
+                cookStationsByDish, prepOrder, metricsIntervalMillis, kitchenLogDir);
+    }
+
+    /**
+     * The courier configuration with the defaults of application.properties
+     */
+    public static CourierConfig courier() {
+        int minEta = 3;
+        int maxEta = 15;
+        double kitchenX = 0d;
+        double kitchenY = 0d;
+        double serviceRadiusKm = 5d;
+        double gridCellKm = 0.5d;
+        int capacity = 1;
+        long batchReadyWindowMillis = 2000L;
+        double etaDecay = 0.1d;
+        double travelNoise = 0d;
+        return new CourierConfig(minEta, maxEta, kitchenX, kitchenY, serviceRadiusKm, gridCellKm, capacity,
+                batchReadyWindowMillis, etaDecay, travelNoise);
+    }
+}
@@ -0,0 +1,38 @@
+package com.acabra.orderfullfilment.orderserver.benchmarks;
+
+import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
+
+import java.util.AbstractQueue;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Notification queue accepting and dropping every event, keeps the benchmarked publishers from filling memory
+ */
+public class DiscardingQueue extends AbstractQueue<OutputEvent> {
+
+    @Override
+    public boolean offer(OutputEvent event) {
+        return true;
+    }
+
+    @Override
+    public OutputEvent poll() {
+        return null;
+    }
+
+    @Override
+    public OutputEvent peek() {
+        return null;
+    }
+
+    @Override
+    public Iterator<OutputEvent> iterator() {
+        return Collections.emptyIterator();
+    }
+
+    @Override
+    public int size() {
+        return 0;
+    }
+}
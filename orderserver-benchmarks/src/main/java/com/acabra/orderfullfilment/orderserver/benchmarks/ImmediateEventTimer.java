@@ -0,0 +1,26 @@
+package com.acabra.orderfullfilment.orderserver.benchmarks;
+
+import com.acabra.orderfullfilment.orderserver.core.timer.EventTimer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Runs the emulated events on the calling thread, so the benchmarks do not accumulate pending timeouts
+ */
+public class ImmediateEventTimer implements EventTimer {
+
+    @Override
+    public <T> CompletableFuture<T> schedule(Supplier<T> task, long delayMillis) {
+        return CompletableFuture.completedFuture(task.get());
+    }
+
+    @Override
+    public int pendingTasks() {
+        return 0;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+}
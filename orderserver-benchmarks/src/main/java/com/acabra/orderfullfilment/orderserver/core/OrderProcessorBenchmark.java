@@ -0,0 +1,184 @@
+package com.acabra.orderfullfilment.orderserver.core;
+
+import com.acabra.orderfullfilment.orderserver.benchmarks.BenchmarkConfig;
+import com.acabra.orderfullfilment.orderserver.benchmarks.DiscardingQueue;
+import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
+import com.acabra.orderfullfilment.orderserver.core.executor.SchedulerExecutorAssistant;
+import com.acabra.orderfullfilment.orderserver.courier.CourierDispatchService;
+import com.acabra.orderfullfilment.orderserver.courier.model.DispatchResult;
+import com.acabra.orderfullfilment.orderserver.event.*;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenClock;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenService;
+import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of OrderProcessor.dispatchOutputEvent per event type (logging, metrics and routing), the kitchen and
+ * courier services are no-ops so only the processor itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderProcessorBenchmark {
+
+    @Param({"ORDER_RECEIVED", "COURIER_DISPATCHED", "ORDER_PREPARED", "COURIER_ARRIVED", "ORDER_PICKED_UP",
+            "ORDER_DELIVERED"})
+    public EventType eventType;
+
+    private SchedulerExecutorAssistant scheduler;
+    private OrderProcessor processor;
+    private OutputEvent event;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        OrderServerConfig config = BenchmarkConfig.simulation(1);
+        Queue<OutputEvent> deque = new DiscardingQueue();
+        scheduler = new SchedulerExecutorAssistant(config);
+        processor = new OrderProcessor(config, new NoOpCourierService(), new NoOpKitchenService(),
+                new OrderRequestHandler(), deque, scheduler);
+        event = eventOf(eventType);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public void dispatchOutputEvent() {
+        processor.dispatchOutputEvent(event);
+    }
+
+    private static OutputEvent eventOf(EventType type) {
+        long now = KitchenClock.now();
+        DeliveryOrder order = DeliveryOrder.of("order-id", "Cheese Pizza", 5);
+        OrderPreparedEvent prepared = OrderPreparedEvent.of(1L, order.id, now);
+        CourierArrivedEvent arrived = CourierArrivedEvent.of(1, 1L, 3000L, now + 10L);
+        switch (type) {
+            case ORDER_RECEIVED:
+                return OrderReceivedEvent.of(now, order);
+            case COURIER_DISPATCHED:
+                return CourierDispatchedEvent.of(now, order, 1, 1L, 3000L);
+            case ORDER_PREPARED:
+                return prepared;
+            case COURIER_ARRIVED:
+                return arrived;
+            case ORDER_PICKED_UP:
+                return OrderPickedUpEvent.of(arrived, prepared);
+            case ORDER_DELIVERED:
+                return OrderDeliveredEvent.of(OrderPickedUpEvent.of(arrived, prepared));
+            default:
+                throw new IllegalArgumentException("Event type not benchmarked: " + type);
+        }
+    }
+
+    private static class NoOpKitchenService implements KitchenService {
+        @Override
+        public long provideReservationId(DeliveryOrder order) {
+            return 1L;
+        }
+
+        @Override
+        public boolean cancelCookReservation(long kitchenReservationId) {
+            return true;
+        }
+
+        @Override
+        public boolean releaseReservation(long kitchenReservationId) {
+            return true;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> prepareMeal(long kitchenReservationId, long now, long courierArrivesAt) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        @Override
+        public boolean isKitchenIdle() {
+            return true;
+        }
+
+        @Override
+        public int reservationsInFlight() {
+            return 0;
+        }
+
+        @Override
+        public long mealsUnderPreparation() {
+            return 0L;
+        }
+
+        @Override
+        public long mealsWaitingForStation() {
+            return 0L;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public void registerNotificationDeque(Queue<OutputEvent> deque) {
+        }
+
+        @Override
+        public Queue<OutputEvent> getPubDeque() {
+            return null;
+        }
+
+        @Override
+        public void logError(String msg, Throwable e) {
+        }
+    }
+
+    private static class NoOpCourierService implements CourierDispatchService {
+        private static final DispatchResult DISPATCHED = DispatchResult.ofCompleted(1, 1000L);
+
+        @Override
+        public DispatchResult dispatchRequest(DeliveryOrder order, long reservationId, long now, long readyAt) {
+            return DISPATCHED;
+        }
+
+        @Override
+        public boolean processOrderPrepared(OrderPreparedEvent mealReadyEvent) {
+            return true;
+        }
+
+        @Override
+        public void processOrderDelivered(OrderDeliveredEvent orderDeliveredEvent) {
+        }
+
+        @Override
+        public boolean processCourierArrived(CourierArrivedEvent courierArrivedEvent) {
+            return true;
+        }
+
+        @Override
+        public void processCourierDispatchedEvent(CourierDispatchedEvent courierDispatchedEvent) {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public void registerNotificationDeque(Queue<OutputEvent> deque) {
+        }
+
+        @Override
+        public Queue<OutputEvent> getPubDeque() {
+            return null;
+        }
+
+        @Override
+        public void logError(String msg, Throwable e) {
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.acabra.orderfullfilment.orderserver.core.queue;
+
+import com.acabra.orderfullfilment.orderserver.event.CourierArrivedEvent;
+import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The notification_deque implementations under contention, every thread publishes an event and consumes
+ * one, like the server threads reacting to an event by publishing the next one. Each invocation offers
+ * before polling so the queue stays bounded and no thread can block on a full ring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class NotificationQueueBenchmark {
+
+    private static final int PARTITIONS = 4;
+
+    @Param({"priority", "partitioned", "ring-buffer", "concurrent-linked"})
+    public String queueType;
+
+    private Queue<OutputEvent> deque;
+    private OutputEvent[] events;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        deque = build(queueType);
+        events = new OutputEvent[1024];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = CourierArrivedEvent.of(i, i, 3000L, i);
+        }
+    }
+
+    private static Queue<OutputEvent> build(String queueType) {
+        switch (queueType) {
+            case "partitioned":
+                return new PartitionedEventQueue(PARTITIONS);
+            case "ring-buffer":
+                return new RingBufferEventQueue(1 << 16, WaitStrategy.YIELD);
+            case "concurrent-linked":
+                return new ConcurrentLinkedQueue<>();
+            default:
+                return new PriorityBlockingQueue<>();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public OutputEvent offerThenPoll(Cursor cursor) {
+        deque.offer(events[cursor.next++ & (events.length - 1)]);
+        return deque.poll();
+    }
+}
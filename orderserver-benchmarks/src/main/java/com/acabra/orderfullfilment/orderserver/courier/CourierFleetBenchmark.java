@@ -0,0 +1,54 @@
+package com.acabra.orderfullfilment.orderserver.courier;
+
+import com.acabra.orderfullfilment.orderserver.benchmarks.BenchmarkConfig;
+import com.acabra.orderfullfilment.orderserver.benchmarks.DiscardingQueue;
+import com.acabra.orderfullfilment.orderserver.benchmarks.ImmediateEventTimer;
+import com.acabra.orderfullfilment.orderserver.core.timer.EmulationMode;
+import com.acabra.orderfullfilment.orderserver.courier.model.Courier;
+import com.acabra.orderfullfilment.orderserver.courier.model.DispatchResult;
+import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
+import com.acabra.orderfullfilment.orderserver.utils.EtaEstimator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * CourierFleetImpl.dispatch followed by release of the same courier, shared by the benchmark threads. The
+ * courier arrival is emulated on the calling thread and discarded so the timer is left out of the numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class CourierFleetBenchmark {
+
+    private static final DeliveryOrder ORDER = DeliveryOrder.of("order-id", "Cheese Pizza", 5);
+
+    @Param({"10", "1000"})
+    public int fleetSize;
+
+    private CourierFleet fleet;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Courier> couriers = IntStream.rangeClosed(1, fleetSize)
+                .mapToObj(i -> Courier.ofAvailable(i, "courier-" + i))
+                .collect(Collectors.toList());
+        fleet = new CourierFleetImpl(couriers, new EtaEstimator(BenchmarkConfig.courier()), new ImmediateEventTimer(),
+                EmulationMode.SCHEDULED, CourierFleetOptions.DEFAULT);
+        fleet.registerNotificationDeque(new DiscardingQueue());
+    }
+
+    @Benchmark
+    public int dispatchAndRelease() {
+        DispatchResult result = fleet.dispatch(ORDER, 1L, 0L);
+        fleet.release(result.courierId);
+        return result.courierId;
+    }
+}
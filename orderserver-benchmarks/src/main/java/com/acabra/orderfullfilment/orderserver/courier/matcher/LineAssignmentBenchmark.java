@@ -0,0 +1,39 @@
+package com.acabra.orderfullfilment.orderserver.courier.matcher;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solve time of the batch assignment for a window holding the given candidates on each side, the solve is O(n*m)
+ * where the general assignment solvers take O(n^3)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineAssignmentBenchmark {
+
+    @Param({"100", "1000", "3000"})
+    public int candidates;
+
+    private long[] left;
+    private long[] right;
+    private long[] skip;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(3L);
+        left = random.longs(candidates, 0, 1000).sorted().toArray();
+        right = random.longs(candidates, 0, 1000).sorted().toArray();
+        skip = random.longs(candidates, 0, 1000).toArray();
+    }
+
+    @Benchmark
+    public int[] solve() {
+        return LineAssignment.solve(left, skip, right, skip);
+    }
+}
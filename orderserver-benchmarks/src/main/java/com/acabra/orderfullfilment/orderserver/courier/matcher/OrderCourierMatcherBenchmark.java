@@ -0,0 +1,67 @@
+package com.acabra.orderfullfilment.orderserver.courier.matcher;
+
+import com.acabra.orderfullfilment.orderserver.benchmarks.DiscardingQueue;
+import com.acabra.orderfullfilment.orderserver.event.CourierArrivedEvent;
+import com.acabra.orderfullfilment.orderserver.event.CourierDispatchedEvent;
+import com.acabra.orderfullfilment.orderserver.event.OrderPreparedEvent;
+import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accept paths of both matchers under contention, every invocation completes the match of one order: the
+ * meal ready and the courier arrival are accepted (in both orders, alternating) by the benchmark threads
+ * sharing a single matcher. The fifo-striped strategy is the FIFO matcher without its hand-off slots, every
+ * arrival takes a ticket and the lock of its stripe.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class OrderCourierMatcherBenchmark {
+
+    private static final DeliveryOrder ORDER = DeliveryOrder.of("order-id", "Cheese Pizza", 5);
+
+    @Param({"fifo", "fifo-striped", "matched"})
+    public String strategy;
+
+    private OrderCourierMatcher matcher;
+    private final AtomicInteger ids = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        matcher = buildMatcher();
+        matcher.registerNotificationDeque(new DiscardingQueue());
+        ids.set(0);
+    }
+
+    private OrderCourierMatcher buildMatcher() {
+        switch (strategy) {
+            case "matched":
+                return new OrderCourierMatcherMatchedImpl();
+            case "fifo-striped":
+                return new OrderCourierMatcherFIFOImpl(Runtime.getRuntime().availableProcessors(), 0);
+            default:
+                return new OrderCourierMatcherFIFOImpl();
+        }
+    }
+
+    @Benchmark
+    public boolean acceptMatch() {
+        int id = ids.incrementAndGet();
+        matcher.processCourierDispatchedEvent(CourierDispatchedEvent.of(0L, ORDER, id, id, 3000L));
+        OrderPreparedEvent prepared = OrderPreparedEvent.of(id, ORDER.id, 0L);
+        CourierArrivedEvent arrived = CourierArrivedEvent.of(id, id, 3000L, 10L);
+        if ((id & 1) == 0) {
+            matcher.acceptOrderPreparedEvent(prepared);
+            return matcher.acceptCourierArrivedEvent(arrived);
+        }
+        matcher.acceptCourierArrivedEvent(arrived);
+        return matcher.acceptOrderPreparedEvent(prepared);
+    }
+}
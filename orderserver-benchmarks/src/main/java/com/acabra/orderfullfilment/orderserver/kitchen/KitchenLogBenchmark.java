@@ -0,0 +1,45 @@
+package com.acabra.orderfullfilment.orderserver.kitchen;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KitchenLog.append from concurrent producers, structured records versus free text. The background writer
+ * drains the ring into rolling files in a temporary directory, records are dropped when it falls behind.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class KitchenLogBenchmark {
+
+    private KitchenLog log;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Path directory = Files.createTempDirectory("kitchen-log-benchmark");
+        log = new KitchenLog(1 << 20, directory, 16L << 20, 2, true);
+    }
+
+    @Benchmark
+    public void appendStructured() {
+        log.append(LogTemplate.ORDER_PICKED_UP, 1_000L, 42L, 7L);
+    }
+
+    @Benchmark
+    public void appendStructuredWithText() {
+        log.append(LogTemplate.ORDER_RECEIVED, 1_000L, 42L, 5000L, "Cheese Pizza");
+    }
+
+    @Benchmark
+    public void appendText() {
+        log.append(1_000L, "[EVENT] order picked up: orderId[42] courierId[7]");
+    }
+}
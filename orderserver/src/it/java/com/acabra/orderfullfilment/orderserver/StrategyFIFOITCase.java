@@ -6,8 +6,11 @@ import com.acabra.orderfullfilment.orderserver.core.MetricsProcessor;
 import com.acabra.orderfullfilment.orderserver.core.OrderProcessor;
 import com.acabra.orderfullfilment.orderserver.core.OrderRequestHandler;
 import com.acabra.orderfullfilment.orderserver.core.executor.SchedulerExecutorAssistant;
+import com.acabra.orderfullfilment.orderserver.core.timer.EmulationMode;
+import com.acabra.orderfullfilment.orderserver.core.timer.HashedTimerWheel;
 import com.acabra.orderfullfilment.orderserver.courier.CourierDispatchService;
 import com.acabra.orderfullfilment.orderserver.courier.CourierFleetImpl;
+import com.acabra.orderfullfilment.orderserver.courier.CourierFleetOptions;
 import com.acabra.orderfullfilment.orderserver.courier.CourierServiceImpl;
 import com.acabra.orderfullfilment.orderserver.courier.matcher.OrderCourierMatcher;
 import com.acabra.orderfullfilment.orderserver.courier.matcher.OrderCourierMatcherFIFOImpl;
@@ -127,7 +130,8 @@ public class StrategyFIFOITCase {
     private OrderProcessor instrumentOrderSystem(ArrayList<Courier> couriers, EtaEstimator estimatorMock, OrderRequestHandler orderHandler) {
         Queue<OutputEvent> deque = new PriorityBlockingQueue<>();
         SchedulerExecutorAssistant scheduler = new SchedulerExecutorAssistant(this.serverConfig);
-        CourierFleetImpl courierFleet = new CourierFleetImpl(couriers, estimatorMock);
+        CourierFleetImpl courierFleet = new CourierFleetImpl(couriers, estimatorMock, new HashedTimerWheel(),
+                EmulationMode.SCHEDULED, CourierFleetOptions.DEFAULT);
         OrderCourierMatcher orderCourierMatcher = new OrderCourierMatcherFIFOImpl();
         CourierDispatchService courierService = new CourierServiceImpl(courierFleet, orderCourierMatcher);
         KitchenService kitchen = new KitchenServiceImpl();
@@ -6,8 +6,11 @@ import com.acabra.orderfullfilment.orderserver.core.MetricsProcessor;
 import com.acabra.orderfullfilment.orderserver.core.OrderProcessor;
 import com.acabra.orderfullfilment.orderserver.core.OrderRequestHandler;
 import com.acabra.orderfullfilment.orderserver.core.executor.SchedulerExecutorAssistant;
+import com.acabra.orderfullfilment.orderserver.core.timer.EmulationMode;
+import com.acabra.orderfullfilment.orderserver.core.timer.HashedTimerWheel;
 import com.acabra.orderfullfilment.orderserver.courier.CourierDispatchService;
 import com.acabra.orderfullfilment.orderserver.courier.CourierFleetImpl;
+import com.acabra.orderfullfilment.orderserver.courier.CourierFleetOptions;
 import com.acabra.orderfullfilment.orderserver.courier.CourierServiceImpl;
 import com.acabra.orderfullfilment.orderserver.courier.matcher.OrderCourierMatcher;
 import com.acabra.orderfullfilment.orderserver.courier.matcher.OrderCourierMatcherMatchedImpl;
@@ -130,7 +133,8 @@ public class StrategyMatchedITCase {
                                                  OrderRequestHandler orderHandler) {
         Deque<OutputEvent> deque = new ConcurrentLinkedDeque<>();
         SchedulerExecutorAssistant scheduler = new SchedulerExecutorAssistant(serverConfig);
-        CourierFleetImpl courierFleet = new CourierFleetImpl(couriers, estimatorMock);
+        CourierFleetImpl courierFleet = new CourierFleetImpl(couriers, estimatorMock, new HashedTimerWheel(),
+                EmulationMode.SCHEDULED, CourierFleetOptions.DEFAULT);
         OrderCourierMatcher orderCourierMatcher = new OrderCourierMatcherMatchedImpl();
         CourierDispatchService courierService = new CourierServiceImpl(courierFleet, orderCourierMatcher);
         KitchenService kitchen = new KitchenServiceImpl();
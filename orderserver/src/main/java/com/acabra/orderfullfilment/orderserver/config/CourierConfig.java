@@ -14,10 +14,34 @@ public class CourierConfig {
 
     private final Integer minEta;
     private final Integer maxEta;
+    private final Double kitchenX;
+    private final Double kitchenY;
+    private final Double serviceRadiusKm;
+    private final Double gridCellKm;
+    private final Integer capacity;
+    private final Long batchReadyWindowMillis;
+    private final Double etaDecay;
+    private final Double travelNoise;
 
-    public CourierConfig(@NonNull @Value("${courier.min-eta}")Integer minEta, @NonNull @Value("${courier.max-eta}")Integer maxEta) {
+    public CourierConfig(@NonNull @Value("${courier.min-eta}")Integer minEta, @NonNull @Value("${courier.max-eta}")Integer maxEta,
+                         @NonNull @Value("${courier.kitchen-x}")Double kitchenX,
+                         @NonNull @Value("${courier.kitchen-y}")Double kitchenY,
+                         @NonNull @Value("${courier.service-radius-km}")Double serviceRadiusKm,
+                         @NonNull @Value("${courier.grid-cell-km}")Double gridCellKm,
+                         @NonNull @Value("${courier.capacity}")Integer capacity,
+                         @NonNull @Value("${courier.batch-ready-window-millis}")Long batchReadyWindowMillis,
+                         @NonNull @Value("${courier.eta-decay}")Double etaDecay,
+                         @NonNull @Value("${courier.travel-noise}")Double travelNoise) {
         this.minEta = minEta;
         this.maxEta = maxEta;
+        this.kitchenX = kitchenX;
+        this.kitchenY = kitchenY;
+        this.serviceRadiusKm = serviceRadiusKm;
+        this.gridCellKm = gridCellKm;
+        this.capacity = capacity;
+        this.batchReadyWindowMillis = batchReadyWindowMillis;
+        this.etaDecay = etaDecay;
+        this.travelNoise = travelNoise;
     }
 
     @NonNull
@@ -29,4 +53,44 @@ public class CourierConfig {
     public Integer getMaxEta() {
         return maxEta;
     }
-}
\ No newline at end of file
+
+    @NonNull
+    public Double getKitchenX() {
+        return kitchenX;
+    }
+
+    @NonNull
+    public Double getKitchenY() {
+        return kitchenY;
+    }
+
+    @NonNull
+    public Double getServiceRadiusKm() {
+        return serviceRadiusKm;
+    }
+
+    @NonNull
+    public Double getGridCellKm() {
+        return gridCellKm;
+    }
+
+    @NonNull
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    @NonNull
+    public Long getBatchReadyWindowMillis() {
+        return batchReadyWindowMillis;
+    }
+
+    @NonNull
+    public Double getEtaDecay() {
+        return etaDecay;
+    }
+
+    @NonNull
+    public Double getTravelNoise() {
+        return travelNoise;
+    }
+}
@@ -0,0 +1,27 @@
+package com.acabra.orderfullfilment.orderserver.config;
+
+import com.acabra.orderfullfilment.orderserver.core.timer.EventTimer;
+import com.acabra.orderfullfilment.orderserver.core.timer.HashedTimerWheel;
+import com.acabra.orderfullfilment.orderserver.core.timer.VirtualTimeScheduler;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenClock;
+import com.acabra.orderfullfilment.orderserver.kitchen.VirtualClock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class EventTimerConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public EventTimer eventTimer(OrderServerConfig config) {
+        if (config.isSimulationMode()) {
+            log.info("[SYSTEM] running on virtual time for the simulation");
+            VirtualClock clock = new VirtualClock(KitchenClock.now());
+            KitchenClock.useTimeSource(clock);
+            return new VirtualTimeScheduler(clock);
+        }
+        log.info("[SYSTEM] starting the timer wheel with a tick of [{}]ms", config.getTimerTickMillis());
+        return new HashedTimerWheel(config.getTimerTickMillis());
+    }
+}
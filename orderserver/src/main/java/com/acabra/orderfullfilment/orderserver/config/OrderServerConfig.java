@@ -9,23 +9,117 @@ import org.springframework.boot.context.properties.ConstructorBinding;
 public class OrderServerConfig {
 
     public static final int MINIMAL_PERIOD_TIME = 10;
+    public static final int MAX_BATCH_SIZE = 4096;
+    public static final String DISPATCH_MODE_POLLING = "polling";
+    public static final String DISPATCH_MODE_EVENT_LOOP = "event-loop";
+    public static final String DISPATCH_MODE_SIMULATION = "simulation";
+    public static final String QUEUE_TYPE_PRIORITY = "priority";
+    public static final String QUEUE_TYPE_PARTITIONED = "partitioned";
+    public static final String QUEUE_TYPE_RING_BUFFER = "ring-buffer";
+    public static final int MAX_RING_BUFFER_SIZE = 1 << 24;
+    public static final String FLEET_MODE_BOUNDED = "bounded";
+    public static final String DISPATCH_TIMING_PLANNED = "planned";
+    public static final String PREP_ORDER_FIFO = "fifo";
+    public static final String PREP_ORDER_SHORTEST_PREP = "shortest-prep";
+    public static final String PREP_ORDER_COURIER_ETA = "courier-eta";
     private final int threadCount;
     private final String strategy;
     private final long periodShutDownMonitorMillis;
 
     private final long pollingTimeMillis;
     private final int pollingMaxRetries;
+    private final String dispatchMode;
+    private final int batchSize;
+    private final String queueType;
+    private final int ringBufferSize;
+    private final String waitStrategy;
+    private final long timerTickMillis;
+    private final String emulationMode;
+    private final String simulationOrdersFile;
+    private final double simulationOrdersPerSecond;
+    private final int ingestionThreads;
+    private final int ingestionQueueCapacity;
+    private final int ingestionRetryAfterSeconds;
+    private final int admissionMaxInFlightOrders;
+    private final int admissionMaxQueueDepth;
+    private final int admissionMinAvailableCouriers;
+    private final long admissionP99TargetMillis;
+    private final long admissionEvaluationPeriodMillis;
+    private final String fleetMode;
+    private final long fleetMaxWaitMillis;
+    private final long batchWindowMillis;
+    private final String dispatchTiming;
+    private final long plannedDispatchMarginMillis;
+    private final int cookStations;
+    private final String cookStationsByDish;
+    private final String prepOrder;
+    private final long metricsIntervalMillis;
+    private final String kitchenLogDir;
 
     public OrderServerConfig(@Value("${orderserver.thread-count}") int threadCount,
                              @Value("${orderserver.strategy}") String strategy,
                              @Value("${orderserver.period-shut-down-monitor-millis}") long periodShutDownMonitorMillis,
                              @Value("${orderserver.polling-max-retries}") int pollingMaxRetries,
-                             @Value("${orderserver.polling-time-millis}") long pollingTimeMillis) {
+                             @Value("${orderserver.polling-time-millis}") long pollingTimeMillis,
+                             @Value("${orderserver.dispatch-mode}") String dispatchMode,
+                             @Value("${orderserver.batch-size}") int batchSize,
+                             @Value("${orderserver.queue-type}") String queueType,
+                             @Value("${orderserver.ring-buffer-size}") int ringBufferSize,
+                             @Value("${orderserver.wait-strategy}") String waitStrategy,
+                             @Value("${orderserver.timer-tick-millis}") long timerTickMillis,
+                             @Value("${orderserver.emulation-mode}") String emulationMode,
+                             @Value("${orderserver.simulation-orders-file}") String simulationOrdersFile,
+                             @Value("${orderserver.simulation-orders-per-second}") double simulationOrdersPerSecond,
+                             @Value("${orderserver.ingestion-threads}") int ingestionThreads,
+                             @Value("${orderserver.ingestion-queue-capacity}") int ingestionQueueCapacity,
+                             @Value("${orderserver.ingestion-retry-after-seconds}") int ingestionRetryAfterSeconds,
+                             @Value("${orderserver.admission-max-in-flight-orders}") int admissionMaxInFlightOrders,
+                             @Value("${orderserver.admission-max-queue-depth}") int admissionMaxQueueDepth,
+                             @Value("${orderserver.admission-min-available-couriers}") int admissionMinAvailableCouriers,
+                             @Value("${orderserver.admission-p99-target-millis}") long admissionP99TargetMillis,
+                             @Value("${orderserver.admission-evaluation-period-millis}") long admissionEvaluationPeriodMillis,
+                             @Value("${orderserver.fleet-mode}") String fleetMode,
+                             @Value("${orderserver.fleet-max-wait-millis}") long fleetMaxWaitMillis,
+                             @Value("${orderserver.batch-window-millis}") long batchWindowMillis,
+                             @Value("${orderserver.dispatch-timing}") String dispatchTiming,
+                             @Value("${orderserver.planned-dispatch-margin-millis}") long plannedDispatchMarginMillis,
+                             @Value("${orderserver.cook-stations}") int cookStations,
+                             @Value("${orderserver.cook-stations-by-dish}") String cookStationsByDish,
+                             @Value("${orderserver.prep-order}") String prepOrder,
+                             @Value("${orderserver.metrics-interval-millis}") long metricsIntervalMillis,
+                             @Value("${orderserver.kitchen-log-dir}") String kitchenLogDir) {
         this.threadCount = Math.min(Math.max(threadCount, 1), Runtime.getRuntime().availableProcessors());
         this.strategy = strategy;
         this.periodShutDownMonitorMillis = Math.max(MINIMAL_PERIOD_TIME, periodShutDownMonitorMillis);
         this.pollingTimeMillis = Math.min(Math.max(MINIMAL_PERIOD_TIME, pollingTimeMillis), 4000L);
         this.pollingMaxRetries = Math.min(Math.max(0, pollingMaxRetries), 10);
+        this.dispatchMode = null == dispatchMode ? DISPATCH_MODE_POLLING : dispatchMode;
+        this.batchSize = Math.min(Math.max(1, batchSize), MAX_BATCH_SIZE);
+        this.queueType = null == queueType ? QUEUE_TYPE_PRIORITY : queueType;
+        this.ringBufferSize = Math.min(Math.max(2, ringBufferSize), MAX_RING_BUFFER_SIZE);
+        this.waitStrategy = waitStrategy;
+        this.timerTickMillis = Math.min(Math.max(1L, timerTickMillis), 100L);
+        this.emulationMode = emulationMode;
+        this.simulationOrdersFile = simulationOrdersFile;
+        this.simulationOrdersPerSecond = simulationOrdersPerSecond > 0 ? simulationOrdersPerSecond : 2.0;
+        this.ingestionThreads = Math.min(Math.max(1, ingestionThreads), Runtime.getRuntime().availableProcessors());
+        this.ingestionQueueCapacity = Math.max(1, ingestionQueueCapacity);
+        this.ingestionRetryAfterSeconds = Math.max(1, ingestionRetryAfterSeconds);
+        this.admissionMaxInFlightOrders = Math.max(0, admissionMaxInFlightOrders);
+        this.admissionMaxQueueDepth = Math.max(0, admissionMaxQueueDepth);
+        this.admissionMinAvailableCouriers = Math.max(0, admissionMinAvailableCouriers);
+        this.admissionP99TargetMillis = Math.max(0L, admissionP99TargetMillis);
+        this.admissionEvaluationPeriodMillis = Math.max(100L, admissionEvaluationPeriodMillis);
+        this.fleetMode = fleetMode;
+        this.fleetMaxWaitMillis = Math.max(1L, fleetMaxWaitMillis);
+        this.batchWindowMillis = Math.max(1L, batchWindowMillis);
+        this.dispatchTiming = dispatchTiming;
+        this.plannedDispatchMarginMillis = Math.max(0L, plannedDispatchMarginMillis);
+        this.cookStations = Math.max(0, cookStations);
+        this.cookStationsByDish = null == cookStationsByDish ? "" : cookStationsByDish;
+        this.prepOrder = null == prepOrder ? PREP_ORDER_SHORTEST_PREP : prepOrder;
+        this.metricsIntervalMillis = Math.max(1L, metricsIntervalMillis);
+        this.kitchenLogDir = null == kitchenLogDir ? "" : kitchenLogDir.trim();
     }
 
     public int getThreadCount() {
@@ -47,4 +141,140 @@ public class OrderServerConfig {
     public int getPollingMaxRetries() {
         return pollingMaxRetries;
     }
+
+    public String getDispatchMode() {
+        return dispatchMode;
+    }
+
+    public boolean isEventLoopMode() {
+        return DISPATCH_MODE_EVENT_LOOP.equals(dispatchMode);
+    }
+
+    public boolean isSimulationMode() {
+        return DISPATCH_MODE_SIMULATION.equals(dispatchMode);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public String getQueueType() {
+        return queueType;
+    }
+
+    public boolean isPartitionedQueue() {
+        return QUEUE_TYPE_PARTITIONED.equals(queueType);
+    }
+
+    public boolean isRingBufferQueue() {
+        return QUEUE_TYPE_RING_BUFFER.equals(queueType);
+    }
+
+    public int getRingBufferSize() {
+        return ringBufferSize;
+    }
+
+    public String getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public long getTimerTickMillis() {
+        return timerTickMillis;
+    }
+
+    public String getEmulationMode() {
+        return emulationMode;
+    }
+
+    public String getSimulationOrdersFile() {
+        return simulationOrdersFile;
+    }
+
+    public double getSimulationOrdersPerSecond() {
+        return simulationOrdersPerSecond;
+    }
+
+    public int getIngestionThreads() {
+        return ingestionThreads;
+    }
+
+    public int getIngestionQueueCapacity() {
+        return ingestionQueueCapacity;
+    }
+
+    public int getIngestionRetryAfterSeconds() {
+        return ingestionRetryAfterSeconds;
+    }
+
+    public int getAdmissionMaxInFlightOrders() {
+        return admissionMaxInFlightOrders;
+    }
+
+    public int getAdmissionMaxQueueDepth() {
+        return admissionMaxQueueDepth;
+    }
+
+    public int getAdmissionMinAvailableCouriers() {
+        return admissionMinAvailableCouriers;
+    }
+
+    public long getAdmissionP99TargetMillis() {
+        return admissionP99TargetMillis;
+    }
+
+    public long getAdmissionEvaluationPeriodMillis() {
+        return admissionEvaluationPeriodMillis;
+    }
+
+    public String getFleetMode() {
+        return fleetMode;
+    }
+
+    public boolean isBoundedFleet() {
+        return FLEET_MODE_BOUNDED.equals(fleetMode);
+    }
+
+    public long getFleetMaxWaitMillis() {
+        return fleetMaxWaitMillis;
+    }
+
+    public long getBatchWindowMillis() {
+        return batchWindowMillis;
+    }
+
+    public String getDispatchTiming() {
+        return dispatchTiming;
+    }
+
+    public boolean isPlannedDispatch() {
+        return DISPATCH_TIMING_PLANNED.equals(dispatchTiming);
+    }
+
+    public long getPlannedDispatchMarginMillis() {
+        return plannedDispatchMarginMillis;
+    }
+
+    public int getCookStations() {
+        return cookStations;
+    }
+
+    public String getCookStationsByDish() {
+        return cookStationsByDish;
+    }
+
+    public String getPrepOrder() {
+        return prepOrder;
+    }
+
+    public long getMetricsIntervalMillis() {
+        return metricsIntervalMillis;
+    }
+
+    /**
+     * @return the directory the kitchen log files are written to, empty for a directory of the process under
+     * java.io.tmpdir
+     */
+    public String getKitchenLogDir() {
+        return kitchenLogDir;
+    }
 }
@@ -0,0 +1,62 @@
+package com.acabra.orderfullfilment.orderserver.control;
+
+import com.acabra.orderfullfilment.orderserver.core.AdmissionController;
+import com.acabra.orderfullfilment.orderserver.core.OrderProcessor;
+import com.acabra.orderfullfilment.orderserver.courier.CourierFleet;
+import com.acabra.orderfullfilment.orderserver.dto.MetricsResponseDTO;
+import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenClock;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Queue;
+
+/**
+ * Live view of the server while it runs, every read reports the throughput and latency percentiles of the
+ * last closed window together with the totals, the event loop keeps running meanwhile. Reading is side effect free,
+ * the windows roll on a fixed schedule so concurrent readers see the same window.
+ */
+@RestController
+@RequestMapping(value = "/metrics", produces = MediaType.APPLICATION_JSON_VALUE)
+public class MetricsController {
+
+    private final OrderProcessor orderProcessor;
+    private final Queue<OutputEvent> deque;
+    private final KitchenService kitchenService;
+    private final CourierFleet courierFleet;
+    private final AdmissionController admissionController;
+
+    public MetricsController(OrderProcessor orderProcessor,
+                             @Qualifier("notification_deque") Queue<OutputEvent> deque,
+                             KitchenService kitchenService,
+                             CourierFleet courierFleet,
+                             AdmissionController admissionController) {
+        this.orderProcessor = orderProcessor;
+        this.deque = deque;
+        this.kitchenService = kitchenService;
+        this.courierFleet = courierFleet;
+        this.admissionController = admissionController;
+    }
+
+    @GetMapping
+    public ResponseEntity<MetricsResponseDTO> metrics() {
+        int available = courierFleet.availableCouriers();
+        return ResponseEntity.ok(MetricsResponseDTO.of(KitchenClock.now(),
+                deque.size(),
+                kitchenService.reservationsInFlight(),
+                kitchenService.mealsUnderPreparation(),
+                kitchenService.mealsWaitingForStation(),
+                courierFleet.fleetSize() - available,
+                available,
+                courierFleet.waitingDispatchRequests(),
+                admissionController.inFlight(),
+                admissionController.shed(),
+                orderProcessor.getIntervalMetrics(),
+                orderProcessor.getMetricsSnapshot()));
+    }
+}
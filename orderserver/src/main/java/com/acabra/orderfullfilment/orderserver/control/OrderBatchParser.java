@@ -0,0 +1,104 @@
+package com.acabra.orderfullfilment.orderserver.control;
+
+import com.acabra.orderfullfilment.orderserver.dto.DeliveryOrderRequestDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Predicate;
+
+/**
+ * Reads the orders of a batch with the Jackson streaming parser, a JSON array or a sequence of objects (NDJSON)
+ * are both accepted. Every element is handed to the handler as soon as it is read, so the batch is never
+ * held in memory; elements with missing fields, values of the wrong type or failing the validation are
+ * counted as rejected and skipped, elements refused by the handler are counted as shed.
+ */
+class OrderBatchParser {
+
+    private final JsonFactory jsonFactory;
+
+    OrderBatchParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * @param handler takes the order, returns false if the order was shed
+     * @return the amount of accepted, rejected and shed orders
+     * @throws IOException if the body is not well-formed JSON, the orders before the error were already consumed
+     */
+    Counts parse(InputStream body, Predicate<DeliveryOrderRequestDTO> validator,
+                 Predicate<DeliveryOrderRequestDTO> handler, Counts counts) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            while (null != token && token != JsonToken.END_ARRAY) {
+                DeliveryOrderRequestDTO order = token == JsonToken.START_OBJECT ? readOrder(parser) : skip(parser);
+                if (null != order && validator.test(order)) {
+                    if (handler.test(order)) {
+                        counts.accepted++;
+                    } else {
+                        counts.shed++;
+                    }
+                } else {
+                    counts.rejected++;
+                }
+                token = parser.nextToken();
+            }
+            if (array && token != JsonToken.END_ARRAY) {
+                throw new IOException("Unexpected end of the orders array");
+            }
+        }
+        return counts;
+    }
+
+    private static DeliveryOrderRequestDTO skip(JsonParser parser) throws IOException {
+        parser.skipChildren();
+        return null;
+    }
+
+    private static DeliveryOrderRequestDTO readOrder(JsonParser parser) throws IOException {
+        String id = null;
+        String name = null;
+        long prepTime = 0L;
+        boolean hasPrepTime = false;
+        boolean valid = true;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id":
+                    valid &= value == JsonToken.VALUE_STRING;
+                    id = parser.getValueAsString();
+                    break;
+                case "name":
+                    valid &= value == JsonToken.VALUE_STRING;
+                    name = parser.getValueAsString();
+                    break;
+                case "prepTime":
+                    valid &= value == JsonToken.VALUE_NUMBER_INT;
+                    hasPrepTime = value == JsonToken.VALUE_NUMBER_INT;
+                    prepTime = hasPrepTime ? parser.getLongValue() : 0L;
+                    break;
+                default:
+                    break;
+            }
+            //no-op for scalars, skips the nested objects or arrays
+            parser.skipChildren();
+        }
+        if (!valid || !hasPrepTime || null == id || null == name) {
+            return null;
+        }
+        return new DeliveryOrderRequestDTO(id, name, prepTime);
+    }
+
+    static class Counts {
+        int accepted;
+        int rejected;
+        int shed;
+    }
+}
@@ -1,7 +1,15 @@
 package com.acabra.orderfullfilment.orderserver.control;
 
+import com.acabra.orderfullfilment.orderserver.core.AdmissionController;
+import com.acabra.orderfullfilment.orderserver.core.OrderRequestHandler;
+import com.acabra.orderfullfilment.orderserver.core.executor.IngestionExecutor;
+import com.acabra.orderfullfilment.orderserver.dto.BatchOrderResponseDTO;
 import com.acabra.orderfullfilment.orderserver.dto.DeliveryOrderRequestDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -9,8 +17,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.concurrent.CompletableFuture;
-import java.util.function.Consumer;
+import java.io.IOException;
+import java.io.InputStream;
 
 @RestController
 @RequestMapping(value = "/orders",
@@ -19,26 +27,90 @@ import java.util.function.Consumer;
 @Slf4j
 public class OrderController {
 
-    private final Consumer<DeliveryOrderRequestDTO> orderRequestHandler;
+    private final OrderRequestHandler orderRequestHandler;
+    private final IngestionExecutor ingestionExecutor;
+    private final AdmissionController admissionController;
+    private final OrderBatchParser batchParser;
 
-    public OrderController(Consumer<DeliveryOrderRequestDTO> handler) {
+    public OrderController(OrderRequestHandler handler, IngestionExecutor ingestionExecutor) {
+        this(handler, ingestionExecutor, AdmissionController.unlimited(), new ObjectMapper());
+    }
+
+    @Autowired
+    public OrderController(OrderRequestHandler handler, IngestionExecutor ingestionExecutor,
+                           AdmissionController admissionController, ObjectMapper objectMapper) {
         this.orderRequestHandler = handler;
+        this.ingestionExecutor = ingestionExecutor;
+        this.admissionController = admissionController;
+        this.batchParser = new OrderBatchParser(objectMapper.getFactory());
     }
 
+    /**
+     * The order is admitted before it is handed to the ingestion stage so the client learns when it was shed,
+     * the admission is given back if the ingestion stage refuses the order.
+     */
     @PostMapping
     public ResponseEntity<String> acceptOrder(@RequestBody DeliveryOrderRequestDTO deliveryOrderRequestDTO) {
         if (valid(deliveryOrderRequestDTO)) {
-            CompletableFuture.runAsync(() -> this.orderRequestHandler.accept(deliveryOrderRequestDTO));
-            return ResponseEntity.accepted().build();
+            AdmissionController.Decision decision = this.admissionController.tryAdmit();
+            if (!decision.isAdmitted()) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(this.ingestionExecutor.getRetryAfterSeconds()))
+                        .body("order shed, the server is saturated: " + decision);
+            }
+            if (this.ingestionExecutor.trySubmit(
+                    () -> this.orderRequestHandler.publishAdmitted(deliveryOrderRequestDTO))) {
+                return ResponseEntity.accepted().build();
+            }
+            this.admissionController.release();
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(this.ingestionExecutor.getRetryAfterSeconds()))
+                    .body("too many orders in progress, retry later");
         }
         return ResponseEntity.badRequest()
                 .body("invalid request, prepTime must be >= 0: , id and name must not be null or empty"
                         + deliveryOrderRequestDTO.prepTime);
     }
 
+    /**
+     * Accepts many orders in a single request, the body is a JSON array of orders or one order per line (NDJSON),
+     * the orders are admitted and handed to the ingestion stage while the body is being read, as single orders are.
+     * @return the amount of accepted, rejected and shed orders, too many requests if the ingestion stage refused
+     * any of them. When the body is malformed the orders read before the error remain accepted
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BatchOrderResponseDTO> acceptOrders(InputStream body) {
+        OrderBatchParser.Counts counts = new OrderBatchParser.Counts();
+        int[] refused = {0};
+        try {
+            batchParser.parse(body, this::valid, order -> {
+                if (!this.admissionController.tryAdmit().isAdmitted()) {
+                    return false;
+                }
+                if (this.ingestionExecutor.trySubmit(() -> this.orderRequestHandler.publishAdmitted(order))) {
+                    return true;
+                }
+                this.admissionController.release();
+                refused[0]++;
+                return false;
+            }, counts);
+            BatchOrderResponseDTO response = BatchOrderResponseDTO.of(counts.accepted, counts.rejected, counts.shed);
+            if (refused[0] > 0) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(this.ingestionExecutor.getRetryAfterSeconds()))
+                        .body(response);
+            }
+            return ResponseEntity.accepted().body(response);
+        } catch (IOException e) {
+            log.error("Unable to read the orders batch: " + e.getMessage());
+            return ResponseEntity.badRequest().body(BatchOrderResponseDTO.ofError(counts.accepted, counts.rejected,
+                    counts.shed, "malformed orders batch: " + e.getMessage()));
+        }
+    }
+
     private boolean valid(DeliveryOrderRequestDTO deliveryOrderRequestDTO) {
         return deliveryOrderRequestDTO.prepTime >= 0
-                && !deliveryOrderRequestDTO.id.isBlank()
-                && !deliveryOrderRequestDTO.name.isBlank();
+                && null != deliveryOrderRequestDTO.id && !deliveryOrderRequestDTO.id.isBlank()
+                && null != deliveryOrderRequestDTO.name && !deliveryOrderRequestDTO.name.isBlank();
     }
 }
@@ -0,0 +1,186 @@
+package com.acabra.orderfullfilment.orderserver.core;
+
+import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
+import com.acabra.orderfullfilment.orderserver.courier.CourierFleet;
+import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenClock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides whether a new order enters the system, orders are shed once the orders in flight, the depth of the
+ * notification queue or the lack of available couriers reach the configured limits, or while the p99 pickup
+ * time of the previous evaluation period exceeded the target. A limit set to 0 is disabled.
+ * An admitted order holds its slot until it is delivered or cancelled.
+ */
+@Component
+@Slf4j
+public class AdmissionController {
+
+    public enum Decision {
+        ADMITTED,
+        IN_FLIGHT_LIMIT,
+        QUEUE_DEPTH_LIMIT,
+        NO_COURIERS_AVAILABLE,
+        LATENCY_TARGET_EXCEEDED;
+
+        public boolean isAdmitted() {
+            return this == ADMITTED;
+        }
+    }
+
+    private final int maxInFlightOrders;
+    private final int maxQueueDepth;
+    private final int minAvailableCouriers;
+    private final long p99TargetMillis;
+    private final long evaluationPeriodMillis;
+    private final IntSupplier queueDepth;
+    private final IntSupplier availableCouriers;
+    private final LongSupplier clock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder shed = new LongAdder();
+    private final LatencyHistogram pickupTime = new LatencyHistogram();
+    private final LatencyHistogram.IntervalReader pickupTimeInterval = pickupTime.intervalReader();
+    private volatile boolean latencyTargetExceeded = false;
+    private volatile long nextEvaluation;
+
+    @Autowired
+    public AdmissionController(OrderServerConfig config,
+                               @Qualifier("notification_deque") Queue<OutputEvent> deque,
+                               CourierFleet courierFleet) {
+        this(config.getAdmissionMaxInFlightOrders(), config.getAdmissionMaxQueueDepth(),
+                config.getAdmissionMinAvailableCouriers(), config.getAdmissionP99TargetMillis(),
+                config.getAdmissionEvaluationPeriodMillis(), deque::size, courierFleet::availableCouriers,
+                KitchenClock::now);
+    }
+
+    public AdmissionController(int maxInFlightOrders, int maxQueueDepth, int minAvailableCouriers,
+                               long p99TargetMillis, long evaluationPeriodMillis, IntSupplier queueDepth,
+                               IntSupplier availableCouriers, LongSupplier clock) {
+        this.maxInFlightOrders = maxInFlightOrders;
+        this.maxQueueDepth = maxQueueDepth;
+        this.minAvailableCouriers = minAvailableCouriers;
+        this.p99TargetMillis = p99TargetMillis;
+        this.evaluationPeriodMillis = evaluationPeriodMillis;
+        this.queueDepth = queueDepth;
+        this.availableCouriers = availableCouriers;
+        this.clock = clock;
+        this.nextEvaluation = clock.getAsLong() + evaluationPeriodMillis;
+    }
+
+    /**
+     * @return a controller admitting every order
+     */
+    public static AdmissionController unlimited() {
+        return new AdmissionController(0, 0, 0, 0L, Long.MAX_VALUE, () -> 0, () -> 0, () -> 0L);
+    }
+
+    /**
+     * Admits the order taking an in-flight slot, the slot must be given back through {@link #release()} or
+     * {@link #acceptOrderPickedUp(long)}
+     * @return ADMITTED or the reason the order was shed
+     */
+    public Decision tryAdmit() {
+        Decision decision = saturation();
+        if (decision.isAdmitted() && !reserveInFlight()) {
+            decision = Decision.IN_FLIGHT_LIMIT;
+        }
+        if (!decision.isAdmitted()) {
+            this.shed.increment();
+        }
+        return decision;
+    }
+
+    /**
+     * Checks the limits without taking a slot, allows the callers to push back before doing any work
+     * @return ADMITTED if a new order would currently be admitted or the reason it would be shed
+     */
+    public Decision saturation() {
+        if (maxInFlightOrders > 0 && inFlight.get() >= maxInFlightOrders) {
+            return Decision.IN_FLIGHT_LIMIT;
+        }
+        if (maxQueueDepth > 0 && queueDepth.getAsInt() >= maxQueueDepth) {
+            return Decision.QUEUE_DEPTH_LIMIT;
+        }
+        if (minAvailableCouriers > 0 && availableCouriers.getAsInt() < minAvailableCouriers) {
+            return Decision.NO_COURIERS_AVAILABLE;
+        }
+        if (p99TargetMillis > 0 && latencyTargetExceeded()) {
+            return Decision.LATENCY_TARGET_EXCEEDED;
+        }
+        return Decision.ADMITTED;
+    }
+
+    private boolean reserveInFlight() {
+        if (maxInFlightOrders <= 0) {
+            inFlight.incrementAndGet();
+            return true;
+        }
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxInFlightOrders) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private boolean latencyTargetExceeded() {
+        long now = clock.getAsLong();
+        if (now >= nextEvaluation) {
+            evaluateLatency(now);
+        }
+        return latencyTargetExceeded;
+    }
+
+    private synchronized void evaluateLatency(long now) {
+        if (now < nextEvaluation) {
+            return;
+        }
+        LatencyHistogram.Snapshot period = pickupTimeInterval.next();
+        boolean exceeded = period.count > 0 && period.p99 > p99TargetMillis;
+        if (exceeded != latencyTargetExceeded) {
+            log.info("[SYSTEM] p99 pickup time [{}]ms, {} new orders", period.p99, exceeded ? "shedding" : "admitting");
+        }
+        this.latencyTargetExceeded = exceeded;
+        this.nextEvaluation = now + evaluationPeriodMillis;
+    }
+
+    /**
+     * Gives back the slot of an admitted order that will not be delivered
+     */
+    public void release() {
+        inFlight.getAndUpdate(current -> current > 0 ? current - 1 : 0);
+    }
+
+    /**
+     * Gives back the slot of a delivered order
+     * @param pickupTimeMillis time from the order received to picked up, negative if unknown
+     */
+    public void acceptOrderPickedUp(long pickupTimeMillis) {
+        if (pickupTimeMillis >= 0) {
+            pickupTime.record(pickupTimeMillis);
+        }
+        release();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the total amount of orders shed
+     */
+    public long shed() {
+        return shed.sum();
+    }
+}
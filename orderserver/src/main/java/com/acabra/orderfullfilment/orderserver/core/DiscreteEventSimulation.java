@@ -0,0 +1,102 @@
+package com.acabra.orderfullfilment.orderserver.core;
+
+import com.acabra.orderfullfilment.orderserver.core.timer.VirtualTimeScheduler;
+import com.acabra.orderfullfilment.orderserver.dto.DeliveryOrderRequestDTO;
+import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
+import com.acabra.orderfullfilment.orderserver.kitchen.VirtualClock;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+/**
+ * Single threaded discrete event simulation: instead of waiting, the virtual clock jumps straight to the
+ * next thing that happens, being the arrival of an order, a task due in the virtual timer or an event
+ * waiting in the notification queue. The events go through the same dispatching logic used by the
+ * server, so a full day of orders replays in the time it takes to process them.
+ */
+@Slf4j
+public class DiscreteEventSimulation {
+
+    private final Consumer<OutputEvent> dispatcher;
+    private final Consumer<DeliveryOrderRequestDTO> orderHandler;
+    private final Queue<OutputEvent> deque;
+    private final VirtualTimeScheduler scheduler;
+    private final VirtualClock clock;
+
+    public DiscreteEventSimulation(Consumer<OutputEvent> dispatcher, Consumer<DeliveryOrderRequestDTO> orderHandler,
+                                   Queue<OutputEvent> deque, VirtualTimeScheduler scheduler) {
+        this.dispatcher = dispatcher;
+        this.orderHandler = orderHandler;
+        this.deque = deque;
+        this.scheduler = scheduler;
+        this.clock = scheduler.getClock();
+    }
+
+    /**
+     * Replays the given orders until no more events remain
+     * @param orders the orders to replay
+     * @param ordersPerSecond the rate at which orders are received, in virtual time
+     * @return a summary of the simulation
+     */
+    public Result run(Iterator<DeliveryOrderRequestDTO> orders, double ordersPerSecond) {
+        if (ordersPerSecond <= 0) {
+            throw new IllegalArgumentException("The order rate must be positive: " + ordersPerSecond);
+        }
+        final long startWall = System.nanoTime();
+        final long start = clock.now();
+        final double millisBetweenOrders = 1000.0 / ordersPerSecond;
+        long ordersReplayed = 0L;
+        long eventsDispatched = 0L;
+        long nextOrderAt = orders.hasNext() ? start : Long.MAX_VALUE;
+        while (true) {
+            OutputEvent head = deque.peek();
+            long nextEventAt = null == head ? Long.MAX_VALUE : Math.max(head.createdAt, clock.now());
+            long nextTaskAt = scheduler.nextDueTime();
+            if (nextEventAt == Long.MAX_VALUE && nextTaskAt == Long.MAX_VALUE && nextOrderAt == Long.MAX_VALUE) {
+                break;
+            }
+            if (nextEventAt <= nextTaskAt && nextEventAt <= nextOrderAt) {
+                clock.advanceTo(nextEventAt);
+                OutputEvent event = deque.poll();
+                if (null != event) {
+                    dispatchSafely(event);
+                    eventsDispatched++;
+                }
+            } else if (nextTaskAt <= nextOrderAt) {
+                scheduler.advanceTo(nextTaskAt);
+            } else {
+                clock.advanceTo(nextOrderAt);
+                orderHandler.accept(orders.next());
+                ordersReplayed++;
+                nextOrderAt = orders.hasNext() ? start + Math.round(ordersReplayed * millisBetweenOrders)
+                        : Long.MAX_VALUE;
+            }
+        }
+        return new Result(ordersReplayed, eventsDispatched, clock.now() - start,
+                (System.nanoTime() - startWall) / 1_000_000L);
+    }
+
+    private void dispatchSafely(OutputEvent event) {
+        try {
+            dispatcher.accept(event);
+        } catch (Exception e) {
+            log.warn("Unable to dispatch event [{}]: {}", event.getType(), e.getMessage(), e);
+        }
+    }
+
+    public static class Result {
+        public final long ordersReplayed;
+        public final long eventsDispatched;
+        public final long simulatedMillis;
+        public final long wallClockMillis;
+
+        Result(long ordersReplayed, long eventsDispatched, long simulatedMillis, long wallClockMillis) {
+            this.ordersReplayed = ordersReplayed;
+            this.eventsDispatched = eventsDispatched;
+            this.simulatedMillis = simulatedMillis;
+            this.wallClockMillis = wallClockMillis;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.acabra.orderfullfilment.orderserver.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative latencies using log-linear buckets (HDR style): values below 64 are
+ * counted exactly, above that every power of two is split in 32 sub-buckets so the relative error of the
+ * reported percentiles stays below ~3%. Recording threads are spread over stripes to avoid contention, the
+ * stripes are merged when a snapshot is taken, no value is ever sampled out or lost.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final int stripeMask;
+    private final AtomicLongArray counts;
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    LatencyHistogram(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+        this.stripeMask = size - 1;
+        this.counts = new AtomicLongArray(size * BUCKET_COUNT);
+    }
+
+    public void record(long value) {
+        long v = Math.max(0L, value);
+        int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        counts.getAndIncrement(stripe * BUCKET_COUNT + bucketIndex(v));
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    static int bucketIndex(long value) {
+        int shift = Math.max(0, Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * @return the highest value that falls in the given bucket
+     */
+    static long highestValueOf(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    public Snapshot snapshot() {
+        return summarize(mergedCounts(), sum.sum(), max.get());
+    }
+
+    /**
+     * @return a reader reporting only the values recorded between two consecutive reads
+     */
+    public IntervalReader intervalReader() {
+        return new IntervalReader();
+    }
+
+    private long[] mergedCounts() {
+        long[] merged = new long[BUCKET_COUNT];
+        for (int i = 0; i < counts.length(); i++) {
+            merged[i % BUCKET_COUNT] += counts.get(i);
+        }
+        return merged;
+    }
+
+    private static Snapshot summarize(long[] merged, long sum, long maxValue) {
+        long total = 0L;
+        for (long c : merged) {
+            total += c;
+        }
+        return new Snapshot(total,
+                total == 0 ? 0d : (double) sum / total,
+                percentile(merged, total, 0.5d, maxValue),
+                percentile(merged, total, 0.9d, maxValue),
+                percentile(merged, total, 0.99d, maxValue),
+                percentile(merged, total, 0.999d, maxValue),
+                maxValue);
+    }
+
+    private static long percentile(long[] merged, long total, double quantile, long maxValue) {
+        if (total == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+        long seen = 0L;
+        for (int i = 0; i < merged.length; i++) {
+            seen += merged[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    /**
+     * Computes the distribution of the values recorded since the previous read by subtracting the merged
+     * counts of the previous read, recording threads are never blocked.
+     */
+    public class IntervalReader {
+        private long[] previousCounts = new long[BUCKET_COUNT];
+        private long previousSum = 0L;
+
+        private IntervalReader() {
+        }
+
+        public synchronized Snapshot next() {
+            long[] current = mergedCounts();
+            long currentSum = sum.sum();
+            long[] delta = new long[BUCKET_COUNT];
+            int highest = -1;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                delta[i] = current[i] - previousCounts[i];
+                if (delta[i] > 0) {
+                    highest = i;
+                }
+            }
+            long intervalMax = highest < 0 ? 0L : Math.min(highestValueOf(highest), max.get());
+            Snapshot snapshot = summarize(delta, currentSum - previousSum, intervalMax);
+            this.previousCounts = current;
+            this.previousSum = currentSum;
+            return snapshot;
+        }
+    }
+
+    public static class Snapshot {
+        public final long count;
+        public final double mean;
+        public final long p50;
+        public final long p90;
+        public final long p99;
+        public final long p999;
+        public final long max;
+
+        private Snapshot(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+    }
+}
@@ -1,30 +1,109 @@
 package com.acabra.orderfullfilment.orderserver.core;
 
-import java.util.LongSummaryStatistics;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenClock;
+import com.acabra.orderfullfilment.orderserver.utils.ConcurrentLongLongMap;
+
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Delivery metrics, safe to be fed concurrently by every thread consuming the notification queue.
+ * Wait times, courier queueing times and end-to-end latencies are in millis, the queue dwell time in micros.
+ */
 public class MetricsProcessor {
 
-    private final LongSummaryStatistics foodWaitTimeStats = new LongSummaryStatistics();
-    private final LongSummaryStatistics courierWaitTimeStats = new LongSummaryStatistics();
+    private static final long NOT_MEASURED = Long.MIN_VALUE;
+
+    private final LatencyHistogram foodWaitTime = new LatencyHistogram();
+    private final LatencyHistogram courierWaitTime = new LatencyHistogram();
+    private final LatencyHistogram endToEndTime = new LatencyHistogram();
+    private final LatencyHistogram queueDwellTime = new LatencyHistogram();
+    private final LatencyHistogram courierQueueTime = new LatencyHistogram();
+    private final ConcurrentLongLongMap receivedAtByReservation = new ConcurrentLongLongMap(NOT_MEASURED);
     private final LongAdder totalOrdersReceived = new LongAdder();
     private final LongAdder ordersPrepareRequest = new LongAdder();
+    private final LongAdder ordersCancelled = new LongAdder();
+    private final LatencyHistogram.IntervalReader foodWaitInterval = foodWaitTime.intervalReader();
+    private final LatencyHistogram.IntervalReader courierWaitInterval = courierWaitTime.intervalReader();
+    private final LatencyHistogram.IntervalReader endToEndInterval = endToEndTime.intervalReader();
+    private final LatencyHistogram.IntervalReader queueDwellInterval = queueDwellTime.intervalReader();
+    private final LatencyHistogram.IntervalReader courierQueueInterval = courierQueueTime.intervalReader();
+    private long intervalStart;
+    private long intervalOrdersReceived;
+    private volatile IntervalMetrics lastInterval;
+
+    public MetricsProcessor() {
+        this(KitchenClock.now());
+    }
+
+    MetricsProcessor(long now) {
+        this.intervalStart = now;
+        rollInterval(now);
+    }
 
     public void acceptFoodWaitTime(long time) {
-        foodWaitTimeStats.accept(time);
+        foodWaitTime.record(time);
     }
 
     public void acceptCourierWaitTime(long time) {
-        courierWaitTimeStats.accept(time);
+        courierWaitTime.record(time);
+    }
+
+    /**
+     * Time a dispatch request waited for a courier to be released
+     */
+    public void acceptCourierQueueTime(long time) {
+        courierQueueTime.record(time);
+    }
+
+    public void acceptQueueDwellNanos(long nanos) {
+        queueDwellTime.record(TimeUnit.NANOSECONDS.toMicros(nanos));
     }
 
     DeliveryMetricsSnapshot snapshot() {
+        LatencyHistogram.Snapshot food = this.foodWaitTime.snapshot();
+        LatencyHistogram.Snapshot courier = this.courierWaitTime.snapshot();
         return DeliveryMetricsSnapshot.of(
                 this.totalOrdersReceived.sum(),
                 this.ordersPrepareRequest.sum(),
-                this.foodWaitTimeStats.getCount(),
-                this.foodWaitTimeStats.getAverage(),
-                this.courierWaitTimeStats.getAverage());
+                food.count,
+                this.ordersCancelled.sum(),
+                food.mean,
+                courier.mean,
+                food,
+                courier,
+                this.endToEndTime.snapshot(),
+                this.queueDwellTime.snapshot(),
+                this.courierQueueTime.snapshot());
+    }
+
+    /**
+     * Closes the current window and starts the next one, meant to be called on a fixed schedule so every reader
+     * sees the same windows. The recording threads are not blocked while the window is computed.
+     * @param now current time
+     */
+    synchronized void rollInterval(long now) {
+        long received = this.totalOrdersReceived.sum();
+        LatencyHistogram.Snapshot food = this.foodWaitInterval.next();
+        IntervalMetrics metrics = IntervalMetrics.of(now - this.intervalStart,
+                received - this.intervalOrdersReceived,
+                food.count,
+                food,
+                this.courierWaitInterval.next(),
+                this.endToEndInterval.next(),
+                this.queueDwellInterval.next(),
+                this.courierQueueInterval.next());
+        this.intervalStart = now;
+        this.intervalOrdersReceived = received;
+        this.lastInterval = metrics;
+    }
+
+    /**
+     * Read only, the window is not affected by how often it is read
+     * @return throughput and latency distribution of the events processed in the last closed window
+     */
+    IntervalMetrics lastInterval() {
+        return this.lastInterval;
     }
 
     public void acceptOrderReceived() {
@@ -35,32 +114,131 @@ public class MetricsProcessor {
         this.ordersPrepareRequest.increment();
     }
 
+    /**
+     * Starts measuring the end-to-end latency of the order with the given kitchen reservation
+     */
+    public void acceptOrderPrepareRequest(long reservationId, long receivedAt) {
+        acceptOrderPrepareRequest();
+        this.receivedAtByReservation.put(reservationId, receivedAt);
+    }
+
+    /**
+     * The order will not be delivered, stops measuring its end-to-end latency
+     */
+    public void acceptOrderCancelled(long reservationId) {
+        this.ordersCancelled.increment();
+        this.receivedAtByReservation.remove(reservationId);
+    }
+
+    /**
+     * @return the end-to-end latency of the order, -1 if the order was not being measured
+     */
+    public long acceptOrderDelivered(long reservationId, long deliveredAt) {
+        long receivedAt = this.receivedAtByReservation.remove(reservationId);
+        if (NOT_MEASURED == receivedAt) {
+            return -1L;
+        }
+        long latency = deliveredAt - receivedAt;
+        this.endToEndTime.record(latency);
+        return latency;
+    }
+
+    public static class IntervalMetrics {
+
+        public final long intervalMillis;
+        public final long ordersReceived;
+        public final long ordersDelivered;
+        public final double ordersReceivedPerSecond;
+        public final double ordersDeliveredPerSecond;
+        public final LatencyHistogram.Snapshot foodWaitTime;
+        public final LatencyHistogram.Snapshot courierWaitTime;
+        public final LatencyHistogram.Snapshot endToEndTime;
+        public final LatencyHistogram.Snapshot queueDwellTime;
+        public final LatencyHistogram.Snapshot courierQueueTime;
+
+        private IntervalMetrics(long intervalMillis, long ordersReceived, long ordersDelivered,
+                                LatencyHistogram.Snapshot foodWaitTime,
+                                LatencyHistogram.Snapshot courierWaitTime,
+                                LatencyHistogram.Snapshot endToEndTime,
+                                LatencyHistogram.Snapshot queueDwellTime,
+                                LatencyHistogram.Snapshot courierQueueTime) {
+            this.intervalMillis = intervalMillis;
+            this.ordersReceived = ordersReceived;
+            this.ordersDelivered = ordersDelivered;
+            this.ordersReceivedPerSecond = perSecond(ordersReceived, intervalMillis);
+            this.ordersDeliveredPerSecond = perSecond(ordersDelivered, intervalMillis);
+            this.foodWaitTime = foodWaitTime;
+            this.courierWaitTime = courierWaitTime;
+            this.endToEndTime = endToEndTime;
+            this.queueDwellTime = queueDwellTime;
+            this.courierQueueTime = courierQueueTime;
+        }
+
+        private static double perSecond(long total, long intervalMillis) {
+            return intervalMillis <= 0 ? 0d : total * 1000d / intervalMillis;
+        }
+
+        public static IntervalMetrics of(long intervalMillis, long ordersReceived, long ordersDelivered,
+                                         LatencyHistogram.Snapshot foodWaitTime,
+                                         LatencyHistogram.Snapshot courierWaitTime,
+                                         LatencyHistogram.Snapshot endToEndTime,
+                                         LatencyHistogram.Snapshot queueDwellTime,
+                                         LatencyHistogram.Snapshot courierQueueTime) {
+            return new IntervalMetrics(intervalMillis, ordersReceived, ordersDelivered, foodWaitTime,
+                    courierWaitTime, endToEndTime, queueDwellTime, courierQueueTime);
+        }
+    }
 
     public static class DeliveryMetricsSnapshot {
 
         public final long totalOrdersReceived;
         public final long totalOrdersPrepared;
         public final long totalOrdersDelivered;
+        public final long totalOrdersCancelled;
         public final double avgFoodWaitTime;
         public final double avgCourierWaitTime;
+        public final LatencyHistogram.Snapshot foodWaitTime;
+        public final LatencyHistogram.Snapshot courierWaitTime;
+        public final LatencyHistogram.Snapshot endToEndTime;
+        public final LatencyHistogram.Snapshot queueDwellTime;
+        public final LatencyHistogram.Snapshot courierQueueTime;
 
         private DeliveryMetricsSnapshot(
                                         long totalOrdersReceived,
                                         long totalOrdersPrepared,
                                         long totalOrdersDelivered,
+                                        long totalOrdersCancelled,
                                         double avgFoodWaitTime,
-                                        double avgCourierWaitTime) {
+                                        double avgCourierWaitTime,
+                                        LatencyHistogram.Snapshot foodWaitTime,
+                                        LatencyHistogram.Snapshot courierWaitTime,
+                                        LatencyHistogram.Snapshot endToEndTime,
+                                        LatencyHistogram.Snapshot queueDwellTime,
+                                        LatencyHistogram.Snapshot courierQueueTime) {
             this.totalOrdersReceived = totalOrdersReceived;
             this.totalOrdersPrepared = totalOrdersPrepared;
             this.totalOrdersDelivered = totalOrdersDelivered;
+            this.totalOrdersCancelled = totalOrdersCancelled;
             this.avgFoodWaitTime = avgFoodWaitTime;
             this.avgCourierWaitTime = avgCourierWaitTime;
+            this.foodWaitTime = foodWaitTime;
+            this.courierWaitTime = courierWaitTime;
+            this.endToEndTime = endToEndTime;
+            this.queueDwellTime = queueDwellTime;
+            this.courierQueueTime = courierQueueTime;
         }
 
         public static DeliveryMetricsSnapshot of(long totalOrdersReceived, long totalOrdersPrepared, long totalOrdersDelivered,
-                                                 double avgFoodWaitTime, double avgCourierWaitTime) {
+                                                 long totalOrdersCancelled,
+                                                 double avgFoodWaitTime, double avgCourierWaitTime,
+                                                 LatencyHistogram.Snapshot foodWaitTime,
+                                                 LatencyHistogram.Snapshot courierWaitTime,
+                                                 LatencyHistogram.Snapshot endToEndTime,
+                                                 LatencyHistogram.Snapshot queueDwellTime,
+                                                 LatencyHistogram.Snapshot courierQueueTime) {
             return new DeliveryMetricsSnapshot(totalOrdersReceived, totalOrdersPrepared, totalOrdersDelivered,
-                    avgFoodWaitTime, avgCourierWaitTime);
+                    totalOrdersCancelled, avgFoodWaitTime, avgCourierWaitTime, foodWaitTime, courierWaitTime,
+                    endToEndTime, queueDwellTime, courierQueueTime);
         }
 
     }
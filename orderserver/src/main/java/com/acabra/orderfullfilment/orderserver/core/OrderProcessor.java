@@ -1,16 +1,25 @@
 package com.acabra.orderfullfilment.orderserver.core;
 
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenClock;
 import com.acabra.orderfullfilment.orderserver.kitchen.KitchenLog;
 import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
 import com.acabra.orderfullfilment.orderserver.core.executor.NoMoreOrdersMonitor;
+import com.acabra.orderfullfilment.orderserver.core.executor.OutputEventBatchHandler;
 import com.acabra.orderfullfilment.orderserver.core.executor.OutputEventHandler;
 import com.acabra.orderfullfilment.orderserver.core.executor.SafeTask;
 import com.acabra.orderfullfilment.orderserver.core.executor.SchedulerExecutorAssistant;
+import com.acabra.orderfullfilment.orderserver.core.queue.PartitionedEventQueue;
+import com.acabra.orderfullfilment.orderserver.core.queue.RingBufferEventQueue;
+import com.acabra.orderfullfilment.orderserver.core.queue.WaitStrategy;
 import com.acabra.orderfullfilment.orderserver.courier.CourierDispatchService;
+import com.acabra.orderfullfilment.orderserver.courier.model.DispatchResult;
 import com.acabra.orderfullfilment.orderserver.event.*;
 import com.acabra.orderfullfilment.orderserver.kitchen.KitchenService;
+import com.acabra.orderfullfilment.orderserver.kitchen.LogTemplate;
 import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.SpringApplication;
 import org.springframework.context.ApplicationContext;
@@ -18,14 +27,16 @@ import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.nio.file.Paths;
 import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 @Service
+@Slf4j
 public class OrderProcessor implements Closeable, ApplicationContextAware {
     /**
      * This is the main application service, it handles processing of orders
@@ -37,6 +48,7 @@ public class OrderProcessor implements Closeable, ApplicationContextAware {
     private final KitchenService kitchenService;
     private final MetricsProcessor metricsProcessor;
     private final SchedulerExecutorAssistant schedulerAssistant;
+    private final AdmissionController admissionController;
     private ApplicationContext context;
     private final CompletableFuture<Void> completedHandle = new CompletableFuture<>();
     private final KitchenLog kLog = KitchenLog.get();
@@ -47,10 +59,27 @@ public class OrderProcessor implements Closeable, ApplicationContextAware {
                           @Qualifier("order_handler") OutputEventPublisher orderHandler,
                           @Qualifier("notification_deque") Queue<OutputEvent> deque,
                           SchedulerExecutorAssistant scheduler) {
+        this(orderServerConfig, courierService, kitchenService, orderHandler, deque, scheduler,
+                AdmissionController.unlimited());
+    }
+
+    @Autowired
+    public OrderProcessor(OrderServerConfig orderServerConfig,
+                          CourierDispatchService courierService,
+                          KitchenService kitchenService,
+                          @Qualifier("order_handler") OutputEventPublisher orderHandler,
+                          @Qualifier("notification_deque") Queue<OutputEvent> deque,
+                          SchedulerExecutorAssistant scheduler,
+                          AdmissionController admissionController) {
         this.metricsProcessor = new MetricsProcessor();
+        this.admissionController = admissionController;
         this.courierService = courierService;
         this.kitchenService = kitchenService;
         this.schedulerAssistant = scheduler;
+        String kitchenLogDir = orderServerConfig.getKitchenLogDir();
+        if (null != kitchenLogDir && !kitchenLogDir.isEmpty()) {
+            kLog.useDirectory(Paths.get(kitchenLogDir));
+        }
 
         //register public notification queue
         this.courierService.registerNotificationDeque(deque);
@@ -65,36 +94,88 @@ public class OrderProcessor implements Closeable, ApplicationContextAware {
         int maxRetries = config.getPollingMaxRetries();
         Consumer<OutputEvent> dispatchOutputEvent = this::dispatchOutputEvent;
         Supplier<Boolean> hasPendingDeliveryOrders = this::hasPendingDeliveryOrders;
-        SafeTask outputEventTask = new OutputEventHandler(deque, dispatchOutputEvent);
+        if (config.isSimulationMode()) {
+            //events are driven by the SimulationRunner
+            return;
+        }
         SafeTask noMoreOrdersTask = new NoMoreOrdersMonitor(maxRetries, hasPendingDeliveryOrders, deque);
 
         this.schedulerAssistant.scheduleAtFixedRate(noMoreOrdersTask, MONITOR_START_DELAY_MILLIS,
                 config.getPeriodShutDownMonitorMillis());
+        long metricsIntervalMillis = config.getMetricsIntervalMillis();
+        this.schedulerAssistant.scheduleAtFixedRate(new SafeTask() {
+            @Override
+            protected void doWork() {
+                metricsProcessor.rollInterval(KitchenClock.now());
+            }
+        }, metricsIntervalMillis, metricsIntervalMillis);
+        if (deque instanceof PartitionedEventQueue) {
+            //a partition must be consumed by a single thread to keep the per-order ordering
+            PartitionedEventQueue partitioned = (PartitionedEventQueue) deque;
+            for (int i = 0; i < partitioned.partitionCount(); i++) {
+                this.schedulerAssistant.runContinuously(new OutputEventBatchHandler(partitioned.partition(i),
+                        dispatchOutputEvent, config.getBatchSize(), config.getPollingTimeMillis()));
+            }
+            return;
+        }
+        if (config.isEventLoopMode() && deque instanceof BlockingQueue) {
+            BlockingQueue<OutputEvent> blockingDeque = (BlockingQueue<OutputEvent>) deque;
+            for (int i = 0; i < config.getThreadCount(); i++) {
+                this.schedulerAssistant.runContinuously(new OutputEventBatchHandler(blockingDeque,
+                        dispatchOutputEvent, config.getBatchSize(), config.getPollingTimeMillis()));
+            }
+            return;
+        }
+        SafeTask outputEventTask = new OutputEventHandler(deque, dispatchOutputEvent);
         this.schedulerAssistant.scheduleAtFixedRate(outputEventTask, 0, config.getPollingTimeMillis());
     }
 
     private boolean hasPendingDeliveryOrders() {
         MetricsProcessor.DeliveryMetricsSnapshot snapshot = this.metricsProcessor.snapshot();
-        return snapshot.totalOrdersPrepared - snapshot.totalOrdersDelivered > 0;
+        return snapshot.totalOrdersPrepared - snapshot.totalOrdersDelivered - snapshot.totalOrdersCancelled > 0;
     }
 
     private void processOrder(final OrderReceivedEvent orderReceived) {
         DeliveryOrder order = orderReceived.order;
         final long reservationId = kitchenService.provideReservationId(order);
-        String orderReceivedMsg = String.format("[EVENT] order received: orderId[%s] prepTime:[%s]ms name:%s", reservationId,
-                orderReceived.order.prepTime, orderReceived.order.name);
-        kLog.append(orderReceived.createdAt, orderReceivedMsg);
-        Optional<Integer> courierDispatched = courierService.dispatchRequest(order, reservationId, orderReceived.createdAt);
-        if(courierDispatched.isPresent()) {
-            metricsProcessor.acceptOrderPrepareRequest();
-            kitchenService.prepareMeal(reservationId, orderReceived.createdAt);
+        kLog.append(LogTemplate.ORDER_RECEIVED, orderReceived.createdAt, reservationId, orderReceived.order.prepTime,
+                orderReceived.order.name);
+        //the meal may wait for a cook station, a planned courier is timed to arrive as it is ready
+        long readyAt = kitchenService.expectedReadyAt(order, orderReceived.createdAt);
+        DispatchResult dispatchResult = courierService.dispatchRequest(order, reservationId, orderReceived.createdAt,
+                readyAt);
+        if(dispatchResult.isDispatched()) {
+            metricsProcessor.acceptOrderPrepareRequest(reservationId, orderReceived.createdAt);
+            kitchenService.prepareMeal(reservationId, orderReceived.createdAt,
+                    orderReceived.createdAt + dispatchResult.ettMillis);
+            return;
+        }
+        if(dispatchResult.isPlanned()) {
+            //the courier dispatched event arrives once the planned dispatch is due
+            metricsProcessor.acceptOrderPrepareRequest(reservationId, orderReceived.createdAt);
+            //the courier is planned to arrive as the meal is ready
+            kitchenService.prepareMeal(reservationId, orderReceived.createdAt, readyAt);
+            kLog.append(LogTemplate.COURIER_DISPATCH_PLANNED, orderReceived.createdAt, reservationId,
+                    dispatchResult.dispatchDelayMillis);
+            return;
+        }
+        if(dispatchResult.waiting) {
+            //the meal is prepared once the deferred courier dispatched event arrives
+            metricsProcessor.acceptOrderPrepareRequest(reservationId, orderReceived.createdAt);
+            kLog.append(LogTemplate.COURIER_REQUEST_WAITING, orderReceived.createdAt, reservationId);
             return;
         }
-        kLog.append("No couriers available to deliver the order ... cancelling cooking reservation");
+        kLog.append(LogTemplate.NO_COURIER_AVAILABLE, KitchenClock.now());
         kitchenService.cancelCookReservation(reservationId);
+        admissionController.release();
+    }
+
+    void dispatchOutputEvent(final OutputEvent outputEvent) {
+        metricsProcessor.acceptQueueDwellNanos(System.nanoTime() - outputEvent.createdNanos);
+        processOutputEvent(outputEvent);
     }
 
-    private void dispatchOutputEvent(final OutputEvent outputEvent) {
+    private void processOutputEvent(final OutputEvent outputEvent) {
         switch (outputEvent.getType()) {
             case ORDER_RECEIVED:
                 metricsProcessor.acceptOrderReceived();
@@ -103,38 +184,49 @@ public class OrderProcessor implements Closeable, ApplicationContextAware {
                 break;
             case COURIER_DISPATCHED:
                 CourierDispatchedEvent courierDispatchedEvent = (CourierDispatchedEvent) outputEvent;
-                String dispatchedMsg = String.format("[EVENT] courier dispatched: id[%s] estimated travel time [%s]ms",
-                        courierDispatchedEvent.courierId, courierDispatchedEvent.estimatedTravelTime);
-                kLog.append(outputEvent.createdAt, dispatchedMsg);
+                kLog.append(LogTemplate.COURIER_DISPATCHED, outputEvent.createdAt, courierDispatchedEvent.courierId,
+                        courierDispatchedEvent.estimatedTravelTime);
                 courierService.processCourierDispatchedEvent(courierDispatchedEvent);
+                if (courierDispatchedEvent.deferred) {
+                    metricsProcessor.acceptCourierQueueTime(courierDispatchedEvent.queuedMillis);
+                    kitchenService.prepareMeal(courierDispatchedEvent.kitchenReservationId, outputEvent.createdAt,
+                            outputEvent.createdAt + courierDispatchedEvent.estimatedTravelTime);
+                }
+                break;
+            case COURIER_WAIT_EXPIRED:
+                CourierWaitExpiredEvent courierWaitExpiredEvent = (CourierWaitExpiredEvent) outputEvent;
+                kLog.append(LogTemplate.COURIER_WAIT_EXPIRED, outputEvent.createdAt,
+                        courierWaitExpiredEvent.kitchenReservationId, courierWaitExpiredEvent.waitedMillis);
+                metricsProcessor.acceptOrderCancelled(courierWaitExpiredEvent.kitchenReservationId);
+                kitchenService.cancelCookReservation(courierWaitExpiredEvent.kitchenReservationId);
+                admissionController.release();
                 break;
             case ORDER_PREPARED:
                 OrderPreparedEvent orderPreparedEvent = (OrderPreparedEvent) outputEvent;
-                String preparedMsg = String.format("[EVENT] order prepared: mealId[%s], orderId[%s]",
-                        orderPreparedEvent.kitchenReservationId, orderPreparedEvent.deliveryOrderId);
-                kLog.append(outputEvent.createdAt, preparedMsg);
+                kLog.append(LogTemplate.ORDER_PREPARED, outputEvent.createdAt, orderPreparedEvent.kitchenReservationId,
+                        orderPreparedEvent.deliveryOrderId);
                 courierService.processOrderPrepared(orderPreparedEvent);
                 break;
             case COURIER_ARRIVED:
                 CourierArrivedEvent courierArrivedEvent = (CourierArrivedEvent) outputEvent;
-                String arrivedMsg = String.format("[EVENT] courier arrived id[%s], for pickup",
-                        courierArrivedEvent.courierId);
-                kLog.append(outputEvent.createdAt, arrivedMsg);
+                kLog.append(LogTemplate.COURIER_ARRIVED, outputEvent.createdAt, courierArrivedEvent.courierId);
                 courierService.processCourierArrived(courierArrivedEvent);
                 break;
             case ORDER_PICKED_UP:
                 OrderPickedUpEvent orderPickedUpEvent = (OrderPickedUpEvent) outputEvent;
-                String pickedUpMsg = String.format("[EVENT] order picked up: orderId[%s] courierId[%s]",
-                        orderPickedUpEvent.mealOrderId, orderPickedUpEvent.courierId);
-                kLog.append(outputEvent.createdAt, pickedUpMsg);
+                kLog.append(LogTemplate.ORDER_PICKED_UP, outputEvent.createdAt, orderPickedUpEvent.mealOrderId,
+                        orderPickedUpEvent.courierId);
                 reportPickupMetrics(orderPickedUpEvent);
+                kitchenService.releaseReservation(orderPickedUpEvent.mealOrderId);
                 processOrderPickedUp(orderPickedUpEvent);
                 break;
             case ORDER_DELIVERED:
                 OrderDeliveredEvent orderDeliveredEvent = (OrderDeliveredEvent) outputEvent;
-                String deliveredMsg = String.format("[EVENT] order delivered: orderId[%s] by courierId[%s]",
-                        orderDeliveredEvent.mealOrderId, orderDeliveredEvent.courierId);
-                kLog.append(outputEvent.createdAt, deliveredMsg);
+                kLog.append(LogTemplate.ORDER_DELIVERED, outputEvent.createdAt, orderDeliveredEvent.mealOrderId,
+                        orderDeliveredEvent.courierId);
+                long pickupTime = metricsProcessor.acceptOrderDelivered(orderDeliveredEvent.mealOrderId,
+                        outputEvent.createdAt);
+                admissionController.acceptOrderPickedUp(pickupTime);
                 courierService.processOrderDelivered(orderDeliveredEvent);
                 break;
             case NO_PENDING_ORDERS:
@@ -148,41 +240,67 @@ public class OrderProcessor implements Closeable, ApplicationContextAware {
 
     private void processOrderPickedUp(OrderPickedUpEvent orderPickedUpEvent) {
         //emulate instant delivery TODO: [TRACKER-TICKET-SYSTEM-1235 implement real delivery]
-        this.dispatchOutputEvent(OrderDeliveredEvent.of(orderPickedUpEvent));
+        this.processOutputEvent(OrderDeliveredEvent.of(orderPickedUpEvent));
     }
 
     private void reportPickupMetrics(OrderPickedUpEvent orderPickedUpEvent) {
         this.metricsProcessor.acceptFoodWaitTime(orderPickedUpEvent.foodWaitTime);
         this.metricsProcessor.acceptCourierWaitTime(orderPickedUpEvent.courierWaitTime);
-        String message = String.format("[METRICS] Food wait time: [%s]ms - Courier wait time [%s]ms, orderId[%s]",
-                orderPickedUpEvent.foodWaitTime, orderPickedUpEvent.courierWaitTime, orderPickedUpEvent.mealOrderId);
-        kLog.append(orderPickedUpEvent.createdAt, message);
+        kLog.append(LogTemplate.PICKUP_METRICS, orderPickedUpEvent.createdAt, orderPickedUpEvent.foodWaitTime,
+                orderPickedUpEvent.courierWaitTime, orderPickedUpEvent.mealOrderId);
     }
 
     private void reportAverageMetrics(OutputEvent outputEvent) {
         MetricsProcessor.DeliveryMetricsSnapshot snapshot = this.metricsProcessor.snapshot();
-        String message = String.format("[METRICS] Avg. Food Wait Time: [%.4f]ms, Avg Courier Wait Time [%.4f]ms, " +
-                        "Total Orders Received %s, Total Orders Delivered %s", snapshot.avgFoodWaitTime,
-                snapshot.avgCourierWaitTime, snapshot.totalOrdersReceived, snapshot.totalOrdersDelivered);
-        kLog.append(outputEvent.createdAt, message);
+        kLog.append(LogTemplate.AVERAGE_METRICS, outputEvent.createdAt, Double.doubleToLongBits(snapshot.avgFoodWaitTime),
+                Double.doubleToLongBits(snapshot.avgCourierWaitTime), snapshot.totalOrdersReceived,
+                snapshot.totalOrdersDelivered);
+        reportLatency(LogTemplate.FOOD_WAIT_LATENCY, outputEvent.createdAt, snapshot.foodWaitTime);
+        reportLatency(LogTemplate.COURIER_WAIT_LATENCY, outputEvent.createdAt, snapshot.courierWaitTime);
+        reportLatency(LogTemplate.END_TO_END_LATENCY, outputEvent.createdAt, snapshot.endToEndTime);
+        reportLatency(LogTemplate.QUEUE_DWELL_LATENCY, outputEvent.createdAt, snapshot.queueDwellTime);
+        reportLatency(LogTemplate.COURIER_QUEUE_LATENCY, outputEvent.createdAt, snapshot.courierQueueTime);
+    }
+
+    private void reportLatency(LogTemplate template, long time, LatencyHistogram.Snapshot latency) {
+        kLog.append(template, time, latency.p50, latency.p90, latency.p99, latency.p999);
     }
 
     @Override
     public void close() {
         if (!this.completedHandle.isDone()) {
-            kLog.append("[SYSTEM] queue processing shutting down, no orders remaining");
+            kLog.append(LogTemplate.SHUTDOWN, KitchenClock.now());
             this.schedulerAssistant.shutdown();
             this.courierService.shutdown();
             this.kitchenService.shutdown();
             this.completedHandle.complete(null);
+            //printing deletes the log files, the exit below would skip it
+            kLog.printLog();
             if(null != this.context) {
                 System.exit(SpringApplication.exit(this.context, () -> 0));
             }
-            kLog.printLog();
         }
     }
 
     @Bean("notification_deque")
+    public static Queue<OutputEvent> buildNotificationDeque(OrderServerConfig config) {
+        if (config.isSimulationMode()) {
+            //the simulation consumes the events in time order
+            return buildNotificationDeque();
+        }
+        if (config.isPartitionedQueue()) {
+            if (!config.isEventLoopMode()) {
+                log.warn("[SYSTEM] the partitioned queue is consumed by one event loop per partition, dispatch mode [{}]"
+                        + " is ignored", config.getDispatchMode());
+            }
+            return new PartitionedEventQueue(config.getThreadCount());
+        }
+        if (config.isRingBufferQueue()) {
+            return new RingBufferEventQueue(config.getRingBufferSize(), WaitStrategy.of(config.getWaitStrategy()));
+        }
+        return buildNotificationDeque();
+    }
+
     public static Queue<OutputEvent> buildNotificationDeque() {
         return new PriorityBlockingQueue<>();
     }
@@ -191,6 +309,14 @@ public class OrderProcessor implements Closeable, ApplicationContextAware {
         return this.metricsProcessor.snapshot();
     }
 
+    /**
+     * @return the metrics of the events processed in the last window closed, the windows roll every
+     * orderserver.metrics-interval-millis regardless of the reads
+     */
+    public MetricsProcessor.IntervalMetrics getIntervalMetrics() {
+        return this.metricsProcessor.lastInterval();
+    }
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.context = applicationContext;
@@ -7,6 +7,7 @@ import com.acabra.orderfullfilment.orderserver.event.OutputEventPublisher;
 import com.acabra.orderfullfilment.orderserver.kitchen.KitchenClock;
 import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.Queue;
@@ -18,16 +19,51 @@ import java.util.function.Consumer;
 public class OrderRequestHandler implements OutputEventPublisher, Consumer<DeliveryOrderRequestDTO> {
 
     private final AtomicReference<Queue<OutputEvent>> pubDeque = new AtomicReference<>();
+    private final AdmissionController admissionController;
+
+    public OrderRequestHandler() {
+        this(AdmissionController.unlimited());
+    }
+
+    @Autowired
+    public OrderRequestHandler(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
 
     @Override
     public void accept(DeliveryOrderRequestDTO deliveryOrderRequestDTO) {
+        tryAccept(deliveryOrderRequestDTO);
+    }
+
+    /**
+     * Publishes the order if the admission controller lets it in
+     * @return true if the order was published, false if it was invalid, shed or could not be published
+     */
+    public boolean tryAccept(DeliveryOrderRequestDTO deliveryOrderRequestDTO) {
         if(deliveryOrderRequestDTO.prepTime < 0) {
             log.info("Order preparation time can't be negative: " + deliveryOrderRequestDTO.prepTime);
-            return;
+            return false;
+        }
+        AdmissionController.Decision decision = admissionController.tryAdmit();
+        if (!decision.isAdmitted()) {
+            log.debug("Order [{}] shed: {}", deliveryOrderRequestDTO.id, decision);
+            return false;
         }
+        return publishAdmitted(deliveryOrderRequestDTO);
+    }
+
+    /**
+     * Publishes an order the caller already admitted, the admission is given back if the order can't be published
+     * @return true if the order was published
+     */
+    public boolean publishAdmitted(DeliveryOrderRequestDTO deliveryOrderRequestDTO) {
         DeliveryOrder deliveryOrder = DeliveryOrder.of(deliveryOrderRequestDTO.id, deliveryOrderRequestDTO.name,
                 deliveryOrderRequestDTO.prepTime);
-        publish(OrderReceivedEvent.of(KitchenClock.now(), deliveryOrder));
+        if (publish(OrderReceivedEvent.of(KitchenClock.now(), deliveryOrder))) {
+            return true;
+        }
+        admissionController.release();
+        return false;
     }
 
     @Override
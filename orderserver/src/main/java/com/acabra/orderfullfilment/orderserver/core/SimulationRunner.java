@@ -0,0 +1,80 @@
+package com.acabra.orderfullfilment.orderserver.core;
+
+import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
+import com.acabra.orderfullfilment.orderserver.core.timer.EventTimer;
+import com.acabra.orderfullfilment.orderserver.core.timer.VirtualTimeScheduler;
+import com.acabra.orderfullfilment.orderserver.dto.DeliveryOrderRequestDTO;
+import com.acabra.orderfullfilment.orderserver.event.EventType;
+import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenClock;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Queue;
+
+/**
+ * Replays the configured orders file through a DiscreteEventSimulation once the server started
+ * (orderserver.dispatch-mode=simulation), then shuts the server down reporting the metrics as usual.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "orderserver", name = "dispatch-mode", havingValue = "simulation")
+public class SimulationRunner implements ApplicationRunner {
+
+    private final OrderServerConfig config;
+    private final OrderProcessor orderProcessor;
+    private final OrderRequestHandler orderHandler;
+    private final Queue<OutputEvent> deque;
+    private final EventTimer timer;
+    private final ResourceLoader resourceLoader;
+
+    public SimulationRunner(OrderServerConfig config, OrderProcessor orderProcessor,
+                            @Qualifier("order_handler") OrderRequestHandler orderHandler,
+                            @Qualifier("notification_deque") Queue<OutputEvent> deque,
+                            EventTimer timer, ResourceLoader resourceLoader) {
+        this.config = config;
+        this.orderProcessor = orderProcessor;
+        this.orderHandler = orderHandler;
+        this.deque = deque;
+        this.timer = timer;
+        this.resourceLoader = resourceLoader;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!(timer instanceof VirtualTimeScheduler)) {
+            throw new IllegalStateException("The simulation requires a virtual time scheduler");
+        }
+        DiscreteEventSimulation simulation = new DiscreteEventSimulation(orderProcessor::dispatchOutputEvent,
+                orderHandler, deque, (VirtualTimeScheduler) timer);
+        String ordersFile = config.getSimulationOrdersFile();
+        log.info("[SYSTEM] simulating orders from [{}] at [{}] orders per second", ordersFile,
+                config.getSimulationOrdersPerSecond());
+        DiscreteEventSimulation.Result result;
+        try (InputStream inputStream = openOrders(ordersFile);
+             MappingIterator<DeliveryOrderRequestDTO> orders = new ObjectMapper()
+                     .readerFor(DeliveryOrderRequestDTO.class).readValues(inputStream)) {
+            result = simulation.run(orders, config.getSimulationOrdersPerSecond());
+        }
+        log.info("[SYSTEM] simulation completed: orders [{}], events [{}], simulated time [{}]ms, wall clock [{}]ms",
+                result.ordersReplayed, result.eventsDispatched, result.simulatedMillis, result.wallClockMillis);
+        orderProcessor.dispatchOutputEvent(new OutputEvent(EventType.NO_PENDING_ORDERS, KitchenClock.now()) {});
+    }
+
+    private InputStream openOrders(String location) throws IOException {
+        if (location.startsWith("classpath:")) {
+            return resourceLoader.getResource(location).getInputStream();
+        }
+        return new FileInputStream(location);
+    }
+}
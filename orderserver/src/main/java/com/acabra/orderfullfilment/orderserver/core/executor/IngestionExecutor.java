@@ -0,0 +1,82 @@
+package com.acabra.orderfullfilment.orderserver.core.executor;
+
+import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dedicated stage handing the received orders to the notification queue, it owns its threads and a bounded
+ * queue so bursts of orders neither compete with the common pool nor grow an unbounded backlog, when the
+ * queue is full the order is refused and the caller is expected to push back on the client.
+ */
+@Component
+@Slf4j
+public class IngestionExecutor implements AutoCloseable {
+
+    private final ThreadPoolExecutor executor;
+    private final int retryAfterSeconds;
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    public IngestionExecutor(OrderServerConfig config) {
+        this(config.getIngestionThreads(), config.getIngestionQueueCapacity(), config.getIngestionRetryAfterSeconds());
+    }
+
+    public IngestionExecutor(int threads, int capacity, int retryAfterSeconds) {
+        log.info("[SYSTEM] starting the ingestion stage with [{}] threads and capacity for [{}] orders", threads,
+                capacity);
+        AtomicInteger ids = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity), task -> {
+                    Thread thread = new Thread(task, "order-ingestion-" + ids.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @param task the task handing an order to the server
+     * @return false if the ingestion queue is full (or the stage shut down) and the task was not accepted
+     */
+    public boolean trySubmit(Runnable task) {
+        try {
+            this.executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            this.rejected.increment();
+            return false;
+        }
+    }
+
+    /**
+     * @return the orders waiting for an ingestion thread
+     */
+    public int backlog() {
+        return this.executor.getQueue().size();
+    }
+
+    /**
+     * @return the total amount of orders refused because the stage was full
+     */
+    public long rejected() {
+        return this.rejected.sum();
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdown();
+    }
+}
@@ -0,0 +1,66 @@
+package com.acabra.orderfullfilment.orderserver.core.executor;
+
+import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Event loop task: blocks on the notification queue until an event is available and then drains up to
+ * batchSize events, dispatching all of them before returning. Meant to be run continuously
+ * (see SchedulerExecutorAssistant#runContinuously) instead of being scheduled at a fixed rate.
+ */
+@Slf4j
+public class OutputEventBatchHandler extends SafeTask {
+    private final BlockingQueue<OutputEvent> deque;
+    private final Consumer<OutputEvent> dispatch;
+    private final int batchSize;
+    private final long pollTimeoutMillis;
+    private final List<OutputEvent> batch;
+
+    public OutputEventBatchHandler(final BlockingQueue<OutputEvent> deque, Consumer<OutputEvent> dispatch,
+                                   int batchSize, long pollTimeoutMillis) {
+        this.deque = deque;
+        this.dispatch = dispatch;
+        this.batchSize = Math.max(1, batchSize);
+        this.pollTimeoutMillis = pollTimeoutMillis;
+        this.batch = new ArrayList<>(this.batchSize);
+    }
+
+    @Override
+    protected void doWork() {
+        OutputEvent first;
+        try {
+            first = deque.poll(pollTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        if (batchSize > 1) {
+            deque.drainTo(batch, batchSize - 1);
+        }
+        try {
+            for (OutputEvent event : batch) {
+                dispatchSafely(event);
+            }
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void dispatchSafely(OutputEvent event) {
+        try {
+            this.dispatch.accept(event);
+        } catch (Throwable t) {
+            log.warn("Unable to dispatch event [{}]: {}", event.getType(), t.getMessage(), t);
+        }
+    }
+}
@@ -18,11 +18,14 @@ public class SchedulerExecutorAssistant {
 
     private final ScheduledExecutorService scheduler;
     private final ExecutorService concurrentExecutor;
+    private final ExecutorService eventLoopExecutor;
+    private volatile boolean shutdown = false;
 
     public SchedulerExecutorAssistant(OrderServerConfig config) {
         log.info("[SYSTEM] starting the scheduler with [{}] concurrent threads", config.getThreadCount());
         this.concurrentExecutor = Executors.newFixedThreadPool(config.getThreadCount());
         this.scheduler = Executors.newSingleThreadScheduledExecutor();
+        this.eventLoopExecutor = Executors.newCachedThreadPool();
     }
 
     public boolean isOrdersMonitorTerminated() {
@@ -30,6 +33,8 @@ public class SchedulerExecutorAssistant {
     }
 
     public void shutdown() {
+        this.shutdown = true;
+        this.eventLoopExecutor.shutdown();
         this.scheduler.shutdown();
         this.concurrentExecutor.shutdown();
     }
@@ -38,4 +43,17 @@ public class SchedulerExecutorAssistant {
         this.scheduler.scheduleAtFixedRate(() -> concurrentExecutor.submit(task),
                 delay, period, TimeUnit.MILLISECONDS);
     }
+
+    /**
+     * Runs the given task on a dedicated thread over and over until shutdown is requested, the task is
+     * expected to block for a bounded time when there is no work available.
+     * @param task the task to run continuously
+     */
+    public void runContinuously(SafeTask task) {
+        this.eventLoopExecutor.submit(() -> {
+            while (!this.shutdown && !Thread.currentThread().isInterrupted()) {
+                task.run();
+            }
+        });
+    }
 }
@@ -0,0 +1,101 @@
+package com.acabra.orderfullfilment.orderserver.core.queue;
+
+import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Notification queue split into independent partitions, events are routed by their partition key
+ * (see OutputEvent#partitionKey) so all the events of the same order land on the same partition.
+ * Each partition is meant to be consumed by a single thread, preserving the per-order ordering while
+ * publishers and consumers of different orders do not contend on the same lock.
+ */
+public class PartitionedEventQueue extends AbstractQueue<OutputEvent> {
+
+    private final List<BlockingQueue<OutputEvent>> partitions;
+    private final AtomicInteger pollCursor = new AtomicInteger();
+
+    public PartitionedEventQueue(int partitionCount) {
+        this(partitionCount, PriorityBlockingQueue::new);
+    }
+
+    public PartitionedEventQueue(int partitionCount, Supplier<BlockingQueue<OutputEvent>> partitionFactory) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("The partition count must be greater than 0: " + partitionCount);
+        }
+        List<BlockingQueue<OutputEvent>> list = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            list.add(partitionFactory.get());
+        }
+        this.partitions = List.copyOf(list);
+    }
+
+    public int partitionCount() {
+        return partitions.size();
+    }
+
+    public BlockingQueue<OutputEvent> partition(int index) {
+        return partitions.get(index);
+    }
+
+    int partitionIndex(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(h ^ (h >>> 32), (long) partitions.size());
+    }
+
+    @Override
+    public boolean offer(OutputEvent event) {
+        Objects.requireNonNull(event);
+        return partitions.get(partitionIndex(event.partitionKey())).offer(event);
+    }
+
+    /**
+     * Polls the partitions in round robin, only intended for consumers not bound to a partition.
+     * @return the head of the next non empty partition or null if all the partitions are empty
+     */
+    @Override
+    public OutputEvent poll() {
+        int size = partitions.size();
+        int start = Math.floorMod(pollCursor.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            OutputEvent event = partitions.get((start + i) % size).poll();
+            if (null != event) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public OutputEvent peek() {
+        for (BlockingQueue<OutputEvent> partition : partitions) {
+            OutputEvent event = partition.peek();
+            if (null != event) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (BlockingQueue<OutputEvent> partition : partitions) {
+            size += partition.size();
+        }
+        return size;
+    }
+
+    @Override
+    public Iterator<OutputEvent> iterator() {
+        return partitions.stream().flatMap(BlockingQueue::stream).iterator();
+    }
+}
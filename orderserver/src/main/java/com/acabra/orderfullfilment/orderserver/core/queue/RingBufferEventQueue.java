@@ -0,0 +1,294 @@
+package com.acabra.orderfullfilment.orderserver.core.queue;
+
+import com.acabra.orderfullfilment.orderserver.event.EventType;
+import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer multi-consumer queue backed by a pre-allocated power of two ring buffer.
+ * Producers and consumers claim positions through a CAS on their own cursor, each slot carries a sequence
+ * telling whether it is ready to be written or read, so no locks or per event allocations are required.
+ * Unlike the PriorityBlockingQueue the events are consumed in publication order.
+ *
+ * Back-pressure applies only where orders enter: when the ring is full the offer of an order received waits (using
+ * the wait strategy) up to the offer timeout for a consumer to free a slot, then refuses the order returning false as
+ * {@link java.util.Queue#offer} does, the timed offer gives up once its own timeout elapses and put waits until it is
+ * interrupted. Any other event belongs to an order already in flight, dropping it would strand the order and the
+ * consumers publish them while draining the ring, so waiting would deadlock them. Those events spill into an
+ * unbounded overflow consumed after the ring, bounded in practice by the orders admitted, and no order is received
+ * while the overflow is not empty.
+ */
+@Slf4j
+public class RingBufferEventQueue extends AbstractQueue<OutputEvent> implements BlockingQueue<OutputEvent> {
+
+    private final OutputEvent[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong producerCursor = new AtomicLong();
+    private final AtomicLong consumerCursor = new AtomicLong();
+    private final WaitStrategy waitStrategy;
+    private final long offerTimeoutNanos;
+    private final Queue<OutputEvent> overflow = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger overflowSize = new AtomicInteger();
+
+    static final long DEFAULT_OFFER_TIMEOUT_MILLIS = 1000L;
+
+    public RingBufferEventQueue(int requestedCapacity, WaitStrategy waitStrategy) {
+        this(requestedCapacity, waitStrategy, DEFAULT_OFFER_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param offerTimeoutMillis how long the offer of an order received waits for a free slot before refusing it
+     */
+    public RingBufferEventQueue(int requestedCapacity, WaitStrategy waitStrategy, long offerTimeoutMillis) {
+        if (requestedCapacity < 2 || requestedCapacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid ring buffer capacity: " + requestedCapacity);
+        }
+        int capacity = 1 << (32 - Integer.numberOfLeadingZeros(requestedCapacity - 1));
+        this.buffer = new OutputEvent[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, offerTimeoutMillis));
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    private boolean tryOffer(OutputEvent event) {
+        while (true) {
+            long position = producerCursor.get();
+            int index = (int) position & mask;
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (producerCursor.compareAndSet(position, position + 1)) {
+                    buffer[index] = event;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+    }
+
+    private static boolean isReceivedOrder(OutputEvent event) {
+        return EventType.ORDER_RECEIVED == event.type;
+    }
+
+    private boolean tryOfferReceivedOrder(OutputEvent event) {
+        return overflowSize.get() == 0 && tryOffer(event);
+    }
+
+    /**
+     * Publishes the event of an order in flight without waiting, a full ring spills it into the overflow
+     */
+    private void offerInFlight(OutputEvent event) {
+        if (overflowSize.get() > 0 || !tryOffer(event)) {
+            overflowSize.incrementAndGet();
+            overflow.offer(event);
+        }
+    }
+
+    /**
+     * @return the head of the ring, else of the overflow, the events spill into the overflow once the ring is full
+     */
+    private OutputEvent pollNext() {
+        OutputEvent event = tryPoll();
+        if (null == event && overflowSize.get() > 0) {
+            event = overflow.poll();
+            if (null != event) {
+                overflowSize.decrementAndGet();
+            }
+        }
+        return event;
+    }
+
+    private OutputEvent tryPoll() {
+        while (true) {
+            long position = consumerCursor.get();
+            int index = (int) position & mask;
+            long diff = sequences.get(index) - (position + 1);
+            if (diff == 0) {
+                if (consumerCursor.compareAndSet(position, position + 1)) {
+                    OutputEvent event = buffer[index];
+                    buffer[index] = null;
+                    sequences.lazySet(index, position + mask + 1);
+                    return event;
+                }
+            } else if (diff < 0) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(OutputEvent event) {
+        Objects.requireNonNull(event);
+        if (!isReceivedOrder(event)) {
+            offerInFlight(event);
+            return true;
+        }
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        int attempt = 0;
+        while (!tryOfferReceivedOrder(event)) {
+            if (System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted()) {
+                log.warn("Ring buffer full, refusing order received after waiting {}ms",
+                        TimeUnit.NANOSECONDS.toMillis(offerTimeoutNanos));
+                return false;
+            }
+            waitStrategy.idle(attempt++);
+        }
+        return true;
+    }
+
+    @Override
+    public void put(OutputEvent event) throws InterruptedException {
+        Objects.requireNonNull(event);
+        if (!isReceivedOrder(event)) {
+            offerInFlight(event);
+            return;
+        }
+        int attempt = 0;
+        while (!tryOfferReceivedOrder(event)) {
+            checkInterrupted();
+            waitStrategy.idle(attempt++);
+        }
+    }
+
+    @Override
+    public boolean offer(OutputEvent event, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(event);
+        if (!isReceivedOrder(event)) {
+            offerInFlight(event);
+            return true;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int attempt = 0;
+        while (!tryOfferReceivedOrder(event)) {
+            checkInterrupted();
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            waitStrategy.idle(attempt++);
+        }
+        return true;
+    }
+
+    @Override
+    public OutputEvent poll() {
+        return pollNext();
+    }
+
+    @Override
+    public OutputEvent take() throws InterruptedException {
+        int attempt = 0;
+        OutputEvent event;
+        while (null == (event = pollNext())) {
+            checkInterrupted();
+            waitStrategy.idle(attempt++);
+        }
+        return event;
+    }
+
+    @Override
+    public OutputEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int attempt = 0;
+        OutputEvent event;
+        while (null == (event = pollNext())) {
+            checkInterrupted();
+            if (System.nanoTime() - deadline >= 0) {
+                return null;
+            }
+            waitStrategy.idle(attempt++);
+        }
+        return event;
+    }
+
+    private static void checkInterrupted() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    @Override
+    public OutputEvent peek() {
+        long position = consumerCursor.get();
+        int index = (int) position & mask;
+        OutputEvent head = sequences.get(index) == position + 1 ? buffer[index] : null;
+        return null == head && overflowSize.get() > 0 ? overflow.peek() : head;
+    }
+
+    /**
+     * @return the events in the ring plus the ones spilled into the overflow
+     */
+    @Override
+    public int size() {
+        long size = producerCursor.get() - consumerCursor.get();
+        return (int) Math.max(0L, Math.min(size, buffer.length)) + overflowSize.get();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, buffer.length - size());
+    }
+
+    @Override
+    public int drainTo(Collection<? super OutputEvent> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super OutputEvent> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int drained = 0;
+        OutputEvent event;
+        while (drained < maxElements && null != (event = pollNext())) {
+            c.add(event);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Weakly consistent snapshot of the events currently published and not consumed, the overflow last.
+     * @return a read only iterator
+     */
+    @Override
+    public Iterator<OutputEvent> iterator() {
+        long start = consumerCursor.get();
+        long end = producerCursor.get();
+        List<OutputEvent> snapshot = new ArrayList<>();
+        for (long position = start; position < end && position < start + buffer.length; position++) {
+            int index = (int) position & mask;
+            OutputEvent event = buffer[index];
+            if (null != event && sequences.get(index) == position + 1) {
+                snapshot.add(event);
+            }
+        }
+        snapshot.addAll(overflow);
+        return List.copyOf(snapshot).iterator();
+    }
+}
@@ -0,0 +1,65 @@
+package com.acabra.orderfullfilment.orderserver.core.queue;
+
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Determines how a thread waits for the ring buffer to become available (not empty for consumers, not full
+ * for producers), trading latency for cpu usage.
+ */
+public enum WaitStrategy {
+    /**
+     * Spins on the cpu, lowest latency, burns a full core per waiting thread.
+     */
+    BUSY_SPIN {
+        @Override
+        void idle(int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+    /**
+     * Spins for a short while then yields the cpu to other threads.
+     */
+    YIELD {
+        @Override
+        void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+    /**
+     * Spins, yields and finally parks the thread for short periods, suited when cores are shared.
+     */
+    PARK {
+        @Override
+        void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (attempt < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 50_000L;
+
+    /**
+     * Waits once
+     * @param attempt the amount of consecutive times the caller has waited already
+     */
+    abstract void idle(int attempt);
+
+    public static WaitStrategy of(String name) {
+        if (null == name) {
+            return PARK;
+        }
+        return WaitStrategy.valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,63 @@
+package com.acabra.orderfullfilment.orderserver.core.timer;
+
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenClock;
+
+import java.util.Locale;
+
+/**
+ * Determines when the emulated kitchen and courier events are released and which time they carry
+ */
+public enum EmulationMode {
+    /**
+     * Events are released right away and stamped with the time they are planned to happen,
+     * the notification queue orders them by that time.
+     */
+    SCHEDULED {
+        @Override
+        public long releaseDelay(long dueAt) {
+            return SCHEDULED_RELEASE_DELAY_MILLIS;
+        }
+
+        @Override
+        public long stamp(long dueAt) {
+            return dueAt;
+        }
+    },
+    /**
+     * Events are released once their time comes due and stamped with the actual release time,
+     * so the measured wait times include the delays introduced by the server itself.
+     */
+    REAL_TIME {
+        @Override
+        public long releaseDelay(long dueAt) {
+            return Math.max(0L, dueAt - KitchenClock.now());
+        }
+
+        @Override
+        public long stamp(long dueAt) {
+            return KitchenClock.now();
+        }
+    };
+
+    private static final long SCHEDULED_RELEASE_DELAY_MILLIS = 10L;
+
+    /**
+     * @param dueAt the time the event is planned to happen
+     * @return how long to wait in millis before releasing the event
+     */
+    public abstract long releaseDelay(long dueAt);
+
+    /**
+     * Must be called when the event is released
+     * @param dueAt the time the event is planned to happen
+     * @return the createdAt to be used for the event
+     */
+    public abstract long stamp(long dueAt);
+
+    public static EmulationMode of(String name) {
+        if (null == name) {
+            return SCHEDULED;
+        }
+        return EmulationMode.valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,27 @@
+package com.acabra.orderfullfilment.orderserver.core.timer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public interface EventTimer {
+
+    /**
+     * Schedules the given task to be executed once the delay has elapsed
+     * @param task the task to execute, its result completes the returned future
+     * @param delayMillis the delay in milliseconds, non positive values are executed on the next tick
+     * @param <T> the result type of the task
+     * @return a future completed with the result of the task, cancelling it removes the task from the timer
+     */
+    <T> CompletableFuture<T> schedule(Supplier<T> task, long delayMillis);
+
+    /**
+     * Total of tasks scheduled and not yet expired or cancelled
+     * @return the amount of pending tasks
+     */
+    int pendingTasks();
+
+    /**
+     * Stops the timer, pending tasks are cancelled
+     */
+    void shutdown();
+}
@@ -0,0 +1,266 @@
+package com.acabra.orderfullfilment.orderserver.core.timer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Hierarchical hashed timer wheel driven by a single ticker thread.
+ *
+ * Every level has 256 buckets, a bucket at level n spans 256^n ticks. Producers push new timeouts on a
+ * lock free stack that the ticker drains into the buckets on every tick (O(1) insert), when a level wraps
+ * the next bucket of the upper level is cascaded into the lower levels. Buckets are intrusive doubly linked
+ * lists owned by the ticker thread, so a cancelled timeout is unlinked in O(1) on the following tick.
+ *
+ * Expired tasks run on the ticker thread, they are expected to be short (i.e. publishing an event).
+ */
+@Slf4j
+public class HashedTimerWheel implements EventTimer {
+
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Timeout<?>[][] wheels = new Timeout<?>[LEVELS][WHEEL_SIZE];
+    private final AtomicReference<Timeout<?>> pendingStack = new AtomicReference<>();
+    private final ConcurrentLinkedQueue<Timeout<?>> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+    private final Thread ticker;
+    private volatile boolean running = true;
+    private long currentTick = 0L;
+
+    public HashedTimerWheel() {
+        this(1L);
+    }
+
+    public HashedTimerWheel(long tickMillis) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, tickMillis));
+        this.startNanos = System.nanoTime();
+        this.ticker = new Thread(this::tickLoop, "timer-wheel-" + INSTANCES.incrementAndGet());
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    @Override
+    public <T> CompletableFuture<T> schedule(Supplier<T> task, long delayMillis) {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, delayMillis));
+        long elapsed = deadlineNanos - startNanos;
+        Timeout<T> timeout = new Timeout<>(this, task, (elapsed + tickNanos - 1) / tickNanos);
+        if (!running) {
+            timeout.completeExceptionally(new IllegalStateException("Timer is shutdown"));
+            return timeout;
+        }
+        pendingTasks.incrementAndGet();
+        Timeout<?> head;
+        do {
+            head = pendingStack.get();
+            timeout.nextPending = head;
+        } while (!pendingStack.compareAndSet(head, timeout));
+        return timeout;
+    }
+
+    @Override
+    public int pendingTasks() {
+        return pendingTasks.get();
+    }
+
+    @Override
+    public void shutdown() {
+        this.running = false;
+        LockSupport.unpark(this.ticker);
+    }
+
+    private void tickLoop() {
+        while (running) {
+            long targetTick = (System.nanoTime() - startNanos) / tickNanos;
+            while (currentTick <= targetTick && running) {
+                processTick(currentTick++);
+            }
+            long sleepNanos = startNanos + currentTick * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+            }
+        }
+        cancelAllPending();
+    }
+
+    private void processTick(long tick) {
+        unlinkCancelled();
+        transferPending(tick);
+        cascade(tick);
+        Timeout<?> timeout = wheels[0][(int) tick & WHEEL_MASK];
+        wheels[0][(int) tick & WHEEL_MASK] = null;
+        while (null != timeout) {
+            Timeout<?> next = timeout.next;
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+            if (timeout.deadlineTick > tick) {
+                place(timeout, tick);
+            } else {
+                timeout.expire();
+            }
+            timeout = next;
+        }
+    }
+
+    private void unlinkCancelled() {
+        Timeout<?> timeout;
+        while (null != (timeout = cancelled.poll())) {
+            if (null != timeout.bucket) {
+                unlink(timeout);
+            }
+        }
+    }
+
+    private void transferPending(long tick) {
+        Timeout<?> timeout = pendingStack.getAndSet(null);
+        while (null != timeout) {
+            Timeout<?> next = timeout.nextPending;
+            timeout.nextPending = null;
+            if (timeout.isPending()) {
+                place(timeout, tick);
+            }
+            timeout = next;
+        }
+    }
+
+    private void cascade(long tick) {
+        int highest = 0;
+        for (int level = 1; level < LEVELS; level++) {
+            if ((tick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                break;
+            }
+            highest = level;
+        }
+        for (int level = highest; level > 0; level--) {
+            int index = (int) (tick >>> (WHEEL_BITS * level)) & WHEEL_MASK;
+            Timeout<?> timeout = wheels[level][index];
+            wheels[level][index] = null;
+            while (null != timeout) {
+                Timeout<?> next = timeout.next;
+                timeout.next = null;
+                timeout.prev = null;
+                timeout.bucket = null;
+                place(timeout, tick);
+                timeout = next;
+            }
+        }
+    }
+
+    private void place(Timeout<?> timeout, long tick) {
+        long deadline = Math.max(timeout.deadlineTick, tick);
+        int level = 0;
+        while (level < LEVELS - 1
+                && (deadline >>> (WHEEL_BITS * level)) - (tick >>> (WHEEL_BITS * level)) >= WHEEL_SIZE) {
+            level++;
+        }
+        long slot = deadline >>> (WHEEL_BITS * level);
+        long maxSlot = (tick >>> (WHEEL_BITS * level)) + WHEEL_MASK;
+        int index = (int) Math.min(slot, maxSlot) & WHEEL_MASK;
+        Timeout<?>[] wheel = wheels[level];
+        Timeout<?> head = wheel[index];
+        timeout.bucket = wheel;
+        timeout.bucketIndex = index;
+        timeout.prev = null;
+        timeout.next = head;
+        if (null != head) {
+            head.prev = timeout;
+        }
+        wheel[index] = timeout;
+    }
+
+    private static void unlink(Timeout<?> timeout) {
+        Timeout<?>[] wheel = timeout.bucket;
+        if (null != timeout.prev) {
+            timeout.prev.next = timeout.next;
+        } else {
+            wheel[timeout.bucketIndex] = timeout.next;
+        }
+        if (null != timeout.next) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.next = null;
+        timeout.prev = null;
+        timeout.bucket = null;
+    }
+
+    private void cancelAllPending() {
+        transferPending(currentTick);
+        for (Timeout<?>[] wheel : wheels) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                Timeout<?> timeout = wheel[i];
+                wheel[i] = null;
+                while (null != timeout) {
+                    Timeout<?> next = timeout.next;
+                    timeout.cancel(false);
+                    timeout = next;
+                }
+            }
+        }
+        cancelled.clear();
+    }
+
+    private static final class Timeout<T> extends CompletableFuture<T> {
+        private static final int PENDING = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final HashedTimerWheel timer;
+        private final Supplier<T> task;
+        private final long deadlineTick;
+        private volatile int state = PENDING;
+        //owned by the producers until transferred
+        private Timeout<?> nextPending;
+        //owned by the ticker thread
+        private Timeout<?>[] bucket;
+        private int bucketIndex;
+        private Timeout<?> prev;
+        private Timeout<?> next;
+
+        private Timeout(HashedTimerWheel timer, Supplier<T> task, long deadlineTick) {
+            this.timer = timer;
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        private boolean isPending() {
+            return state == PENDING;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) {
+                return;
+            }
+            timer.pendingTasks.decrementAndGet();
+            try {
+                complete(task.get());
+            } catch (Throwable t) {
+                completeExceptionally(t);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                timer.pendingTasks.decrementAndGet();
+                timer.cancelled.offer(this);
+            }
+            return super.cancel(mayInterruptIfRunning);
+        }
+    }
+}
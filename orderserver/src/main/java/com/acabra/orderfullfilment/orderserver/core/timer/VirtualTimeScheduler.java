@@ -0,0 +1,116 @@
+package com.acabra.orderfullfilment.orderserver.core.timer;
+
+import com.acabra.orderfullfilment.orderserver.kitchen.VirtualClock;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * EventTimer running on virtual time, tasks only execute when the owner advances the time
+ * (see DiscreteEventSimulation), in deadline order and on the calling thread.
+ */
+public class VirtualTimeScheduler implements EventTimer {
+
+    private static final Comparator<VirtualTask<?>> DEADLINE_ORDER =
+            Comparator.<VirtualTask<?>>comparingLong(t -> t.dueAt).thenComparingLong(t -> t.sequence);
+
+    private final VirtualClock clock;
+    private final PriorityQueue<VirtualTask<?>> tasks = new PriorityQueue<>(DEADLINE_ORDER);
+    private long sequence = 0L;
+
+    public VirtualTimeScheduler(VirtualClock clock) {
+        this.clock = clock;
+    }
+
+    public VirtualClock getClock() {
+        return clock;
+    }
+
+    @Override
+    public synchronized <T> CompletableFuture<T> schedule(Supplier<T> task, long delayMillis) {
+        VirtualTask<T> virtualTask = new VirtualTask<>(this, task, clock.now() + Math.max(0L, delayMillis), sequence++);
+        tasks.offer(virtualTask);
+        return virtualTask;
+    }
+
+    /**
+     * @return the virtual time of the next task to execute or Long.MAX_VALUE if there are none
+     */
+    public synchronized long nextDueTime() {
+        VirtualTask<?> next = tasks.peek();
+        return null == next ? Long.MAX_VALUE : next.dueAt;
+    }
+
+    /**
+     * Advances the clock up to the given time executing every task due in deadline order, the clock is
+     * moved to the deadline of each task before executing it
+     * @param time the virtual time to advance to
+     * @return the amount of tasks executed
+     */
+    public int advanceTo(long time) {
+        int executed = 0;
+        VirtualTask<?> next;
+        while (null != (next = pollDue(time))) {
+            clock.advanceTo(next.dueAt);
+            next.execute();
+            executed++;
+        }
+        clock.advanceTo(time);
+        return executed;
+    }
+
+    private synchronized VirtualTask<?> pollDue(long time) {
+        VirtualTask<?> next = tasks.peek();
+        return null != next && next.dueAt <= time ? tasks.poll() : null;
+    }
+
+    private synchronized boolean remove(VirtualTask<?> task) {
+        return tasks.remove(task);
+    }
+
+    @Override
+    public synchronized int pendingTasks() {
+        return tasks.size();
+    }
+
+    @Override
+    public void shutdown() {
+        VirtualTask<?> task;
+        while (null != (task = pollDue(Long.MAX_VALUE))) {
+            task.cancel(false);
+        }
+    }
+
+    private static final class VirtualTask<T> extends CompletableFuture<T> {
+        private final VirtualTimeScheduler scheduler;
+        private final Supplier<T> task;
+        private final long dueAt;
+        private final long sequence;
+
+        private VirtualTask(VirtualTimeScheduler scheduler, Supplier<T> task, long dueAt, long sequence) {
+            this.scheduler = scheduler;
+            this.task = task;
+            this.dueAt = dueAt;
+            this.sequence = sequence;
+        }
+
+        private void execute() {
+            if (isDone()) {
+                return;
+            }
+            try {
+                complete(task.get());
+            } catch (Throwable t) {
+                completeExceptionally(t);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            scheduler.remove(this);
+            return super.cancel(mayInterruptIfRunning);
+        }
+    }
+}
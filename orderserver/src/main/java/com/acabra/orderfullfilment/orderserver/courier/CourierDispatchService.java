@@ -1,10 +1,9 @@
 package com.acabra.orderfullfilment.orderserver.courier;
 
+import com.acabra.orderfullfilment.orderserver.courier.model.DispatchResult;
 import com.acabra.orderfullfilment.orderserver.event.*;
 import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
 
-import java.util.Optional;
-
 public interface CourierDispatchService extends OutputEventPublisher {
 
     /**
@@ -13,9 +12,19 @@ public interface CourierDispatchService extends OutputEventPublisher {
      *              pick up that order.
      * @param reservationId the prepare reservation id given by the kitchen
      * @param now current time
-     * @return an optional value with the dispatched courierId or empty if no couriers are available
+     * @return the dispatch result holding the dispatched courierId, waiting if the request waits for a courier
+     * to be released or not dispatched if no couriers are available
+     */
+    default DispatchResult dispatchRequest(DeliveryOrder order, long reservationId, long now) {
+        return dispatchRequest(order, reservationId, now, null == order ? now : now + order.prepTime);
+    }
+
+    /**
+     * Dispatches an available courier for order pickup, a planned dispatch is timed by the expected ready time
+     * @param readyAt the time the kitchen expects the meal ready, it may wait for a cook station
+     * @see #dispatchRequest(DeliveryOrder, long, long)
      */
-    Optional<Integer> dispatchRequest(DeliveryOrder order, long reservationId, long now);
+    DispatchResult dispatchRequest(DeliveryOrder order, long reservationId, long now, long readyAt);
 
     /**
      * According to the strategy defined allows the order to be picked up by an awaiting courier or else to await
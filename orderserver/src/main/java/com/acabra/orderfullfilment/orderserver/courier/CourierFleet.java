@@ -1,8 +1,10 @@
 package com.acabra.orderfullfilment.orderserver.courier;
 
 import com.acabra.orderfullfilment.orderserver.courier.model.DispatchResult;
+import com.acabra.orderfullfilment.orderserver.event.CourierArrivedEvent;
 import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
 import com.acabra.orderfullfilment.orderserver.event.OutputEventPublisher;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenClock;
 import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
 
 import java.util.NoSuchElementException;
@@ -14,17 +16,51 @@ public interface CourierFleet extends OutputEventPublisher {
      *
      * Dispatches a courier to the kitchen for order pickup, it does
      * @param order an optional order object representing an order that started the
+     * @param kitchenReservationId the kitchen reservation the courier is dispatched for
      * @param now current time
-     * @return A dispatch result object or null if no couriers available for dispatch.
+     * @return A dispatch result object, not dispatched if no couriers available for dispatch, waiting if the
+     * request waits for a courier to be released or planned if the courier is dispatched later.
      */
-    DispatchResult dispatch(DeliveryOrder order, long now);
+    default DispatchResult dispatch(DeliveryOrder order, long kitchenReservationId, long now) {
+        return dispatch(order, kitchenReservationId, now, null == order ? now : now + order.prepTime);
+    }
 
     /**
-     * Releases a courier from the assignment, to get the status back to Available
+     * Dispatches a courier to the kitchen for order pickup, a planned dispatch is due so the courier arrives as the
+     * meal is ready
+     * @param order an optional order object representing an order that started the
+     * @param kitchenReservationId the kitchen reservation the courier is dispatched for
+     * @param now current time
+     * @param readyAt the time the kitchen expects the meal ready
+     * @return A dispatch result object, not dispatched if no couriers available for dispatch, waiting if the
+     * request waits for a courier to be released or planned if the courier is dispatched later.
+     */
+    DispatchResult dispatch(DeliveryOrder order, long kitchenReservationId, long now, long readyAt);
+
+    /**
+     * Releases a courier from the assignment, to get the status back to Available once every order of its trip
+     * is delivered
+     * @param courierId the id of the courier to release
+     * @throws NoSuchElementException if the given id does not match an Assigned Courier
+     */
+    default void release(int courierId) throws NoSuchElementException {
+        release(courierId, KitchenClock.now());
+    }
+
+    /**
+     * Releases a courier from the assignment once every order of its trip is delivered, the courier is dispatched
+     * right away to the oldest waiting request if any, otherwise its status gets back to Available
      * @param courierId the id of the courier to release
+     * @param now current time
      * @throws NoSuchElementException if the given id does not match an Assigned Courier
      */
-    void release(Integer courierId) throws NoSuchElementException;
+    void release(int courierId, long now) throws NoSuchElementException;
+
+    /**
+     * Feeds the travel time estimates with the actual travel of the courier, called once it arrives at the kitchen
+     * @param courierArrivedEvent event notification courier arrived
+     */
+    void courierArrived(CourierArrivedEvent courierArrivedEvent);
 
     /**
      * The total amount of couriers registered
@@ -38,6 +74,18 @@ public interface CourierFleet extends OutputEventPublisher {
      */
     int availableCouriers();
 
+    /**
+     * The dispatch requests waiting for a courier to be released
+     * @return total waiting
+     */
+    int waitingDispatchRequests();
+
+    /**
+     * The dispatch requests planned for later, their courier is not picked yet
+     * @return total planned
+     */
+    int plannedDispatchRequests();
+
     /**
      * Registration of the notification queue to be used to publish the Ready for Pickup event
      */
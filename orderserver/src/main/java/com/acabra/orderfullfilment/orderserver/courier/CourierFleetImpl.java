@@ -1,90 +1,320 @@
 package com.acabra.orderfullfilment.orderserver.courier;
 
+import com.acabra.orderfullfilment.orderserver.config.CourierConfig;
+import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
+import com.acabra.orderfullfilment.orderserver.core.timer.EmulationMode;
+import com.acabra.orderfullfilment.orderserver.core.timer.EventTimer;
 import com.acabra.orderfullfilment.orderserver.courier.model.Courier;
 import com.acabra.orderfullfilment.orderserver.courier.model.DispatchResult;
 import com.acabra.orderfullfilment.orderserver.event.CourierArrivedEvent;
+import com.acabra.orderfullfilment.orderserver.event.CourierDispatchedEvent;
+import com.acabra.orderfullfilment.orderserver.event.CourierWaitExpiredEvent;
 import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenService;
+import com.acabra.orderfullfilment.orderserver.kitchen.ReadyTimeEstimator;
 import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
+import com.acabra.orderfullfilment.orderserver.utils.ConcurrentLongObjectMap;
 import com.acabra.orderfullfilment.orderserver.utils.EtaEstimator;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collector;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 public class CourierFleetImpl implements CourierFleet {
 
-    private static final Collector<Courier, ?, ArrayDeque<Courier>> DEQUE_COLLECTOR = Collectors.toCollection(ArrayDeque::new);
-
-    private final Map<Integer, Courier> dispatchedCouriers;
-    private final ConcurrentLinkedDeque<Courier> availableCouriers;
+    private final ConcurrentLongObjectMap<Courier> dispatchedCouriers;
+    private final CourierGrid availableCouriers;
+    private final ServiceArea area;
 
     private final AtomicInteger totalCouriers;
     private final AtomicReference<Queue<OutputEvent>> pubDeque;
     private final EtaEstimator etaEstimator;
+    private final EventTimer timer;
+    private final EmulationMode emulationMode;
+    private final boolean bounded;
+    private final long maxWaitMillis;
+    private final Queue<DispatchWaiter> waiters = new ConcurrentLinkedQueue<>();
+    private final Queue<DispatchWaiter> plannedWaiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final int capacity;
+    private final long readyWindowMillis;
+    private final ConcurrentLongObjectMap<Trip> trips = new ConcurrentLongObjectMap<>();
+    private final Queue<Trip> openTrips = new ConcurrentLinkedQueue<>();
+    private final boolean plannedDispatch;
+    private final long plannedMarginMillis;
+    private final AtomicInteger planned = new AtomicInteger();
+    private final ReadyTimeEstimator readyTime;
+
+    @Autowired
+    public CourierFleetImpl(List<Courier> couriers, EtaEstimator etaEstimator, EventTimer timer,
+                            OrderServerConfig config, CourierConfig courierConfig, KitchenService kitchenService) {
+        this(couriers, etaEstimator, timer, EmulationMode.of(config.getEmulationMode()),
+                CourierFleetOptions.of(config, courierConfig, kitchenService));
+    }
 
-    public CourierFleetImpl(List<Courier> couriers, EtaEstimator etaEstimator) {
-        this.availableCouriers = new ConcurrentLinkedDeque<>(couriers.stream()
-                .filter(Courier::isAvailable).collect(DEQUE_COLLECTOR));
+    public CourierFleetImpl(List<Courier> couriers, EtaEstimator etaEstimator, EventTimer timer,
+                            EmulationMode emulationMode, CourierFleetOptions options) {
+        this.area = options.area;
+        this.capacity = options.capacity;
+        couriers.forEach(c -> c.assignDefaultCapacity(this.capacity));
+        this.availableCouriers = new CourierGrid(area.cellKm);
+        couriers.stream()
+                .filter(Courier::isAvailable)
+                .forEach(this::makeAvailable);
         this.dispatchedCouriers = buildDispatchedMap(couriers);
         this.totalCouriers = new AtomicInteger(couriers.size());
         this.pubDeque = new AtomicReference<>();
         this.etaEstimator = etaEstimator;
+        this.timer = timer;
+        this.emulationMode = emulationMode;
+        this.bounded = options.bounded;
+        this.maxWaitMillis = options.maxWaitMillis;
+        this.readyWindowMillis = options.readyWindowMillis;
+        this.plannedDispatch = options.plannedDispatch;
+        this.plannedMarginMillis = options.plannedMarginMillis;
+        this.readyTime = options.readyTime;
+        if (plannedDispatch) {
+            log.info("[SYSTEM] courier dispatch planned to arrive [{}]ms before the meal is ready", plannedMarginMillis);
+        }
+        if (this.capacity > 1) {
+            log.info("[SYSTEM] couriers carry by default up to [{}] orders ready within [{}]ms", this.capacity,
+                    readyWindowMillis);
+        }
+        if (bounded) {
+            log.info("[SYSTEM] bounded fleet of [{}] couriers, dispatch requests wait up to [{}]ms", couriers.size(),
+                    maxWaitMillis);
+        }
     }
 
-    private Map<Integer, Courier> buildDispatchedMap(List<Courier> couriers) {
-        return new ConcurrentHashMap<>(this.availableCouriers.size() != couriers.size() ?
-                couriers.stream()
-                        .filter(c -> !c.isAvailable())
-                        .map(c-> Map.entry(c.id, c))
-                        .collect(
-                            Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))
-                : new HashMap<>());
+    private ConcurrentLongObjectMap<Courier> buildDispatchedMap(List<Courier> couriers) {
+        ConcurrentLongObjectMap<Courier> dispatched = new ConcurrentLongObjectMap<>();
+        couriers.stream()
+                .filter(c -> !c.isAvailable())
+                .forEach(c -> dispatched.put(c.id, c));
+        return dispatched;
     }
 
     @Override
-    public DispatchResult dispatch(DeliveryOrder order, long now) {
-        Courier courier = getAvailableCourier();
+    public DispatchResult dispatch(DeliveryOrder order, long kitchenReservationId, long now, long readyAt) {
+        DispatchResult joined = null != order && !openTrips.isEmpty() ? join(order, kitchenReservationId, now, readyAt)
+                : null;
+        if (null != joined) {
+            return joined;
+        }
+        DispatchResult plannedResult = plannedDispatch && null != order ? plan(order, kitchenReservationId, now,
+                readyAt) : null;
+        if (null != plannedResult) {
+            return plannedResult;
+        }
+        if (bounded) {
+            //requests already waiting go first
+            Courier courier = waiting.get() > 0 ? null : availableCouriers.pollNearest(area.kitchen);
+            return null != courier ? send(courier, order, kitchenReservationId, now, readyAt) :
+                    park(order, kitchenReservationId, now);
+        }
+        return send(getAvailableCourier(), order, kitchenReservationId, now, readyAt);
+    }
+
+    private DispatchResult send(Courier courier, DeliveryOrder order, long kitchenReservationId, long now,
+                                long readyAt) {
         courier.dispatch();
         dispatchedCouriers.put(courier.id, courier);
         long ettMillis = etaEstimator.estimateCourierTravelTimeInSeconds(courier) * 1000L;
-        CompletableFuture<Boolean> emulated = emulateDispatched(courier.id, ettMillis, now + ettMillis);
+        long travelMillis = etaEstimator.hasTravelNoise() ? etaEstimator.emulateTravelTimeInMillis(courier) : ettMillis;
+        Trip trip = new Trip(courier, kitchenReservationId, now, now + ettMillis, now + travelMillis, readyAt);
+        trips.put(courier.id, trip);
+        if (courier.getCapacity() > 1) {
+            openTrips.offer(trip);
+        }
+        CompletableFuture<Boolean> emulated = emulateDispatched(courier.id, kitchenReservationId, ettMillis,
+                trip.arrivesAt);
         return DispatchResult.of(courier.id, emulated, ettMillis);
     }
 
-    private CompletableFuture<Boolean> emulateDispatched(int courierId, long ett, long now) {
-        return CompletableFuture.supplyAsync(() -> reportCourierArrived(CourierArrivedEvent.of(courierId, ett, now)),
-                CompletableFuture.delayedExecutor(10L, TimeUnit.MILLISECONDS));
+    /**
+     * Adds the order to a courier still on its way to the kitchen with room for it, the courier picks it up on the
+     * same arrival
+     * @return the dispatch result or null if no trip can take the order
+     */
+    private DispatchResult join(DeliveryOrder order, long kitchenReservationId, long now, long readyAt) {
+        for (Iterator<Trip> it = openTrips.iterator(); it.hasNext(); ) {
+            Trip trip = it.next();
+            if (trip.arrivesAt <= now || !trip.isOpen()) {
+                it.remove();
+            } else if (Math.abs(readyAt - trip.firstReadyAt) <= readyWindowMillis && trip.tryJoin()) {
+                long ettMillis = Math.max(0L, trip.expectedAt - now);
+                return DispatchResult.of(trip.courier.id,
+                        emulateDispatched(trip.courier.id, kitchenReservationId, ettMillis, trip.arrivesAt), ettMillis);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Delays the dispatch by the time the meal takes to be ready beyond the travel time of the nearest available
+     * courier, the courier is picked once the dispatch is due. Nothing is planned when no courier is available to
+     * estimate the travel time, the request is then dispatched or parked right away.
+     * @return the planned dispatch result or null if the courier must be dispatched now
+     */
+    private DispatchResult plan(DeliveryOrder order, long kitchenReservationId, long now, long readyAt) {
+        Courier nearest = availableCouriers.peekNearest(area.kitchen);
+        if (null == nearest || (bounded && waiting.get() > 0)) {
+            return null;
+        }
+        long ettMillis = etaEstimator.estimateLatestTravelTimeInSeconds(nearest) * 1000L;
+        long delayMillis = readyAt - now - ettMillis - plannedMarginMillis;
+        if (delayMillis <= 0L) {
+            return null;
+        }
+        long dispatchAt = now + delayMillis;
+        planned.incrementAndGet();
+        timer.schedule(() -> dispatchPlanned(order, kitchenReservationId, dispatchAt, readyAt),
+                emulationMode.releaseDelay(dispatchAt));
+        return DispatchResult.planned(delayMillis);
+    }
+
+    /**
+     * The meal of a planned dispatch is already being prepared, so the request goes ahead of the ones parked in a
+     * bounded fleet and, if no courier is available either, waits first in line without expiring
+     */
+    private boolean dispatchPlanned(DeliveryOrder order, long kitchenReservationId, long dispatchAt, long readyAt) {
+        planned.decrementAndGet();
+        long now = emulationMode.stamp(dispatchAt);
+        Courier courier = bounded ? availableCouriers.pollNearest(area.kitchen) : getAvailableCourier();
+        if (null == courier) {
+            DispatchWaiter waiter = new DispatchWaiter(order, kitchenReservationId, now, readyAt);
+            waiting.incrementAndGet();
+            plannedWaiters.offer(waiter);
+            serveWaiters(now);
+            return true;
+        }
+        DispatchResult result = send(courier, order, kitchenReservationId, now, readyAt);
+        return publish(CourierDispatchedEvent.of(now, order, courier.id, kitchenReservationId, result.ettMillis));
+    }
+
+    private DispatchResult park(DeliveryOrder order, long kitchenReservationId, long now) {
+        DispatchWaiter waiter = new DispatchWaiter(order, kitchenReservationId, now, DispatchWaiter.NOT_PLANNED);
+        waiting.incrementAndGet();
+        waiters.offer(waiter);
+        waiter.expiry = timer.schedule(() -> expire(waiter), maxWaitMillis);
+        //a courier released while the request was being parked must not be left idle
+        serveWaiters(now);
+        return DispatchResult.waiting();
+    }
+
+    private boolean expire(DispatchWaiter waiter) {
+        if (!waiter.claim()) {
+            return false;
+        }
+        waiting.decrementAndGet();
+        waiters.remove(waiter);
+        return publish(CourierWaitExpiredEvent.of(emulationMode.stamp(waiter.requestedAt + maxWaitMillis),
+                waiter.order, waiter.kitchenReservationId, maxWaitMillis));
+    }
+
+    private void serveWaiters(long now) {
+        while (waiting.get() > 0) {
+            Courier courier = availableCouriers.pollNearest(area.kitchen);
+            if (null == courier) {
+                return;
+            }
+            DispatchWaiter waiter = nextWaiter();
+            if (null == waiter) {
+                availableCouriers.add(courier);
+                return;
+            }
+            waiter.cancelExpiry();
+            if (waiter.isPlanned()) {
+                DispatchResult result = send(courier, waiter.order, waiter.kitchenReservationId, now, waiter.readyAt);
+                publish(CourierDispatchedEvent.of(now, waiter.order, courier.id, waiter.kitchenReservationId,
+                        result.ettMillis));
+                continue;
+            }
+            //the meal of a parked request is prepared once its courier is dispatched, behind the meals queued ahead
+            long readyAt = null == waiter.order ? now : readyTime.expectedReadyAt(waiter.order, now);
+            DispatchResult result = send(courier, waiter.order, waiter.kitchenReservationId, now, readyAt);
+            publish(CourierDispatchedEvent.deferred(now, waiter.order, courier.id, waiter.kitchenReservationId,
+                    result.ettMillis, Math.max(0L, now - waiter.requestedAt)));
+        }
+    }
+
+    private DispatchWaiter nextWaiter() {
+        DispatchWaiter plannedWaiter = plannedWaiters.poll();
+        if (null != plannedWaiter && plannedWaiter.claim()) {
+            waiting.decrementAndGet();
+            return plannedWaiter;
+        }
+        for (DispatchWaiter waiter = waiters.poll(); null != waiter; waiter = waiters.poll()) {
+            if (waiter.claim()) {
+                waiting.decrementAndGet();
+                return waiter;
+            }
+        }
+        return null;
+    }
+
+    private CompletableFuture<Boolean> emulateDispatched(int courierId, long kitchenReservationId, long ett,
+                                                         long arrivesAt) {
+        return timer.schedule(() -> reportCourierArrived(CourierArrivedEvent.of(courierId, kitchenReservationId, ett,
+                emulationMode.stamp(arrivesAt))), emulationMode.releaseDelay(arrivesAt));
     }
 
     private Courier getAvailableCourier() {
-        Courier poll = availableCouriers.poll();
+        Courier poll = availableCouriers.pollNearest(area.kitchen);
         if(poll == null) {
             int id = this.totalCouriers.incrementAndGet();
-            return Courier.ofAvailable(id, "CourierName:" + id);
+            return Courier.ofAvailable(id, "CourierName:" + id, area.randomLocation(), capacity);
         }
         return poll;
     }
 
+    private void makeAvailable(Courier courier) {
+        if (null == courier.getLocation()) {
+            courier.moveTo(area.randomLocation());
+        }
+        availableCouriers.add(courier);
+    }
+
     @Override
-    public void release(Integer courierId) throws NoSuchElementException {
+    public void release(int courierId, long now) throws NoSuchElementException {
         Courier courier = this.dispatchedCouriers.get(courierId);
         if(null == courier) {
             String error = String.format("The given id [%d] does not correspond to an assigned courier", courierId);
             throw new NoSuchElementException(error);
         }
-        courier.orderDelivered();
+        if (!courier.orderDelivered()) {
+            //other orders of the trip are yet to be delivered
+            return;
+        }
+        Trip trip = this.trips.get(courierId);
+        if (null != trip) {
+            this.trips.remove(courierId, trip);
+        }
         this.dispatchedCouriers.remove(courierId);
-        this.availableCouriers.offer(courier);
+        //the courier is released where the order was dropped off
+        courier.moveTo(area.randomLocation());
+        this.availableCouriers.add(courier);
+        if (bounded) {
+            serveWaiters(now);
+        }
+    }
+
+    @Override
+    public void courierArrived(CourierArrivedEvent courierArrivedEvent) {
+        Trip trip = this.trips.get(courierArrivedEvent.courierId);
+        Courier courier = this.dispatchedCouriers.get(courierArrivedEvent.courierId);
+        //the orders that joined the trip arrive with the first one
+        if (null != trip && null != courier && trip.firstReservationId == courierArrivedEvent.kitchenReservationId) {
+            etaEstimator.observeArrival(courier, trip.dispatchedAt, courierArrivedEvent.createdAt - trip.dispatchedAt);
+        }
     }
 
     private boolean reportCourierArrived(OutputEvent outputEvent) {
@@ -101,6 +331,16 @@ public class CourierFleetImpl implements CourierFleet {
         return availableCouriers.size();
     }
 
+    @Override
+    public int waitingDispatchRequests() {
+        return waiting.get();
+    }
+
+    @Override
+    public int plannedDispatchRequests() {
+        return planned.get();
+    }
+
     @Override
     public void registerNotificationDeque(Queue<OutputEvent> deque) {
         this.pubDeque.set(deque);
@@ -115,4 +355,74 @@ public class CourierFleetImpl implements CourierFleet {
     public void logError(String msg, Throwable e) {
         log.error(msg, e);
     }
+
+    /**
+     * A courier travelling to the kitchen, the orders it carries are its load: it is released once all of them are
+     * delivered and no order can join it afterwards
+     */
+    private static final class Trip {
+        private final Courier courier;
+        private final long firstReservationId;
+        private final long dispatchedAt;
+        private final long expectedAt;
+        private final long arrivesAt;
+        private final long firstReadyAt;
+
+        private Trip(Courier courier, long firstReservationId, long dispatchedAt, long expectedAt, long arrivesAt,
+                     long firstReadyAt) {
+            this.courier = courier;
+            this.firstReservationId = firstReservationId;
+            this.dispatchedAt = dispatchedAt;
+            this.expectedAt = expectedAt;
+            this.arrivesAt = arrivesAt;
+            this.firstReadyAt = firstReadyAt;
+        }
+
+        private boolean isOpen() {
+            return courier.hasRoom();
+        }
+
+        /**
+         * @return false if the courier already carries as many orders as its own capacity
+         */
+        private boolean tryJoin() {
+            return courier.tryLoad();
+        }
+    }
+
+    /**
+     * A dispatch request parked until a courier is released, served or expired exactly once, a planned one never
+     * expires as its meal is already being prepared
+     */
+    private static class DispatchWaiter {
+        private static final long NOT_PLANNED = Long.MIN_VALUE;
+        private final DeliveryOrder order;
+        private final long kitchenReservationId;
+        private final long requestedAt;
+        private final long readyAt;
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+        private volatile CompletableFuture<Boolean> expiry;
+
+        private DispatchWaiter(DeliveryOrder order, long kitchenReservationId, long requestedAt, long readyAt) {
+            this.order = order;
+            this.kitchenReservationId = kitchenReservationId;
+            this.requestedAt = requestedAt;
+            this.readyAt = readyAt;
+        }
+
+        private boolean isPlanned() {
+            return NOT_PLANNED != readyAt;
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        private void cancelExpiry() {
+            CompletableFuture<Boolean> handle = this.expiry;
+            if (null != handle) {
+                handle.cancel(false);
+            }
+        }
+    }
 }
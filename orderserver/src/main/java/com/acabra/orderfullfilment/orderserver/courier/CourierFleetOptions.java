@@ -0,0 +1,99 @@
+package com.acabra.orderfullfilment.orderserver.courier;
+
+import com.acabra.orderfullfilment.orderserver.config.CourierConfig;
+import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
+import com.acabra.orderfullfilment.orderserver.kitchen.ReadyTimeEstimator;
+
+/**
+ * How the fleet dispatches its couriers, each option is changed on a copy so the defaults can be shared.
+ * By default the fleet is elastic, covers the default service area, its couriers carry a single order and are
+ * dispatched as soon as requested, the meals are expected ready once prepared as no cook station is waited for.
+ */
+public final class CourierFleetOptions {
+
+    public static final CourierFleetOptions DEFAULT = new CourierFleetOptions(false, 0L, ServiceArea.DEFAULT, 1, 0L,
+            false, 0L, ReadyTimeEstimator.PREP_TIME);
+
+    /**
+     * false hires a new courier whenever none is available, true keeps the given couriers and parks the dispatch
+     * requests in FIFO order until a courier is released
+     */
+    public final boolean bounded;
+    /**
+     * bounded fleet only, time a request waits before a courier wait expired event is published
+     */
+    public final long maxWaitMillis;
+    /**
+     * the couriers loaded without a location are placed at random within it, the nearest available courier to its
+     * kitchen is the one dispatched
+     */
+    public final ServiceArea area;
+    /**
+     * orders carried in a single trip by the couriers loaded without their own capacity, above 1 an order joins a
+     * courier still on its way to the kitchen when its meal is expected ready close to the first order of the trip
+     */
+    public final int capacity;
+    /**
+     * max time between the expected ready times of the first and any other order of a trip
+     */
+    public final long readyWindowMillis;
+    /**
+     * true delays the dispatch of an order whose meal takes longer to prepare than the nearest available courier
+     * takes to travel, so the courier does not wait at the kitchen
+     */
+    public final boolean plannedDispatch;
+    /**
+     * time the courier of a planned dispatch is meant to arrive before the meal is ready
+     */
+    public final long plannedMarginMillis;
+    /**
+     * when the meal of a request parked in a bounded fleet is ready, its preparation starts once its courier is
+     * dispatched and may wait for a cook station
+     */
+    public final ReadyTimeEstimator readyTime;
+
+    private CourierFleetOptions(boolean bounded, long maxWaitMillis, ServiceArea area, int capacity,
+                                long readyWindowMillis, boolean plannedDispatch, long plannedMarginMillis,
+                                ReadyTimeEstimator readyTime) {
+        this.bounded = bounded;
+        this.maxWaitMillis = maxWaitMillis;
+        this.area = area;
+        this.capacity = Math.max(1, capacity);
+        this.readyWindowMillis = readyWindowMillis;
+        this.plannedDispatch = plannedDispatch;
+        this.plannedMarginMillis = plannedMarginMillis;
+        this.readyTime = readyTime;
+    }
+
+    public static CourierFleetOptions of(OrderServerConfig config, CourierConfig courierConfig,
+                                         ReadyTimeEstimator readyTime) {
+        return new CourierFleetOptions(config.isBoundedFleet(), config.getFleetMaxWaitMillis(),
+                ServiceArea.of(courierConfig), courierConfig.getCapacity(), courierConfig.getBatchReadyWindowMillis(),
+                config.isPlannedDispatch(), config.getPlannedDispatchMarginMillis(), readyTime);
+    }
+
+    public CourierFleetOptions bounded(long maxWaitMillis) {
+        return new CourierFleetOptions(true, maxWaitMillis, area, capacity, readyWindowMillis, plannedDispatch,
+                plannedMarginMillis, readyTime);
+    }
+
+    public CourierFleetOptions within(ServiceArea area) {
+        return new CourierFleetOptions(bounded, maxWaitMillis, area, capacity, readyWindowMillis, plannedDispatch,
+                plannedMarginMillis, readyTime);
+    }
+
+    public CourierFleetOptions carrying(int capacity, long readyWindowMillis) {
+        return new CourierFleetOptions(bounded, maxWaitMillis, area, capacity, readyWindowMillis, plannedDispatch,
+                plannedMarginMillis, readyTime);
+    }
+
+    public CourierFleetOptions planned(long plannedMarginMillis) {
+        return new CourierFleetOptions(bounded, maxWaitMillis, area, capacity, readyWindowMillis, true,
+                plannedMarginMillis, readyTime);
+    }
+
+    public CourierFleetOptions estimating(ReadyTimeEstimator readyTime) {
+        return new CourierFleetOptions(bounded, maxWaitMillis, area, capacity, readyWindowMillis, plannedDispatch,
+                plannedMarginMillis, readyTime);
+    }
+}
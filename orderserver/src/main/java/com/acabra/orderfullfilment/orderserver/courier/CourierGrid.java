@@ -0,0 +1,145 @@
+package com.acabra.orderfullfilment.orderserver.courier;
+
+import com.acabra.orderfullfilment.orderserver.courier.model.Courier;
+import com.acabra.orderfullfilment.orderserver.courier.model.Location;
+import com.acabra.orderfullfilment.orderserver.utils.ConcurrentLongObjectMap;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spatial index of the available couriers, the plane is divided in square cells and the nearest courier to a point
+ * is found searching the rings of cells around it, closest ring first, stopping as soon as no courier in the next ring
+ * can be closer than the best one found. A courier is handed out by at most one caller, the one removing it from its
+ * cell, a courier must not move while it is indexed.
+ */
+class CourierGrid {
+
+    private final double cellKm;
+    private final ConcurrentLongObjectMap<Set<Courier>> cells = new ConcurrentLongObjectMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile int minCellX = Integer.MAX_VALUE;
+    private volatile int maxCellX = Integer.MIN_VALUE;
+    private volatile int minCellY = Integer.MAX_VALUE;
+    private volatile int maxCellY = Integer.MIN_VALUE;
+
+    CourierGrid(double cellKm) {
+        this.cellKm = cellKm;
+    }
+
+    void add(Courier courier) {
+        Location location = courier.getLocation();
+        int cellX = cellOf(location.x);
+        int cellY = cellOf(location.y);
+        long key = keyOf(cellX, cellY);
+        Set<Courier> cell = cells.get(key);
+        if (null == cell) {
+            cell = createCell(key, cellX, cellY);
+        }
+        cell.add(courier);
+        size.incrementAndGet();
+    }
+
+    /**
+     * Removes the courier closest to the given location
+     * @return the courier removed or null if none was found
+     */
+    Courier pollNearest(Location location) {
+        for (Courier nearest = findNearest(location); null != nearest; nearest = findNearest(location)) {
+            Set<Courier> cell = cells.get(keyOf(cellOf(nearest.getLocation().x), cellOf(nearest.getLocation().y)));
+            if (cell.remove(nearest)) {
+                size.decrementAndGet();
+                return nearest;
+            }
+            //taken by a concurrent caller, search again
+        }
+        return null;
+    }
+
+    /**
+     * The courier closest to the given location without removing it, a concurrent caller may take it right after
+     * @return the courier found or null if none is indexed
+     */
+    Courier peekNearest(Location location) {
+        return findNearest(location);
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    private Courier findNearest(Location location) {
+        if (size.get() <= 0) {
+            return null;
+        }
+        int centerX = cellOf(location.x);
+        int centerY = cellOf(location.y);
+        int rings = Math.max(Math.max(centerX - minCellX, maxCellX - centerX),
+                Math.max(centerY - minCellY, maxCellY - centerY));
+        Nearest nearest = new Nearest(location);
+        for (int ring = 0; ring <= rings; ring++) {
+            if (ring == 0) {
+                nearest.visit(cells.get(keyOf(centerX, centerY)));
+            } else {
+                for (int dx = -ring; dx <= ring; dx++) {
+                    nearest.visit(cells.get(keyOf(centerX + dx, centerY - ring)));
+                    nearest.visit(cells.get(keyOf(centerX + dx, centerY + ring)));
+                }
+                for (int dy = 1 - ring; dy < ring; dy++) {
+                    nearest.visit(cells.get(keyOf(centerX - ring, centerY + dy)));
+                    nearest.visit(cells.get(keyOf(centerX + ring, centerY + dy)));
+                }
+            }
+            //every courier beyond this ring is at least ring cells away
+            if (null != nearest.courier && nearest.distance <= ring * cellKm) {
+                break;
+            }
+        }
+        return nearest.courier;
+    }
+
+    private synchronized Set<Courier> createCell(long key, int cellX, int cellY) {
+        Set<Courier> cell = cells.get(key);
+        if (null == cell) {
+            cell = ConcurrentHashMap.newKeySet();
+            cells.put(key, cell);
+            minCellX = Math.min(minCellX, cellX);
+            maxCellX = Math.max(maxCellX, cellX);
+            minCellY = Math.min(minCellY, cellY);
+            maxCellY = Math.max(maxCellY, cellY);
+        }
+        return cell;
+    }
+
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / cellKm);
+    }
+
+    private static long keyOf(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    private static final class Nearest {
+        private final Location target;
+        private Courier courier;
+        private double distance = Double.MAX_VALUE;
+
+        private Nearest(Location target) {
+            this.target = target;
+        }
+
+        private void visit(Set<Courier> cell) {
+            if (null == cell) {
+                return;
+            }
+            for (Courier candidate : cell) {
+                double d = candidate.getLocation().distanceTo(target);
+                if (d < distance) {
+                    distance = d;
+                    courier = candidate;
+                }
+            }
+        }
+    }
+}
@@ -8,7 +8,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.Optional;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -28,16 +27,16 @@ public class CourierServiceImpl implements CourierDispatchService {
     }
 
     @Override
-    public Optional<Integer> dispatchRequest(DeliveryOrder order, long kitchenReservationId, long now) {
-        DispatchResult dispatchResult = this.courierFleet.dispatch(order, now);
-        Integer courierId = dispatchResult.courierId;
-        if(null != courierId) {
-            OutputEvent event = CourierDispatchedEvent.of(now, order, courierId, kitchenReservationId,
+    public DispatchResult dispatchRequest(DeliveryOrder order, long kitchenReservationId, long now, long readyAt) {
+        DispatchResult dispatchResult = this.courierFleet.dispatch(order, kitchenReservationId, now, readyAt);
+        if(dispatchResult.isDispatched()) {
+            OutputEvent event = CourierDispatchedEvent.of(now, order, dispatchResult.courierId, kitchenReservationId,
                     dispatchResult.ettMillis);
             publish(event);
-            return Optional.of(courierId);
+        } else if(dispatchResult.isPlanned()) {
+            this.orderCourierMatcher.processCourierDispatchPlanned(kitchenReservationId);
         }
-        return Optional.empty();
+        return dispatchResult;
     }
 
     @Override
@@ -47,12 +46,13 @@ public class CourierServiceImpl implements CourierDispatchService {
 
     @Override
     public boolean processCourierArrived(CourierArrivedEvent courierArrivedEvent) {
+        this.courierFleet.courierArrived(courierArrivedEvent);
         return this.orderCourierMatcher.acceptCourierArrivedEvent(courierArrivedEvent);
     }
 
     @Override
     public void processOrderDelivered(OrderDeliveredEvent orderDeliveredEvent) {
-        courierFleet.release(orderDeliveredEvent.getCourierId());
+        courierFleet.release(orderDeliveredEvent.getCourierId(), orderDeliveredEvent.createdAt);
     }
 
     @Override
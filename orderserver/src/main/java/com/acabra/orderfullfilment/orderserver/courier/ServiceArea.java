@@ -0,0 +1,47 @@
+package com.acabra.orderfullfilment.orderserver.courier;
+
+import com.acabra.orderfullfilment.orderserver.config.CourierConfig;
+import com.acabra.orderfullfilment.orderserver.courier.model.Location;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The disc around the kitchen where the orders are delivered, the couriers roam inside it and the spatial index
+ * over them is divided in square cells of the given size.
+ */
+public final class ServiceArea {
+
+    public static final ServiceArea DEFAULT = new ServiceArea(Location.ORIGIN, 5d, 0.5d);
+
+    public final Location kitchen;
+    public final double radiusKm;
+    public final double cellKm;
+
+    private ServiceArea(Location kitchen, double radiusKm, double cellKm) {
+        if (radiusKm <= 0d || cellKm <= 0d) {
+            throw new IllegalArgumentException("The service radius and the grid cell must be positive");
+        }
+        this.kitchen = kitchen;
+        this.radiusKm = radiusKm;
+        this.cellKm = cellKm;
+    }
+
+    public static ServiceArea of(Location kitchen, double radiusKm, double cellKm) {
+        return new ServiceArea(kitchen, radiusKm, cellKm);
+    }
+
+    public static ServiceArea of(CourierConfig config) {
+        return new ServiceArea(Location.of(config.getKitchenX(), config.getKitchenY()), config.getServiceRadiusKm(),
+                config.getGridCellKm());
+    }
+
+    /**
+     * @return a location drawn uniformly from the area, emulates where a courier is left after a delivery
+     */
+    public Location randomLocation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double distance = radiusKm * Math.sqrt(random.nextDouble());
+        double angle = 2 * Math.PI * random.nextDouble();
+        return Location.of(kitchen.x + distance * Math.cos(angle), kitchen.y + distance * Math.sin(angle));
+    }
+}
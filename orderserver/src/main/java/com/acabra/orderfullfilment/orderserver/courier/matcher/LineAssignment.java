@@ -0,0 +1,74 @@
+package com.acabra.orderfullfilment.orderserver.courier.matcher;
+
+/**
+ * Exact min-cost assignment between two sets of points on a line where pairing a and b costs |a - b| and leaving a
+ * point unassigned costs its own skip penalty. Some optimal assignment never crosses (swapping the partners of two
+ * crossing pairs does not increase the cost) so with both sides sorted it is found by dynamic programming in
+ * O(n * m) time, instead of the O(n^3) of the Hungarian algorithm over the general cost matrix.
+ */
+final class LineAssignment {
+
+    static final int UNASSIGNED = -1;
+
+    private static final byte PAIR = 0;
+    private static final byte SKIP_LEFT = 1;
+    private static final byte SKIP_RIGHT = 2;
+
+    private LineAssignment() {
+    }
+
+    /**
+     * @param left positions sorted in ascending order
+     * @param leftSkip cost of leaving each left position unassigned
+     * @param right positions sorted in ascending order
+     * @param rightSkip cost of leaving each right position unassigned
+     * @return the index of the right position assigned to each left position or {@link #UNASSIGNED}
+     */
+    static int[] solve(long[] left, long[] leftSkip, long[] right, long[] rightSkip) {
+        int n = left.length;
+        int m = right.length;
+        byte[] choices = new byte[(n + 1) * (m + 1)];
+        long[] previous = new long[m + 1];
+        long[] current = new long[m + 1];
+        for (int j = 1; j <= m; j++) {
+            previous[j] = previous[j - 1] + rightSkip[j - 1];
+            choices[j] = SKIP_RIGHT;
+        }
+        for (int i = 1; i <= n; i++) {
+            int row = i * (m + 1);
+            current[0] = previous[0] + leftSkip[i - 1];
+            choices[row] = SKIP_LEFT;
+            for (int j = 1; j <= m; j++) {
+                long best = previous[j - 1] + Math.abs(left[i - 1] - right[j - 1]);
+                byte choice = PAIR;
+                long skipLeft = previous[j] + leftSkip[i - 1];
+                if (skipLeft < best) {
+                    best = skipLeft;
+                    choice = SKIP_LEFT;
+                }
+                long skipRight = current[j - 1] + rightSkip[j - 1];
+                if (skipRight < best) {
+                    best = skipRight;
+                    choice = SKIP_RIGHT;
+                }
+                current[j] = best;
+                choices[row + j] = choice;
+            }
+            long[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int[] assigned = new int[n];
+        for (int i = n, j = m; i > 0 || j > 0; ) {
+            byte choice = choices[i * (m + 1) + j];
+            if (choice == PAIR) {
+                assigned[--i] = --j;
+            } else if (choice == SKIP_LEFT) {
+                assigned[--i] = UNASSIGNED;
+            } else {
+                j--;
+            }
+        }
+        return assigned;
+    }
+}
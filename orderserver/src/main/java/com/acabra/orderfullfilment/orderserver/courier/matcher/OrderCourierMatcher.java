@@ -33,4 +33,11 @@ public interface OrderCourierMatcher extends OutputEventPublisher {
      * @param courierDispatchedEvent event indicating a courier was dispatched
      */
     void processCourierDispatchedEvent(CourierDispatchedEvent courierDispatchedEvent);
+
+    /**
+     * Indicates the matcher the courier of a reservation is planned to be dispatched later while its meal is already
+     * being prepared, the meal may then be prepared before its courier dispatched event arrives
+     * @param kitchenReservationId the reservation whose courier dispatch was planned
+     */
+    default void processCourierDispatchPlanned(long kitchenReservationId) {}
 }
@@ -0,0 +1,321 @@
+package com.acabra.orderfullfilment.orderserver.courier.matcher;
+
+import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
+import com.acabra.orderfullfilment.orderserver.core.timer.EventTimer;
+import com.acabra.orderfullfilment.orderserver.event.*;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenClock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Accumulates the meals prepared and the couriers arrived over a window and then assigns them together, minimizing
+ * the food plus courier wait the pickups report. A meal and a courier already at the kitchen are picked up as the
+ * window closes, leaving either of them unassigned costs at least another window. Couriers dispatched and not yet
+ * arrived take part with their predicted arrival time, a meal assigned to one of them is held and picked up as soon
+ * as the courier arrives. A courier not arrived a window past its prediction no longer takes part and its held meal
+ * goes back to the batch. Any courier picks up any meal, as in the FIFO strategy, the oldest ones first.
+ * The assignment runs on its own thread so the timer only closes the window.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "orderserver", name = "strategy", havingValue = "batch")
+public class OrderCourierMatcherBatchImpl implements OrderCourierMatcher, AutoCloseable {
+
+    private static final Comparator<OutputEvent> CREATED_ORDER = Comparator.comparingLong(e -> e.createdAt);
+
+    private final Queue<OutputEvent> intake = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean armed = new AtomicBoolean(false);
+    private final AtomicReference<Queue<OutputEvent>> pubDeque = new AtomicReference<>();
+    private final EventTimer timer;
+    private final long windowMillis;
+    private final Executor solver;
+    /**
+     * Predicted arrival of the couriers dispatched, by kitchen reservation
+     */
+    private final Map<Long, Long> incomingArrivals = new ConcurrentHashMap<>();
+    /**
+     * Meals held for an incoming courier, by the kitchen reservation of the courier
+     */
+    private final Map<Long, OrderPreparedEvent> heldMeals = new ConcurrentHashMap<>();
+
+    //only accessed by the window holding the lock
+    private List<OrderPreparedEvent> meals = new ArrayList<>();
+    private List<CourierArrivedEvent> couriers = new ArrayList<>();
+
+    @Autowired
+    public OrderCourierMatcherBatchImpl(EventTimer timer, OrderServerConfig config) {
+        //the simulation advances the virtual time on a single thread, its windows must close on that thread
+        this(timer, config.getBatchWindowMillis(), config.isSimulationMode() ? Runnable::run : newSolver());
+    }
+
+    /**
+     * Assigns each window on the thread closing it
+     * @param windowMillis time the events are accumulated before they are assigned
+     */
+    public OrderCourierMatcherBatchImpl(EventTimer timer, long windowMillis) {
+        this(timer, windowMillis, Runnable::run);
+    }
+
+    /**
+     * @param windowMillis time the events are accumulated before they are assigned
+     * @param solver executor assigning the windows closed by the timer
+     */
+    public OrderCourierMatcherBatchImpl(EventTimer timer, long windowMillis, Executor solver) {
+        this.timer = timer;
+        this.windowMillis = windowMillis;
+        this.solver = solver;
+        log.info("[SYSTEM] Initialized the server using the dispatch BATCH strategy, window [{}]ms", windowMillis);
+    }
+
+    private static ExecutorService newSolver() {
+        return Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "batch-matcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void registerNotificationDeque(Queue<OutputEvent> deque) {
+        this.pubDeque.set(deque);
+    }
+
+    @Override
+    public Queue<OutputEvent> getPubDeque() {
+        return this.pubDeque.get();
+    }
+
+    @Override
+    public void logError(String msg, Throwable e) {
+        log.error(msg, e);
+    }
+
+    /**
+     * Stops the thread assigning the windows, the windows closing afterwards are dropped
+     */
+    @Override
+    public void close() {
+        if (solver instanceof ExecutorService) {
+            ((ExecutorService) solver).shutdown();
+        }
+    }
+
+    @Override
+    public boolean acceptOrderPreparedEvent(OrderPreparedEvent orderPreparedEvent) {
+        intake.offer(orderPreparedEvent);
+        arm();
+        return true;
+    }
+
+    @Override
+    public boolean acceptCourierArrivedEvent(CourierArrivedEvent courierArrivedEvent) {
+        OrderPreparedEvent held = heldMeals.remove(courierArrivedEvent.kitchenReservationId);
+        if (null != held) {
+            incomingArrivals.remove(courierArrivedEvent.kitchenReservationId);
+            return publish(OrderPickedUpEvent.of(courierArrivedEvent, held));
+        }
+        intake.offer(courierArrivedEvent);
+        arm();
+        return true;
+    }
+
+    @Override
+    public void processCourierDispatchedEvent(CourierDispatchedEvent courierDispatchedEvent) {
+        intake.offer(courierDispatchedEvent);
+    }
+
+    private void arm() {
+        if (armed.compareAndSet(false, true)) {
+            timer.schedule(this::closeWindow, windowMillis);
+        }
+    }
+
+    private boolean closeWindow() {
+        try {
+            solver.execute(this::runWindow);
+        } catch (RejectedExecutionException e) {
+            armed.set(false);
+            log.warn("[BATCH] window dropped, the matcher is shut down");
+        }
+        return true;
+    }
+
+    private void runWindow() {
+        armed.set(false);
+        if (matchWindow(KitchenClock.now())) {
+            //meals and couriers still waiting, the arrivals reopen the window as well
+            arm();
+        }
+    }
+
+    /**
+     * Assigns the meals and couriers accumulated so far, publishes the pickups of the couriers already arrived and
+     * holds the meals assigned to incoming couriers
+     * @param now time the window closed
+     * @return true if meals and arrived couriers were left waiting together or meals are held
+     */
+    synchronized boolean matchWindow(long now) {
+        drainIntake(now);
+        expireIncoming(now);
+        if (meals.isEmpty() || (couriers.isEmpty() && incomingArrivals.isEmpty())) {
+            return !heldMeals.isEmpty();
+        }
+        meals.sort(CREATED_ORDER);
+        couriers.sort(CREATED_ORDER);
+        List<Map.Entry<Long, Long>> incoming = incomingNotHolding();
+        CourierArrivedEvent[] candidates = mergeCandidates(incoming);
+        int[] assigned = solve(now, candidates, incoming);
+
+        //the incoming couriers take the null candidates in order
+        int[] incomingIndex = new int[candidates.length];
+        for (int j = 0, b = 0; j < candidates.length; j++) {
+            incomingIndex[j] = null == candidates[j] ? b++ : -1;
+        }
+        List<OrderPreparedEvent> mealsLeft = new ArrayList<>();
+        int held = 0;
+        for (int i = 0; i < assigned.length; i++) {
+            if (assigned[i] == LineAssignment.UNASSIGNED) {
+                mealsLeft.add(meals.get(i));
+                continue;
+            }
+            CourierArrivedEvent courier = candidates[assigned[i]];
+            if (null == courier) {
+                heldMeals.put(incoming.get(incomingIndex[assigned[i]]).getKey(), meals.get(i));
+                held++;
+            } else {
+                candidates[assigned[i]] = null;
+                publish(OrderPickedUpEvent.of(courier, meals.get(i), now));
+            }
+        }
+        List<CourierArrivedEvent> couriersLeft = new ArrayList<>();
+        for (CourierArrivedEvent courier : candidates) {
+            if (null != courier) {
+                couriersLeft.add(courier);
+            }
+        }
+        log.debug("[BATCH] pickups [{}], meals held [{}], meals waiting [{}], couriers waiting [{}], couriers " +
+                        "incoming [{}]", meals.size() - mealsLeft.size() - held, held, mealsLeft.size(),
+                couriersLeft.size(), incoming.size());
+        this.meals = mealsLeft;
+        this.couriers = couriersLeft;
+        return (!mealsLeft.isEmpty() && !couriersLeft.isEmpty()) || !heldMeals.isEmpty();
+    }
+
+    /**
+     * Drops the couriers a window late on their predicted arrival, their held meals go back to the batch. Covers
+     * the arrivals never drained against their dispatch as well.
+     */
+    private void expireIncoming(long now) {
+        Iterator<Map.Entry<Long, Long>> it = incomingArrivals.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Long> entry = it.next();
+            if (entry.getValue() + windowMillis < now) {
+                it.remove();
+                OrderPreparedEvent held = heldMeals.remove(entry.getKey());
+                if (null != held) {
+                    meals.add(held);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the kitchen reservation and predicted arrival of the incoming couriers not holding a meal yet, sorted
+     * by predicted arrival
+     */
+    private List<Map.Entry<Long, Long>> incomingNotHolding() {
+        List<Map.Entry<Long, Long>> incoming = new ArrayList<>();
+        for (Map.Entry<Long, Long> entry : incomingArrivals.entrySet()) {
+            if (!heldMeals.containsKey(entry.getKey())) {
+                incoming.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        incoming.sort(Map.Entry.comparingByValue());
+        return incoming;
+    }
+
+    private void drainIntake(long now) {
+        for (OutputEvent event = intake.poll(); null != event; event = intake.poll()) {
+            switch (event.type) {
+                case ORDER_PREPARED:
+                    meals.add((OrderPreparedEvent) event);
+                    break;
+                case COURIER_DISPATCHED:
+                    CourierDispatchedEvent dispatched = (CourierDispatchedEvent) event;
+                    incomingArrivals.put(dispatched.kitchenReservationId,
+                            dispatched.createdAt + dispatched.estimatedTravelTime);
+                    break;
+                case COURIER_ARRIVED:
+                    CourierArrivedEvent arrived = (CourierArrivedEvent) event;
+                    incomingArrivals.remove(arrived.kitchenReservationId);
+                    //a meal held for the courier while its arrival was waiting in the intake
+                    OrderPreparedEvent held = heldMeals.remove(arrived.kitchenReservationId);
+                    if (null == held) {
+                        couriers.add(arrived);
+                    } else {
+                        publish(OrderPickedUpEvent.of(arrived, held, now));
+                    }
+                    break;
+                default:
+                    log.error("[BATCH] Unexpected event: {}", event.type);
+            }
+        }
+    }
+
+    /**
+     * @return the arrived couriers merged with the incoming ones (null) in arrival order
+     */
+    private CourierArrivedEvent[] mergeCandidates(List<Map.Entry<Long, Long>> incoming) {
+        CourierArrivedEvent[] candidates = new CourierArrivedEvent[couriers.size() + incoming.size()];
+        for (int j = 0, a = 0, b = 0; j < candidates.length; j++) {
+            if (b == incoming.size() || (a < couriers.size()
+                    && couriers.get(a).createdAt <= incoming.get(b).getValue())) {
+                candidates[j] = couriers.get(a++);
+            } else {
+                b++;
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Costs each choice by the wait it adds to the pickups, measured from the window close: a meal and an arrived
+     * courier paired now add nothing, a meal held for an incoming courier waits until the courier arrives and a meal
+     * or arrived courier left unassigned waits at least another window. The waits already accrued are the same
+     * whatever the choice so they are left out. Every cost is scaled so the tie-breaks, leaving the newest meals and
+     * couriers unassigned first, can never outweigh a millisecond of wait.
+     */
+    private int[] solve(long now, CourierArrivedEvent[] candidates, List<Map.Entry<Long, Long>> incoming) {
+        int mealCount = meals.size();
+        long scale = (long) (mealCount + candidates.length + 1) * (mealCount + candidates.length + 1);
+        long skipCost = windowMillis * scale;
+        long[] mealTimes = new long[mealCount];
+        long[] mealSkip = new long[mealCount];
+        for (int i = 0; i < mealCount; i++) {
+            mealSkip[i] = skipCost + mealCount - i;
+        }
+        long[] courierTimes = new long[candidates.length];
+        long[] courierSkip = new long[candidates.length];
+        for (int j = 0, b = 0; j < candidates.length; j++) {
+            if (null != candidates[j]) {
+                courierSkip[j] = skipCost + candidates.length - j;
+            } else {
+                //an incoming courier left unassigned is simply not waiting yet
+                courierTimes[j] = Math.max(0L, incoming.get(b++).getValue() - now) * scale;
+            }
+        }
+        return LineAssignment.solve(mealTimes, mealSkip, courierTimes, courierSkip);
+    }
+}
@@ -5,9 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import java.util.Deque;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicReference;
 
 @SuppressWarnings("DuplicatedCode")
@@ -16,11 +14,34 @@ import java.util.concurrent.atomic.AtomicReference;
 @ConditionalOnProperty(prefix = "orderserver", name = "strategy", havingValue = "fifo")
 public class OrderCourierMatcherFIFOImpl implements OrderCourierMatcher {
 
-    private final Deque<OrderPreparedEvent> mealsPrepared = new ConcurrentLinkedDeque<>();
-    private final Deque<CourierArrivedEvent> couriersArrived = new ConcurrentLinkedDeque<>();
+    private static final int HAND_OFF_SPINS = 1 << 6;
+
+    /**
+     * The n-th meal prepared is picked up by the n-th courier arrived, each pair meets on its own stripe so a meal
+     * and a courier arriving together can never both end up waiting, or on a hand-off slot when they arrive at once
+     */
+    private final StripedMatchQueue<OrderPreparedEvent, CourierArrivedEvent> waiting;
     private final AtomicReference<Queue<OutputEvent>> pubDeque = new AtomicReference<>();
 
     public OrderCourierMatcherFIFOImpl() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stripes amount of stripes the matcher spreads its waiting meals and couriers across
+     */
+    public OrderCourierMatcherFIFOImpl(int stripes) {
+        //a single processor never runs the counterpart while an arrival spins on its hand-off slot
+        this(stripes, Runtime.getRuntime().availableProcessors() > 1 ? HAND_OFF_SPINS : 0);
+    }
+
+    /**
+     * @param stripes amount of stripes the matcher spreads its waiting meals and couriers across
+     * @param handOffSpins amount of spins a meal or a courier waits on a hand-off slot for its counterpart before
+     *                     waiting on its stripe, 0 disables the hand-off slots
+     */
+    public OrderCourierMatcherFIFOImpl(int stripes, int handOffSpins) {
+        this.waiting = new StripedMatchQueue<>(stripes, handOffSpins);
         log.info("[SYSTEM] Initialized the server using the dispatch FIFO strategy");
     }
 
@@ -41,22 +62,28 @@ public class OrderCourierMatcherFIFOImpl implements OrderCourierMatcher {
 
     @Override
     public boolean acceptOrderPreparedEvent(OrderPreparedEvent orderEvt) {
-        CourierArrivedEvent courierEvt = couriersArrived.poll();
-        if (null != courierEvt) {
-            return publish(OrderPickedUpEvent.of(courierEvt, orderEvt));
-        }
-        mealsPrepared.offer(orderEvt);
-        return false;
+        CourierArrivedEvent courierEvt = waiting.offerLeft(orderEvt);
+        return null != courierEvt && publish(OrderPickedUpEvent.of(courierEvt, orderEvt));
     }
 
     @Override
     public boolean acceptCourierArrivedEvent(CourierArrivedEvent courierEvt) {
-        OrderPreparedEvent orderEvt = mealsPrepared.poll();
-        if (null != orderEvt) {
-            return publish(OrderPickedUpEvent.of(courierEvt, orderEvt));
-        }
-        couriersArrived.offer(courierEvt);
-        return false;
+        OrderPreparedEvent orderEvt = waiting.offerRight(courierEvt);
+        return null != orderEvt && publish(OrderPickedUpEvent.of(courierEvt, orderEvt));
+    }
+
+    /**
+     * @return the meals prepared waiting for a courier
+     */
+    public int mealsWaiting() {
+        return waiting.leftWaiting();
+    }
+
+    /**
+     * @return the couriers arrived waiting for a meal
+     */
+    public int couriersWaiting() {
+        return waiting.rightWaiting();
     }
 
     //this event can be ignored as the matching takes place upon courier or meal arrival
@@ -1,14 +1,14 @@
 package com.acabra.orderfullfilment.orderserver.courier.matcher;
 
 import com.acabra.orderfullfilment.orderserver.event.*;
+import com.acabra.orderfullfilment.orderserver.utils.ConcurrentIntLongMap;
+import com.acabra.orderfullfilment.orderserver.utils.ConcurrentLongObjectMap;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 @SuppressWarnings("DuplicatedCode")
@@ -17,11 +17,12 @@ import java.util.concurrent.atomic.AtomicReference;
 @ConditionalOnProperty(prefix = "orderserver", name = "strategy", havingValue = "matched")
 public class OrderCourierMatcherMatchedImpl implements OrderCourierMatcher {
 
+    private static final long NO_RESERVATION = -1L;
+    private static final int NO_COURIER = Integer.MIN_VALUE;
+
     private final AtomicReference<Queue<OutputEvent>> pubDeque = new AtomicReference<>();
-    private final Map<Long, OrderPreparedEvent> ordersPrepared = new ConcurrentHashMap<>();
-    private final Map<Integer, CourierArrivedEvent> couriersArrived = new ConcurrentHashMap<>();
-    private final Map<Integer, Long> courierToReservationMap = new ConcurrentHashMap<>();
-    private final Map<Long, Integer> reservationToCourierMap = new ConcurrentHashMap<>();
+    private final ConcurrentLongObjectMap<MatchSlot> slotsByReservation = new ConcurrentLongObjectMap<>();
+    private final ConcurrentIntLongMap courierToReservationMap = new ConcurrentIntLongMap(NO_RESERVATION);
 
     public OrderCourierMatcherMatchedImpl() {
         log.info("[SYSTEM] Initialized the server using the dispatch MATCHED strategy");
@@ -30,18 +31,12 @@ public class OrderCourierMatcherMatchedImpl implements OrderCourierMatcher {
     @Override
     public boolean acceptOrderPreparedEvent(final OrderPreparedEvent orderEvt) {
         try {
-            couriersArrived.compute(
-                Objects.requireNonNull(reservationToCourierMap.get(orderEvt.kitchenReservationId),
-                        "Unrecognized Reservation Id: " + orderEvt.kitchenReservationId),
-                (courierId, courierEvt) -> {
-                    if (null != courierEvt) {
-                        completeMatchingAndPublish(orderEvt, courierEvt);
-                    } else {
-                        ordersPrepared.put(orderEvt.kitchenReservationId, orderEvt);
-                    }
-                    return null;
-                }
-            );
+            MatchSlot slot = Objects.requireNonNull(slotsByReservation.get(orderEvt.kitchenReservationId),
+                    "Unrecognized Reservation Id: " + orderEvt.kitchenReservationId);
+            OutputEvent pending = slot.rendezvous(orderEvt);
+            if (pending instanceof CourierArrivedEvent) {
+                completeMatchingAndPublish(slot, orderEvt, (CourierArrivedEvent) pending);
+            }
             return true;
         } catch (Exception e) {
             log.error("[ERROR] Unable to accept the current event {}", e.getMessage(), e);
@@ -52,18 +47,12 @@ public class OrderCourierMatcherMatchedImpl implements OrderCourierMatcher {
     @Override
     public boolean acceptCourierArrivedEvent(final CourierArrivedEvent courierEvt) {
         try {
-            ordersPrepared.compute(
-                Objects.requireNonNull(courierToReservationMap.get(courierEvt.courierId),
-                        "Unrecognized Courier Id: " + courierEvt.courierId),
-                (orderId, orderEvt) -> {
-                    if(null != orderEvt) {
-                        completeMatchingAndPublish(orderEvt, courierEvt);
-                    } else {
-                        couriersArrived.put(courierEvt.courierId, courierEvt);
-                    }
-                    return null;
-                }
-            );
+            MatchSlot slot = slotOf(courierEvt);
+            Objects.requireNonNull(slot, "Unrecognized Courier Id: " + courierEvt.courierId);
+            OutputEvent pending = slot.rendezvous(courierEvt);
+            if (pending instanceof OrderPreparedEvent) {
+                completeMatchingAndPublish(slot, (OrderPreparedEvent) pending, courierEvt);
+            }
             return true;
         } catch (Exception e) {
             log.error("Unable to accept the current event {}", e.getMessage(), e);
@@ -71,9 +60,26 @@ public class OrderCourierMatcherMatchedImpl implements OrderCourierMatcher {
         return false;
     }
 
-    synchronized private void completeMatchingAndPublish(OrderPreparedEvent orderEvt, CourierArrivedEvent courierEvt) {
-        reservationToCourierMap.remove(orderEvt.kitchenReservationId);
-        courierToReservationMap.remove(courierEvt.courierId);
+    /**
+     * A courier carrying several orders arrives once per order, each arrival names its reservation
+     */
+    private MatchSlot slotOf(CourierArrivedEvent courierEvt) {
+        MatchSlot slot = slotsByReservation.get(courierEvt.kitchenReservationId);
+        if (null != slot && slot.courierId == courierEvt.courierId) {
+            return slot;
+        }
+        long reservationId = courierToReservationMap.get(courierEvt.courierId);
+        return NO_RESERVATION == reservationId ? null : slotsByReservation.get(reservationId);
+    }
+
+    /**
+     * Runs once per slot, on the thread that completed the rendezvous. The mappings are removed before the pickup
+     * is published, the courier can only be dispatched again once the order is delivered.
+     */
+    private void completeMatchingAndPublish(MatchSlot slot, OrderPreparedEvent orderEvt,
+                                            CourierArrivedEvent courierEvt) {
+        slotsByReservation.remove(slot.kitchenReservationId, slot);
+        courierToReservationMap.remove(slot.courierId);
         publish(OrderPickedUpEvent.of(courierEvt, orderEvt));
     }
 
@@ -93,8 +99,61 @@ public class OrderCourierMatcherMatchedImpl implements OrderCourierMatcher {
     }
 
     @Override
-    synchronized public void processCourierDispatchedEvent(CourierDispatchedEvent courierEvt) {
+    public void processCourierDispatchedEvent(CourierDispatchedEvent courierEvt) {
+        MatchSlot planned = slotsByReservation.putIfAbsent(courierEvt.kitchenReservationId,
+                new MatchSlot(courierEvt.courierId, courierEvt.kitchenReservationId));
+        if (null != planned) {
+            planned.courierId = courierEvt.courierId;
+        }
         courierToReservationMap.put(courierEvt.courierId, courierEvt.kitchenReservationId);
-        reservationToCourierMap.put(courierEvt.kitchenReservationId, courierEvt.courierId);
+    }
+
+    /**
+     * Opens the slot of the reservation ahead of its courier, so the meal prepared before the planned dispatch is due
+     * waits in the slot until the courier is dispatched and arrives
+     */
+    @Override
+    public void processCourierDispatchPlanned(long kitchenReservationId) {
+        slotsByReservation.putIfAbsent(kitchenReservationId, new MatchSlot(NO_COURIER, kitchenReservationId));
+    }
+
+    /**
+     * The rendezvous point of a reservation and its courier, the first event to arrive waits in the slot and the
+     * second one takes it out with a CAS, leaving the slot matched.
+     */
+    private static final class MatchSlot {
+        private static final Object MATCHED = new Object();
+
+        /**
+         * Set once the courier is dispatched, a planned slot is opened before
+         */
+        private volatile int courierId;
+        private final long kitchenReservationId;
+        private final AtomicReference<Object> pending = new AtomicReference<>();
+
+        private MatchSlot(int courierId, long kitchenReservationId) {
+            this.courierId = courierId;
+            this.kitchenReservationId = kitchenReservationId;
+        }
+
+        /**
+         * @return the counterpart event if the given one completed the match, or null if it now waits in the slot
+         * @throws IllegalStateException if an event of the same kind was already accepted
+         */
+        private OutputEvent rendezvous(OutputEvent arrived) {
+            for (;;) {
+                Object current = pending.get();
+                if (null == current) {
+                    if (pending.compareAndSet(null, arrived)) {
+                        return null;
+                    }
+                } else if (MATCHED == current || ((OutputEvent) current).getType() == arrived.getType()) {
+                    throw new IllegalStateException(String.format("Duplicated %s for reservation id: %d",
+                            arrived.getType(), kitchenReservationId));
+                } else if (pending.compareAndSet(current, MATCHED)) {
+                    return (OutputEvent) current;
+                }
+            }
+        }
     }
 }
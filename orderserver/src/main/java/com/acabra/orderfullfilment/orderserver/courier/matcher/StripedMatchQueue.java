@@ -0,0 +1,161 @@
+package com.acabra.orderfullfilment.orderserver.courier.matcher;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Waiting room of the FIFO matcher, pairs the n-th left event with the n-th right event. Each side hands out its
+ * own tickets and the n-th ticket of both sides lands on the same stripe, so a stripe only ever pairs its own
+ * events and keeps its own balance: at most one of its two queues holds events. The left and right sides never
+ * share a counter, and the events of different stripes never share a lock.
+ * An event finding its counterpart waiting on its stripe takes it right away, else it waits on its stripe, no
+ * arrival ever waits for another one to land.
+ * In front of the stripes sits one hand-off slot per stripe, picked at random by each arrival: a left and a right
+ * event arriving together meet there with a single CAS, taking neither a ticket nor a stripe lock. An arrival
+ * finding the slot empty parks its event for a bounded spin, if no counterpart takes it by then it takes it back
+ * and goes to its stripe, so the slots only pair events that would otherwise race for the tickets. The events
+ * paired on a slot skip the ones already waiting on the stripes, the order is first come first served among
+ * the events waiting and approximate among the ones arriving together.
+ * @param <L> the type of the left events
+ * @param <R> the type of the right events
+ */
+class StripedMatchQueue<L, R> {
+
+    private static final Object MISSED = new Object();
+
+    private final Stripe<L, R>[] stripes;
+    private final AtomicReferenceArray<HandOff> slots;
+    private final int mask;
+    private final int handOffSpins;
+    private final AtomicLong leftTicket = new AtomicLong();
+    private final AtomicLong rightTicket = new AtomicLong();
+
+    /**
+     * @param stripes amount of stripes, rounded up to a power of two
+     * @param handOffSpins amount of spins an event parked on a hand-off slot waits for its counterpart, 0 never
+     *                     parks an event there
+     */
+    @SuppressWarnings("unchecked")
+    StripedMatchQueue(int stripes, int handOffSpins) {
+        int count = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe<>();
+        }
+        this.slots = new AtomicReferenceArray<>(count);
+        this.mask = count - 1;
+        this.handOffSpins = Math.max(0, handOffSpins);
+    }
+
+    /**
+     * @return the right event waiting for the given one, null if it was left waiting
+     */
+    @SuppressWarnings("unchecked")
+    R offerLeft(L event) {
+        Object handedOff = handOff(event, true);
+        if (MISSED != handedOff) {
+            return (R) handedOff;
+        }
+        Stripe<L, R> stripe = stripes[(int) leftTicket.getAndIncrement() & mask];
+        synchronized (stripe) {
+            R counterpart = stripe.right.poll();
+            if (null == counterpart) {
+                stripe.left.offer(event);
+                stripe.leftWaiting = stripe.left.size();
+            } else {
+                stripe.rightWaiting = stripe.right.size();
+            }
+            return counterpart;
+        }
+    }
+
+    /**
+     * @return the left event waiting for the given one, null if it was left waiting
+     */
+    @SuppressWarnings("unchecked")
+    L offerRight(R event) {
+        Object handedOff = handOff(event, false);
+        if (MISSED != handedOff) {
+            return (L) handedOff;
+        }
+        Stripe<L, R> stripe = stripes[(int) rightTicket.getAndIncrement() & mask];
+        synchronized (stripe) {
+            L counterpart = stripe.left.poll();
+            if (null == counterpart) {
+                stripe.right.offer(event);
+                stripe.rightWaiting = stripe.right.size();
+            } else {
+                stripe.leftWaiting = stripe.left.size();
+            }
+            return counterpart;
+        }
+    }
+
+    /**
+     * Meets the counterpart parked on a random slot, else parks the event there for a bounded spin
+     * @return the counterpart taken from the slot, null if the counterpart took the event or {@link #MISSED} if
+     * the event must go to its stripe
+     */
+    private Object handOff(Object event, boolean left) {
+        int i = ThreadLocalRandom.current().nextInt() & mask;
+        HandOff parked = slots.get(i);
+        if (null != parked) {
+            return parked.left != left && slots.compareAndSet(i, parked, null) ? parked.event : MISSED;
+        }
+        if (handOffSpins == 0) {
+            return MISSED;
+        }
+        HandOff handOff = new HandOff(event, left);
+        if (!slots.compareAndSet(i, null, handOff)) {
+            return MISSED;
+        }
+        for (int spins = handOffSpins; spins > 0; spins--) {
+            if (slots.get(i) != handOff) {
+                return null;
+            }
+            Thread.onSpinWait();
+        }
+        return slots.compareAndSet(i, handOff, null) ? MISSED : null;
+    }
+
+    /**
+     * @return the left events currently waiting, approximate while events are being offered
+     */
+    int leftWaiting() {
+        int waiting = 0;
+        for (Stripe<L, R> stripe : stripes) {
+            waiting += stripe.leftWaiting;
+        }
+        return waiting;
+    }
+
+    /**
+     * @return the right events currently waiting, approximate while events are being offered
+     */
+    int rightWaiting() {
+        int waiting = 0;
+        for (Stripe<L, R> stripe : stripes) {
+            waiting += stripe.rightWaiting;
+        }
+        return waiting;
+    }
+
+    private static final class HandOff {
+        private final Object event;
+        private final boolean left;
+
+        private HandOff(Object event, boolean left) {
+            this.event = event;
+            this.left = left;
+        }
+    }
+
+    private static final class Stripe<L, R> {
+        private final ArrayDeque<L> left = new ArrayDeque<>();
+        private final ArrayDeque<R> right = new ArrayDeque<>();
+        private volatile int leftWaiting;
+        private volatile int rightWaiting;
+    }
+}
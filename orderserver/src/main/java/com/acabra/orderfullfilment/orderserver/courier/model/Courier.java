@@ -10,48 +10,136 @@ public class Courier {
     public final Integer id;
     public final String name;
 
-    private boolean available;
+    private static final int CAPACITY_NOT_GIVEN = 0;
 
-    private Courier(Integer id, String name) {
-        this.id = id;
-        this.name = name;
-        this.available = true;
-    }
+    private boolean available;
+    private volatile Location location;
+    private int capacity;
+    private int load;
+    private boolean delivering;
 
-    private Courier(Integer id, String name, CourierStatus status) {
+    private Courier(Integer id, String name, CourierStatus status, Location location, Integer capacity) {
         this.id = id;
         this.name = name;
         this.available = CourierStatus.AVAILABLE == status;
+        this.location = location;
+        this.capacity = null == capacity ? CAPACITY_NOT_GIVEN : Math.max(1, capacity);
+        this.load = available ? 0 : 1;
     }
 
     public static Courier ofDispatched(Integer id, String name) {
-        return new Courier(id, name, CourierStatus.DISPATCHED);
+        return new Courier(id, name, CourierStatus.DISPATCHED, null, null);
+    }
+
+    public static Courier ofAvailable(Integer id, String name) {
+        return new Courier(id, name, CourierStatus.AVAILABLE, null, null);
     }
 
+    public static Courier ofAvailable(Integer id, String name, Location location) {
+        return new Courier(id, name, CourierStatus.AVAILABLE, location, null);
+    }
+
+    public static Courier ofAvailable(Integer id, String name, Location location, int capacity) {
+        return new Courier(id, name, CourierStatus.AVAILABLE, location, capacity);
+    }
+
+    /**
+     * The coordinates and the capacity are optional, a courier loaded without them is placed by the fleet and
+     * carries the orders of courier.capacity
+     */
     @JsonCreator
-    public static Courier ofAvailable(@JsonProperty("id") Integer id, @JsonProperty("name") String name) {
-        return new Courier(id, name);
+    public static Courier of(@JsonProperty("id") Integer id, @JsonProperty("name") String name,
+                             @JsonProperty("x") Double x, @JsonProperty("y") Double y,
+                             @JsonProperty("capacity") Integer capacity) {
+        return new Courier(id, name, CourierStatus.AVAILABLE, null == x || null == y ? null : Location.of(x, y),
+                capacity);
+    }
+
+    /**
+     * Gives the fleet capacity to a courier loaded without its own
+     */
+    public synchronized void assignDefaultCapacity(int capacity) {
+        if (CAPACITY_NOT_GIVEN == this.capacity) {
+            this.capacity = Math.max(1, capacity);
+        }
     }
 
-    public void dispatch() {
+    public synchronized void dispatch() {
         if(!available) {
             throw new IllegalStateException("Courier is already dispatched");
         }
         this.available = false;
+        this.load = 1;
+        this.delivering = false;
     }
 
-    public void orderDelivered() {
+    /**
+     * Adds an order to the trip of a dispatched courier, it is picked up on the same arrival at the kitchen
+     * @return false if the courier is available, carries as many orders as its capacity or has started delivering
+     */
+    public synchronized boolean tryLoad() {
+        if (available || delivering || load >= getCapacity()) {
+            return false;
+        }
+        load++;
+        return true;
+    }
+
+    /**
+     * @return true if the courier can take another order on its current trip
+     */
+    public synchronized boolean hasRoom() {
+        return !available && !delivering && load < getCapacity();
+    }
+
+    /**
+     * Drops off one of the orders carried, no order joins the trip afterwards
+     * @return true if it was the last order carried, the courier is available again
+     */
+    public synchronized boolean orderDelivered() {
         if(available) {
             throw new IllegalStateException("Courier is already available");
         }
+        if (--load > 0) {
+            this.delivering = true;
+            return false;
+        }
+        this.load = 0;
+        this.delivering = false;
         this.available = true;
+        return true;
+    }
+
+    /**
+     * @return the orders carried in a single trip, 1 until the fleet gives one to a courier loaded without it
+     */
+    public synchronized int getCapacity() {
+        return CAPACITY_NOT_GIVEN == capacity ? 1 : capacity;
+    }
+
+    /**
+     * @return the orders currently carried
+     */
+    public synchronized int getLoad() {
+        return load;
+    }
+
+    /**
+     * @return where the courier is, null if it was never placed
+     */
+    public Location getLocation() {
+        return location;
+    }
+
+    public void moveTo(Location location) {
+        this.location = location;
     }
 
-    public boolean isAvailable() {
+    public synchronized boolean isAvailable() {
         return available;
     }
 
-    public CourierStatus getStatus() {
+    public synchronized CourierStatus getStatus() {
         return available ? CourierStatus.AVAILABLE : CourierStatus.DISPATCHED;
     }
 }
@@ -6,21 +6,55 @@ public class DispatchResult {
     public final CompletableFuture<Boolean> notificationFuture;
     public final Integer courierId;
     public final long ettMillis;
+    public final boolean waiting;
+    public final long dispatchDelayMillis;
 
     /**
      * This object represents the state result of requesting a courier dispatch
      * @param courierId the id of the dispatched courier or null if no courier was dispatched
      * @param notificationFuture A future handle representing the publication status of the notification courier
      * @param ettMillis estimated travel time of courier in millis
+     * @param waiting true if no courier was dispatched yet and the request waits for one to be released
+     * @param dispatchDelayMillis time until the courier is dispatched if the dispatch was planned, 0 otherwise
      */
-    private DispatchResult(Integer courierId, CompletableFuture<Boolean> notificationFuture, long ettMillis) {
+    private DispatchResult(Integer courierId, CompletableFuture<Boolean> notificationFuture, long ettMillis,
+                           boolean waiting, long dispatchDelayMillis) {
         this.courierId = courierId;
         this.notificationFuture = notificationFuture;
         this.ettMillis = ettMillis;
+        this.waiting = waiting;
+        this.dispatchDelayMillis = dispatchDelayMillis;
     }
 
     public static DispatchResult notDispatched() {
-        return new DispatchResult(null, null, -1);
+        return new DispatchResult(null, null, -1, false, 0L);
+    }
+
+    /**
+     * The request waits in the fleet, a deferred courier dispatched event is published once a courier is released
+     * to it, or a courier wait expired event if none is released in time
+     * @return DispatchResult
+     */
+    public static DispatchResult waiting() {
+        return new DispatchResult(null, null, -1, true, 0L);
+    }
+
+    /**
+     * The courier is dispatched later so it arrives as the meal is expected ready, the meal preparation starts
+     * right away and the fleet publishes the courier dispatched event once the dispatch is due
+     * @param dispatchDelayMillis time until the courier is dispatched
+     * @return DispatchResult
+     */
+    public static DispatchResult planned(long dispatchDelayMillis) {
+        return new DispatchResult(null, null, -1, false, dispatchDelayMillis);
+    }
+
+    public boolean isDispatched() {
+        return null != courierId;
+    }
+
+    public boolean isPlanned() {
+        return dispatchDelayMillis > 0L;
     }
 
     /**
@@ -30,7 +64,7 @@ public class DispatchResult {
      * @return DispatchResult
      */
     public static DispatchResult ofCompleted(int courierId, long ettMillis) {
-        return new DispatchResult(courierId, CompletableFuture.completedFuture(false), ettMillis);
+        return new DispatchResult(courierId, CompletableFuture.completedFuture(false), ettMillis, false, 0L);
     }
 
     /**
@@ -42,6 +76,6 @@ public class DispatchResult {
      * @return a new dispatch result
      */
     public static DispatchResult of(int courierId, CompletableFuture<Boolean> notificationFuture, long ettMillis) {
-       return new DispatchResult(courierId, notificationFuture, ettMillis);
+       return new DispatchResult(courierId, notificationFuture, ettMillis, false, 0L);
     }
 }
\ No newline at end of file
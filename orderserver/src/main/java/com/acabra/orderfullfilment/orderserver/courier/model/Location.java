@@ -0,0 +1,48 @@
+package com.acabra.orderfullfilment.orderserver.courier.model;
+
+import java.util.Locale;
+
+/**
+ * A point of the service area, planar coordinates in kilometers east (x) and north (y) of the area origin
+ */
+public final class Location {
+
+    public static final Location ORIGIN = new Location(0d, 0d);
+
+    public final double x;
+    public final double y;
+
+    private Location(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    public static Location of(double x, double y) {
+        return new Location(x, y);
+    }
+
+    /**
+     * @return the straight line distance in kilometers
+     */
+    public double distanceTo(Location other) {
+        return Math.hypot(x - other.x, y - other.y);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Location that = (Location) o;
+        return Double.compare(that.x, x) == 0 && Double.compare(that.y, y) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(x) + Double.hashCode(y);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "(%.3f, %.3f)", x, y);
+    }
+}
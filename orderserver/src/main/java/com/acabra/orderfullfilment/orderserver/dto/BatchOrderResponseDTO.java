@@ -0,0 +1,23 @@
+package com.acabra.orderfullfilment.orderserver.dto;
+
+public class BatchOrderResponseDTO {
+    public final int accepted;
+    public final int rejected;
+    public final int shed;
+    public final String error;
+
+    private BatchOrderResponseDTO(int accepted, int rejected, int shed, String error) {
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.shed = shed;
+        this.error = error;
+    }
+
+    public static BatchOrderResponseDTO of(int accepted, int rejected, int shed) {
+        return new BatchOrderResponseDTO(accepted, rejected, shed, null);
+    }
+
+    public static BatchOrderResponseDTO ofError(int accepted, int rejected, int shed, String error) {
+        return new BatchOrderResponseDTO(accepted, rejected, shed, error);
+    }
+}
@@ -0,0 +1,46 @@
+package com.acabra.orderfullfilment.orderserver.dto;
+
+import com.acabra.orderfullfilment.orderserver.core.MetricsProcessor;
+
+public class MetricsResponseDTO {
+    public final long timestamp;
+    public final int queueDepth;
+    public final int kitchenReservationsInFlight;
+    public final long mealsUnderPreparation;
+    public final long mealsWaitingForStation;
+    public final int couriersDispatched;
+    public final int couriersAvailable;
+    public final int dispatchRequestsWaiting;
+    public final int ordersInFlight;
+    public final long ordersShed;
+    public final MetricsProcessor.IntervalMetrics interval;
+    public final MetricsProcessor.DeliveryMetricsSnapshot total;
+
+    private MetricsResponseDTO(long timestamp, int queueDepth, int kitchenReservationsInFlight,
+                               long mealsUnderPreparation, long mealsWaitingForStation, int couriersDispatched, int couriersAvailable,
+                               int dispatchRequestsWaiting, int ordersInFlight, long ordersShed,
+                               MetricsProcessor.IntervalMetrics interval,
+                               MetricsProcessor.DeliveryMetricsSnapshot total) {
+        this.timestamp = timestamp;
+        this.queueDepth = queueDepth;
+        this.kitchenReservationsInFlight = kitchenReservationsInFlight;
+        this.mealsUnderPreparation = mealsUnderPreparation;
+        this.mealsWaitingForStation = mealsWaitingForStation;
+        this.couriersDispatched = couriersDispatched;
+        this.couriersAvailable = couriersAvailable;
+        this.dispatchRequestsWaiting = dispatchRequestsWaiting;
+        this.ordersInFlight = ordersInFlight;
+        this.ordersShed = ordersShed;
+        this.interval = interval;
+        this.total = total;
+    }
+
+    public static MetricsResponseDTO of(long timestamp, int queueDepth, int kitchenReservationsInFlight,
+                                        long mealsUnderPreparation, long mealsWaitingForStation, int couriersDispatched, int couriersAvailable,
+                                        int dispatchRequestsWaiting, int ordersInFlight, long ordersShed,
+                                        MetricsProcessor.IntervalMetrics interval,
+                                        MetricsProcessor.DeliveryMetricsSnapshot total) {
+        return new MetricsResponseDTO(timestamp, queueDepth, kitchenReservationsInFlight, mealsUnderPreparation,
+                mealsWaitingForStation, couriersDispatched, couriersAvailable, dispatchRequestsWaiting, ordersInFlight, ordersShed, interval, total);
+    }
+}
@@ -1,16 +1,23 @@
 package com.acabra.orderfullfilment.orderserver.event;
 
 public class CourierArrivedEvent extends OutputEvent {
-    public final Integer courierId;
+    public final int courierId;
+    public final long kitchenReservationId;
     public final long ett;
 
-    private CourierArrivedEvent(Integer courierId, long ett, long createdAt) {
+    private CourierArrivedEvent(int courierId, long kitchenReservationId, long ett, long createdAt) {
         super(EventType.COURIER_ARRIVED, createdAt);
         this.courierId = courierId;
+        this.kitchenReservationId = kitchenReservationId;
         this.ett = ett;
     }
 
-    public static CourierArrivedEvent of(int courierId, long ett, long now) {
-        return new CourierArrivedEvent(courierId, ett, now);
+    public static CourierArrivedEvent of(int courierId, long kitchenReservationId, long ett, long now) {
+        return new CourierArrivedEvent(courierId, kitchenReservationId, ett, now);
+    }
+
+    @Override
+    public long partitionKey() {
+        return kitchenReservationId;
     }
 }
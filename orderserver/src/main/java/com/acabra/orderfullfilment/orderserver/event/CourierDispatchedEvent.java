@@ -3,22 +3,46 @@ package com.acabra.orderfullfilment.orderserver.event;
 import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
 
 public class CourierDispatchedEvent extends OutputEvent{
-    public final Integer courierId;
+    public final int courierId;
     public final DeliveryOrder order;
     public final long estimatedTravelTime;
     public final long kitchenReservationId;
+    /**
+     * true if the dispatch request waited for a courier to be released, the meal preparation starts with this event
+     */
+    public final boolean deferred;
+    public final long queuedMillis;
 
-    private CourierDispatchedEvent(long createdAt, DeliveryOrder order, Integer courierId,
-                                   long kitchenReservationId, long estimatedTravelTime) {
+    private CourierDispatchedEvent(long createdAt, DeliveryOrder order, int courierId,
+                                   long kitchenReservationId, long estimatedTravelTime, boolean deferred,
+                                   long queuedMillis) {
         super(EventType.COURIER_DISPATCHED, createdAt);
         this.order = order;
         this.courierId = courierId;
         this.kitchenReservationId = kitchenReservationId;
         this.estimatedTravelTime = estimatedTravelTime;
+        this.deferred = deferred;
+        this.queuedMillis = queuedMillis;
     }
 
-    public static CourierDispatchedEvent of(long now, DeliveryOrder order, Integer courierId,
+    public static CourierDispatchedEvent of(long now, DeliveryOrder order, int courierId,
                                             long kitchenReservationId, long estimatedTravelTime) {
-        return new CourierDispatchedEvent(now, order, courierId, kitchenReservationId, estimatedTravelTime);
+        return new CourierDispatchedEvent(now, order, courierId, kitchenReservationId, estimatedTravelTime, false, 0L);
+    }
+
+    /**
+     * A courier released to a dispatch request that was waiting
+     * @param queuedMillis time the request waited for the courier
+     */
+    public static CourierDispatchedEvent deferred(long now, DeliveryOrder order, int courierId,
+                                                  long kitchenReservationId, long estimatedTravelTime,
+                                                  long queuedMillis) {
+        return new CourierDispatchedEvent(now, order, courierId, kitchenReservationId, estimatedTravelTime, true,
+                queuedMillis);
+    }
+
+    @Override
+    public long partitionKey() {
+        return kitchenReservationId;
     }
 }
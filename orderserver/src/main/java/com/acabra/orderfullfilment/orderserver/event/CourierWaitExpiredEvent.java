@@ -0,0 +1,30 @@
+package com.acabra.orderfullfilment.orderserver.event;
+
+import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
+
+/**
+ * Published by a bounded fleet when a dispatch request waited the maximum time without a courier being released
+ */
+public class CourierWaitExpiredEvent extends OutputEvent {
+    public final DeliveryOrder order;
+    public final long kitchenReservationId;
+    public final long waitedMillis;
+
+    private CourierWaitExpiredEvent(long createdAt, DeliveryOrder order, long kitchenReservationId,
+                                    long waitedMillis) {
+        super(EventType.COURIER_WAIT_EXPIRED, createdAt);
+        this.order = order;
+        this.kitchenReservationId = kitchenReservationId;
+        this.waitedMillis = waitedMillis;
+    }
+
+    public static CourierWaitExpiredEvent of(long now, DeliveryOrder order, long kitchenReservationId,
+                                             long waitedMillis) {
+        return new CourierWaitExpiredEvent(now, order, kitchenReservationId, waitedMillis);
+    }
+
+    @Override
+    public long partitionKey() {
+        return kitchenReservationId;
+    }
+}
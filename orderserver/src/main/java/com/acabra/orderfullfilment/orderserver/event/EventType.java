@@ -6,6 +6,7 @@ public enum EventType {
     ORDER_DELIVERED("order delivered", 1),
     ORDER_PICKED_UP("order picked up", 2),
     COURIER_DISPATCHED("courier dispatched", 3),
+    COURIER_WAIT_EXPIRED("courier wait expired", 3),
     COURIER_ARRIVED("courier arrived", Constants.SHARED_PRIORITY),
     ORDER_PREPARED("order prepared", Constants.SHARED_PRIORITY),
     ORDER_RECEIVED("order received", 5),
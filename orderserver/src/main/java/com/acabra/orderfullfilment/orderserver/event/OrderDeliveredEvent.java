@@ -1,10 +1,10 @@
 package com.acabra.orderfullfilment.orderserver.event;
 
 public class OrderDeliveredEvent extends OutputEvent{
-    public final Long mealOrderId;
-    public final Integer courierId;
+    public final long mealOrderId;
+    public final int courierId;
 
-    private OrderDeliveredEvent(long createdAt, Long mealOrderId, Integer courierId) {
+    private OrderDeliveredEvent(long createdAt, long mealOrderId, int courierId) {
         super(EventType.ORDER_DELIVERED, createdAt);
         this.mealOrderId = mealOrderId;
         this.courierId = courierId;
@@ -15,7 +15,12 @@ public class OrderDeliveredEvent extends OutputEvent{
                 orderPickedUpEvent.courierId);
     }
 
-    public Integer getCourierId() {
+    public int getCourierId() {
         return courierId;
     }
+
+    @Override
+    public long partitionKey() {
+        return mealOrderId;
+    }
 }
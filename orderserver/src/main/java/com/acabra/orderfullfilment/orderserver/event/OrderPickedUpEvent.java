@@ -3,10 +3,10 @@ package com.acabra.orderfullfilment.orderserver.event;
 public class OrderPickedUpEvent extends OutputEvent {
     public final long courierWaitTime;
     public final long foodWaitTime;
-    public final Integer courierId;
-    public final Long mealOrderId;
+    public final int courierId;
+    public final long mealOrderId;
 
-    private OrderPickedUpEvent(long createdAt, long courierWaitTime, long foodWaitTime, Integer courierId, long mealOrderId) {
+    private OrderPickedUpEvent(long createdAt, long courierWaitTime, long foodWaitTime, int courierId, long mealOrderId) {
         super(EventType.ORDER_PICKED_UP, createdAt);
         this.courierWaitTime = courierWaitTime;
         this.foodWaitTime = foodWaitTime;
@@ -23,4 +23,19 @@ public class OrderPickedUpEvent extends OutputEvent {
         return new OrderPickedUpEvent(orderEvt.createdAt, Math.abs(diffTime), 0, courierEvt.courierId,
                 orderEvt.kitchenReservationId);
     }
+
+    /**
+     * The pickup took place once both were at the kitchen, no earlier than the given time
+     * @param pickedUpAt time the courier was assigned the meal
+     */
+    public static OrderPickedUpEvent of(CourierArrivedEvent courierEvt, OrderPreparedEvent orderEvt, long pickedUpAt) {
+        long pickupTime = Math.max(pickedUpAt, Math.max(courierEvt.createdAt, orderEvt.createdAt));
+        return new OrderPickedUpEvent(pickupTime, pickupTime - courierEvt.createdAt, pickupTime - orderEvt.createdAt,
+                courierEvt.courierId, orderEvt.kitchenReservationId);
+    }
+
+    @Override
+    public long partitionKey() {
+        return mealOrderId;
+    }
 }
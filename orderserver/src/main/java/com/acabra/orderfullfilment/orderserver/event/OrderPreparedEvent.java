@@ -13,4 +13,9 @@ public class OrderPreparedEvent extends OutputEvent {
     public static OrderPreparedEvent of(long kitchenReservationId, String deliveryOrderId, long readySince) {
         return new OrderPreparedEvent(kitchenReservationId, deliveryOrderId, readySince);
     }
-}
\ No newline at end of file
+
+    @Override
+    public long partitionKey() {
+        return kitchenReservationId;
+    }
+}
@@ -15,4 +15,9 @@ public class OrderReceivedEvent extends OutputEvent {
     public static OrderReceivedEvent of(long createdAt, DeliveryOrder order) {
         return new OrderReceivedEvent(createdAt, Objects.requireNonNull(order));
     }
+
+    @Override
+    public long partitionKey() {
+        return order.id.hashCode();
+    }
 }
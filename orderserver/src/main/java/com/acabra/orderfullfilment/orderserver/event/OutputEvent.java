@@ -6,6 +6,10 @@ public abstract class OutputEvent implements Comparable<OutputEvent> {
     public static final Comparator<EventType> EVENT_TYPE_COMPARATOR = EventType.comparator();
     public final EventType type;
     public final long createdAt;
+    /**
+     * System.nanoTime() when the event was created, used to measure the time spent on the notification queue
+     */
+    public final long createdNanos = System.nanoTime();
 
     protected OutputEvent(EventType type, long createdAt) {
         this.type = type;
@@ -16,6 +20,15 @@ public abstract class OutputEvent implements Comparable<OutputEvent> {
         return type;
     }
 
+    /**
+     * Key used to route the event to a partition of the notification queue, all the events related to the
+     * same order must share the same key so they are consumed in order by the same thread.
+     * @return the partition key, events not related to an order use 0
+     */
+    public long partitionKey() {
+        return 0L;
+    }
+
     @Override
     public int compareTo(OutputEvent o) {
         return Long.compare(createdAt, o.createdAt);
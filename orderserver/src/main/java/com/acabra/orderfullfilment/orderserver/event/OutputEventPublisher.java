@@ -27,8 +27,7 @@ public interface OutputEventPublisher {
         Queue<OutputEvent> pubDeque = getPubDeque();
         if(null != pubDeque) {
             try {
-                pubDeque.offer(event);
-                return true;
+                return pubDeque.offer(event);
             } catch (Throwable e) {
                 logError("Unable to publish event: " + e.getMessage(), e);
             }
@@ -6,18 +6,66 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 
 public final class KitchenClock {
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final DateTimeFormatter SECONDS_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final ThreadLocal<CachedFormatter> FORMATTERS = ThreadLocal.withInitial(CachedFormatter::new);
     public static final ZoneId UTC_PLUS_2 = ZoneId.of("Europe/Paris");
 
+    private static volatile TimeSource timeSource = TimeSource.SYSTEM;
+
     private KitchenClock() {} //not for instantiation
 
     public static long now() {
-        return System.currentTimeMillis();
+        return timeSource.now();
+    }
+
+    /**
+     * Replaces the source of time for the whole server, i.e. a VirtualClock for simulations
+     * @param source the new time source
+     */
+    public static void useTimeSource(TimeSource source) {
+        timeSource = null == source ? TimeSource.SYSTEM : source;
+    }
+
+    public static void useSystemTime() {
+        timeSource = TimeSource.SYSTEM;
     }
 
     public static String formatted(long epoch) {
-        return LocalDateTime
-                .ofInstant(Instant.ofEpochMilli(epoch), UTC_PLUS_2)
-                .format(FORMATTER);
+        return formatTo(new StringBuilder(23), epoch).toString();
+    }
+
+    /**
+     * Appends the epoch formatted as yyyy-MM-dd HH:mm:ss.SSS, the date conversion only happens once per
+     * second on every thread
+     * @param sb the builder to append to
+     * @param epoch time in millis
+     * @return the given builder
+     */
+    public static StringBuilder formatTo(StringBuilder sb, long epoch) {
+        return FORMATTERS.get().formatTo(sb, epoch);
+    }
+
+    private static final class CachedFormatter {
+        private long cachedSecond = Long.MIN_VALUE;
+        private String cachedPrefix;
+
+        private StringBuilder formatTo(StringBuilder sb, long epoch) {
+            long second = Math.floorDiv(epoch, 1000L);
+            int millis = (int) Math.floorMod(epoch, 1000L);
+            if (second != cachedSecond) {
+                cachedPrefix = LocalDateTime
+                        .ofInstant(Instant.ofEpochSecond(second), UTC_PLUS_2)
+                        .format(SECONDS_FORMATTER);
+                cachedSecond = second;
+            }
+            sb.append(cachedPrefix).append('.');
+            if (millis < 100) {
+                sb.append('0');
+            }
+            if (millis < 10) {
+                sb.append('0');
+            }
+            return sb.append(millis);
+        }
     }
-}
\ No newline at end of file
+}
@@ -2,48 +2,493 @@ package com.acabra.orderfullfilment.orderserver.kitchen;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Event log of the kitchen, producers append compact binary records into an off-heap multi-producer ring
+ * buffer without locking, a background writer drains the ring into rolling files. The records are read
+ * back and sorted by timestamp when the log is printed, so the memory used while running is constant.
+ *
+ * Records are structured (see LogTemplate), the text is only rendered when the log is printed.
+ * Record layout (8 bytes aligned): [int length][int template][long timestamp][int args][int chars][long...][char...]
+ * the length is published last with release semantics, a zero length means the record is not ready yet.
+ * When the ring is full the record is dropped and counted. The files roll over once they reach the max file size
+ * and only the newest max files are kept: the records of a deleted file are lost before the log is printed, they are
+ * counted and reported with a warning.
+ * The writer thread stops on {@link #shutdown()}. The files are deleted once printed, the shared instance is shut down
+ * when the JVM exits and deletes the files never printed along with its directory, by default a directory of the
+ * process under java.io.tmpdir (see {@link #useDirectory(Path)}).
+ */
 @Slf4j
 public class KitchenLog {
 
-    private static final KitchenLog instance = new KitchenLog();
+    private static final int DEFAULT_CAPACITY = 1 << 20;
+    private static final long DEFAULT_MAX_FILE_BYTES = 16L << 20;
+    private static final int DEFAULT_MAX_FILES = 8;
+    private static final int ALIGNMENT = 8;
+    private static final int MAX_ARGS = 4;
+    private static final int LENGTH_OFFSET = 0;
+    private static final int TYPE_OFFSET = 4;
+    private static final int TIMESTAMP_OFFSET = 8;
+    private static final int ARGS_COUNT_OFFSET = 16;
+    private static final int CHARS_OFFSET = 20;
+    private static final int ARGS_OFFSET = 24;
+    private static final int TYPE_PADDING = -1;
+    private static final long WRITER_IDLE_NANOS = 1_000_000L;
+    private static final long WRITER_SHUTDOWN_MILLIS = 1000L;
+    private static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class,
+            ByteOrder.nativeOrder());
 
-    private final PriorityQueue<LogEntry> events = new PriorityQueue<>(Comparator.comparing(a -> a.timeStamp));
+    private static final KitchenLog instance = new KitchenLog(DEFAULT_CAPACITY, defaultDirectory(),
+            DEFAULT_MAX_FILE_BYTES, DEFAULT_MAX_FILES, true);
 
-    private KitchenLog() { }
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            instance.shutdown();
+            instance.deleteFiles();
+        }, "kitchen-log-shutdown"));
+    }
+
+    private final ByteBuffer ring;
+    private final int capacity;
+    private final int mask;
+    private final int maxChars;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head = 0L;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rolledOff = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running;
+
+    //owned by the consumer (guarded by this)
+    private final ByteBuffer ringView;
+    private final ByteBuffer staging;
+    private Path directory;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final Deque<LogFile> files = new ArrayDeque<>();
+    private FileChannel channel;
+    private long fileBytes;
+    private int fileSequence;
+    private int stagedRecords;
+
+    KitchenLog(int capacity, Path directory, long maxFileBytes, int maxFiles, boolean startWriter) {
+        if (Integer.bitCount(capacity) != 1 || capacity < 1024) {
+            throw new IllegalArgumentException("The capacity must be a power of two greater than 1024: " + capacity);
+        }
+        this.ring = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+        this.ringView = ring.duplicate().order(ByteOrder.nativeOrder());
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.maxChars = (capacity / 4 - ARGS_OFFSET - MAX_ARGS * Long.BYTES) / 2;
+        this.staging = ByteBuffer.allocate(Math.min(capacity, 1 << 16)).order(ByteOrder.nativeOrder());
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+        this.running = startWriter;
+        this.writer = startWriter ? new Thread(this::writeLoop, "kitchen-log-writer") : null;
+        if (startWriter) {
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
 
     public static KitchenLog get() {
         return instance;
     }
 
-    synchronized public void printLog() {
-        while (!events.isEmpty()) {
-            log.info("{} -> {}", KitchenClock.formatted(events.peek().timeStamp), events.remove().text);
+    /**
+     * Writes the next log files into the given directory, the files already written are still read and deleted from
+     * where they are
+     */
+    public synchronized void useDirectory(Path directory) {
+        if (directory.equals(this.directory)) {
+            return;
         }
+        closeChannel();
+        this.directory = directory;
+    }
+
+    private static Path defaultDirectory() {
+        return Paths.get(System.getProperty("java.io.tmpdir"),
+                "orderserver-kitchen-log-" + ProcessHandle.current().pid());
     }
 
     public void append(long time, String message) {
-        //log.info(message);
-        this.events.add(LogEntry.of(time, message));
+        write(LogTemplate.TEXT, time, 0, 0L, 0L, 0L, 0L, message);
     }
 
     public void append(String text) {
         append(KitchenClock.now(), text);
     }
 
-    private static class LogEntry {
+    public void append(LogTemplate template, long time) {
+        write(template, time, 0, 0L, 0L, 0L, 0L, null);
+    }
+
+    public void append(LogTemplate template, long time, long arg0) {
+        write(template, time, 1, arg0, 0L, 0L, 0L, null);
+    }
+
+    public void append(LogTemplate template, long time, long arg0, long arg1) {
+        write(template, time, 2, arg0, arg1, 0L, 0L, null);
+    }
+
+    public void append(LogTemplate template, long time, long arg0, long arg1, long arg2) {
+        write(template, time, 3, arg0, arg1, arg2, 0L, null);
+    }
+
+    public void append(LogTemplate template, long time, long arg0, long arg1, long arg2, long arg3) {
+        write(template, time, 4, arg0, arg1, arg2, arg3, null);
+    }
+
+    public void append(LogTemplate template, long time, long arg0, String text) {
+        write(template, time, 1, arg0, 0L, 0L, 0L, text);
+    }
+
+    public void append(LogTemplate template, long time, long arg0, long arg1, String text) {
+        write(template, time, 2, arg0, arg1, 0L, 0L, text);
+    }
+
+    private void write(LogTemplate template, long time, int argCount, long arg0, long arg1, long arg2, long arg3,
+                       String text) {
+        int chars = null == text ? 0 : Math.min(text.length(), maxChars);
+        int textOffset = ARGS_OFFSET + argCount * Long.BYTES;
+        int length = textOffset + chars * 2;
+        long position = claim(align(length));
+        if (position < 0) {
+            dropped.increment();
+            return;
+        }
+        int index = (int) (position & mask);
+        ring.putLong(index + TIMESTAMP_OFFSET, time);
+        ring.putInt(index + ARGS_COUNT_OFFSET, argCount);
+        ring.putInt(index + CHARS_OFFSET, chars);
+        switch (argCount) {
+            case 4:
+                ring.putLong(index + ARGS_OFFSET + 3 * Long.BYTES, arg3);
+            case 3:
+                ring.putLong(index + ARGS_OFFSET + 2 * Long.BYTES, arg2);
+            case 2:
+                ring.putLong(index + ARGS_OFFSET + Long.BYTES, arg1);
+            case 1:
+                ring.putLong(index + ARGS_OFFSET, arg0);
+            default:
+                break;
+        }
+        for (int i = 0; i < chars; i++) {
+            ring.putChar(index + textOffset + 2 * i, text.charAt(i));
+        }
+        ring.putInt(index + TYPE_OFFSET, template.ordinal());
+        INT_VIEW.setRelease(ring, index + LENGTH_OFFSET, length);
+    }
+
+    /**
+     * @return the amount of records dropped because the ring buffer was full
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    private static int align(int length) {
+        return (length + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * Claims space for a record, if the record does not fit before the end of the ring a padding record
+     * fills the remaining bytes and the record starts at the beginning of the ring.
+     * @return the position of the record or -1 if the ring is full
+     */
+    private long claim(int required) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            int toEnd = capacity - index;
+            long needed = required <= toEnd ? required : (long) toEnd + required;
+            if (needed > capacity - (position - head)) {
+                return -1L;
+            }
+            if (tail.compareAndSet(position, position + needed)) {
+                if (needed == required) {
+                    return position;
+                }
+                ring.putInt(index + TYPE_OFFSET, TYPE_PADDING);
+                INT_VIEW.setRelease(ring, index + LENGTH_OFFSET, toEnd);
+                return position + toEnd;
+            }
+        }
+    }
+
+    /**
+     * @return the amount of records deleted with the oldest log files before the log was printed
+     */
+    public long rolledOff() {
+        return rolledOff.sum();
+    }
+
+    private void writeLoop() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(this, WRITER_IDLE_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Stops the writer thread and moves the records still in the ring to the log files, the records appended later
+     * are only drained when the log is printed. Calling it again has no effect.
+     */
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(WRITER_SHUTDOWN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+
+    boolean isWriterAlive() {
+        return null != writer && writer.isAlive();
+    }
+
+    /**
+     * Moves every published record from the ring to the current log file
+     * @return the amount of records drained
+     */
+    synchronized int drain() {
+        int drained = 0;
+        long position = head;
+        while (true) {
+            int index = (int) (position & mask);
+            int length = (int) INT_VIEW.getAcquire(ring, index + LENGTH_OFFSET);
+            if (length <= 0) {
+                break;
+            }
+            int aligned = align(length);
+            if (ring.getInt(index + TYPE_OFFSET) != TYPE_PADDING) {
+                stage(index, length);
+                drained++;
+            }
+            for (int i = 0; i < aligned; i += ALIGNMENT) {
+                ring.putLong(index + i, 0L);
+            }
+            position += aligned;
+            head = position;
+        }
+        flushStaging();
+        return drained;
+    }
+
+    private void stage(int index, int length) {
+        if (staging.remaining() < length) {
+            flushStaging();
+        }
+        ringView.limit(index + length).position(index);
+        if (staging.remaining() < length) {
+            write(ringView, 1);
+        } else {
+            staging.put(ringView);
+            stagedRecords++;
+        }
+    }
+
+    private void flushStaging() {
+        if (staging.position() > 0) {
+            staging.flip();
+            write(staging, stagedRecords);
+            staging.clear();
+            stagedRecords = 0;
+        }
+    }
+
+    private void write(ByteBuffer bytes, int records) {
+        try {
+            if (null == channel || fileBytes + bytes.remaining() > maxFileBytes) {
+                roll();
+            }
+            fileBytes += bytes.remaining();
+            files.getLast().records += records;
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            log.error("[SYSTEM] unable to write the kitchen log: {}", e.getMessage(), e);
+            bytes.position(bytes.limit());
+        }
+    }
+
+    private void roll() throws IOException {
+        if (null != channel) {
+            channel.close();
+        }
+        Files.createDirectories(directory);
+        Path file = directory.resolve(String.format("kitchen-%05d.log", fileSequence++));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        fileBytes = 0L;
+        files.addLast(new LogFile(file));
+        while (files.size() > maxFiles) {
+            LogFile oldest = files.removeFirst();
+            Files.deleteIfExists(oldest.path);
+            rolledOff.add(oldest.records);
+        }
+    }
+
+    /**
+     * Drains the ring and reads back every record still available in the log files
+     * @return the records sorted by timestamp, records with the same timestamp keep the append order
+     */
+    synchronized List<LogEntry> readEntries() {
+        drain();
+        List<LogEntry> entries = new ArrayList<>();
+        for (LogFile logFile : files) {
+            Path file = logFile.path;
+            try {
+                ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.nativeOrder());
+                while (bytes.remaining() >= ARGS_OFFSET) {
+                    int start = bytes.position();
+                    int length = bytes.getInt(start + LENGTH_OFFSET);
+                    LogTemplate template = LogTemplate.of(bytes.getInt(start + TYPE_OFFSET));
+                    long timestamp = bytes.getLong(start + TIMESTAMP_OFFSET);
+                    long[] args = new long[bytes.getInt(start + ARGS_COUNT_OFFSET)];
+                    int chars = bytes.getInt(start + CHARS_OFFSET);
+                    for (int i = 0; i < args.length; i++) {
+                        args[i] = bytes.getLong(start + ARGS_OFFSET + i * Long.BYTES);
+                    }
+                    String text = null;
+                    if (chars > 0) {
+                        int textOffset = start + ARGS_OFFSET + args.length * Long.BYTES;
+                        char[] textChars = new char[chars];
+                        for (int i = 0; i < chars; i++) {
+                            textChars[i] = bytes.getChar(textOffset + 2 * i);
+                        }
+                        text = new String(textChars);
+                    }
+                    entries.add(LogEntry.of(timestamp, template, args, text));
+                    bytes.position(start + length);
+                }
+            } catch (IOException e) {
+                log.error("[SYSTEM] unable to read the kitchen log file {}: {}", file, e.getMessage(), e);
+            }
+        }
+        entries.sort(Comparator.comparingLong(a -> a.timeStamp));
+        return entries;
+    }
+
+    private void closeChannel() {
+        if (null == channel) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.error("[SYSTEM] unable to close the kitchen log file: {}", e.getMessage(), e);
+        }
+        channel = null;
+    }
+
+    /**
+     * Deletes the log files and their directories once empty, the next record starts a new file
+     */
+    synchronized void deleteFiles() {
+        closeChannel();
+        Set<Path> directories = new LinkedHashSet<>();
+        for (LogFile file : files) {
+            directories.add(file.path.getParent());
+            try {
+                Files.deleteIfExists(file.path);
+            } catch (IOException e) {
+                log.error("[SYSTEM] unable to delete the kitchen log file {}: {}", file.path, e.getMessage(), e);
+            }
+        }
+        files.clear();
+        for (Path logDirectory : directories) {
+            try {
+                Files.deleteIfExists(logDirectory);
+            } catch (DirectoryNotEmptyException e) {
+                log.debug("[SYSTEM] kitchen log directory {} kept, it holds other files", logDirectory);
+            } catch (IOException e) {
+                log.error("[SYSTEM] unable to delete the kitchen log directory {}: {}", logDirectory, e.getMessage(),
+                        e);
+            }
+        }
+    }
+
+    synchronized public void printLog() {
+        StringBuilder line = new StringBuilder(128);
+        for (LogEntry entry : readEntries()) {
+            line.setLength(0);
+            KitchenClock.formatTo(line, entry.timeStamp).append(" -> ");
+            entry.template.render(line, entry.args, entry.text);
+            log.info("{}", line);
+        }
+        long droppedRecords = dropped.sumThenReset();
+        if (droppedRecords > 0) {
+            log.warn("[SYSTEM] {} kitchen log records were dropped, the log buffer was full", droppedRecords);
+        }
+        long rolledOffRecords = rolledOff.sumThenReset();
+        if (rolledOffRecords > 0) {
+            log.warn("[SYSTEM] {} oldest kitchen log records were lost, the log exceeded {} files of {} bytes",
+                    rolledOffRecords, maxFiles, maxFileBytes);
+        }
+        deleteFiles();
+    }
+
+    private static final class LogFile {
+        private final Path path;
+        private long records;
+
+        private LogFile(Path path) {
+            this.path = path;
+        }
+    }
+
+    static class LogEntry {
         final long timeStamp;
+        final LogTemplate template;
+        final long[] args;
         final String text;
 
-        private LogEntry(long timeStamp, String text) {
+        private LogEntry(long timeStamp, LogTemplate template, long[] args, String text) {
             this.timeStamp = timeStamp;
+            this.template = template;
+            this.args = args;
             this.text = text;
         }
 
-        static LogEntry of(long timeStamp, String message) {
-            return new LogEntry(timeStamp, message);
+        static LogEntry of(long timeStamp, LogTemplate template, long[] args, String text) {
+            return new LogEntry(timeStamp, template, args, text);
+        }
+
+        String render() {
+            StringBuilder sb = new StringBuilder();
+            template.render(sb, args, text);
+            return sb.toString();
         }
     }
 }
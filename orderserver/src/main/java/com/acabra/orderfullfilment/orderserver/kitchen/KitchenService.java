@@ -5,7 +5,7 @@ import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
 
 import java.util.concurrent.CompletableFuture;
 
-public interface KitchenService extends OutputEventPublisher {
+public interface KitchenService extends OutputEventPublisher, ReadyTimeEstimator {
 
     /**
      * Assigns the current order to an internal cookId, this operation is reversible by calling @cancelCookReservation
@@ -23,19 +23,67 @@ public interface KitchenService extends OutputEventPublisher {
     boolean cancelCookReservation(long kitchenReservationId);
 
     /**
-     * Instructs the kitchen to start meal preparation as a courier has been reserved to handle the order
+     * Releases the reservation of a meal picked up by its courier, the kitchen no longer holds the order
+     * @param kitchenReservationId id of the reservation
+     * @return true if reservation existed or false otherwise
+     */
+    boolean releaseReservation(long kitchenReservationId);
+
+    /**
+     * Instructs the kitchen to start meal preparation as a courier has been reserved to handle the order, the meal
+     * waits for a free cook station of its dish type
      * @param kitchenReservationId the reservation id provided by calling @orderCookReservationId
      * @param now current time
+     * @param courierArrivesAt the time the courier is expected at the kitchen, orders the meals waiting for a station
      * @return a future handle to determine if the notification meal ready was published successfully.
      */
-    CompletableFuture<Boolean> prepareMeal(long kitchenReservationId, long now);
+    CompletableFuture<Boolean> prepareMeal(long kitchenReservationId, long now, long courierArrivesAt);
+
+    /**
+     * Instructs the kitchen to start meal preparation, the courier arrival is unknown
+     * @see #prepareMeal(long, long, long)
+     */
+    default CompletableFuture<Boolean> prepareMeal(long kitchenReservationId, long now) {
+        return prepareMeal(kitchenReservationId, now, Long.MAX_VALUE);
+    }
+
+    /**
+     * Estimates when the meal of the order would be ready if the kitchen were instructed to prepare it now, the meal
+     * may wait for a free cook station of its dish type
+     * @param order the delivery order
+     * @param now current time
+     * @return the expected ready time
+     */
+    @Override
+    default long expectedReadyAt(DeliveryOrder order, long now) {
+        return PREP_TIME.expectedReadyAt(order, now);
+    }
 
     /**
      * Reports whether the kitchen is preparing meals or not
-     * @return true if no meals are being prepared.
+     * @return true if no meals are being prepared or waiting for a station.
      */
     boolean isKitchenIdle();
 
+    /**
+     * The reservations held by the kitchen (handed out and not cancelled or picked up), includes the meals under
+     * preparation
+     * @return total reservations in flight
+     */
+    int reservationsInFlight();
+
+    /**
+     * The meals the kitchen is currently cooking
+     * @return total meals under preparation
+     */
+    long mealsUnderPreparation();
+
+    /**
+     * The meals the kitchen was instructed to prepare and wait for a free cook station
+     * @return total meals waiting for a station
+     */
+    long mealsWaitingForStation();
+
     /**
      * Request the shutdown of operations (e.g. such as cooking meals)
      */
@@ -1,33 +1,59 @@
 package com.acabra.orderfullfilment.orderserver.kitchen;
 
+import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
+import com.acabra.orderfullfilment.orderserver.core.timer.EmulationMode;
+import com.acabra.orderfullfilment.orderserver.core.timer.EventTimer;
+import com.acabra.orderfullfilment.orderserver.core.timer.HashedTimerWheel;
 import com.acabra.orderfullfilment.orderserver.event.OrderPreparedEvent;
 import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
 import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.NoSuchElementException;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.LongAdder;
 
 @Service
 @Slf4j
 public class KitchenServiceImpl implements KitchenService {
-    private final AtomicLong kitchenReservationIds;
-    private final ConcurrentHashMap<Long, DeliveryOrder> internalIdToOrder;
+    private final ReservationTable<DeliveryOrder> reservations;
     private final AtomicReference<Queue<OutputEvent>> pubDeque;
     private final LongAdder mealsUnderPreparation;
+    private final EventTimer timer;
+    private final boolean ownsTimer;
+    private final EmulationMode emulationMode;
+    private final PrepScheduler prepScheduler;
 
     public KitchenServiceImpl() {
-        this.kitchenReservationIds = new AtomicLong();
-        this.internalIdToOrder = new ConcurrentHashMap<>();
+        this(new HashedTimerWheel(), EmulationMode.SCHEDULED, PrepScheduler.unlimited(), true);
+    }
+
+    @Autowired
+    public KitchenServiceImpl(EventTimer timer, OrderServerConfig config) {
+        this(timer, EmulationMode.of(config.getEmulationMode()), PrepScheduler.of(config), false);
+    }
+
+    public KitchenServiceImpl(EventTimer timer, EmulationMode emulationMode) {
+        this(timer, emulationMode, PrepScheduler.unlimited(), false);
+    }
+
+    KitchenServiceImpl(EventTimer timer, EmulationMode emulationMode, PrepScheduler prepScheduler) {
+        this(timer, emulationMode, prepScheduler, false);
+    }
+
+    private KitchenServiceImpl(EventTimer timer, EmulationMode emulationMode, PrepScheduler prepScheduler,
+                               boolean ownsTimer) {
+        this.reservations = new ReservationTable<>();
         this.pubDeque = new AtomicReference<>();
         this.mealsUnderPreparation = new LongAdder();
+        this.timer = timer;
+        this.ownsTimer = ownsTimer;
+        this.emulationMode = emulationMode;
+        this.prepScheduler = prepScheduler;
     }
 
     private boolean reportMealPrepared(OutputEvent outputEvent) {
@@ -36,32 +62,67 @@ public class KitchenServiceImpl implements KitchenService {
     }
 
     @Override
-    public CompletableFuture<Boolean> prepareMeal(long kitchenReservationId, long now) {
-        DeliveryOrder order = internalIdToOrder.get(kitchenReservationId);
+    public CompletableFuture<Boolean> prepareMeal(long kitchenReservationId, long now, long courierArrivesAt) {
+        DeliveryOrder order = reservations.get(kitchenReservationId);
         if(order != null) {
-            mealsUnderPreparation.increment();
-            return emulatedPreparation(kitchenReservationId, order, now + order.prepTime);
+            PrepScheduler.Meal meal = prepScheduler.request(kitchenReservationId, order, now, courierArrivesAt);
+            return meal.isQueued() ? meal.prepared : emulatedPreparation(meal);
         }
         String template = "Unable to find the given cookReservationId id[%d]";
         return CompletableFuture.failedFuture(new NoSuchElementException(String.format(template, kitchenReservationId)));
     }
 
-    private CompletableFuture<Boolean> emulatedPreparation(long id, DeliveryOrder order, long readyAt) {
-        OrderPreparedEvent event = OrderPreparedEvent.of(id, order.id, readyAt);
-        return CompletableFuture.supplyAsync(() -> reportMealPrepared(event),
-                CompletableFuture.delayedExecutor(10L, TimeUnit.MILLISECONDS));
+    @Override
+    public long expectedReadyAt(DeliveryOrder order, long now) {
+        return prepScheduler.expectedReadyAt(order, now);
+    }
+
+    private CompletableFuture<Boolean> emulatedPreparation(PrepScheduler.Meal meal) {
+        mealsUnderPreparation.increment();
+        long readyAt = meal.readyAt();
+        return timer.schedule(() -> {
+            long preparedAt = emulationMode.stamp(readyAt);
+            boolean published = reportMealPrepared(OrderPreparedEvent.of(meal.id, meal.order.id, preparedAt));
+            startNextMeal(meal, preparedAt);
+            return published;
+        }, emulationMode.releaseDelay(readyAt));
+    }
+
+    /**
+     * Hands the station of the prepared meal to the next meal queued for it, the meals whose reservation was
+     * cancelled while queued are never cooked
+     */
+    private void startNextMeal(PrepScheduler.Meal prepared, long freedAt) {
+        PrepScheduler.Meal next = prepScheduler.next(prepared, freedAt);
+        while (null != next && null == reservations.get(next.id)) {
+            next.prepared.complete(false);
+            next = prepScheduler.next(next, freedAt);
+        }
+        if (null != next) {
+            CompletableFuture<Boolean> queued = next.prepared;
+            emulatedPreparation(next).whenComplete((published, error) -> {
+                if (null != error) {
+                    queued.completeExceptionally(error);
+                } else {
+                    queued.complete(published);
+                }
+            });
+        }
     }
 
     @Override
     public long provideReservationId(DeliveryOrder order) {
-        long kitchenReservationId = kitchenReservationIds.getAndIncrement();
-        internalIdToOrder.put(kitchenReservationId, order);
-        return kitchenReservationId;
+        return reservations.reserve(order);
     }
 
     @Override
     public boolean cancelCookReservation(long kitchenReservationId) {
-        return null != internalIdToOrder.remove(kitchenReservationId);
+        return null != reservations.release(kitchenReservationId);
+    }
+
+    @Override
+    public boolean releaseReservation(long kitchenReservationId) {
+        return null != reservations.release(kitchenReservationId);
     }
 
     @Override
@@ -81,11 +142,29 @@ public class KitchenServiceImpl implements KitchenService {
 
     @Override
     public boolean isKitchenIdle() {
-        return this.mealsUnderPreparation.sum() == 0L;
+        return this.mealsUnderPreparation.sum() == 0L && this.prepScheduler.waiting() == 0L;
+    }
+
+    @Override
+    public int reservationsInFlight() {
+        return this.reservations.inFlight();
+    }
+
+    @Override
+    public long mealsUnderPreparation() {
+        return this.mealsUnderPreparation.sum();
+    }
+
+    @Override
+    public long mealsWaitingForStation() {
+        return this.prepScheduler.waiting();
     }
 
     @Override
     public void shutdown() {
         log.info("Kitchen shutdown");
+        if (ownsTimer) {
+            timer.shutdown();
+        }
     }
 }
@@ -0,0 +1,148 @@
+package com.acabra.orderfullfilment.orderserver.kitchen;
+
+/**
+ * Templates of the records appended to the KitchenLog, records only carry the template, primitive
+ * arguments and at most one string, the text is rendered when the log is read.
+ */
+public enum LogTemplate {
+    TEXT {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            sb.append(text);
+        }
+    },
+    ORDER_RECEIVED {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            sb.append("[EVENT] order received: orderId[").append(args[0]).append("] prepTime:[").append(args[1])
+                    .append("]ms name:").append(text);
+        }
+    },
+    COURIER_DISPATCHED {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            sb.append("[EVENT] courier dispatched: id[").append(args[0]).append("] estimated travel time [")
+                    .append(args[1]).append("]ms");
+        }
+    },
+    ORDER_PREPARED {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            sb.append("[EVENT] order prepared: mealId[").append(args[0]).append("], orderId[").append(text)
+                    .append(']');
+        }
+    },
+    COURIER_ARRIVED {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            sb.append("[EVENT] courier arrived id[").append(args[0]).append("], for pickup");
+        }
+    },
+    ORDER_PICKED_UP {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            sb.append("[EVENT] order picked up: orderId[").append(args[0]).append("] courierId[").append(args[1])
+                    .append(']');
+        }
+    },
+    ORDER_DELIVERED {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            sb.append("[EVENT] order delivered: orderId[").append(args[0]).append("] by courierId[").append(args[1])
+                    .append(']');
+        }
+    },
+    PICKUP_METRICS {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            sb.append("[METRICS] Food wait time: [").append(args[0]).append("]ms - Courier wait time [")
+                    .append(args[1]).append("]ms, orderId[").append(args[2]).append(']');
+        }
+    },
+    AVERAGE_METRICS {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            sb.append(String.format("[METRICS] Avg. Food Wait Time: [%.4f]ms, Avg Courier Wait Time [%.4f]ms, " +
+                            "Total Orders Received %s, Total Orders Delivered %s", Double.longBitsToDouble(args[0]),
+                    Double.longBitsToDouble(args[1]), args[2], args[3]));
+        }
+    },
+    FOOD_WAIT_LATENCY {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            renderLatency(sb.append("[METRICS] Food wait time"), args, "ms");
+        }
+    },
+    COURIER_WAIT_LATENCY {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            renderLatency(sb.append("[METRICS] Courier wait time"), args, "ms");
+        }
+    },
+    END_TO_END_LATENCY {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            renderLatency(sb.append("[METRICS] End to end order time"), args, "ms");
+        }
+    },
+    QUEUE_DWELL_LATENCY {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            renderLatency(sb.append("[METRICS] Queue dwell time"), args, "us");
+        }
+    },
+    COURIER_QUEUE_LATENCY {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            renderLatency(sb.append("[METRICS] Courier queueing time"), args, "ms");
+        }
+    },
+    COURIER_REQUEST_WAITING {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            sb.append("[EVENT] no courier available: orderId[").append(args[0])
+                    .append("] waiting for a courier to be released");
+        }
+    },
+    COURIER_DISPATCH_PLANNED {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            sb.append("[EVENT] courier dispatch planned: orderId[").append(args[0]).append("] in [").append(args[1])
+                    .append("]ms");
+        }
+    },
+    COURIER_WAIT_EXPIRED {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            sb.append("[EVENT] no courier released after [").append(args[1]).append("]ms: orderId[").append(args[0])
+                    .append("] ... cancelling cooking reservation");
+        }
+    },
+    NO_COURIER_AVAILABLE {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            sb.append("No couriers available to deliver the order ... cancelling cooking reservation");
+        }
+    },
+    SHUTDOWN {
+        @Override
+        void render(StringBuilder sb, long[] args, String text) {
+            sb.append("[SYSTEM] queue processing shutting down, no orders remaining");
+        }
+    };
+
+    private static final LogTemplate[] VALUES = values();
+
+    abstract void render(StringBuilder sb, long[] args, String text);
+
+    private static void renderLatency(StringBuilder sb, long[] args, String unit) {
+        sb.append(" p50:[").append(args[0]).append(']').append(unit)
+                .append(" p90:[").append(args[1]).append(']').append(unit)
+                .append(" p99:[").append(args[2]).append(']').append(unit)
+                .append(" p999:[").append(args[3]).append(']').append(unit);
+    }
+
+    static LogTemplate of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,274 @@
+package com.acabra.orderfullfilment.orderserver.kitchen;
+
+import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
+import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
+import com.acabra.orderfullfilment.orderserver.model.Dishes;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out the cook stations of the kitchen, each dish type cooks on its own pool of stations and the orders
+ * matching no dish share the pool of the other dishes. A meal starts as soon as a station of its pool is free, else it
+ * waits in the queue of the pool until a station frees up. The queue serves the meals in arrival order, the shortest
+ * preparation first, the default order as in the configuration, or the ones whose courier arrives the soonest relative
+ * to their preparation time first. A pool of 0 stations is unlimited, every meal starts right away.
+ */
+final class PrepScheduler {
+
+    static final String OTHER_DISHES = "OTHER";
+
+    private final Map<Dishes, StationPool> byDish;
+    private final StationPool others;
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder waiting = new LongAdder();
+
+    private PrepScheduler(Map<Dishes, StationPool> byDish, StationPool others) {
+        this.byDish = byDish;
+        this.others = others;
+    }
+
+    /**
+     * @param stations the stations of every dish type not listed in stationsByDish, 0 for unlimited
+     * @param stationsByDish comma separated dish:stations pairs, e.g. {@code Burger:2,OTHER:3}
+     * @param prepOrder the order the queued meals are served, fifo, shortest-prep or courier-eta, shortest-prep if null
+     */
+    static PrepScheduler of(int stations, String stationsByDish, String prepOrder) {
+        Comparator<Meal> order = comparatorOf(prepOrder);
+        int otherStations = Math.max(0, stations);
+        Map<Dishes, StationPool> byDish = new EnumMap<>(Dishes.class);
+        for (Map.Entry<String, Integer> entry : parse(stationsByDish).entrySet()) {
+            if (OTHER_DISHES.equalsIgnoreCase(entry.getKey())) {
+                otherStations = entry.getValue();
+                continue;
+            }
+            Dishes dish = Dishes.of(entry.getKey());
+            if (null == dish) {
+                throw new IllegalArgumentException("Unknown dish in cook stations: " + entry.getKey());
+            }
+            byDish.put(dish, new StationPool(entry.getValue(), order));
+        }
+        for (Dishes dish : Dishes.values()) {
+            byDish.putIfAbsent(dish, new StationPool(Math.max(0, stations), order));
+        }
+        return new PrepScheduler(byDish, new StationPool(otherStations, order));
+    }
+
+    static PrepScheduler of(OrderServerConfig config) {
+        return of(config.getCookStations(), config.getCookStationsByDish(), config.getPrepOrder());
+    }
+
+    /**
+     * @return a scheduler starting every meal right away, in the default order were any meal to wait
+     */
+    static PrepScheduler unlimited() {
+        return of(0, "", null);
+    }
+
+    private static Map<String, Integer> parse(String stationsByDish) {
+        Map<String, Integer> parsed = new LinkedHashMap<>();
+        if (null == stationsByDish || stationsByDish.isBlank()) {
+            return parsed;
+        }
+        for (String pair : stationsByDish.split(",")) {
+            int separator = pair.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected dish:stations in cook stations, found: " + pair);
+            }
+            try {
+                int stations = Integer.parseInt(pair.substring(separator + 1).trim());
+                if (stations < 0) {
+                    throw new IllegalArgumentException("Negative cook stations: " + pair);
+                }
+                parsed.put(pair.substring(0, separator).trim(), stations);
+            } catch (NumberFormatException nfe) {
+                throw new IllegalArgumentException("Expected dish:stations in cook stations, found: " + pair, nfe);
+            }
+        }
+        return parsed;
+    }
+
+    private static Comparator<Meal> comparatorOf(String prepOrder) {
+        Comparator<Meal> arrival = Comparator.comparingLong(meal -> meal.seq);
+        String name = null == prepOrder ? OrderServerConfig.PREP_ORDER_SHORTEST_PREP
+                : prepOrder.trim().toLowerCase(Locale.ROOT);
+        switch (name) {
+            case OrderServerConfig.PREP_ORDER_FIFO:
+                return arrival;
+            case OrderServerConfig.PREP_ORDER_SHORTEST_PREP:
+                return Comparator.<Meal>comparingLong(meal -> meal.order.prepTime).thenComparing(arrival);
+            case OrderServerConfig.PREP_ORDER_COURIER_ETA:
+                //the latest start still ready by the courier arrival, the most urgent meal first
+                return Comparator.<Meal>comparingLong(meal -> meal.courierArrivesAt - meal.order.prepTime)
+                        .thenComparing(arrival);
+            default:
+                throw new IllegalArgumentException("Unknown prep order: " + prepOrder);
+        }
+    }
+
+    /**
+     * Requests a station for the meal
+     * @param requestedAt the time the kitchen is instructed to prepare the meal
+     * @param courierArrivesAt the time the courier is expected at the kitchen, Long.MAX_VALUE if unknown
+     * @return the meal, started at {@link Meal#startAt()} or queued until a station frees up
+     */
+    Meal request(long id, DeliveryOrder order, long requestedAt, long courierArrivesAt) {
+        Meal meal = new Meal(id, order, requestedAt, courierArrivesAt, sequence.getAndIncrement());
+        if (!poolOf(order).offer(meal)) {
+            waiting.increment();
+        }
+        return meal;
+    }
+
+    /**
+     * Estimates when the meal would be ready if requested now, it starts once a station is free for it after the
+     * meals queued ahead of it, a courier arrival unknown to the estimate only delays it in the courier-eta order
+     * @param requestedAt the time the kitchen would be instructed to prepare the meal
+     * @return the expected ready time, requestedAt plus the preparation time if a station is free
+     */
+    long expectedReadyAt(DeliveryOrder order, long requestedAt) {
+        Meal probe = new Meal(-1L, order, requestedAt, Long.MAX_VALUE, sequence.get());
+        return poolOf(order).expectedStartAt(probe) + order.prepTime;
+    }
+
+    /**
+     * Hands the station of the finished meal to the next meal waiting for it
+     * @param freedAt the time the station frees up
+     * @return the next meal of the pool started at {@link Meal#startAt()}, null if none is waiting
+     */
+    Meal next(Meal finished, long freedAt) {
+        Meal next = poolOf(finished.order).release(finished, freedAt);
+        if (null != next) {
+            waiting.decrement();
+        }
+        return next;
+    }
+
+    /**
+     * @return the meals waiting for a station
+     */
+    long waiting() {
+        return waiting.sum();
+    }
+
+    private StationPool poolOf(DeliveryOrder order) {
+        Dishes dish = Dishes.of(order.name);
+        return null == dish ? others : byDish.get(dish);
+    }
+
+    static final class Meal {
+        final long id;
+        final DeliveryOrder order;
+        final long requestedAt;
+        final long courierArrivesAt;
+        private final long seq;
+        /**
+         * Completes once the meal was prepared and its notification published, only used by the queued meals
+         */
+        final CompletableFuture<Boolean> prepared = new CompletableFuture<>();
+        private volatile long startAt;
+        private boolean queued;
+
+        private Meal(long id, DeliveryOrder order, long requestedAt, long courierArrivesAt, long seq) {
+            this.id = id;
+            this.order = order;
+            this.requestedAt = requestedAt;
+            this.courierArrivesAt = courierArrivesAt;
+            this.seq = seq;
+        }
+
+        /**
+         * @return true if the meal waited for a station when requested, only meaningful to the requesting thread
+         */
+        boolean isQueued() {
+            return queued;
+        }
+
+        long startAt() {
+            return startAt;
+        }
+
+        long readyAt() {
+            return startAt + order.prepTime;
+        }
+    }
+
+    private static final class StationPool {
+        private final int stations;
+        private final Comparator<Meal> order;
+        private final PriorityQueue<Meal> queue;
+        /**
+         * The time each idle station freed up, a station freed in the future of the emulation is not free yet
+         */
+        private final PriorityQueue<Long> idleSince = new PriorityQueue<>();
+        /**
+         * The ready time of the meal cooking on each busy station
+         */
+        private final PriorityQueue<Long> busyUntil = new PriorityQueue<>();
+
+        private StationPool(int stations, Comparator<Meal> order) {
+            this.stations = stations;
+            this.order = order;
+            this.queue = new PriorityQueue<>(order);
+            for (int i = 0; i < stations; i++) {
+                idleSince.add(Long.MIN_VALUE);
+            }
+        }
+
+        private synchronized boolean offer(Meal meal) {
+            if (stations == 0) {
+                meal.startAt = meal.requestedAt;
+                return true;
+            }
+            Long freeAt = idleSince.poll();
+            if (null == freeAt) {
+                meal.queued = true;
+                queue.add(meal);
+                return false;
+            }
+            meal.startAt = Math.max(meal.requestedAt, freeAt);
+            busyUntil.add(meal.readyAt());
+            return true;
+        }
+
+        private synchronized Meal release(Meal finished, long freedAt) {
+            if (stations == 0) {
+                return null;
+            }
+            busyUntil.remove(finished.readyAt());
+            Meal next = queue.poll();
+            if (null == next) {
+                idleSince.add(freedAt);
+                return null;
+            }
+            next.startAt = Math.max(next.requestedAt, freedAt);
+            busyUntil.add(next.readyAt());
+            return next;
+        }
+
+        /**
+         * Replays the queued meals served before the probe on the stations as they free up
+         */
+        private synchronized long expectedStartAt(Meal probe) {
+            Long idle = idleSince.peek();
+            if (stations == 0 || null != idle) {
+                return null == idle ? probe.requestedAt : Math.max(probe.requestedAt, idle);
+            }
+            PriorityQueue<Long> freeAt = new PriorityQueue<>(busyUntil);
+            queue.stream()
+                    .filter(queued -> order.compare(queued, probe) < 0)
+                    .sorted(order)
+                    .forEach(queued -> freeAt.add(Math.max(queued.requestedAt, freeAt.poll())
+                            + queued.order.prepTime));
+            Long free = freeAt.peek();
+            return null == free ? probe.requestedAt : Math.max(probe.requestedAt, free);
+        }
+    }
+}
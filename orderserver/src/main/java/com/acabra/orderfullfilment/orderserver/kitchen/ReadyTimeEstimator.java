@@ -0,0 +1,24 @@
+package com.acabra.orderfullfilment.orderserver.kitchen;
+
+import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
+
+/**
+ * Estimates when the meal of an order is ready, lets the components outside the kitchen plan around its cook
+ * stations without holding the kitchen itself
+ */
+@FunctionalInterface
+public interface ReadyTimeEstimator {
+
+    /**
+     * The meal starts as soon as it is requested, no cook station is ever waited for
+     */
+    ReadyTimeEstimator PREP_TIME = (order, now) -> now + order.prepTime;
+
+    /**
+     * Estimates when the meal of the order would be ready if the kitchen were instructed to prepare it now
+     * @param order the delivery order
+     * @param now current time
+     * @return the expected ready time
+     */
+    long expectedReadyAt(DeliveryOrder order, long now);
+}
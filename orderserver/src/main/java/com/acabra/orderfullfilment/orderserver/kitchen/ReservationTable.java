@@ -0,0 +1,152 @@
+package com.acabra.orderfullfilment.orderserver.kitchen;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the value of every reservation in flight, it hands out monotonically increasing ids and locates them
+ * in O(1) without hashing: the ids are split in fixed size segments found through a directory indexed by the
+ * segment number modulo its length. A segment is dropped once every one of its reservations is released so the
+ * memory held is bounded by the span of ids in flight and not by the total reservations ever made.
+ * @param <T> the type of the reserved values
+ */
+public class ReservationTable<T> {
+
+    static final int SEGMENT_SHIFT = 10;
+    static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int INITIAL_DIRECTORY_SIZE = 16;
+
+    private final AtomicLong nextId = new AtomicLong();
+    private final LongAdder released = new LongAdder();
+    private volatile AtomicReferenceArray<Segment<T>> directory = new AtomicReferenceArray<>(INITIAL_DIRECTORY_SIZE);
+
+    /**
+     * Reserves the next id for the given value
+     * @return the id of the reservation
+     */
+    public long reserve(T value) {
+        Objects.requireNonNull(value);
+        long id = nextId.getAndIncrement();
+        segmentOf(id >>> SEGMENT_SHIFT).slots.set(slotOf(id), value);
+        return id;
+    }
+
+    /**
+     * @return the value reserved with the given id or null if it was never reserved or already released
+     */
+    public T get(long id) {
+        Segment<T> segment = findSegment(id >>> SEGMENT_SHIFT);
+        return null == segment ? null : segment.slots.get(slotOf(id));
+    }
+
+    /**
+     * Releases the reservation, releasing it again has no effect
+     * @return the value reserved or null if it was never reserved or already released
+     */
+    public T release(long id) {
+        long index = id >>> SEGMENT_SHIFT;
+        Segment<T> segment = findSegment(index);
+        if (null == segment) {
+            return null;
+        }
+        T value = segment.slots.getAndSet(slotOf(id), null);
+        if (null != value) {
+            released.increment();
+            if (segment.releasedSlots.incrementAndGet() == SEGMENT_SIZE) {
+                retire(segment);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return the reservations handed out and not yet released
+     */
+    public int inFlight() {
+        return (int) (nextId.get() - released.sum());
+    }
+
+    /**
+     * @return the segments currently held, each one holds up to {@link #SEGMENT_SIZE} reservations
+     */
+    int segments() {
+        AtomicReferenceArray<Segment<T>> dir = this.directory;
+        int count = 0;
+        for (int i = 0; i < dir.length(); i++) {
+            if (null != dir.get(i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int slotOf(long id) {
+        return (int) id & SEGMENT_MASK;
+    }
+
+    private Segment<T> findSegment(long index) {
+        AtomicReferenceArray<Segment<T>> dir = this.directory;
+        Segment<T> segment = dir.get((int) index & (dir.length() - 1));
+        return null != segment && segment.index == index ? segment : null;
+    }
+
+    private Segment<T> segmentOf(long index) {
+        Segment<T> segment = findSegment(index);
+        return null != segment ? segment : createSegment(index);
+    }
+
+    private synchronized Segment<T> createSegment(long index) {
+        Segment<T> segment = findSegment(index);
+        if (null != segment) {
+            return segment;
+        }
+        segment = new Segment<>(index);
+        AtomicReferenceArray<Segment<T>> dir = this.directory;
+        while (null != dir.get((int) index & (dir.length() - 1))) {
+            //the slot belongs to an older segment still in flight
+            dir = grow(dir);
+        }
+        dir.set((int) index & (dir.length() - 1), segment);
+        this.directory = dir;
+        return segment;
+    }
+
+    private static <T> AtomicReferenceArray<Segment<T>> grow(AtomicReferenceArray<Segment<T>> dir) {
+        int length = dir.length() << 1;
+        for (;;) {
+            AtomicReferenceArray<Segment<T>> grown = new AtomicReferenceArray<>(length);
+            boolean collision = false;
+            for (int i = 0; i < dir.length() && !collision; i++) {
+                Segment<T> segment = dir.get(i);
+                if (null != segment) {
+                    int slot = (int) segment.index & (length - 1);
+                    collision = null != grown.get(slot);
+                    grown.set(slot, segment);
+                }
+            }
+            if (!collision) {
+                return grown;
+            }
+            length <<= 1;
+        }
+    }
+
+    private synchronized void retire(Segment<T> segment) {
+        AtomicReferenceArray<Segment<T>> dir = this.directory;
+        dir.compareAndSet((int) segment.index & (dir.length() - 1), segment, null);
+    }
+
+    private static final class Segment<T> {
+        private final long index;
+        private final AtomicReferenceArray<T> slots = new AtomicReferenceArray<>(SEGMENT_SIZE);
+        private final AtomicInteger releasedSlots = new AtomicInteger();
+
+        private Segment(long index) {
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.acabra.orderfullfilment.orderserver.kitchen;
+
+/**
+ * Source of the current time in epoch millis used by the KitchenClock
+ */
+@FunctionalInterface
+public interface TimeSource {
+    TimeSource SYSTEM = System::currentTimeMillis;
+
+    long now();
+}
@@ -0,0 +1,24 @@
+package com.acabra.orderfullfilment.orderserver.kitchen;
+
+/**
+ * Time source that only moves when it is told to, used to replay orders faster than real time.
+ * Time never goes backwards, advancing to a past time is ignored.
+ */
+public class VirtualClock implements TimeSource {
+    private volatile long now;
+
+    public VirtualClock(long start) {
+        this.now = start;
+    }
+
+    @Override
+    public long now() {
+        return now;
+    }
+
+    public synchronized void advanceTo(long time) {
+        if (time > now) {
+            now = time;
+        }
+    }
+}
@@ -19,6 +19,23 @@ public enum Dishes {
         this.prepTime = preparationTime;
     }
 
+    /**
+     * @param name the name of an order, either the description or the name of a dish ignoring case
+     * @return the dish or null if the name matches none
+     */
+    public static Dishes of(String name) {
+        if (null == name) {
+            return null;
+        }
+        String trimmed = name.trim();
+        for (Dishes dish : Dishes.values()) {
+            if (dish.description.equalsIgnoreCase(trimmed) || dish.name().equalsIgnoreCase(trimmed)) {
+                return dish;
+            }
+        }
+        return null;
+    }
+
     public static Dishes getRandomDish() {
         return Dishes.values()[Math.abs(r.nextInt()) % (size - 1)];
     }
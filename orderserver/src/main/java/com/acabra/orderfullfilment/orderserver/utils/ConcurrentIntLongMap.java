@@ -0,0 +1,61 @@
+package com.acabra.orderfullfilment.orderserver.utils;
+
+/**
+ * Concurrent map of primitive int keys to primitive long values, nothing is boxed and no node is allocated per
+ * entry. The keys are widened into a {@link ConcurrentLongLongMap} which holds the segments and their locks, every
+ * int is a valid key. The missing value given on construction is returned for the keys not mapped.
+ */
+public class ConcurrentIntLongMap {
+
+    private final ConcurrentLongLongMap map;
+
+    public ConcurrentIntLongMap(long missingValue) {
+        this.map = new ConcurrentLongLongMap(missingValue);
+    }
+
+    /**
+     * @param missingValue value returned for the keys not mapped
+     * @param concurrencyLevel estimated amount of threads writing concurrently, rounded up to a power of two
+     * @param initialCapacity amount of entries the map holds before the first resize
+     */
+    public ConcurrentIntLongMap(long missingValue, int concurrencyLevel, int initialCapacity) {
+        this.map = new ConcurrentLongLongMap(missingValue, concurrencyLevel, initialCapacity);
+    }
+
+    public long missingValue() {
+        return map.missingValue();
+    }
+
+    /**
+     * @return the value mapped to the key or the missing value if none
+     */
+    public long get(int key) {
+        return map.get(key);
+    }
+
+    public boolean containsKey(int key) {
+        return map.containsKey(key);
+    }
+
+    /**
+     * @return the value previously mapped to the key or the missing value if none
+     */
+    public long put(int key, long value) {
+        return map.put(key, value);
+    }
+
+    /**
+     * @return the value removed or the missing value if the key was not mapped
+     */
+    public long remove(int key) {
+        return map.remove(key);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+}
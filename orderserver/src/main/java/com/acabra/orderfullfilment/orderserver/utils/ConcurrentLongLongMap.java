@@ -0,0 +1,112 @@
+package com.acabra.orderfullfilment.orderserver.utils;
+
+/**
+ * Concurrent map of primitive long keys to primitive long values, nothing is boxed and no node is allocated per
+ * entry. Laid out as {@link ConcurrentLongObjectMap}: {@link LongKeySegment}s whose values are held in long arrays.
+ * {@link Long#MIN_VALUE} marks the free slots and cannot be used as a key, the missing value given on construction
+ * is returned for the keys not mapped. {@link ConcurrentIntLongMap} widens its keys into it.
+ */
+public class ConcurrentLongLongMap {
+
+    static final long FREE = LongKeySegment.FREE;
+
+    private final LongKeySegment<long[]>[] segments;
+    private final int segmentShift;
+    private final long missingValue;
+
+    public ConcurrentLongLongMap(long missingValue) {
+        this(missingValue, PrimitiveMaps.DEFAULT_CONCURRENCY, PrimitiveMaps.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param missingValue value returned for the keys not mapped
+     * @param concurrencyLevel estimated amount of threads writing concurrently, rounded up to a power of two
+     * @param initialCapacity amount of entries the map holds before the first resize
+     */
+    public ConcurrentLongLongMap(long missingValue, int concurrencyLevel, int initialCapacity) {
+        this.missingValue = missingValue;
+        this.segments = LongKeySegment.segments(concurrencyLevel, initialCapacity, LongKeySegment.LONGS);
+        this.segmentShift = LongKeySegment.segmentShift(segments);
+    }
+
+    private LongKeySegment<long[]> segmentFor(long hash) {
+        return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+    }
+
+    public long missingValue() {
+        return missingValue;
+    }
+
+    /**
+     * @return the value mapped to the key or the missing value if none
+     */
+    public long get(long key) {
+        long hash = PrimitiveMaps.mix(key);
+        LongKeySegment<long[]> segment = segmentFor(hash);
+        for (long stamp = segment.startRead(); ; stamp = segment.lockRead()) {
+            LongKeySegment.Table<long[]> t = segment.table();
+            int i = LongKeySegment.find(t, key, (int) hash);
+            long value = i >= 0 ? t.values[i] : missingValue;
+            if (segment.endRead(stamp)) {
+                return value;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        long hash = PrimitiveMaps.mix(key);
+        return segmentFor(hash).containsKey(key, (int) hash);
+    }
+
+    /**
+     * @return the value previously mapped to the key or the missing value if none
+     */
+    public long put(long key, long value) {
+        long hash = PrimitiveMaps.mix(PrimitiveMaps.checkKey(key, FREE));
+        LongKeySegment<long[]> segment = segmentFor(hash);
+        long stamp = segment.lockWrite();
+        try {
+            LongKeySegment.Table<long[]> t = segment.table();
+            int i = LongKeySegment.indexOf(t, key, (int) hash);
+            if (i >= 0) {
+                long previous = t.values[i];
+                t.values[i] = value;
+                return previous;
+            }
+            t.values[-1 - i] = value;
+            segment.insert(t, -1 - i, key);
+            return missingValue;
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return the value removed or the missing value if the key was not mapped
+     */
+    public long remove(long key) {
+        long hash = PrimitiveMaps.mix(key);
+        LongKeySegment<long[]> segment = segmentFor(hash);
+        long stamp = segment.lockWrite();
+        try {
+            LongKeySegment.Table<long[]> t = segment.table();
+            int i = key == FREE ? -1 : LongKeySegment.indexOf(t, key, (int) hash);
+            if (i < 0) {
+                return missingValue;
+            }
+            long previous = t.values[i];
+            segment.delete(t, i);
+            return previous;
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        return LongKeySegment.size(segments);
+    }
+
+    public boolean isEmpty() {
+        return LongKeySegment.isEmpty(segments);
+    }
+}
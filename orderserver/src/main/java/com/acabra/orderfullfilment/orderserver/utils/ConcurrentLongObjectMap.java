@@ -0,0 +1,167 @@
+package com.acabra.orderfullfilment.orderserver.utils;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Concurrent map of primitive long keys to objects, no key is boxed and no node is allocated per entry.
+ * The keys are spread across {@link LongKeySegment}s, each one an open addressing table (linear probing, backward
+ * shift deletion) guarded by its own lock, reads are optimistic and only take the lock when they race with a write.
+ * {@link Long#MIN_VALUE} marks the free slots and cannot be used as a key, null values are not allowed.
+ * @param <V> the type of the values
+ */
+public class ConcurrentLongObjectMap<V> {
+
+    static final long FREE = LongKeySegment.FREE;
+
+    private final LongKeySegment<Object[]>[] segments;
+    private final int segmentShift;
+
+    public ConcurrentLongObjectMap() {
+        this(PrimitiveMaps.DEFAULT_CONCURRENCY, PrimitiveMaps.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param concurrencyLevel estimated amount of threads writing concurrently, rounded up to a power of two
+     * @param initialCapacity amount of entries the map holds before the first resize
+     */
+    public ConcurrentLongObjectMap(int concurrencyLevel, int initialCapacity) {
+        this.segments = LongKeySegment.segments(concurrencyLevel, initialCapacity, LongKeySegment.OBJECTS);
+        this.segmentShift = LongKeySegment.segmentShift(segments);
+    }
+
+    private LongKeySegment<Object[]> segmentFor(long hash) {
+        return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+    }
+
+    /**
+     * @return the value mapped to the key or null if none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        long hash = PrimitiveMaps.mix(key);
+        LongKeySegment<Object[]> segment = segmentFor(hash);
+        for (long stamp = segment.startRead(); ; stamp = segment.lockRead()) {
+            LongKeySegment.Table<Object[]> t = segment.table();
+            int i = LongKeySegment.find(t, key, (int) hash);
+            Object value = i >= 0 ? t.values[i] : null;
+            if (segment.endRead(stamp)) {
+                return (V) value;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        long hash = PrimitiveMaps.mix(key);
+        return segmentFor(hash).containsKey(key, (int) hash);
+    }
+
+    /**
+     * @return the value previously mapped to the key or null if none
+     */
+    public V put(long key, V value) {
+        long hash = PrimitiveMaps.mix(PrimitiveMaps.checkKey(key, FREE));
+        return put(segmentFor(hash), key, (int) hash, PrimitiveMaps.checkValue(value), false);
+    }
+
+    /**
+     * @return the value currently mapped to the key or null if the given value was mapped
+     */
+    public V putIfAbsent(long key, V value) {
+        long hash = PrimitiveMaps.mix(PrimitiveMaps.checkKey(key, FREE));
+        return put(segmentFor(hash), key, (int) hash, PrimitiveMaps.checkValue(value), true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V put(LongKeySegment<Object[]> segment, long key, int hash, V value, boolean onlyIfAbsent) {
+        long stamp = segment.lockWrite();
+        try {
+            LongKeySegment.Table<Object[]> t = segment.table();
+            int i = LongKeySegment.indexOf(t, key, hash);
+            if (i >= 0) {
+                V previous = (V) t.values[i];
+                if (!onlyIfAbsent) {
+                    t.values[i] = value;
+                }
+                return previous;
+            }
+            t.values[-1 - i] = value;
+            segment.insert(t, -1 - i, key);
+            return null;
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return the value removed or null if the key was not mapped
+     */
+    public V remove(long key) {
+        long hash = PrimitiveMaps.mix(key);
+        return remove(segmentFor(hash), key, (int) hash, null);
+    }
+
+    /**
+     * Removes the entry only if the key is currently mapped to the given value (identity)
+     * @return true if the entry was removed
+     */
+    public boolean remove(long key, V value) {
+        long hash = PrimitiveMaps.mix(key);
+        return null != value && null != remove(segmentFor(hash), key, (int) hash, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V remove(LongKeySegment<Object[]> segment, long key, int hash, V expected) {
+        long stamp = segment.lockWrite();
+        try {
+            LongKeySegment.Table<Object[]> t = segment.table();
+            int i = LongKeySegment.indexOf(t, key, hash);
+            if (i < 0 || (null != expected && t.values[i] != expected)) {
+                return null;
+            }
+            V previous = (V) t.values[i];
+            segment.delete(t, i);
+            return previous;
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Atomically maps the key to the result of the function applied to its current value (null if none), a null
+     * result removes the entry. The function runs holding the lock of the segment and must not access this map.
+     * @return the new value mapped to the key or null if none
+     */
+    @SuppressWarnings("unchecked")
+    public V compute(long key, UnaryOperator<V> remapping) {
+        long hash = PrimitiveMaps.mix(PrimitiveMaps.checkKey(key, FREE));
+        LongKeySegment<Object[]> segment = segmentFor(hash);
+        long stamp = segment.lockWrite();
+        try {
+            LongKeySegment.Table<Object[]> t = segment.table();
+            int i = LongKeySegment.indexOf(t, key, (int) hash);
+            V current = i >= 0 ? (V) t.values[i] : null;
+            V updated = remapping.apply(current);
+            if (null == updated) {
+                if (i >= 0) {
+                    segment.delete(t, i);
+                }
+            } else if (i >= 0) {
+                t.values[i] = updated;
+            } else {
+                t.values[-1 - i] = updated;
+                segment.insert(t, -1 - i, key);
+            }
+            return updated;
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        return LongKeySegment.size(segments);
+    }
+
+    public boolean isEmpty() {
+        return LongKeySegment.isEmpty(segments);
+    }
+}
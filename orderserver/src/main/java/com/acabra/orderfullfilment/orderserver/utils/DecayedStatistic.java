@@ -0,0 +1,48 @@
+package com.acabra.orderfullfilment.orderserver.utils;
+
+/**
+ * Immutable streaming statistics of a series where the recent samples weigh more, each update returns a new instance
+ * so holders publish it with a single compare and set. The mean and variance decay exponentially, the p90 is tracked by
+ * stochastic approximation: it moves up by 0.9 steps when a sample lands above it and down by 0.1 steps otherwise,
+ * settling where 90% of the recent samples are below it. The first samples are averaged evenly until the decay weighs
+ * less than an even share.
+ */
+final class DecayedStatistic {
+
+    static final DecayedStatistic EMPTY = new DecayedStatistic(0d, 0d, 0d, 0);
+
+    private static final double QUANTILE = 0.9d;
+
+    final double mean;
+    final double variance;
+    final double p90;
+    final int count;
+
+    private DecayedStatistic(double mean, double variance, double p90, int count) {
+        this.mean = mean;
+        this.variance = variance;
+        this.p90 = p90;
+        this.count = count;
+    }
+
+    /**
+     * @param sample the new sample
+     * @param decay weight of the new sample once warmed up, between 0 and 1
+     * @return the statistics including the sample
+     */
+    DecayedStatistic update(double sample, double decay) {
+        if (count == 0) {
+            return new DecayedStatistic(sample, 0d, sample, 1);
+        }
+        double weight = Math.max(decay, 1d / (count + 1));
+        double diff = sample - mean;
+        double increment = weight * diff;
+        double nextVariance = (1d - weight) * (variance + diff * increment);
+        double deviation = Math.sqrt(nextVariance);
+        //steps scale with the spread of the series, a sample far from the p90 must not weigh more than a close one
+        double step = weight * (deviation > 0d ? 2d * deviation : Math.abs(sample - p90));
+        double nextP90 = sample > p90 ? p90 + step * QUANTILE : p90 - step * (1d - QUANTILE);
+        return new DecayedStatistic(mean + increment, nextVariance, nextP90,
+                count == Integer.MAX_VALUE ? count : count + 1);
+    }
+}
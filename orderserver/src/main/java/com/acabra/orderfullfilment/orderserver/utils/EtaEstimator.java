@@ -1,25 +1,136 @@
 package com.acabra.orderfullfilment.orderserver.utils;
 
 import com.acabra.orderfullfilment.orderserver.config.CourierConfig;
+import com.acabra.orderfullfilment.orderserver.courier.ServiceArea;
 import com.acabra.orderfullfilment.orderserver.courier.model.Courier;
+import com.acabra.orderfullfilment.orderserver.courier.model.Location;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenClock;
 import org.springframework.stereotype.Component;
 
-import java.util.Random;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * The travel time grows linearly with the distance from the courier to the kitchen, from the min eta for a courier
+ * already there to the max eta for one at the edge of the service area or beyond. Couriers never placed travel a
+ * uniformly random time within the same bounds.
+ * The estimate is corrected with the ratio of the observed to the linear travel time, learned from the arrivals of
+ * each courier and, until a courier has enough arrivals of its own, from every arrival dispatched at the same hour of
+ * the day. The statistics are updated with a compare and set, no lock is taken by the dispatch or the arrivals.
+ */
 @Component
 public class EtaEstimator {
 
+    static final int MIN_OBSERVATIONS = 3;
+    private static final int HOURS_PER_DAY = 24;
+
     private final int ceilingEta;
     private final Integer floorEta;
-    private final static Random etaGenerate = new Random();
+    private final ServiceArea area;
+    private final double decay;
+    private final double travelNoise;
+    private final ConcurrentLongObjectMap<AtomicReference<DecayedStatistic>> byCourier = new ConcurrentLongObjectMap<>();
+    private final AtomicReferenceArray<DecayedStatistic> byHour = new AtomicReferenceArray<>(HOURS_PER_DAY);
 
     public EtaEstimator(CourierConfig config) {
         this.ceilingEta = config.getMaxEta() - config.getMinEta() + 1;
         this.floorEta = config.getMinEta();
+        this.area = ServiceArea.of(config);
+        this.decay = Math.min(1d, Math.max(0d, config.getEtaDecay()));
+        this.travelNoise = Math.max(0d, config.getTravelNoise());
+        for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+            byHour.set(hour, DecayedStatistic.EMPTY);
+        }
     }
 
+    /**
+     * @return the expected travel time of the courier to the kitchen
+     */
     public int estimateCourierTravelTimeInSeconds(Courier courier) {
-        return Math.abs(floorEta + etaGenerate.nextInt(ceilingEta));
+        DecayedStatistic learned = learned(courier.id, KitchenClock.now());
+        int linear = linearTravelTimeInSeconds(courier);
+        return null == learned ? linear : (int) Math.round(linear * learned.mean);
+    }
+
+    /**
+     * @return the travel time nine out of ten of the recent arrivals were within, the expected one until enough
+     * arrivals are observed
+     */
+    public int estimateLatestTravelTimeInSeconds(Courier courier) {
+        DecayedStatistic learned = learned(courier.id, KitchenClock.now());
+        int linear = linearTravelTimeInSeconds(courier);
+        return null == learned ? linear : (int) Math.round(linear * Math.max(learned.mean, learned.p90));
+    }
+
+    /**
+     * Learns from the actual travel of a courier, it must be called before the courier moves again
+     * @param dispatchedAt the time the courier was dispatched
+     * @param travelMillis the time the courier took to arrive at the kitchen
+     */
+    public void observeArrival(Courier courier, long dispatchedAt, long travelMillis) {
+        if (null == courier.getLocation() || travelMillis < 0L) {
+            //the linear estimate of a courier never placed is random, there is nothing to compare it with
+            return;
+        }
+        double ratio = travelMillis / (linearTravelTimeInSeconds(courier) * 1000d);
+        if (!Double.isFinite(ratio)) {
+            return;
+        }
+        AtomicReference<DecayedStatistic> stats = byCourier.get(courier.id);
+        if (null == stats) {
+            AtomicReference<DecayedStatistic> created = new AtomicReference<>(DecayedStatistic.EMPTY);
+            stats = byCourier.putIfAbsent(courier.id, created);
+            stats = null == stats ? created : stats;
+        }
+        stats.updateAndGet(s -> s.update(ratio, decay));
+        byHour.updateAndGet(hourOf(dispatchedAt), s -> s.update(ratio, decay));
+    }
+
+    /**
+     * @return true if the emulated travel deviates from the linear travel time
+     */
+    public boolean hasTravelNoise() {
+        return travelNoise > 0d;
     }
 
-}
\ No newline at end of file
+    /**
+     * The actual travel time of an emulated courier, the linear travel time scaled by a normally distributed factor
+     * of mean 1 and standard deviation {@code courier.travel-noise}, never under the min eta
+     */
+    public long emulateTravelTimeInMillis(Courier courier) {
+        double factor = 1d + travelNoise * ThreadLocalRandom.current().nextGaussian();
+        return Math.max(floorEta * 1000L, Math.round(linearTravelTimeInSeconds(courier) * 1000d * factor));
+    }
+
+    private int linearTravelTimeInSeconds(Courier courier) {
+        Location location = courier.getLocation();
+        if (null == location) {
+            return floorEta + ThreadLocalRandom.current().nextInt(ceilingEta);
+        }
+        double ratio = Math.min(1d, location.distanceTo(area.kitchen) / area.radiusKm);
+        return floorEta + (int) Math.round((ceilingEta - 1) * ratio);
+    }
+
+    /**
+     * @return the statistics of the courier, else the ones of the hour of the day, null if neither has enough
+     * observations
+     */
+    private DecayedStatistic learned(int courierId, long now) {
+        AtomicReference<DecayedStatistic> stats = byCourier.get(courierId);
+        DecayedStatistic own = null == stats ? DecayedStatistic.EMPTY : stats.get();
+        if (own.count >= MIN_OBSERVATIONS) {
+            return own;
+        }
+        DecayedStatistic hourly = byHour.get(hourOf(now));
+        return hourly.count >= MIN_OBSERVATIONS ? hourly : null;
+    }
+
+    /**
+     * @return the hour of the day of the given time at the kitchen, in the zone of {@link KitchenClock}
+     */
+    static int hourOf(long time) {
+        return Instant.ofEpochMilli(time).atZone(KitchenClock.UTC_PLUS_2).getHour();
+    }
+}
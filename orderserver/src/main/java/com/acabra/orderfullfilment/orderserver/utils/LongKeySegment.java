@@ -0,0 +1,258 @@
+package com.acabra.orderfullfilment.orderserver.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Segment of the primitive long keyed maps: an open addressing table (linear probing, backward shift deletion)
+ * guarded by its own lock, reads are optimistic and only take the lock when they race with a write. The segment
+ * holds the keys and probes, resizes and deletes over them, the values live in the array of the given
+ * {@link ValueStore} so {@link ConcurrentLongLongMap} keeps them primitive and {@link ConcurrentLongObjectMap} as
+ * references. {@link #FREE} marks the free slots and cannot be used as a key.
+ * @param <A> the type of the array holding the values
+ */
+final class LongKeySegment<A> {
+
+    static final long FREE = Long.MIN_VALUE;
+
+    /**
+     * The only part of the table that depends on the type of the values
+     */
+    interface ValueStore<A> {
+        A allocate(int capacity);
+
+        void move(A from, int fromIndex, A to, int toIndex);
+
+        void clear(A values, int index);
+    }
+
+    static final ValueStore<long[]> LONGS = new ValueStore<>() {
+        @Override
+        public long[] allocate(int capacity) {
+            return new long[capacity];
+        }
+
+        @Override
+        public void move(long[] from, int fromIndex, long[] to, int toIndex) {
+            to[toIndex] = from[fromIndex];
+        }
+
+        @Override
+        public void clear(long[] values, int index) {
+            //nothing is retained by a primitive slot
+        }
+    };
+
+    static final ValueStore<Object[]> OBJECTS = new ValueStore<>() {
+        @Override
+        public Object[] allocate(int capacity) {
+            return new Object[capacity];
+        }
+
+        @Override
+        public void move(Object[] from, int fromIndex, Object[] to, int toIndex) {
+            to[toIndex] = from[fromIndex];
+        }
+
+        @Override
+        public void clear(Object[] values, int index) {
+            values[index] = null;
+        }
+    };
+
+    static final class Table<A> {
+        final long[] keys;
+        final A values;
+        final int mask;
+
+        private Table(int capacity, ValueStore<A> store) {
+            this.keys = new long[capacity];
+            this.values = store.allocate(capacity);
+            this.mask = capacity - 1;
+            Arrays.fill(keys, FREE);
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+    private final ValueStore<A> store;
+    private Table<A> table;
+    private volatile int size;
+
+    private LongKeySegment(int capacity, ValueStore<A> store) {
+        this.store = store;
+        this.table = new Table<>(capacity, store);
+    }
+
+    /**
+     * @param concurrencyLevel estimated amount of threads writing concurrently, rounded up to a power of two
+     * @param initialCapacity amount of entries the segments hold together before the first resize
+     */
+    @SuppressWarnings("unchecked")
+    static <A> LongKeySegment<A>[] segments(int concurrencyLevel, int initialCapacity, ValueStore<A> store) {
+        int count = PrimitiveMaps.segmentCount(concurrencyLevel);
+        int segmentCapacity = PrimitiveMaps.tableSize(initialCapacity / count);
+        LongKeySegment<A>[] segments = new LongKeySegment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new LongKeySegment<>(segmentCapacity, store);
+        }
+        return segments;
+    }
+
+    /**
+     * The high bits of the hash pick the segment, the low bits the slot within its table
+     */
+    static int segmentShift(LongKeySegment<?>[] segments) {
+        return 64 - Integer.numberOfTrailingZeros(segments.length);
+    }
+
+    static int size(LongKeySegment<?>[] segments) {
+        int size = 0;
+        for (LongKeySegment<?> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    static boolean isEmpty(LongKeySegment<?>[] segments) {
+        for (LongKeySegment<?> segment : segments) {
+            if (segment.size > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The table to read or write, only consistent under the stamp of {@link #startRead()} or the write lock
+     */
+    Table<A> table() {
+        return table;
+    }
+
+    /**
+     * @return an optimistic stamp, a read lock one if a write holds the lock
+     */
+    long startRead() {
+        long stamp = lock.tryOptimisticRead();
+        return stamp != 0L ? stamp : lock.readLock();
+    }
+
+    /**
+     * Releases the stamp of {@link #startRead()}
+     * @return false if a write raced with the read, it must be repeated under {@link #lockRead()}
+     */
+    boolean endRead(long stamp) {
+        if (StampedLock.isReadLockStamp(stamp)) {
+            lock.unlockRead(stamp);
+            return true;
+        }
+        return lock.validate(stamp);
+    }
+
+    long lockRead() {
+        return lock.readLock();
+    }
+
+    long lockWrite() {
+        return lock.writeLock();
+    }
+
+    void unlockWrite(long stamp) {
+        lock.unlockWrite(stamp);
+    }
+
+    boolean containsKey(long key, int hash) {
+        for (long stamp = startRead(); ; stamp = lockRead()) {
+            boolean found = key != FREE && find(table, key, hash) >= 0;
+            if (endRead(stamp)) {
+                return found;
+            }
+        }
+    }
+
+    /**
+     * Bounded by the table length, a racing write may leave it reading stale slots but never looping forever
+     * @return the slot of the key or -1 if not mapped
+     */
+    static int find(Table<?> t, long key, int hash) {
+        for (int i = hash & t.mask, probes = 0; probes <= t.mask; i = (i + 1) & t.mask, probes++) {
+            long k = t.keys[i];
+            if (k == FREE) {
+                return -1;
+            }
+            if (k == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Requires the write lock
+     * @return the slot of the key or (-1 - the free slot it goes to) if not mapped
+     */
+    static int indexOf(Table<?> t, long key, int hash) {
+        int i = hash & t.mask;
+        for (long k = t.keys[i]; k != FREE; k = t.keys[i]) {
+            if (k == key) {
+                return i;
+            }
+            i = (i + 1) & t.mask;
+        }
+        return -1 - i;
+    }
+
+    /**
+     * Takes the free slot given by {@link #indexOf} once its value is stored, requires the write lock
+     */
+    void insert(Table<A> t, int slot, long key) {
+        t.keys[slot] = key;
+        int newSize = size + 1;
+        size = newSize;
+        if (newSize > PrimitiveMaps.threshold(t.mask + 1)) {
+            resize(t);
+        }
+    }
+
+    private void resize(Table<A> old) {
+        Table<A> t = new Table<>((old.mask + 1) << 1, store);
+        for (int j = 0; j <= old.mask; j++) {
+            long k = old.keys[j];
+            if (k != FREE) {
+                int i = (int) PrimitiveMaps.mix(k) & t.mask;
+                while (t.keys[i] != FREE) {
+                    i = (i + 1) & t.mask;
+                }
+                t.keys[i] = k;
+                store.move(old.values, j, t.values, i);
+            }
+        }
+        this.table = t;
+    }
+
+    /**
+     * Frees the slot shifting back the keys of its probe sequence, requires the write lock
+     */
+    void delete(Table<A> t, int pos) {
+        int last;
+        for (;;) {
+            pos = ((last = pos) + 1) & t.mask;
+            long k;
+            for (;;) {
+                if ((k = t.keys[pos]) == FREE) {
+                    t.keys[last] = FREE;
+                    store.clear(t.values, last);
+                    size = size - 1;
+                    return;
+                }
+                int slot = (int) PrimitiveMaps.mix(k) & t.mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & t.mask;
+            }
+            t.keys[last] = k;
+            store.move(t.values, pos, t.values, last);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.acabra.orderfullfilment.orderserver.utils;
+
+/**
+ * Sizing and hashing shared by the primitive keyed maps
+ */
+final class PrimitiveMaps {
+
+    static final int DEFAULT_CONCURRENCY = 16;
+    static final int DEFAULT_CAPACITY = 256;
+    private static final int MIN_TABLE_SIZE = 4;
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    private PrimitiveMaps() {
+    }
+
+    /**
+     * Fibonacci hashing, the high bits pick the segment and the low bits the slot within its table
+     */
+    static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    static int segmentCount(int concurrencyLevel) {
+        int level = Math.min(Math.max(1, concurrencyLevel), MAX_SEGMENTS);
+        return nextPowerOfTwo(level);
+    }
+
+    /**
+     * @return the power of two table length holding the given amount of entries under the load factor
+     */
+    static int tableSize(int expected) {
+        return nextPowerOfTwo(Math.max(MIN_TABLE_SIZE, (int) Math.min(1 << 30, (expected * 4L + 2) / 3)));
+    }
+
+    /**
+     * Tables resize once three quarters of their slots are taken
+     */
+    static int threshold(int tableLength) {
+        return tableLength - (tableLength >>> 2);
+    }
+
+    static int nextPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    static long checkKey(long key, long free) {
+        if (key == free) {
+            throw new IllegalArgumentException("The key [" + key + "] is reserved to mark the free slots");
+        }
+        return key;
+    }
+
+    static <V> V checkValue(V value) {
+        if (null == value) {
+            throw new NullPointerException("null values are not allowed");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,73 @@
+package com.acabra.orderfullfilment.orderserver.control;
+
+import com.acabra.orderfullfilment.orderserver.core.AdmissionController;
+import com.acabra.orderfullfilment.orderserver.core.OrderProcessor;
+import com.acabra.orderfullfilment.orderserver.courier.CourierFleet;
+import com.acabra.orderfullfilment.orderserver.courier.CourierFleetImpl;
+import com.acabra.orderfullfilment.orderserver.dto.MetricsResponseDTO;
+import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenService;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Queue;
+import java.util.concurrent.PriorityBlockingQueue;
+
+class MetricsControllerTest {
+
+    private MetricsController underTest;
+
+    private final OrderProcessor orderProcessorMock = Mockito.mock(OrderProcessor.class);
+    private final KitchenService kitchenServiceMock = Mockito.mock(KitchenServiceImpl.class);
+    private final CourierFleet courierFleetMock = Mockito.mock(CourierFleetImpl.class);
+    private final Queue<OutputEvent> deque = new PriorityBlockingQueue<>();
+
+    private final AdmissionController admissionController = new AdmissionController(1, 0, 0, 0L, 1000L,
+            () -> 0, () -> 0, () -> 0L);
+
+    @BeforeEach
+    public void setup() {
+        underTest = new MetricsController(orderProcessorMock, deque, kitchenServiceMock, courierFleetMock,
+                admissionController);
+    }
+
+    @Test
+    public void mustReportLiveCounters() {
+        //given
+        deque.offer(Mockito.mock(OutputEvent.class));
+        Mockito.doReturn(3).when(kitchenServiceMock).reservationsInFlight();
+        Mockito.doReturn(2L).when(kitchenServiceMock).mealsUnderPreparation();
+        Mockito.doReturn(5L).when(kitchenServiceMock).mealsWaitingForStation();
+        Mockito.doReturn(10).when(courierFleetMock).fleetSize();
+        Mockito.doReturn(7).when(courierFleetMock).availableCouriers();
+        Mockito.doReturn(4).when(courierFleetMock).waitingDispatchRequests();
+        admissionController.tryAdmit();
+        admissionController.tryAdmit();
+
+        //when
+        ResponseEntity<MetricsResponseDTO> response = underTest.metrics();
+
+        //then
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        MetricsResponseDTO actual = response.getBody();
+        Assertions.assertThat(actual).isNotNull();
+        Assertions.assertThat(actual.queueDepth).isEqualTo(1);
+        Assertions.assertThat(actual.kitchenReservationsInFlight).isEqualTo(3);
+        Assertions.assertThat(actual.mealsUnderPreparation).isEqualTo(2L);
+        Assertions.assertThat(actual.mealsWaitingForStation).isEqualTo(5L);
+        Assertions.assertThat(actual.couriersDispatched).isEqualTo(3);
+        Assertions.assertThat(actual.couriersAvailable).isEqualTo(7);
+        Assertions.assertThat(actual.dispatchRequestsWaiting).isEqualTo(4);
+        Assertions.assertThat(actual.ordersInFlight).isEqualTo(1);
+        Assertions.assertThat(actual.ordersShed).isEqualTo(1L);
+
+        //verify
+        Mockito.verify(orderProcessorMock, Mockito.times(1)).getIntervalMetrics();
+        Mockito.verify(orderProcessorMock, Mockito.times(1)).getMetricsSnapshot();
+    }
+}
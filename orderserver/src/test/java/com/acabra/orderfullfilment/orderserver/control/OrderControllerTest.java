@@ -1,16 +1,24 @@
 package com.acabra.orderfullfilment.orderserver.control;
 
+import com.acabra.orderfullfilment.orderserver.core.AdmissionController;
 import com.acabra.orderfullfilment.orderserver.core.OrderRequestHandler;
+import com.acabra.orderfullfilment.orderserver.core.executor.IngestionExecutor;
+import com.acabra.orderfullfilment.orderserver.dto.BatchOrderResponseDTO;
 import com.acabra.orderfullfilment.orderserver.dto.DeliveryOrderRequestDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 class OrderControllerTest {
@@ -18,18 +26,24 @@ class OrderControllerTest {
     private OrderController underTest;
 
 
-    Consumer<DeliveryOrderRequestDTO> mockConsumer = Mockito.mock(OrderRequestHandler.class);
+    OrderRequestHandler mockConsumer = Mockito.mock(OrderRequestHandler.class);
+    IngestionExecutor ingestionMock = Mockito.mock(IngestionExecutor.class);
 
     @BeforeEach
     public void setup() {
-        underTest = new OrderController(mockConsumer);
+        Mockito.doAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return true;
+        }).when(ingestionMock).trySubmit(Mockito.any(Runnable.class));
+        Mockito.doReturn(true).when(mockConsumer).publishAdmitted(Mockito.any(DeliveryOrderRequestDTO.class));
+        underTest = new OrderController(mockConsumer, ingestionMock);
     }
 
     @Test
     public void mustAcceptValidRequestDTO() {
         //given
         DeliveryOrderRequestDTO validDTO = new DeliveryOrderRequestDTO("ssds", "asdesa", 1);
-        Mockito.doNothing().when(mockConsumer).accept(validDTO);
+        Mockito.doReturn(true).when(mockConsumer).publishAdmitted(validDTO);
         //then
 
         //when
@@ -37,7 +51,7 @@ class OrderControllerTest {
         Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
 
         //verify
-        Mockito.verify(mockConsumer, Mockito.times(1)).accept(validDTO);
+        Mockito.verify(mockConsumer, Mockito.times(1)).publishAdmitted(validDTO);
     }
 
     @Test
@@ -59,5 +73,170 @@ class OrderControllerTest {
         Mockito.verifyNoInteractions(mockConsumer);
     }
 
+    @Test
+    public void mustRejectWithTooManyRequests_givenIngestionStageFull() {
+        //given
+        DeliveryOrderRequestDTO validDTO = new DeliveryOrderRequestDTO("ssds", "asdesa", 1);
+        Mockito.doReturn(false).when(ingestionMock).trySubmit(Mockito.any(Runnable.class));
+        Mockito.doReturn(3).when(ingestionMock).getRetryAfterSeconds();
+
+        //when
+        ResponseEntity<String> response = underTest.acceptOrder(validDTO);
+
+        //then
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        Assertions.assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+
+        //verify
+        Mockito.verifyNoInteractions(mockConsumer);
+    }
+
+    @Test
+    public void mustStreamValidOrdersAndCountRejected_givenJsonArray() {
+        //given
+        String body = "[{\"id\":\"a\",\"name\":\"Pizza\",\"prepTime\":3}," +
+                "{\"id\":\"b\",\"name\":\"\",\"prepTime\":3}," +
+                "{\"id\":\"c\",\"name\":\"Soup\",\"prepTime\":-1}," +
+                "{\"id\":\"d\",\"name\":\"Salad\",\"prepTime\":\"x\"}," +
+                "{\"id\":\"e\",\"name\":\"Pie\",\"extra\":{\"nested\":[1,2]},\"prepTime\":0}]";
+        ArgumentCaptor<DeliveryOrderRequestDTO> captor = ArgumentCaptor.forClass(DeliveryOrderRequestDTO.class);
+
+        //when
+        ResponseEntity<BatchOrderResponseDTO> response = underTest.acceptOrders(asStream(body));
+
+        //then
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        Assertions.assertThat(response.getBody()).isNotNull();
+        Assertions.assertThat(response.getBody().accepted).isEqualTo(2);
+        Assertions.assertThat(response.getBody().rejected).isEqualTo(3);
+
+        //verify
+        Mockito.verify(mockConsumer, Mockito.times(2)).publishAdmitted(captor.capture());
+        Assertions.assertThat(captor.getAllValues()).extracting(dto -> dto.id).containsExactly("a", "e");
+    }
+
+    @Test
+    public void mustStreamOrders_givenNdjson() {
+        //given
+        String body = "{\"id\":\"a\",\"name\":\"Pizza\",\"prepTime\":3}\n" +
+                "{\"id\":\"b\",\"prepTime\":3}\n" +
+                "{\"id\":\"c\",\"name\":\"Soup\",\"prepTime\":10}\n";
+
+        //when
+        ResponseEntity<BatchOrderResponseDTO> response = underTest.acceptOrders(asStream(body));
+
+        //then
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        Assertions.assertThat(response.getBody()).isNotNull();
+        Assertions.assertThat(response.getBody().accepted).isEqualTo(2);
+        Assertions.assertThat(response.getBody().rejected).isEqualTo(1);
+
+        //verify
+        Mockito.verify(mockConsumer, Mockito.times(2)).publishAdmitted(Mockito.any(DeliveryOrderRequestDTO.class));
+    }
+
+    @Test
+    public void mustReturnBadRequestKeepingAcceptedOrders_givenMalformedBatch() {
+        //given
+        String body = "[{\"id\":\"a\",\"name\":\"Pizza\",\"prepTime\":3},{\"id\":";
+
+        //when
+        ResponseEntity<BatchOrderResponseDTO> response = underTest.acceptOrders(asStream(body));
+
+        //then
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        Assertions.assertThat(response.getBody()).isNotNull();
+        Assertions.assertThat(response.getBody().accepted).isEqualTo(1);
+        Assertions.assertThat(response.getBody().error).isNotBlank();
+
+        //verify
+        Mockito.verify(mockConsumer, Mockito.times(1)).publishAdmitted(Mockito.any(DeliveryOrderRequestDTO.class));
+    }
 
-}
\ No newline at end of file
+    @Test
+    public void mustShedWithServiceUnavailable_givenAdmissionSaturated() {
+        //given
+        DeliveryOrderRequestDTO validDTO = new DeliveryOrderRequestDTO("ssds", "asdesa", 1);
+        AdmissionController admissionMock = Mockito.mock(AdmissionController.class);
+        Mockito.doReturn(AdmissionController.Decision.QUEUE_DEPTH_LIMIT).when(admissionMock).tryAdmit();
+        Mockito.doReturn(2).when(ingestionMock).getRetryAfterSeconds();
+        underTest = new OrderController(mockConsumer, ingestionMock, admissionMock, new ObjectMapper());
+
+        //when
+        ResponseEntity<String> response = underTest.acceptOrder(validDTO);
+
+        //then
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        Assertions.assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        Assertions.assertThat(response.getBody()).contains("QUEUE_DEPTH_LIMIT");
+
+        //verify
+        Mockito.verifyNoInteractions(mockConsumer);
+        Mockito.verify(ingestionMock, Mockito.never()).trySubmit(Mockito.any(Runnable.class));
+    }
+
+    @Test
+    public void mustCountShedOrders_givenAdmissionSaturatedDuringBatch() {
+        //given
+        String body = "{\"id\":\"a\",\"name\":\"Pizza\",\"prepTime\":3}\n" +
+                "{\"id\":\"b\",\"name\":\"Soup\",\"prepTime\":3}\n" +
+                "{\"id\":\"c\",\"name\":\"Soup\",\"prepTime\":10}\n";
+        AdmissionController admission = new AdmissionController(1, 0, 0, 0L, 1000L, () -> 0, () -> 0, () -> 0L);
+        underTest = new OrderController(mockConsumer, ingestionMock, admission, new ObjectMapper());
+
+        //when
+        ResponseEntity<BatchOrderResponseDTO> response = underTest.acceptOrders(asStream(body));
+
+        //then
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        Assertions.assertThat(response.getBody()).isNotNull();
+        Assertions.assertThat(response.getBody().accepted).isEqualTo(1);
+        Assertions.assertThat(response.getBody().rejected).isEqualTo(0);
+        Assertions.assertThat(response.getBody().shed).isEqualTo(2);
+
+        //verify
+        Mockito.verify(mockConsumer, Mockito.times(1)).publishAdmitted(Mockito.any(DeliveryOrderRequestDTO.class));
+    }
+
+    @Test
+    public void mustRejectWithTooManyRequests_givenIngestionStageFullDuringBatch() {
+        //given
+        String body = "{\"id\":\"a\",\"name\":\"Pizza\",\"prepTime\":3}\n" +
+                "{\"id\":\"b\",\"name\":\"Soup\",\"prepTime\":3}\n";
+        AdmissionController admission = new AdmissionController(10, 0, 0, 0L, 1000L, () -> 0, () -> 0, () -> 0L);
+        Mockito.doReturn(true, false).when(ingestionMock).trySubmit(Mockito.any(Runnable.class));
+        Mockito.doReturn(3).when(ingestionMock).getRetryAfterSeconds();
+        underTest = new OrderController(mockConsumer, ingestionMock, admission, new ObjectMapper());
+
+        //when
+        ResponseEntity<BatchOrderResponseDTO> response = underTest.acceptOrders(asStream(body));
+
+        //then
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        Assertions.assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+        Assertions.assertThat(response.getBody()).isNotNull();
+        Assertions.assertThat(response.getBody().accepted).isEqualTo(1);
+        Assertions.assertThat(response.getBody().shed).isEqualTo(1);
+        Assertions.assertThat(admission.inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    public void mustReleaseAdmission_givenIngestionStageFull() {
+        //given
+        DeliveryOrderRequestDTO validDTO = new DeliveryOrderRequestDTO("ssds", "asdesa", 1);
+        AdmissionController admission = new AdmissionController(1, 0, 0, 0L, 1000L, () -> 0, () -> 0, () -> 0L);
+        Mockito.doReturn(false).when(ingestionMock).trySubmit(Mockito.any(Runnable.class));
+        underTest = new OrderController(mockConsumer, ingestionMock, admission, new ObjectMapper());
+
+        //when
+        ResponseEntity<String> response = underTest.acceptOrder(validDTO);
+
+        //then
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        Assertions.assertThat(admission.inFlight()).isEqualTo(0);
+    }
+
+    private static InputStream asStream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
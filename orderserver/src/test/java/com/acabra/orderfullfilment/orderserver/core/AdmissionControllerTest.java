@@ -0,0 +1,124 @@
+package com.acabra.orderfullfilment.orderserver.core;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+class AdmissionControllerTest {
+
+    @Test
+    public void mustAdmitEverything_givenUnlimited() {
+        //given
+        AdmissionController underTest = AdmissionController.unlimited();
+
+        //when
+        boolean actual = IntStream.range(0, 10_000).allMatch(i -> underTest.tryAdmit().isAdmitted());
+
+        //then
+        Assertions.assertThat(actual).isTrue();
+        Assertions.assertThat(underTest.shed()).isEqualTo(0L);
+    }
+
+    @Test
+    public void mustShedOverTheInFlightLimit_untilReleased() {
+        //given
+        AdmissionController underTest = new AdmissionController(2, 0, 0, 0L, 1000L, () -> 0, () -> 0, () -> 0L);
+        underTest.tryAdmit();
+        underTest.tryAdmit();
+
+        //when
+        AdmissionController.Decision shed = underTest.tryAdmit();
+        underTest.release();
+        AdmissionController.Decision admitted = underTest.tryAdmit();
+
+        //then
+        Assertions.assertThat(shed).isEqualTo(AdmissionController.Decision.IN_FLIGHT_LIMIT);
+        Assertions.assertThat(admitted).isEqualTo(AdmissionController.Decision.ADMITTED);
+        Assertions.assertThat(underTest.inFlight()).isEqualTo(2);
+        Assertions.assertThat(underTest.shed()).isEqualTo(1L);
+    }
+
+    @Test
+    public void mustNeverExceedTheInFlightLimit_givenConcurrentAdmissions() {
+        //given
+        AdmissionController underTest = new AdmissionController(100, 0, 0, 0L, 1000L, () -> 0, () -> 0, () -> 0L);
+        AtomicInteger admitted = new AtomicInteger();
+
+        //when
+        CompletableFuture.allOf(IntStream.range(0, 8)
+                .mapToObj(t -> CompletableFuture.runAsync(() -> IntStream.range(0, 1000)
+                        .filter(i -> underTest.tryAdmit().isAdmitted())
+                        .forEach(i -> admitted.incrementAndGet())))
+                .toArray(CompletableFuture[]::new)).join();
+
+        //then
+        Assertions.assertThat(admitted.get()).isEqualTo(100);
+        Assertions.assertThat(underTest.inFlight()).isEqualTo(100);
+        Assertions.assertThat(underTest.shed()).isEqualTo(7900L);
+    }
+
+    @Test
+    public void mustShed_givenQueueTooDeepOrNotEnoughCouriers() {
+        //given
+        AtomicInteger depth = new AtomicInteger(10);
+        AtomicInteger couriers = new AtomicInteger(0);
+        AdmissionController underTest = new AdmissionController(0, 10, 1, 0L, 1000L, depth::get, couriers::get,
+                () -> 0L);
+
+        //when
+        AdmissionController.Decision queueFull = underTest.tryAdmit();
+        depth.set(9);
+        AdmissionController.Decision noCouriers = underTest.tryAdmit();
+        couriers.set(1);
+        AdmissionController.Decision admitted = underTest.tryAdmit();
+
+        //then
+        Assertions.assertThat(queueFull).isEqualTo(AdmissionController.Decision.QUEUE_DEPTH_LIMIT);
+        Assertions.assertThat(noCouriers).isEqualTo(AdmissionController.Decision.NO_COURIERS_AVAILABLE);
+        Assertions.assertThat(admitted).isEqualTo(AdmissionController.Decision.ADMITTED);
+    }
+
+    @Test
+    public void mustShedForAPeriod_givenP99PickupTimeAboveTarget() {
+        //given
+        AtomicLong clock = new AtomicLong(0L);
+        AdmissionController underTest = new AdmissionController(0, 0, 0, 100L, 1000L, () -> 0, () -> 0, clock::get);
+        for (int i = 0; i < 100; i++) {
+            underTest.tryAdmit();
+            underTest.acceptOrderPickedUp(i < 95 ? 50L : 500L);
+        }
+
+        //when
+        clock.set(1000L);
+        AdmissionController.Decision shedding = underTest.tryAdmit();
+        clock.set(1500L);
+        AdmissionController.Decision stillShedding = underTest.tryAdmit();
+        clock.set(2000L);
+        AdmissionController.Decision recovered = underTest.tryAdmit();
+
+        //then
+        Assertions.assertThat(shedding).isEqualTo(AdmissionController.Decision.LATENCY_TARGET_EXCEEDED);
+        Assertions.assertThat(stillShedding).isEqualTo(AdmissionController.Decision.LATENCY_TARGET_EXCEEDED);
+        Assertions.assertThat(recovered).isEqualTo(AdmissionController.Decision.ADMITTED);
+    }
+
+    @Test
+    public void mustNotGoBelowZero_givenReleaseWithoutAdmission() {
+        //given
+        AdmissionController underTest = new AdmissionController(1, 0, 0, 0L, 1000L, () -> 0, () -> 0, () -> 0L);
+
+        //when
+        underTest.release();
+        underTest.acceptOrderPickedUp(-1L);
+        AdmissionController.Decision first = underTest.tryAdmit();
+        AdmissionController.Decision second = underTest.tryAdmit();
+
+        //then
+        Assertions.assertThat(first).isEqualTo(AdmissionController.Decision.ADMITTED);
+        Assertions.assertThat(second).isEqualTo(AdmissionController.Decision.IN_FLIGHT_LIMIT);
+    }
+}
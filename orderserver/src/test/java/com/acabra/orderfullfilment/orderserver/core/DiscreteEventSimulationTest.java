@@ -0,0 +1,150 @@
+package com.acabra.orderfullfilment.orderserver.core;
+
+import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
+import com.acabra.orderfullfilment.orderserver.core.executor.SchedulerExecutorAssistant;
+import com.acabra.orderfullfilment.orderserver.core.queue.RingBufferEventQueue;
+import com.acabra.orderfullfilment.orderserver.core.queue.WaitStrategy;
+import com.acabra.orderfullfilment.orderserver.core.timer.EmulationMode;
+import com.acabra.orderfullfilment.orderserver.core.timer.VirtualTimeScheduler;
+import com.acabra.orderfullfilment.orderserver.courier.CourierFleetImpl;
+import com.acabra.orderfullfilment.orderserver.courier.CourierFleetOptions;
+import com.acabra.orderfullfilment.orderserver.courier.CourierServiceImpl;
+import com.acabra.orderfullfilment.orderserver.courier.matcher.OrderCourierMatcherFIFOImpl;
+import com.acabra.orderfullfilment.orderserver.courier.model.Courier;
+import com.acabra.orderfullfilment.orderserver.courier.model.Location;
+import com.acabra.orderfullfilment.orderserver.dto.DeliveryOrderRequestDTO;
+import com.acabra.orderfullfilment.orderserver.event.EventType;
+import com.acabra.orderfullfilment.orderserver.event.OrderPreparedEvent;
+import com.acabra.orderfullfilment.orderserver.event.OrderReceivedEvent;
+import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenClock;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenServiceImpl;
+import com.acabra.orderfullfilment.orderserver.kitchen.VirtualClock;
+import com.acabra.orderfullfilment.orderserver.utils.EtaEstimator;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class DiscreteEventSimulationTest {
+
+    private static final long START = 1_000_000L;
+    private final VirtualClock clock = new VirtualClock(START);
+    private final VirtualTimeScheduler scheduler = new VirtualTimeScheduler(clock);
+    private final Queue<OutputEvent> deque = OrderProcessor.buildNotificationDeque();
+    private final OrderRequestHandler orderHandler = new OrderRequestHandler();
+    private final List<OutputEvent> dispatched = new ArrayList<>();
+    private final List<Long> dispatchedAt = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        KitchenClock.useTimeSource(clock);
+        orderHandler.registerNotificationDeque(deque);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        KitchenClock.useSystemTime();
+    }
+
+    private void dispatch(OutputEvent event) {
+        dispatched.add(event);
+        dispatchedAt.add(clock.now());
+        if (EventType.ORDER_RECEIVED == event.type) {
+            OrderReceivedEvent received = (OrderReceivedEvent) event;
+            //emulates the kitchen, the meal is published when ready
+            scheduler.schedule(() -> deque.offer(OrderPreparedEvent.of(0L, received.order.id, clock.now())),
+                    received.order.prepTime);
+        }
+    }
+
+    @Test
+    public void mustReplayOrdersOnVirtualTime() {
+        //given
+        List<DeliveryOrderRequestDTO> orders = IntStream.range(0, 4)
+                .mapToObj(i -> new DeliveryOrderRequestDTO("id-" + i, "meal", 60))
+                .collect(Collectors.toList());
+        DiscreteEventSimulation underTest = new DiscreteEventSimulation(this::dispatch, orderHandler, deque, scheduler);
+
+        //when
+        DiscreteEventSimulation.Result result = underTest.run(orders.iterator(), 2.0);
+
+        //then
+        Assertions.assertThat(result.ordersReplayed).isEqualTo(4);
+        Assertions.assertThat(result.eventsDispatched).isEqualTo(8);
+        Assertions.assertThat(result.simulatedMillis).isEqualTo(1500L + 60_000L); //last order + prep time
+        Assertions.assertThat(result.wallClockMillis).isLessThan(60_000L);
+        Assertions.assertThat(dispatched.stream().filter(e -> e.type == EventType.ORDER_RECEIVED)
+                .map(e -> e.createdAt).collect(Collectors.toList()))
+                .containsExactly(START, START + 500L, START + 1000L, START + 1500L);
+        Assertions.assertThat(dispatchedAt).isSorted();
+        Assertions.assertThat(deque.isEmpty()).isTrue();
+        Assertions.assertThat(scheduler.pendingTasks()).isEqualTo(0);
+    }
+
+    @Test
+    public void mustDeliverOrCancelEveryAdmittedOrder_givenTheRingFills() {
+        //given
+        RingBufferEventQueue ring = new RingBufferEventQueue(2, WaitStrategy.YIELD, 0L);
+        OrderServerConfig config = Mockito.mock(OrderServerConfig.class);
+        Mockito.doReturn(true).when(config).isSimulationMode();
+        EtaEstimator etaEstimator = Mockito.mock(EtaEstimator.class);
+        Mockito.doReturn(3).when(etaEstimator).estimateCourierTravelTimeInSeconds(Mockito.any(Courier.class));
+        List<Courier> couriers = List.of(Courier.ofAvailable(0, "Courier0", Location.of(0d, 0d)),
+                Courier.ofAvailable(1, "Courier1", Location.of(0.5d, 0d)));
+        KitchenServiceImpl kitchen = new KitchenServiceImpl(scheduler, EmulationMode.SCHEDULED);
+        //a bounded fleet, the requests not served within 10s expire
+        CourierFleetImpl fleet = new CourierFleetImpl(couriers, etaEstimator, scheduler, EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.bounded(10_000L).estimating(kitchen));
+        OrderProcessor processor = new OrderProcessor(config,
+                new CourierServiceImpl(fleet, new OrderCourierMatcherFIFOImpl()), kitchen, orderHandler, ring,
+                Mockito.mock(SchedulerExecutorAssistant.class));
+        AtomicInteger admitted = new AtomicInteger();
+        //every order is received at once, their meals are prepared and their courier requests expire at once
+        List<DeliveryOrderRequestDTO> orders = IntStream.range(0, 20)
+                .mapToObj(i -> new DeliveryOrderRequestDTO("id-" + i, "meal", 1))
+                .collect(Collectors.toList());
+        DiscreteEventSimulation underTest = new DiscreteEventSimulation(processor::dispatchOutputEvent,
+                order -> {
+                    if (orderHandler.tryAccept(order)) {
+                        admitted.incrementAndGet();
+                    }
+                }, ring, scheduler);
+
+        //when
+        underTest.run(orders.iterator(), 1_000_000.0);
+        MetricsProcessor.DeliveryMetricsSnapshot snapshot = processor.getMetricsSnapshot();
+
+        //then
+        Assertions.assertThat(admitted.get()).isEqualTo(20);
+        Assertions.assertThat(snapshot.totalOrdersReceived).isEqualTo(admitted.get());
+        Assertions.assertThat(snapshot.totalOrdersDelivered).isGreaterThan(0);
+        Assertions.assertThat(snapshot.totalOrdersCancelled).isGreaterThan(0);
+        Assertions.assertThat(snapshot.totalOrdersDelivered + snapshot.totalOrdersCancelled)
+                .isEqualTo(admitted.get());
+        Assertions.assertThat(kitchen.reservationsInFlight()).isEqualTo(0);
+        Assertions.assertThat(ring.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void mustFinishImmediately_givenNoOrders() {
+        //given
+        DiscreteEventSimulation underTest = new DiscreteEventSimulation(this::dispatch, orderHandler, deque, scheduler);
+
+        //when
+        DiscreteEventSimulation.Result result = underTest.run(List.<DeliveryOrderRequestDTO>of().iterator(), 2.0);
+
+        //then
+        Assertions.assertThat(result.ordersReplayed).isEqualTo(0);
+        Assertions.assertThat(result.simulatedMillis).isEqualTo(0L);
+        Assertions.assertThat(dispatched).isEmpty();
+    }
+}
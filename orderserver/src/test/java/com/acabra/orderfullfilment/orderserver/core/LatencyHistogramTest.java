@@ -0,0 +1,111 @@
+package com.acabra.orderfullfilment.orderserver.core;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Percentage;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+class LatencyHistogramTest {
+
+    @Test
+    public void mustReturnZeroes_givenNoValuesRecorded() {
+        //given
+        LatencyHistogram underTest = new LatencyHistogram(4);
+
+        //when
+        LatencyHistogram.Snapshot actual = underTest.snapshot();
+
+        //then
+        Assertions.assertThat(actual.count).isEqualTo(0L);
+        Assertions.assertThat(actual.mean).isEqualTo(0d);
+        Assertions.assertThat(actual.p99).isEqualTo(0L);
+        Assertions.assertThat(actual.max).isEqualTo(0L);
+    }
+
+    @Test
+    public void mustMapEveryValueToABucketContainingIt() {
+        //given
+        long[] values = {0L, 1L, 63L, 64L, 65L, 1000L, 123_456L, 1L << 40, Long.MAX_VALUE};
+
+        for (long value : values) {
+            //when
+            int index = LatencyHistogram.bucketIndex(value);
+
+            //then
+            Assertions.assertThat(index).isBetween(0, LatencyHistogram.BUCKET_COUNT - 1);
+            Assertions.assertThat(LatencyHistogram.highestValueOf(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                Assertions.assertThat(LatencyHistogram.highestValueOf(index - 1)).isLessThan(value);
+            }
+        }
+    }
+
+    @Test
+    public void mustReportPercentilesWithinTheRelativeError_givenUniformValues() {
+        //given
+        LatencyHistogram underTest = new LatencyHistogram(4);
+
+        //when
+        for (long i = 1; i <= 10_000; i++) {
+            underTest.record(i);
+        }
+        LatencyHistogram.Snapshot actual = underTest.snapshot();
+
+        //then
+        Assertions.assertThat(actual.count).isEqualTo(10_000L);
+        Assertions.assertThat(actual.mean).isEqualTo(5000.5d);
+        Assertions.assertThat(actual.p50).isCloseTo(5_000L, Percentage.withPercentage(3));
+        Assertions.assertThat(actual.p90).isCloseTo(9_000L, Percentage.withPercentage(3));
+        Assertions.assertThat(actual.p99).isCloseTo(9_900L, Percentage.withPercentage(3));
+        Assertions.assertThat(actual.p999).isCloseTo(9_990L, Percentage.withPercentage(3));
+        Assertions.assertThat(actual.max).isEqualTo(10_000L);
+    }
+
+    @Test
+    public void mustNotLoseValues_givenConcurrentRecorders() {
+        //given
+        LatencyHistogram underTest = new LatencyHistogram(2);
+        int recorders = 8;
+        int perRecorder = 20_000;
+
+        //when
+        CompletableFuture.allOf(IntStream.range(0, recorders)
+                .mapToObj(r -> CompletableFuture.runAsync(() -> IntStream.range(0, perRecorder)
+                        .forEach(i -> underTest.record(i % 100))))
+                .toArray(CompletableFuture[]::new)).join();
+        LatencyHistogram.Snapshot actual = underTest.snapshot();
+
+        //then
+        Assertions.assertThat(actual.count).isEqualTo((long) recorders * perRecorder);
+        Assertions.assertThat(actual.max).isEqualTo(99L);
+        Assertions.assertThat(actual.p50).isEqualTo(49L);
+    }
+
+    @Test
+    public void intervalReader_mustOnlyReportValuesRecordedSincePreviousRead() {
+        //given
+        LatencyHistogram underTest = new LatencyHistogram(4);
+        LatencyHistogram.IntervalReader reader = underTest.intervalReader();
+        for (long i = 0; i < 100; i++) {
+            underTest.record(1000L);
+        }
+        reader.next();
+
+        //when
+        underTest.record(10L);
+        underTest.record(20L);
+        LatencyHistogram.Snapshot actual = reader.next();
+        LatencyHistogram.Snapshot empty = reader.next();
+
+        //then
+        Assertions.assertThat(actual.count).isEqualTo(2L);
+        Assertions.assertThat(actual.mean).isEqualTo(15d);
+        Assertions.assertThat(actual.max).isEqualTo(20L);
+        Assertions.assertThat(actual.p50).isEqualTo(10L);
+        Assertions.assertThat(empty.count).isEqualTo(0L);
+        Assertions.assertThat(underTest.snapshot().count).isEqualTo(102L);
+        Assertions.assertThat(underTest.snapshot().max).isEqualTo(1000L);
+    }
+}
@@ -0,0 +1,48 @@
+package com.acabra.orderfullfilment.orderserver.core;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MetricsProcessorTest {
+
+    private static final long NOW = 190900000L;
+
+    @Test
+    void mustReportTheSameWindow_givenRepeatedReadsBeforeItRolls() {
+        //given
+        MetricsProcessor underTest = new MetricsProcessor(NOW);
+        underTest.acceptOrderReceived();
+        underTest.acceptFoodWaitTime(100L);
+        underTest.rollInterval(NOW + 1000L);
+
+        //when
+        MetricsProcessor.IntervalMetrics first = underTest.lastInterval();
+        MetricsProcessor.IntervalMetrics second = underTest.lastInterval();
+
+        //then
+        Assertions.assertThat(second).isSameAs(first);
+        Assertions.assertThat(first.intervalMillis).isEqualTo(1000L);
+        Assertions.assertThat(first.ordersReceived).isEqualTo(1L);
+        Assertions.assertThat(first.ordersDelivered).isEqualTo(1L);
+    }
+
+    @Test
+    void mustStartAnEmptyWindow_givenTheWindowRolled() {
+        //given
+        MetricsProcessor underTest = new MetricsProcessor(NOW);
+        underTest.acceptOrderReceived();
+        underTest.rollInterval(NOW + 1000L);
+        underTest.acceptOrderReceived();
+        underTest.acceptOrderReceived();
+
+        //when
+        underTest.rollInterval(NOW + 3000L);
+        MetricsProcessor.IntervalMetrics actual = underTest.lastInterval();
+
+        //then
+        Assertions.assertThat(actual.intervalMillis).isEqualTo(2000L);
+        Assertions.assertThat(actual.ordersReceived).isEqualTo(2L);
+        Assertions.assertThat(actual.ordersReceivedPerSecond).isEqualTo(1d);
+        Assertions.assertThat(actual.ordersDelivered).isEqualTo(0L);
+    }
+}
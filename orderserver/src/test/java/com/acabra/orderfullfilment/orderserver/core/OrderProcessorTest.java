@@ -4,6 +4,7 @@ import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
 import com.acabra.orderfullfilment.orderserver.core.executor.SchedulerExecutorAssistant;
 import com.acabra.orderfullfilment.orderserver.courier.CourierDispatchService;
 import com.acabra.orderfullfilment.orderserver.courier.CourierServiceImpl;
+import com.acabra.orderfullfilment.orderserver.courier.model.DispatchResult;
 import com.acabra.orderfullfilment.orderserver.event.*;
 import com.acabra.orderfullfilment.orderserver.kitchen.KitchenService;
 import com.acabra.orderfullfilment.orderserver.kitchen.KitchenServiceImpl;
@@ -19,7 +20,6 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
-import java.util.Optional;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 
@@ -197,14 +197,16 @@ class OrderProcessorTest {
         Integer courierId = 1;
         long cookReservationId = 0L;
         OrderReceivedEvent orderReceivedEvent = OrderReceivedEvent.of(5, bananaSplitOrder);
+        long readyAt = orderReceivedEvent.createdAt + bananaSplitOrder.prepTime;
 
         //#setup courier
         Mockito.doNothing()
                 .when(courierServiceMock).shutdown();
         Mockito.doNothing()
                 .when(courierServiceMock).registerNotificationDeque(deque);
-        Mockito.doReturn(Optional.of(courierId))
-                .when(courierServiceMock).dispatchRequest(bananaSplitOrder, cookReservationId, orderReceivedEvent.createdAt);
+        Mockito.doReturn(DispatchResult.ofCompleted(courierId, 1000L))
+                .when(courierServiceMock).dispatchRequest(bananaSplitOrder, cookReservationId, orderReceivedEvent.createdAt,
+                        readyAt);
 
         //#setup kitchen
         Mockito.doNothing()
@@ -213,8 +215,11 @@ class OrderProcessorTest {
                 .when(kitchenServiceMock).registerNotificationDeque(deque);
         Mockito.doReturn(cookReservationId)
                 .when(kitchenServiceMock).provideReservationId(bananaSplitOrder);
+        Mockito.doReturn(readyAt)
+                .when(kitchenServiceMock).expectedReadyAt(bananaSplitOrder, orderReceivedEvent.createdAt);
         Mockito.doReturn(CompletableFuture.completedFuture(true))
-                .when(kitchenServiceMock).prepareMeal(cookReservationId, orderReceivedEvent.createdAt);
+                .when(kitchenServiceMock).prepareMeal(cookReservationId, orderReceivedEvent.createdAt,
+                        orderReceivedEvent.createdAt + 1000L);
 
         //#setup handler
         Mockito.doNothing().when(outputEventPublisherMock).registerNotificationDeque(deque);
@@ -240,12 +245,16 @@ class OrderProcessorTest {
 
         //verify mocks
         Mockito.verify(courierServiceMock, Mockito.times(1)).registerNotificationDeque(deque);
-        Mockito.verify(courierServiceMock, Mockito.times(1)).dispatchRequest(bananaSplitOrder, cookReservationId, orderReceivedEvent.createdAt);
+        Mockito.verify(courierServiceMock, Mockito.times(1)).dispatchRequest(bananaSplitOrder, cookReservationId,
+                orderReceivedEvent.createdAt, readyAt);
         Mockito.verify(courierServiceMock, Mockito.times(1)).shutdown();
         Mockito.verify(kitchenServiceMock, Mockito.times(1)).shutdown();
         Mockito.verify(kitchenServiceMock, Mockito.times(1)).registerNotificationDeque(deque);
         Mockito.verify(kitchenServiceMock, Mockito.times(1)).provideReservationId(bananaSplitOrder);
-        Mockito.verify(kitchenServiceMock, Mockito.times(1)).prepareMeal(cookReservationId, orderReceivedEvent.createdAt);
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).expectedReadyAt(bananaSplitOrder,
+                orderReceivedEvent.createdAt);
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).prepareMeal(cookReservationId,
+                orderReceivedEvent.createdAt, orderReceivedEvent.createdAt + 1000L);
         Mockito.verify(outputEventPublisherMock, Mockito.times(1)).registerNotificationDeque(deque);
     }
 
@@ -254,12 +263,14 @@ class OrderProcessorTest {
         //given
         long cookReservationId = 0L;
         OrderReceivedEvent orderReceivedEvent = OrderReceivedEvent.of(5, bananaSplitOrder);
+        long readyAt = orderReceivedEvent.createdAt + bananaSplitOrder.prepTime;
 
         //#setup courier
         Mockito.doNothing()
                 .when(courierServiceMock).registerNotificationDeque(deque);
-        Mockito.doReturn(Optional.empty())
-                .when(courierServiceMock).dispatchRequest(bananaSplitOrder, cookReservationId, orderReceivedEvent.createdAt);
+        Mockito.doReturn(DispatchResult.notDispatched())
+                .when(courierServiceMock).dispatchRequest(bananaSplitOrder, cookReservationId, orderReceivedEvent.createdAt,
+                        readyAt);
         Mockito.doNothing()
                 .when(courierServiceMock).shutdown();
 
@@ -268,6 +279,8 @@ class OrderProcessorTest {
                 .when(kitchenServiceMock).registerNotificationDeque(deque);
         Mockito.doReturn(cookReservationId)
                 .when(kitchenServiceMock).provideReservationId(bananaSplitOrder);
+        Mockito.doReturn(readyAt)
+                .when(kitchenServiceMock).expectedReadyAt(bananaSplitOrder, orderReceivedEvent.createdAt);
         Mockito.doReturn(true)
                 .when(kitchenServiceMock).cancelCookReservation(cookReservationId);
         Mockito.doNothing()
@@ -292,11 +305,14 @@ class OrderProcessorTest {
 
         //verify mocks
         Mockito.verify(courierServiceMock, Mockito.times(1)).registerNotificationDeque(deque);
-        Mockito.verify(courierServiceMock, Mockito.times(1)).dispatchRequest(bananaSplitOrder, cookReservationId, orderReceivedEvent.createdAt);
+        Mockito.verify(courierServiceMock, Mockito.times(1)).dispatchRequest(bananaSplitOrder, cookReservationId,
+                orderReceivedEvent.createdAt, readyAt);
         Mockito.verify(courierServiceMock, Mockito.times(1)).shutdown();
         Mockito.verify(kitchenServiceMock, Mockito.times(1)).shutdown();
         Mockito.verify(kitchenServiceMock, Mockito.times(1)).registerNotificationDeque(deque);
         Mockito.verify(kitchenServiceMock, Mockito.times(1)).provideReservationId(bananaSplitOrder);
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).expectedReadyAt(bananaSplitOrder,
+                orderReceivedEvent.createdAt);
         Mockito.verify(kitchenServiceMock, Mockito.times(1)).cancelCookReservation(cookReservationId);
         Mockito.verify(outputEventPublisherMock, Mockito.times(1)).registerNotificationDeque(deque);
     }
@@ -307,7 +323,7 @@ class OrderProcessorTest {
         int courierId = 1;
         long kitchenReservationId = 0L;
         OrderPickedUpEvent orderPickedUpEventStub = OrderPickedUpEvent.of(
-                        CourierArrivedEvent.of(courierId, 250, 9800L),
+                        CourierArrivedEvent.of(courierId, 0L, 250, 9800L),
                         OrderPreparedEvent.of(kitchenReservationId, "order-id", 900L));
         OrderDeliveredEvent orderDeliveredEvent = OrderDeliveredEvent.of(orderPickedUpEventStub);
 
@@ -319,6 +335,7 @@ class OrderProcessorTest {
         //#setup kitchen
         Mockito.doNothing().when(kitchenServiceMock).registerNotificationDeque(deque);
         Mockito.doNothing().when(kitchenServiceMock).shutdown();
+        Mockito.doReturn(true).when(kitchenServiceMock).releaseReservation(kitchenReservationId);
 
         //#setup handler
         Mockito.doNothing().when(outputEventPublisherMock).registerNotificationDeque(deque);
@@ -342,6 +359,7 @@ class OrderProcessorTest {
         Mockito.verify(courierServiceMock, Mockito.times(1)).processOrderDelivered(Mockito.any(OrderDeliveredEvent.class));
         Mockito.verify(courierServiceMock, Mockito.times(1)).shutdown();
         Mockito.verify(kitchenServiceMock, Mockito.times(1)).shutdown();
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).releaseReservation(kitchenReservationId);
         Mockito.verify(kitchenServiceMock, Mockito.times(1)).registerNotificationDeque(deque);
         Mockito.verify(outputEventPublisherMock, Mockito.times(1)).registerNotificationDeque(deque);
     }
@@ -474,4 +492,197 @@ class OrderProcessorTest {
         Mockito.verify(kitchenServiceMock, Mockito.times(1)).registerNotificationDeque(deque);
         Mockito.verify(outputEventPublisherMock, Mockito.times(1)).registerNotificationDeque(deque);
     }
-}
\ No newline at end of file
+
+    @Test
+    void mustNotPrepareMeal_givenDispatchRequestWaitingForACourier() throws InterruptedException {
+        //given
+        long cookReservationId = 0L;
+        OrderReceivedEvent orderReceivedEvent = OrderReceivedEvent.of(5, bananaSplitOrder);
+        long readyAt = orderReceivedEvent.createdAt + bananaSplitOrder.prepTime;
+
+        //#setup courier
+        Mockito.doNothing().when(courierServiceMock).registerNotificationDeque(deque);
+        Mockito.doNothing().when(courierServiceMock).shutdown();
+        Mockito.doReturn(DispatchResult.waiting())
+                .when(courierServiceMock).dispatchRequest(bananaSplitOrder, cookReservationId, orderReceivedEvent.createdAt,
+                        readyAt);
+
+        //#setup kitchen
+        Mockito.doNothing().when(kitchenServiceMock).registerNotificationDeque(deque);
+        Mockito.doNothing().when(kitchenServiceMock).shutdown();
+        Mockito.doReturn(cookReservationId).when(kitchenServiceMock).provideReservationId(bananaSplitOrder);
+        Mockito.doReturn(readyAt)
+                .when(kitchenServiceMock).expectedReadyAt(bananaSplitOrder, orderReceivedEvent.createdAt);
+
+        //#setup handler
+        Mockito.doNothing().when(outputEventPublisherMock).registerNotificationDeque(deque);
+        underTest = new OrderProcessor(config, courierServiceMock, kitchenServiceMock, outputEventPublisherMock,
+                deque, this.scheduler);
+
+        //when
+        deque.offer(orderReceivedEvent);
+        Thread.sleep(500L);
+        MetricsProcessor.DeliveryMetricsSnapshot metricsSnapshot = underTest.getMetricsSnapshot();
+        underTest.close();
+        underTest.getCompletedHandle().join();
+
+        //then
+        Assertions.assertThat(metricsSnapshot.totalOrdersReceived).isEqualTo(1);
+        Assertions.assertThat(metricsSnapshot.totalOrdersPrepared).isEqualTo(1);
+        Assertions.assertThat(metricsSnapshot.totalOrdersCancelled).isEqualTo(0);
+
+        //verify mocks
+        Mockito.verify(courierServiceMock, Mockito.times(1)).registerNotificationDeque(deque);
+        Mockito.verify(courierServiceMock, Mockito.times(1)).dispatchRequest(bananaSplitOrder, cookReservationId,
+                orderReceivedEvent.createdAt, readyAt);
+        Mockito.verify(courierServiceMock, Mockito.times(1)).shutdown();
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).shutdown();
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).registerNotificationDeque(deque);
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).provideReservationId(bananaSplitOrder);
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).expectedReadyAt(bananaSplitOrder,
+                orderReceivedEvent.createdAt);
+        Mockito.verify(outputEventPublisherMock, Mockito.times(1)).registerNotificationDeque(deque);
+    }
+
+    @Test
+    void mustPrepareMealRightAway_givenPlannedCourierDispatch() throws InterruptedException {
+        //given
+        long cookReservationId = 2L;
+        OrderReceivedEvent orderReceivedEvent = OrderReceivedEvent.of(5, bananaSplitOrder);
+        //the meal waits for a cook station, the courier is planned to arrive once it is ready
+        long readyAt = orderReceivedEvent.createdAt + bananaSplitOrder.prepTime + 3000L;
+
+        //#setup courier
+        Mockito.doNothing().when(courierServiceMock).registerNotificationDeque(deque);
+        Mockito.doNothing().when(courierServiceMock).shutdown();
+        Mockito.doReturn(DispatchResult.planned(4000L))
+                .when(courierServiceMock).dispatchRequest(bananaSplitOrder, cookReservationId, orderReceivedEvent.createdAt,
+                        readyAt);
+
+        //#setup kitchen
+        Mockito.doNothing().when(kitchenServiceMock).registerNotificationDeque(deque);
+        Mockito.doNothing().when(kitchenServiceMock).shutdown();
+        Mockito.doReturn(cookReservationId).when(kitchenServiceMock).provideReservationId(bananaSplitOrder);
+        Mockito.doReturn(readyAt)
+                .when(kitchenServiceMock).expectedReadyAt(bananaSplitOrder, orderReceivedEvent.createdAt);
+        Mockito.doReturn(CompletableFuture.completedFuture(true))
+                .when(kitchenServiceMock).prepareMeal(cookReservationId, orderReceivedEvent.createdAt, readyAt);
+
+        //#setup handler
+        Mockito.doNothing().when(outputEventPublisherMock).registerNotificationDeque(deque);
+        underTest = new OrderProcessor(config, courierServiceMock, kitchenServiceMock, outputEventPublisherMock,
+                deque, this.scheduler);
+
+        //when
+        deque.offer(orderReceivedEvent);
+        Thread.sleep(500L);
+        MetricsProcessor.DeliveryMetricsSnapshot metricsSnapshot = underTest.getMetricsSnapshot();
+        underTest.close();
+        underTest.getCompletedHandle().join();
+
+        //then
+        Assertions.assertThat(metricsSnapshot.totalOrdersReceived).isEqualTo(1);
+        Assertions.assertThat(metricsSnapshot.totalOrdersPrepared).isEqualTo(1);
+        Assertions.assertThat(metricsSnapshot.totalOrdersCancelled).isEqualTo(0);
+
+        //verify mocks
+        Mockito.verify(courierServiceMock, Mockito.times(1)).registerNotificationDeque(deque);
+        Mockito.verify(courierServiceMock, Mockito.times(1)).dispatchRequest(bananaSplitOrder, cookReservationId,
+                orderReceivedEvent.createdAt, readyAt);
+        Mockito.verify(courierServiceMock, Mockito.times(1)).shutdown();
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).shutdown();
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).registerNotificationDeque(deque);
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).provideReservationId(bananaSplitOrder);
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).expectedReadyAt(bananaSplitOrder,
+                orderReceivedEvent.createdAt);
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).prepareMeal(cookReservationId,
+                orderReceivedEvent.createdAt, readyAt);
+        Mockito.verify(outputEventPublisherMock, Mockito.times(1)).registerNotificationDeque(deque);
+    }
+
+    @Test
+    void mustPrepareMeal_givenDeferredCourierDispatched() throws InterruptedException {
+        //given
+        long cookReservationId = 3L;
+        CourierDispatchedEvent deferredEvent = CourierDispatchedEvent.deferred(900L, bananaSplitOrder, 2,
+                cookReservationId, 3000L, 400L);
+
+        //#setup courier
+        Mockito.doNothing().when(courierServiceMock).registerNotificationDeque(deque);
+        Mockito.doNothing().when(courierServiceMock).shutdown();
+        Mockito.doNothing().when(courierServiceMock).processCourierDispatchedEvent(deferredEvent);
+
+        //#setup kitchen
+        Mockito.doNothing().when(kitchenServiceMock).registerNotificationDeque(deque);
+        Mockito.doNothing().when(kitchenServiceMock).shutdown();
+        Mockito.doReturn(CompletableFuture.completedFuture(true))
+                .when(kitchenServiceMock).prepareMeal(cookReservationId, deferredEvent.createdAt,
+                        deferredEvent.createdAt + 3000L);
+
+        //#setup handler
+        Mockito.doNothing().when(outputEventPublisherMock).registerNotificationDeque(deque);
+        underTest = new OrderProcessor(config, courierServiceMock, kitchenServiceMock, outputEventPublisherMock,
+                deque, this.scheduler);
+
+        //when
+        deque.offer(deferredEvent);
+        Thread.sleep(500L);
+        MetricsProcessor.DeliveryMetricsSnapshot metricsSnapshot = underTest.getMetricsSnapshot();
+        underTest.close();
+        underTest.getCompletedHandle().join();
+
+        //then
+        Assertions.assertThat(metricsSnapshot.courierQueueTime.count).isEqualTo(1L);
+        Assertions.assertThat(metricsSnapshot.courierQueueTime.max).isEqualTo(400L);
+
+        //verify mocks
+        Mockito.verify(courierServiceMock, Mockito.times(1)).registerNotificationDeque(deque);
+        Mockito.verify(courierServiceMock, Mockito.times(1)).processCourierDispatchedEvent(deferredEvent);
+        Mockito.verify(courierServiceMock, Mockito.times(1)).shutdown();
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).shutdown();
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).registerNotificationDeque(deque);
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).prepareMeal(cookReservationId,
+                deferredEvent.createdAt, deferredEvent.createdAt + 3000L);
+        Mockito.verify(outputEventPublisherMock, Mockito.times(1)).registerNotificationDeque(deque);
+    }
+
+    @Test
+    void mustCancelReservation_givenCourierWaitExpired() throws InterruptedException {
+        //given
+        long cookReservationId = 3L;
+        CourierWaitExpiredEvent expiredEvent = CourierWaitExpiredEvent.of(30005L, bananaSplitOrder,
+                cookReservationId, 30000L);
+
+        //#setup courier
+        Mockito.doNothing().when(courierServiceMock).registerNotificationDeque(deque);
+        Mockito.doNothing().when(courierServiceMock).shutdown();
+
+        //#setup kitchen
+        Mockito.doNothing().when(kitchenServiceMock).registerNotificationDeque(deque);
+        Mockito.doNothing().when(kitchenServiceMock).shutdown();
+        Mockito.doReturn(true).when(kitchenServiceMock).cancelCookReservation(cookReservationId);
+
+        //#setup handler
+        Mockito.doNothing().when(outputEventPublisherMock).registerNotificationDeque(deque);
+        underTest = new OrderProcessor(config, courierServiceMock, kitchenServiceMock, outputEventPublisherMock,
+                deque, this.scheduler);
+
+        //when
+        deque.offer(expiredEvent);
+        Thread.sleep(500L);
+        MetricsProcessor.DeliveryMetricsSnapshot metricsSnapshot = underTest.getMetricsSnapshot();
+        underTest.close();
+        underTest.getCompletedHandle().join();
+
+        //then
+        Assertions.assertThat(metricsSnapshot.totalOrdersCancelled).isEqualTo(1L);
+
+        //verify mocks
+        Mockito.verify(courierServiceMock, Mockito.times(1)).registerNotificationDeque(deque);
+        Mockito.verify(courierServiceMock, Mockito.times(1)).shutdown();
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).shutdown();
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).registerNotificationDeque(deque);
+        Mockito.verify(kitchenServiceMock, Mockito.times(1)).cancelCookReservation(cookReservationId);
+        Mockito.verify(outputEventPublisherMock, Mockito.times(1)).registerNotificationDeque(deque);
+    }
+}
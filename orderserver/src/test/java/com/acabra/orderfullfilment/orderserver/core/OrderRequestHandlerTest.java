@@ -85,4 +85,38 @@ class OrderRequestHandlerTest {
         //then
         Assertions.assertThat(actual.join()).isNull();
     }
-}
\ No newline at end of file
+
+    @Test
+    void mustShedAndNotPublish_givenAdmissionLimitReached() {
+        //given
+        AdmissionController admission = new AdmissionController(1, 0, 0, 0L, 1000L, () -> 0, () -> 0, () -> 0L);
+        underTest = new OrderRequestHandler(admission);
+        Deque<OutputEvent> deque = new ConcurrentLinkedDeque<>();
+        underTest.registerNotificationDeque(deque);
+
+        //when
+        boolean first = underTest.tryAccept(requestStub);
+        boolean second = underTest.tryAccept(requestStub);
+
+        //then
+        Assertions.assertThat(first).isTrue();
+        Assertions.assertThat(second).isFalse();
+        Assertions.assertThat(deque).hasSize(1);
+        Assertions.assertThat(admission.inFlight()).isEqualTo(1);
+        Assertions.assertThat(admission.shed()).isEqualTo(1L);
+    }
+
+    @Test
+    void mustReleaseAdmission_givenNoDequeRegistered() {
+        //given
+        AdmissionController admission = new AdmissionController(1, 0, 0, 0L, 1000L, () -> 0, () -> 0, () -> 0L);
+        underTest = new OrderRequestHandler(admission);
+
+        //when
+        boolean actual = underTest.tryAccept(requestStub);
+
+        //then
+        Assertions.assertThat(actual).isFalse();
+        Assertions.assertThat(admission.inFlight()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,68 @@
+package com.acabra.orderfullfilment.orderserver.core.executor;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class IngestionExecutorTest {
+
+    private final IngestionExecutor underTest = new IngestionExecutor(1, 2, 5);
+
+    @AfterEach
+    public void tearDown() {
+        underTest.close();
+    }
+
+    @Test
+    public void mustRefuseTasks_givenThreadBusyAndQueueFull() throws InterruptedException {
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        Assertions.assertThat(underTest.trySubmit(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        })).isTrue();
+        Assertions.assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+        //when
+        boolean first = underTest.trySubmit(() -> {});
+        boolean second = underTest.trySubmit(() -> {});
+        boolean third = underTest.trySubmit(() -> {});
+
+        //then
+        Assertions.assertThat(first).isTrue();
+        Assertions.assertThat(second).isTrue();
+        Assertions.assertThat(third).isFalse();
+        Assertions.assertThat(underTest.backlog()).isEqualTo(2);
+        Assertions.assertThat(underTest.rejected()).isEqualTo(1L);
+        Assertions.assertThat(underTest.getRetryAfterSeconds()).isEqualTo(5);
+        release.countDown();
+    }
+
+    @Test
+    public void mustRunSubmittedTasks_givenCapacityAvailable() throws InterruptedException {
+        //given
+        CountDownLatch done = new CountDownLatch(10);
+
+        //when
+        for (int i = 0; i < 10; i++) {
+            while (!underTest.trySubmit(done::countDown)) {
+                Thread.onSpinWait();
+            }
+        }
+
+        //then
+        Assertions.assertThat(done.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.acabra.orderfullfilment.orderserver.core.executor;
+
+import com.acabra.orderfullfilment.orderserver.event.EventType;
+import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+@SuppressWarnings("unchecked")
+class OutputEventBatchHandlerTest {
+
+    private OutputEventBatchHandler underTest;
+    private final Consumer<OutputEvent> consumerMock = Mockito.mock(Consumer.class);
+    private final LinkedBlockingQueue<OutputEvent> deque = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    public void setup() {
+        underTest = new OutputEventBatchHandler(deque, consumerMock, 3, 10L);
+    }
+
+    @Test
+    public void mustDrainUpToBatchSize_givenElementsAreAvailableInQueue() {
+        //given
+        for (int i = 0; i < 5; i++) {
+            deque.offer(new OutputEvent(EventType.ORDER_RECEIVED, i) {});
+        }
+
+        //when
+        underTest.doWork(); //drains 3 events
+
+        //then
+        Mockito.verify(consumerMock, Mockito.times(3)).accept(Mockito.any(OutputEvent.class));
+        Assertions.assertThat(deque.size()).isEqualTo(2);
+
+        //when
+        underTest.doWork(); //drains the remaining 2 events
+        underTest.doWork(); //no elements available, returns after the timeout
+
+        //then
+        Mockito.verify(consumerMock, Mockito.times(5)).accept(Mockito.any(OutputEvent.class));
+        Assertions.assertThat(deque.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void mustDispatchTheRemainingEvents_givenOneDispatchFails() {
+        //given
+        OutputEvent failing = new OutputEvent(EventType.ORDER_RECEIVED, 0L) {};
+        OutputEvent succeeding = new OutputEvent(EventType.ORDER_RECEIVED, 1L) {};
+        Mockito.doThrow(new RuntimeException("dispatch failed")).when(consumerMock).accept(failing);
+        deque.offer(failing);
+        deque.offer(succeeding);
+
+        //when
+        underTest.doWork();
+
+        //then
+        Mockito.verify(consumerMock, Mockito.times(1)).accept(failing);
+        Mockito.verify(consumerMock, Mockito.times(1)).accept(succeeding);
+        Assertions.assertThat(deque.isEmpty()).isTrue();
+    }
+}
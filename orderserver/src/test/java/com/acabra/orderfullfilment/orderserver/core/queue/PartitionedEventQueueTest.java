@@ -0,0 +1,66 @@
+package com.acabra.orderfullfilment.orderserver.core.queue;
+
+import com.acabra.orderfullfilment.orderserver.event.CourierArrivedEvent;
+import com.acabra.orderfullfilment.orderserver.event.OrderPreparedEvent;
+import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+class PartitionedEventQueueTest {
+
+    private final PartitionedEventQueue underTest = new PartitionedEventQueue(4);
+
+    @Test
+    public void mustRouteEventsOfTheSameOrderToTheSamePartition() {
+        //given
+        long reservationId = 17L;
+        OutputEvent prepared = OrderPreparedEvent.of(reservationId, "order-id", 200L);
+        OutputEvent arrived = CourierArrivedEvent.of(1, reservationId, 100L, 100L);
+
+        //when
+        underTest.offer(prepared);
+        underTest.offer(arrived);
+
+        //then
+        int partition = underTest.partitionIndex(reservationId);
+        Assertions.assertThat(underTest.partition(partition).size()).isEqualTo(2);
+        Assertions.assertThat(underTest.partition(partition).poll()).isEqualTo(arrived);
+        Assertions.assertThat(underTest.partition(partition).poll()).isEqualTo(prepared);
+    }
+
+    @Test
+    public void mustSpreadDifferentOrdersAcrossPartitions() {
+        //given
+        IntStream.range(0, 400).forEach(i -> underTest.offer(OrderPreparedEvent.of(i, "order-id" + i, i)));
+
+        //then
+        Assertions.assertThat(underTest.size()).isEqualTo(400);
+        IntStream.range(0, underTest.partitionCount()).forEach(i ->
+                Assertions.assertThat(underTest.partition(i).size()).isGreaterThan(50));
+    }
+
+    @Test
+    public void mustPollAllPartitions() {
+        //given
+        IntStream.range(0, 10).forEach(i -> underTest.offer(OrderPreparedEvent.of(i, "order-id" + i, i)));
+
+        //when
+        int polled = 0;
+        while (null != underTest.poll()) {
+            polled++;
+        }
+
+        //then
+        Assertions.assertThat(polled).isEqualTo(10);
+        Assertions.assertThat(underTest.isEmpty()).isTrue();
+        Assertions.assertThat(underTest.peek()).isNull();
+    }
+
+    @Test
+    public void mustFail_givenInvalidPartitionCount() {
+        Assertions.assertThatThrownBy(() -> new PartitionedEventQueue(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
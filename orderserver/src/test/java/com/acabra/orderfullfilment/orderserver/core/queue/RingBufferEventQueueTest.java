@@ -0,0 +1,166 @@
+package com.acabra.orderfullfilment.orderserver.core.queue;
+
+import com.acabra.orderfullfilment.orderserver.event.OrderPreparedEvent;
+import com.acabra.orderfullfilment.orderserver.event.OrderReceivedEvent;
+import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
+import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class RingBufferEventQueueTest {
+
+    private static OutputEvent eventOf(long id) {
+        return OrderPreparedEvent.of(id, "order-id", id);
+    }
+
+    private static OutputEvent receivedOf(long id) {
+        return OrderReceivedEvent.of(id, DeliveryOrder.of("order-" + id, "meal", 1));
+    }
+
+    @Test
+    public void mustRoundCapacityToPowerOfTwo() {
+        Assertions.assertThat(new RingBufferEventQueue(1000, WaitStrategy.PARK).capacity()).isEqualTo(1024);
+        Assertions.assertThat(new RingBufferEventQueue(8, WaitStrategy.PARK).capacity()).isEqualTo(8);
+        Assertions.assertThatThrownBy(() -> new RingBufferEventQueue(1, WaitStrategy.PARK))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void mustConsumeInPublicationOrder() {
+        //given
+        RingBufferEventQueue underTest = new RingBufferEventQueue(4, WaitStrategy.YIELD);
+
+        //when
+        for (int round = 0; round < 3; round++) { //wraps around the ring
+            underTest.offer(eventOf(3));
+            underTest.offer(eventOf(1));
+            underTest.offer(eventOf(2));
+
+            //then
+            Assertions.assertThat(underTest.size()).isEqualTo(3);
+            Assertions.assertThat(underTest.peek()).isEqualTo(underTest.iterator().next());
+            List<OutputEvent> drained = new ArrayList<>();
+            Assertions.assertThat(underTest.drainTo(drained, 2)).isEqualTo(2);
+            Assertions.assertThat(drained).extracting(e -> e.createdAt).containsExactly(3L, 1L);
+            Assertions.assertThat(underTest.poll().createdAt).isEqualTo(2L);
+            Assertions.assertThat(underTest.poll()).isNull();
+        }
+    }
+
+    @Test
+    public void mustTimeout_givenFullOrEmptyRing() throws InterruptedException {
+        //given
+        RingBufferEventQueue underTest = new RingBufferEventQueue(2, WaitStrategy.PARK);
+
+        //when
+        Assertions.assertThat(underTest.poll(5, TimeUnit.MILLISECONDS)).isNull();
+        Assertions.assertThat(underTest.offer(receivedOf(1), 5, TimeUnit.MILLISECONDS)).isTrue();
+        Assertions.assertThat(underTest.offer(receivedOf(2), 5, TimeUnit.MILLISECONDS)).isTrue();
+
+        //then
+        Assertions.assertThat(underTest.offer(receivedOf(3), 5, TimeUnit.MILLISECONDS)).isFalse();
+        Assertions.assertThat(underTest.remainingCapacity()).isEqualTo(0);
+    }
+
+    @Test
+    public void mustRefuseOrder_givenRingFullPastTheOfferTimeout() {
+        //given
+        RingBufferEventQueue underTest = new RingBufferEventQueue(2, WaitStrategy.PARK, 5L);
+        underTest.offer(receivedOf(1));
+        underTest.offer(receivedOf(2));
+
+        //when
+        boolean offered = underTest.offer(receivedOf(3));
+
+        //then
+        Assertions.assertThat(offered).isFalse();
+        Assertions.assertThat(underTest.size()).isEqualTo(2);
+        Assertions.assertThat(underTest.poll().createdAt).isEqualTo(1L);
+        Assertions.assertThat(underTest.offer(receivedOf(3))).isTrue();
+    }
+
+    @Test
+    public void mustSpillTheEventsOfOrdersInFlight_givenRingFull() {
+        //given
+        RingBufferEventQueue underTest = new RingBufferEventQueue(2, WaitStrategy.PARK, 5L);
+        underTest.offer(eventOf(1));
+        underTest.offer(eventOf(2));
+
+        //when
+        boolean spilled = underTest.offer(eventOf(3));
+        int sizeWhileSpilled = underTest.size();
+        OutputEvent first = underTest.poll();
+        //the ring has room again, the orders in flight drain first
+        boolean receivedWhileSpilled = underTest.offer(receivedOf(4));
+        List<OutputEvent> drained = new ArrayList<>();
+        underTest.drainTo(drained);
+
+        //then
+        Assertions.assertThat(spilled).isTrue();
+        Assertions.assertThat(sizeWhileSpilled).isEqualTo(3);
+        Assertions.assertThat(first.createdAt).isEqualTo(1L);
+        Assertions.assertThat(receivedWhileSpilled).isFalse();
+        Assertions.assertThat(drained).extracting(e -> e.createdAt).containsExactly(2L, 3L);
+        Assertions.assertThat(underTest.size()).isEqualTo(0);
+        Assertions.assertThat(underTest.offer(receivedOf(4))).isTrue();
+    }
+
+    @Test
+    public void mustDeliverEveryEventOnce_givenConcurrentProducersAndConsumers() throws Exception {
+        //given
+        RingBufferEventQueue underTest = new RingBufferEventQueue(64, WaitStrategy.YIELD);
+        int producers = 4;
+        int perProducer = 5000;
+        Set<Long> consumed = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(producers + 2);
+
+        //when
+        List<CompletableFuture<Void>> consumers = IntStream.range(0, 2)
+                .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                    try {
+                        OutputEvent event;
+                        while (null != (event = underTest.poll(500, TimeUnit.MILLISECONDS))) {
+                            consumed.add(event.createdAt);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, executor))
+                .collect(Collectors.toList());
+        List<CompletableFuture<Void>> published = IntStream.range(0, producers)
+                .mapToObj(p -> CompletableFuture.runAsync(() -> IntStream.range(0, perProducer)
+                        .forEach(i -> {
+                            try {
+                                underTest.put(eventOf((long) p * perProducer + i));
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }), executor))
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(published.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        CompletableFuture.allOf(consumers.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        //then
+        Assertions.assertThat(consumed).hasSize(producers * perProducer);
+        Assertions.assertThat(underTest.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void mustResolveWaitStrategyByName() {
+        Assertions.assertThat(WaitStrategy.of("busy-spin")).isEqualTo(WaitStrategy.BUSY_SPIN);
+        Assertions.assertThat(WaitStrategy.of("YIELD")).isEqualTo(WaitStrategy.YIELD);
+        Assertions.assertThat(WaitStrategy.of(null)).isEqualTo(WaitStrategy.PARK);
+    }
+}
@@ -0,0 +1,108 @@
+package com.acabra.orderfullfilment.orderserver.core.timer;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class HashedTimerWheelTest {
+
+    private final HashedTimerWheel underTest = new HashedTimerWheel(1L);
+
+    @AfterEach
+    public void tearDown() {
+        underTest.shutdown();
+    }
+
+    @Test
+    public void mustExecuteTask_afterTheDelayElapsed() throws Exception {
+        //given
+        long start = System.nanoTime();
+
+        //when
+        CompletableFuture<Long> handle = underTest.schedule(System::nanoTime, 50L);
+        Long executedAt = handle.get(2, TimeUnit.SECONDS);
+
+        //then
+        Assertions.assertThat(TimeUnit.NANOSECONDS.toMillis(executedAt - start)).isGreaterThanOrEqualTo(49L);
+        Assertions.assertThat(underTest.pendingTasks()).isEqualTo(0);
+    }
+
+    @Test
+    public void mustExecuteTasksInDeadlineOrder_givenDelaysAcrossLevels() throws Exception {
+        //given
+        AtomicInteger sequence = new AtomicInteger();
+
+        //when
+        CompletableFuture<Integer> last = underTest.schedule(sequence::incrementAndGet, 600L); //level 1
+        CompletableFuture<Integer> first = underTest.schedule(sequence::incrementAndGet, 0L);
+        CompletableFuture<Integer> second = underTest.schedule(sequence::incrementAndGet, 200L);
+
+        //then
+        Assertions.assertThat(last.get(3, TimeUnit.SECONDS)).isEqualTo(3);
+        Assertions.assertThat(first.join()).isEqualTo(1);
+        Assertions.assertThat(second.join()).isEqualTo(2);
+    }
+
+    @Test
+    public void mustNotExecuteTask_givenItWasCancelled() throws Exception {
+        //given
+        AtomicInteger executions = new AtomicInteger();
+        CompletableFuture<Integer> cancelled = underTest.schedule(executions::incrementAndGet, 30L);
+        CompletableFuture<Integer> kept = underTest.schedule(executions::incrementAndGet, 60L);
+
+        //when
+        boolean actual = cancelled.cancel(false);
+        kept.get(2, TimeUnit.SECONDS);
+
+        //then
+        Assertions.assertThat(actual).isTrue();
+        Assertions.assertThat(cancelled.isCancelled()).isTrue();
+        Assertions.assertThat(executions.get()).isEqualTo(1);
+        Assertions.assertThat(underTest.pendingTasks()).isEqualTo(0);
+    }
+
+    @Test
+    public void mustCompleteExceptionally_givenTaskFails() {
+        //when
+        CompletableFuture<Object> handle = underTest.schedule(() -> {
+            throw new IllegalStateException("failed task");
+        }, 1L);
+
+        //then
+        Assertions.assertThatThrownBy(handle::join).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void mustExecuteEveryTask_givenConcurrentProducers() {
+        //given
+        AtomicInteger executions = new AtomicInteger();
+
+        //when
+        List<CompletableFuture<Integer>> handles = IntStream.range(0, 2000).parallel()
+                .mapToObj(i -> underTest.schedule(executions::incrementAndGet, i % 40))
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(handles.toArray(new CompletableFuture[0])).orTimeout(5, TimeUnit.SECONDS).join();
+
+        //then
+        Assertions.assertThat(executions.get()).isEqualTo(2000);
+    }
+
+    @Test
+    public void mustRejectTasks_givenTimerIsShutdown() {
+        //given
+        underTest.shutdown();
+
+        //when
+        CompletableFuture<Integer> handle = underTest.schedule(() -> 1, 1L);
+
+        //then
+        Assertions.assertThat(handle.isCompletedExceptionally()).isTrue();
+    }
+}
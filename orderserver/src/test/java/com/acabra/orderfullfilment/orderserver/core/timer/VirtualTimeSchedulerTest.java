@@ -0,0 +1,61 @@
+package com.acabra.orderfullfilment.orderserver.core.timer;
+
+import com.acabra.orderfullfilment.orderserver.kitchen.VirtualClock;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+class VirtualTimeSchedulerTest {
+
+    private final VirtualClock clock = new VirtualClock(1000L);
+    private final VirtualTimeScheduler underTest = new VirtualTimeScheduler(clock);
+
+    @Test
+    public void mustExecuteDueTasksInDeadlineOrder_givenTimeAdvanced() {
+        //given
+        List<Long> executedAt = new ArrayList<>();
+        CompletableFuture<Boolean> late = underTest.schedule(() -> executedAt.add(clock.now()), 500L);
+        CompletableFuture<Boolean> early = underTest.schedule(() -> executedAt.add(clock.now()), 100L);
+        CompletableFuture<Boolean> notDue = underTest.schedule(() -> executedAt.add(clock.now()), 5000L);
+        Assertions.assertThat(underTest.nextDueTime()).isEqualTo(1100L);
+
+        //when
+        int executed = underTest.advanceTo(2000L);
+
+        //then
+        Assertions.assertThat(executed).isEqualTo(2);
+        Assertions.assertThat(executedAt).containsExactly(1100L, 1500L);
+        Assertions.assertThat(early.isDone() && late.isDone()).isTrue();
+        Assertions.assertThat(notDue.isDone()).isFalse();
+        Assertions.assertThat(clock.now()).isEqualTo(2000L);
+        Assertions.assertThat(underTest.pendingTasks()).isEqualTo(1);
+        Assertions.assertThat(underTest.nextDueTime()).isEqualTo(6000L);
+    }
+
+    @Test
+    public void mustNotExecuteTask_givenItWasCancelled() {
+        //given
+        CompletableFuture<Integer> cancelled = underTest.schedule(() -> 1, 10L);
+
+        //when
+        cancelled.cancel(false);
+        int executed = underTest.advanceTo(5000L);
+
+        //then
+        Assertions.assertThat(executed).isEqualTo(0);
+        Assertions.assertThat(underTest.nextDueTime()).isEqualTo(Long.MAX_VALUE);
+        Assertions.assertThat(cancelled.isCancelled()).isTrue();
+    }
+
+    @Test
+    public void mustNotMoveTimeBackwards() {
+        //when
+        underTest.advanceTo(10L);
+
+        //then
+        Assertions.assertThat(clock.now()).isEqualTo(1000L);
+    }
+}
@@ -1,10 +1,19 @@
 package com.acabra.orderfullfilment.orderserver.courier;
 
 import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
+import com.acabra.orderfullfilment.orderserver.core.timer.EmulationMode;
+import com.acabra.orderfullfilment.orderserver.core.timer.HashedTimerWheel;
+import com.acabra.orderfullfilment.orderserver.core.timer.VirtualTimeScheduler;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenClock;
+import com.acabra.orderfullfilment.orderserver.kitchen.ReadyTimeEstimator;
+import com.acabra.orderfullfilment.orderserver.kitchen.VirtualClock;
 import com.acabra.orderfullfilment.orderserver.event.CourierArrivedEvent;
+import com.acabra.orderfullfilment.orderserver.event.CourierDispatchedEvent;
+import com.acabra.orderfullfilment.orderserver.event.CourierWaitExpiredEvent;
 import com.acabra.orderfullfilment.orderserver.courier.model.Courier;
 import com.acabra.orderfullfilment.orderserver.courier.model.CourierStatus;
 import com.acabra.orderfullfilment.orderserver.courier.model.DispatchResult;
+import com.acabra.orderfullfilment.orderserver.courier.model.Location;
 import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
 import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
 import com.acabra.orderfullfilment.orderserver.utils.EtaEstimator;
@@ -40,18 +49,20 @@ class CourierFleetImplTest {
     public void setup() {
         int fixedTravelTime = 3;
         Mockito.doReturn(fixedTravelTime).when(etaEstimatorMock).estimateCourierTravelTimeInSeconds(Mockito.any(Courier.class));
+        Mockito.doReturn(fixedTravelTime).when(etaEstimatorMock).estimateLatestTravelTimeInSeconds(Mockito.any(Courier.class));
     }
 
     @Test
     void mustDispatchANewCourier_givenAllExistingCouriersAreDispatched() {
         //given
         List<Courier> originalCouriers = buildCourierList(4, CourierStatus.DISPATCHED);
-        underTest = new CourierFleetImpl(originalCouriers, etaEstimatorMock);
+        underTest = new CourierFleetImpl(originalCouriers, etaEstimatorMock, new HashedTimerWheel(),
+                EmulationMode.SCHEDULED, CourierFleetOptions.DEFAULT);
         Assertions.assertThat(underTest.availableCouriers()).isEqualTo(0);
         Assertions.assertThat(underTest.fleetSize()).isEqualTo(originalCouriers.size());
 
         //when
-        Integer actual = underTest.dispatch(validOrder, NOW).courierId;
+        Integer actual = underTest.dispatch(validOrder, 0L, NOW).courierId;
 
         //then
         Mockito.verify(etaEstimatorMock, Mockito.times(1)).estimateCourierTravelTimeInSeconds(Mockito.any(Courier.class));
@@ -64,13 +75,14 @@ class CourierFleetImplTest {
     void mustReturn0_couriersAvailable() {
         //given
         List<Courier> originalCouriers = buildCourierList(4, CourierStatus.AVAILABLE);
-        underTest = new CourierFleetImpl(originalCouriers, etaEstimatorMock);
+        underTest = new CourierFleetImpl(originalCouriers, etaEstimatorMock, new HashedTimerWheel(),
+                EmulationMode.SCHEDULED, CourierFleetOptions.DEFAULT);
         int totalAvailableBefore = underTest.availableCouriers();
         Assertions.assertThat(totalAvailableBefore).isEqualTo(originalCouriers.size());
         Assertions.assertThat(underTest.fleetSize()).isEqualTo(originalCouriers.size());
 
         //when
-        Integer actual = underTest.dispatch(validOrder, NOW).courierId;
+        Integer actual = underTest.dispatch(validOrder, 0L, NOW).courierId;
 
         //then
         Mockito.verify(etaEstimatorMock, Mockito.times(1)).estimateCourierTravelTimeInSeconds(Mockito.any(Courier.class));
@@ -86,7 +98,8 @@ class CourierFleetImplTest {
         //given
         int startingCouriers = 4;
         List<Courier> originalCouriers = buildCourierList(startingCouriers, CourierStatus.AVAILABLE);
-        underTest = new CourierFleetImpl(originalCouriers, etaEstimatorMock);
+        underTest = new CourierFleetImpl(originalCouriers, etaEstimatorMock, new HashedTimerWheel(),
+                EmulationMode.SCHEDULED, CourierFleetOptions.DEFAULT);
         int totalAvailableBefore = underTest.availableCouriers();
         Assertions.assertThat(totalAvailableBefore).isEqualTo(originalCouriers.size());
         Assertions.assertThat(underTest.fleetSize()).isEqualTo(originalCouriers.size());
@@ -94,7 +107,7 @@ class CourierFleetImplTest {
         //when
         int ordersRequests = 10;
         List<Long> dispatched = IntStream.range(0, ordersRequests)
-                .mapToObj(elm -> underTest.dispatch(validOrder, NOW))
+                .mapToObj(elm -> underTest.dispatch(validOrder, 0L, NOW))
                 .filter(elm -> elm.courierId != null)
                 .mapToLong(elm -> Long.valueOf(elm.courierId))
                 .boxed()
@@ -112,7 +125,8 @@ class CourierFleetImplTest {
     void mustFail_unableToFindCourierId() {
         //given
         List<Courier> list = buildCourierList(4, CourierStatus.AVAILABLE);
-        underTest = new CourierFleetImpl(list, etaEstimatorMock);
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, new HashedTimerWheel(), EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT);
         int courierIdInvalid = 55;
         Assertions.assertThat(list).noneMatch(courier -> courier.id == courierIdInvalid);
 
@@ -129,7 +143,8 @@ class CourierFleetImplTest {
     void mustSucceedReleaseOneCourier_givenAllCouriersDispatched() {
         //given
         List<Courier> list = buildCourierList(4, CourierStatus.DISPATCHED);
-        underTest = new CourierFleetImpl(list, etaEstimatorMock);
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, new HashedTimerWheel(), EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT);
         int validAssignedId = 3;
         Assertions.assertThat(list).anyMatch(courier -> courier.id == validAssignedId);
         int totalAvailableBefore = underTest.availableCouriers();
@@ -146,12 +161,13 @@ class CourierFleetImplTest {
         //given
         List<Courier> list = buildCourierList(1, CourierStatus.AVAILABLE);
         Deque<OutputEvent> deque = new ConcurrentLinkedDeque<>();
-        underTest = new CourierFleetImpl(list, etaEstimatorMock);
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, new HashedTimerWheel(), EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT);
         underTest.registerNotificationDeque(deque);
         int expectedCourierId = 0;
 
         //when
-        DispatchResult dispatch = underTest.dispatch(validOrder, NOW);
+        DispatchResult dispatch = underTest.dispatch(validOrder, 0L, NOW);
 
         Integer actualCourierId = dispatch.courierId;
         Assertions.assertThat(dispatch.notificationFuture.get()).isTrue();
@@ -175,13 +191,14 @@ class CourierFleetImplTest {
         Deque<OutputEvent> dequeMock = Mockito.mock(ConcurrentLinkedDeque.class);
         Mockito.doThrow(RuntimeException.class).when(dequeMock).offer(Mockito.any(CourierArrivedEvent.class));
 
-        underTest = new CourierFleetImpl(list, etaEstimatorMock);
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, new HashedTimerWheel(), EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT);
         underTest.registerNotificationDeque(dequeMock);
 
         int expectedCourierId = 0;
 
         //when
-        DispatchResult actualDispatchResult = underTest.dispatch(validOrder, NOW);
+        DispatchResult actualDispatchResult = underTest.dispatch(validOrder, 0L, NOW);
         Boolean isNotificationSent = actualDispatchResult.notificationFuture.join();
 
         //then
@@ -200,13 +217,14 @@ class CourierFleetImplTest {
         Deque<OutputEvent> dequeMock = Mockito.mock(ConcurrentLinkedDeque.class);
         Mockito.doThrow(RuntimeException.class).when(dequeMock).offer(Mockito.any(CourierArrivedEvent.class));
 
-        underTest = new CourierFleetImpl(list, etaEstimatorMock);
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, new HashedTimerWheel(), EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT);
         underTest.registerNotificationDeque(dequeMock);
 
         int expectedCourierId = 0;
 
         //when
-        DispatchResult actualDispatchResult = underTest.dispatch(validOrder, NOW);
+        DispatchResult actualDispatchResult = underTest.dispatch(validOrder, 0L, NOW);
         Boolean isNotificationSent = actualDispatchResult.notificationFuture.join();
 
         //then
@@ -222,12 +240,13 @@ class CourierFleetImplTest {
     public void mustCompleteNotificationAsFalse_noDequeAvailable() throws InterruptedException, ExecutionException {
         //given
         List<Courier> list = buildCourierList(1, CourierStatus.AVAILABLE);
-        underTest = new CourierFleetImpl(list, etaEstimatorMock);
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, new HashedTimerWheel(), EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT);
 
         int expectedCourierId = 0;
 
         //when
-        DispatchResult actualDispatchResult = underTest.dispatch(validOrder, NOW);
+        DispatchResult actualDispatchResult = underTest.dispatch(validOrder, 0L, NOW);
 
         //then
         Assertions.assertThat(list.stream().noneMatch(Courier::isAvailable)).isTrue();
@@ -236,10 +255,429 @@ class CourierFleetImplTest {
         Assertions.assertThat(underTest.availableCouriers()).isEqualTo(0);
     }
 
+    @Test
+    public void mustStampArrivalWithReleaseTime_givenRealTimeEmulation() {
+        //given
+        List<Courier> list = buildCourierList(1, CourierStatus.AVAILABLE);
+        Deque<OutputEvent> deque = new ConcurrentLinkedDeque<>();
+        HashedTimerWheel timer = new HashedTimerWheel();
+        Mockito.doReturn(0).when(etaEstimatorMock).estimateCourierTravelTimeInSeconds(Mockito.any(Courier.class));
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, timer, EmulationMode.REAL_TIME,
+                CourierFleetOptions.DEFAULT);
+        underTest.registerNotificationDeque(deque);
+        long start = KitchenClock.now();
+
+        //when
+        DispatchResult dispatch = underTest.dispatch(validOrder, 7L, start - 1000L);
+        Boolean isNotificationSent = dispatch.notificationFuture.join();
+        timer.shutdown();
+
+        //then
+        CourierArrivedEvent actualEvent = (CourierArrivedEvent) deque.poll();
+        Assertions.assertThat(isNotificationSent).isTrue();
+        Assertions.assertThat(actualEvent).isNotNull();
+        Assertions.assertThat(actualEvent.kitchenReservationId).isEqualTo(7L);
+        Assertions.assertThat(actualEvent.createdAt).isGreaterThanOrEqualTo(start);
+    }
+
+    @Test
+    public void mustParkDispatchRequest_givenBoundedFleetWithoutAvailableCouriers() {
+        //given
+        List<Courier> list = buildCourierList(2, CourierStatus.DISPATCHED);
+        HashedTimerWheel timer = new HashedTimerWheel();
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, timer, EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.bounded(60000L));
+        underTest.registerNotificationDeque(new ConcurrentLinkedDeque<>());
+
+        //when
+        DispatchResult actual = underTest.dispatch(validOrder, 1L, NOW);
+        timer.shutdown();
+
+        //then
+        Mockito.verify(etaEstimatorMock, Mockito.never()).estimateCourierTravelTimeInSeconds(Mockito.any(Courier.class));
+        Assertions.assertThat(actual.isDispatched()).isFalse();
+        Assertions.assertThat(actual.waiting).isTrue();
+        Assertions.assertThat(underTest.waitingDispatchRequests()).isEqualTo(1);
+        Assertions.assertThat(underTest.fleetSize()).isEqualTo(list.size());
+    }
+
+    @Test
+    public void mustEstimateTheReadyTimeThroughTheKitchen_givenParkedRequestServed() {
+        //given
+        List<Courier> list = buildCourierList(1, CourierStatus.DISPATCHED);
+        ReadyTimeEstimator readyTimeMock = Mockito.mock(ReadyTimeEstimator.class);
+        Mockito.doReturn(NOW + 9000L).when(readyTimeMock).expectedReadyAt(Mockito.any(DeliveryOrder.class),
+                Mockito.anyLong());
+        HashedTimerWheel timer = new HashedTimerWheel();
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, timer, EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.bounded(60000L).estimating(readyTimeMock));
+        underTest.registerNotificationDeque(new ConcurrentLinkedDeque<>());
+        underTest.dispatch(validOrder, 1L, NOW);
+
+        //when
+        underTest.release(0, NOW + 100L);
+        timer.shutdown();
+
+        //then
+        Mockito.verify(readyTimeMock).expectedReadyAt(validOrder, NOW + 100L);
+        Assertions.assertThat(underTest.waitingDispatchRequests()).isEqualTo(0);
+    }
+
+    @Test
+    public void mustServeWaitingRequestsInOrder_givenBoundedFleetCourierReleased() {
+        //given
+        List<Courier> list = buildCourierList(1, CourierStatus.DISPATCHED);
+        Deque<OutputEvent> deque = new ConcurrentLinkedDeque<>();
+        HashedTimerWheel timer = new HashedTimerWheel();
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, timer, EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.bounded(60000L));
+        underTest.registerNotificationDeque(deque);
+        underTest.dispatch(validOrder, 1L, NOW);
+        underTest.dispatch(validOrder, 2L, NOW + 10L);
+
+        //when
+        underTest.release(0, NOW + 100L);
+        timer.shutdown();
+
+        //then
+        CourierDispatchedEvent actualEvent = (CourierDispatchedEvent) deque.poll();
+        Assertions.assertThat(actualEvent).isNotNull();
+        Assertions.assertThat(actualEvent.deferred).isTrue();
+        Assertions.assertThat(actualEvent.courierId).isEqualTo(0);
+        Assertions.assertThat(actualEvent.kitchenReservationId).isEqualTo(1L);
+        Assertions.assertThat(actualEvent.queuedMillis).isEqualTo(100L);
+        Assertions.assertThat(actualEvent.createdAt).isEqualTo(NOW + 100L);
+        Assertions.assertThat(deque).isEmpty();
+        Assertions.assertThat(underTest.waitingDispatchRequests()).isEqualTo(1);
+        Assertions.assertThat(underTest.availableCouriers()).isEqualTo(0);
+        Assertions.assertThat(underTest.fleetSize()).isEqualTo(list.size());
+    }
+
+    @Test
+    public void mustPublishWaitExpired_givenBoundedFleetNoCourierReleased() throws InterruptedException {
+        //given
+        List<Courier> list = buildCourierList(1, CourierStatus.DISPATCHED);
+        Deque<OutputEvent> deque = new ConcurrentLinkedDeque<>();
+        HashedTimerWheel timer = new HashedTimerWheel();
+        long maxWaitMillis = 20L;
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, timer, EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.bounded(maxWaitMillis));
+        underTest.registerNotificationDeque(deque);
+
+        //when
+        underTest.dispatch(validOrder, 5L, NOW);
+        long deadline = KitchenClock.now() + 2000L;
+        while (deque.isEmpty() && KitchenClock.now() < deadline) {
+            Thread.sleep(5L);
+        }
+        underTest.release(0, NOW + 5000L);
+        timer.shutdown();
+
+        //then
+        CourierWaitExpiredEvent actualEvent = (CourierWaitExpiredEvent) deque.poll();
+        Assertions.assertThat(actualEvent).isNotNull();
+        Assertions.assertThat(actualEvent.kitchenReservationId).isEqualTo(5L);
+        Assertions.assertThat(actualEvent.waitedMillis).isEqualTo(maxWaitMillis);
+        Assertions.assertThat(actualEvent.createdAt).isEqualTo(NOW + maxWaitMillis);
+        Assertions.assertThat(deque).isEmpty();
+        Assertions.assertThat(underTest.waitingDispatchRequests()).isEqualTo(0);
+        Assertions.assertThat(underTest.availableCouriers()).isEqualTo(1);
+    }
+
+    @Test
+    void mustDispatchTheNearestCourier_givenCouriersAcrossTheServiceArea() {
+        //given
+        List<Courier> list = List.of(
+                Courier.ofAvailable(0, "far", Location.of(4.5d, 0d)),
+                Courier.ofAvailable(1, "near", Location.of(-0.3d, 0.4d)),
+                Courier.ofAvailable(2, "middle", Location.of(0d, -2.2d)));
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, new HashedTimerWheel(), EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT);
+
+        //when
+        Integer first = underTest.dispatch(validOrder, 0L, NOW).courierId;
+        Integer second = underTest.dispatch(validOrder, 1L, NOW).courierId;
+        Integer third = underTest.dispatch(validOrder, 2L, NOW).courierId;
+
+        //then
+        Assertions.assertThat(List.of(first, second, third)).containsExactly(1, 2, 0);
+        Assertions.assertThat(underTest.availableCouriers()).isEqualTo(0);
+        Mockito.verify(etaEstimatorMock, Mockito.times(3)).estimateCourierTravelTimeInSeconds(Mockito.any(Courier.class));
+    }
+
+    @Test
+    void mustPlaceCouriersWithinTheServiceArea_givenCouriersWithoutLocationAndReleased() {
+        //given
+        ServiceArea area = ServiceArea.of(Location.of(10d, -3d), 2d, 0.25d);
+        List<Courier> list = IntStream.range(0, 20)
+                .mapToObj(i -> Courier.ofAvailable(i, "Courier" + i))
+                .collect(Collectors.toList());
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, new HashedTimerWheel(), EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.within(area));
+        Assertions.assertThat(list).allMatch(c -> c.getLocation().distanceTo(area.kitchen) <= area.radiusKm);
+        Integer dispatched = underTest.dispatch(validOrder, 0L, NOW).courierId;
+        Courier courier = list.get(dispatched);
+        courier.moveTo(area.kitchen);
+
+        //when
+        underTest.release(dispatched);
+
+        //then
+        Assertions.assertThat(courier.isAvailable()).isTrue();
+        Assertions.assertThat(courier.getLocation().distanceTo(area.kitchen)).isLessThanOrEqualTo(area.radiusKm);
+        Assertions.assertThat(underTest.availableCouriers()).isEqualTo(list.size());
+    }
+
+    @Test
+    void mustCarrySeveralOrders_givenOrdersReadyCloseToTheFirstOrderOfTheTrip() {
+        //given
+        List<Courier> list = buildCourierList(3, CourierStatus.AVAILABLE);
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, new HashedTimerWheel(), EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.carrying(2, 2000L));
+        underTest.registerNotificationDeque(new ConcurrentLinkedDeque<>());
+
+        //when
+        DispatchResult first = underTest.dispatch(DeliveryOrder.of("order-1", "meal", 5), 1L, NOW);
+        DispatchResult second = underTest.dispatch(DeliveryOrder.of("order-2", "meal", 5), 2L, NOW + 1000L);
+        DispatchResult third = underTest.dispatch(DeliveryOrder.of("order-3", "meal", 5), 3L, NOW + 1000L);
+
+        //then
+        Mockito.verify(etaEstimatorMock, Mockito.times(2)).estimateCourierTravelTimeInSeconds(Mockito.any(Courier.class));
+        Assertions.assertThat(second.courierId).isEqualTo(first.courierId);
+        Assertions.assertThat(second.ettMillis).isEqualTo(2000L);
+        Assertions.assertThat(third.courierId).isNotEqualTo(first.courierId);
+        Assertions.assertThat(underTest.availableCouriers()).isEqualTo(1);
+    }
+
+    @Test
+    void mustCarryTheOrdersOfItsOwnCapacity_givenCouriersLoadedWithAndWithoutCapacity() {
+        //given
+        List<Courier> list = List.of(
+                Courier.ofAvailable(0, "near-single", Location.of(0.1d, 0d), 1),
+                Courier.ofAvailable(1, "far-default", Location.of(3d, 0d)));
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, new HashedTimerWheel(), EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.carrying(2, 2000L));
+        underTest.registerNotificationDeque(new ConcurrentLinkedDeque<>());
+
+        //when
+        DispatchResult first = underTest.dispatch(DeliveryOrder.of("order-1", "meal", 5), 1L, NOW);
+        DispatchResult second = underTest.dispatch(DeliveryOrder.of("order-2", "meal", 5), 2L, NOW);
+        DispatchResult third = underTest.dispatch(DeliveryOrder.of("order-3", "meal", 5), 3L, NOW);
+        DispatchResult fourth = underTest.dispatch(DeliveryOrder.of("order-4", "meal", 5), 4L, NOW);
+
+        //then
+        Assertions.assertThat(first.courierId).isEqualTo(0);
+        Assertions.assertThat(second.courierId).isEqualTo(1);
+        Assertions.assertThat(third.courierId).isEqualTo(1);
+        Assertions.assertThat(fourth.courierId).isNotIn(0, 1);
+        Assertions.assertThat(list.get(0).getLoad()).isEqualTo(1);
+        Assertions.assertThat(list.get(1).getCapacity()).isEqualTo(2);
+        Assertions.assertThat(list.get(1).getLoad()).isEqualTo(2);
+    }
+
+    @Test
+    void mustDispatchAnotherCourier_givenTheMealIsReadyOutsideTheTripWindow() {
+        //given
+        List<Courier> list = buildCourierList(2, CourierStatus.AVAILABLE);
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, new HashedTimerWheel(), EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.carrying(4, 2000L));
+        underTest.registerNotificationDeque(new ConcurrentLinkedDeque<>());
+
+        //when
+        DispatchResult first = underTest.dispatch(DeliveryOrder.of("order-1", "meal", 2), 1L, NOW);
+        DispatchResult second = underTest.dispatch(DeliveryOrder.of("order-2", "meal", 9), 2L, NOW);
+
+        //then
+        Assertions.assertThat(second.courierId).isNotEqualTo(first.courierId);
+        Assertions.assertThat(underTest.availableCouriers()).isEqualTo(0);
+    }
+
+    @Test
+    void mustReleaseTheCourierAfterTheLastDelivery_givenATripOfSeveralOrders() {
+        //given
+        List<Courier> list = buildCourierList(1, CourierStatus.AVAILABLE);
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, new HashedTimerWheel(), EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.carrying(3, 2000L));
+        underTest.registerNotificationDeque(new ConcurrentLinkedDeque<>());
+        int courierId = underTest.dispatch(DeliveryOrder.of("order-1", "meal", 5), 1L, NOW).courierId;
+        underTest.dispatch(DeliveryOrder.of("order-2", "meal", 6), 2L, NOW);
+
+        //when
+        underTest.release(courierId, NOW + 6000L);
+        int availableAfterFirstDelivery = underTest.availableCouriers();
+        DispatchResult afterFirstDelivery = underTest.dispatch(DeliveryOrder.of("order-3", "meal", 5), 3L, NOW + 6000L);
+        underTest.release(courierId, NOW + 7000L);
+
+        //then
+        Assertions.assertThat(availableAfterFirstDelivery).isEqualTo(0);
+        Assertions.assertThat(afterFirstDelivery.courierId).isNotEqualTo(courierId);
+        Assertions.assertThat(list.get(0).isAvailable()).isTrue();
+        Assertions.assertThat(underTest.availableCouriers()).isEqualTo(1);
+    }
+
+    @Test
+    void mustPlanTheDispatch_givenTheMealTakesLongerThanTheTravelTime() {
+        //given
+        List<Courier> list = buildCourierList(2, CourierStatus.AVAILABLE);
+        Deque<OutputEvent> deque = new ConcurrentLinkedDeque<>();
+        VirtualTimeScheduler timer = new VirtualTimeScheduler(new VirtualClock(NOW));
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, timer, EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.planned(1000L));
+        underTest.registerNotificationDeque(deque);
+
+        //when
+        DispatchResult actual = underTest.dispatch(DeliveryOrder.of("order-1", "meal", 10), 1L, NOW);
+        int availableWhilePlanned = underTest.availableCouriers();
+        int plannedWhilePending = underTest.plannedDispatchRequests();
+        timer.advanceTo(timer.nextDueTime());
+
+        //then
+        Assertions.assertThat(actual.isDispatched()).isFalse();
+        Assertions.assertThat(actual.isPlanned()).isTrue();
+        Assertions.assertThat(actual.dispatchDelayMillis).isEqualTo(6000L);
+        Assertions.assertThat(availableWhilePlanned).isEqualTo(2);
+        Assertions.assertThat(plannedWhilePending).isEqualTo(1);
+        CourierDispatchedEvent actualEvent = (CourierDispatchedEvent) deque.poll();
+        Assertions.assertThat(actualEvent).isNotNull();
+        Assertions.assertThat(actualEvent.deferred).isFalse();
+        Assertions.assertThat(actualEvent.courierId).isEqualTo(0);
+        Assertions.assertThat(actualEvent.kitchenReservationId).isEqualTo(1L);
+        Assertions.assertThat(actualEvent.createdAt).isEqualTo(NOW + 6000L);
+        Assertions.assertThat(underTest.plannedDispatchRequests()).isEqualTo(0);
+        Assertions.assertThat(underTest.availableCouriers()).isEqualTo(1);
+    }
+
+    @Test
+    void mustDispatchRightAway_givenTheTravelTimeCoversThePrepTime() {
+        //given
+        List<Courier> list = buildCourierList(2, CourierStatus.AVAILABLE);
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, new HashedTimerWheel(), EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.planned(1000L));
+        underTest.registerNotificationDeque(new ConcurrentLinkedDeque<>());
+
+        //when
+        DispatchResult actual = underTest.dispatch(DeliveryOrder.of("order-1", "meal", 4), 1L, NOW);
+
+        //then
+        Assertions.assertThat(actual.isDispatched()).isTrue();
+        Assertions.assertThat(actual.isPlanned()).isFalse();
+        Assertions.assertThat(underTest.plannedDispatchRequests()).isEqualTo(0);
+        Assertions.assertThat(underTest.availableCouriers()).isEqualTo(1);
+    }
+
+    @Test
+    void mustPlanTheDispatchByTheExpectedReadyTime_givenTheMealWaitsForACookStation() {
+        //given
+        List<Courier> list = buildCourierList(2, CourierStatus.AVAILABLE);
+        Deque<OutputEvent> deque = new ConcurrentLinkedDeque<>();
+        VirtualTimeScheduler timer = new VirtualTimeScheduler(new VirtualClock(NOW));
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, timer, EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.planned(1000L));
+        underTest.registerNotificationDeque(deque);
+
+        //when
+        //the travel time covers the preparation time, not the wait for a cook station
+        DispatchResult actual = underTest.dispatch(DeliveryOrder.of("order-1", "meal", 4), 1L, NOW, NOW + 10000L);
+        timer.advanceTo(timer.nextDueTime());
+
+        //then
+        Assertions.assertThat(actual.isPlanned()).isTrue();
+        Assertions.assertThat(actual.dispatchDelayMillis).isEqualTo(6000L);
+        CourierDispatchedEvent actualEvent = (CourierDispatchedEvent) deque.poll();
+        Assertions.assertThat(actualEvent).isNotNull();
+        Assertions.assertThat(actualEvent.createdAt).isEqualTo(NOW + 6000L);
+        Assertions.assertThat(underTest.plannedDispatchRequests()).isEqualTo(0);
+    }
+
+    @Test
+    void mustServePlannedRequestFirstWithoutExpiring_givenBoundedFleetWithoutCouriersWhenDue() {
+        //given
+        List<Courier> list = buildCourierList(1, CourierStatus.AVAILABLE);
+        Deque<OutputEvent> deque = new ConcurrentLinkedDeque<>();
+        VirtualTimeScheduler timer = new VirtualTimeScheduler(new VirtualClock(NOW));
+        long maxWaitMillis = 60000L;
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, timer, EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.bounded(maxWaitMillis).planned(1000L));
+        underTest.registerNotificationDeque(deque);
+        DispatchResult planned = underTest.dispatch(DeliveryOrder.of("order-1", "meal", 20), 1L, NOW);
+        DispatchResult taken = underTest.dispatch(DeliveryOrder.of("order-2", "meal", 2), 2L, NOW);
+        DispatchResult parked = underTest.dispatch(DeliveryOrder.of("order-3", "meal", 2), 3L, NOW);
+
+        //when
+        timer.advanceTo(NOW + 100L);
+        int waitingWhenDue = underTest.waitingDispatchRequests();
+        timer.advanceTo(NOW + maxWaitMillis);
+        int waitingAfterExpiry = underTest.waitingDispatchRequests();
+        List<Long> expired = deque.stream()
+                .filter(e -> e instanceof CourierWaitExpiredEvent)
+                .map(e -> ((CourierWaitExpiredEvent) e).kitchenReservationId)
+                .collect(Collectors.toList());
+        deque.clear();
+        underTest.release(taken.courierId, NOW + maxWaitMillis + 1000L);
+
+        //then
+        Assertions.assertThat(planned.isPlanned()).isTrue();
+        Assertions.assertThat(taken.isDispatched()).isTrue();
+        Assertions.assertThat(parked.waiting).isTrue();
+        Assertions.assertThat(waitingWhenDue).isEqualTo(2);
+        Assertions.assertThat(waitingAfterExpiry).isEqualTo(1);
+        Assertions.assertThat(expired).containsExactly(3L);
+        CourierDispatchedEvent actualEvent = (CourierDispatchedEvent) deque.poll();
+        Assertions.assertThat(actualEvent).isNotNull();
+        Assertions.assertThat(actualEvent.deferred).isFalse();
+        Assertions.assertThat(actualEvent.kitchenReservationId).isEqualTo(1L);
+        Assertions.assertThat(actualEvent.createdAt).isEqualTo(NOW + maxWaitMillis + 1000L);
+        Assertions.assertThat(deque).isEmpty();
+        Assertions.assertThat(underTest.waitingDispatchRequests()).isEqualTo(0);
+    }
+
+    @Test
+    void mustObserveTheTravelOnce_givenTheCourierOfATripArrives() {
+        //given
+        List<Courier> list = buildCourierList(1, CourierStatus.AVAILABLE);
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, new HashedTimerWheel(), EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.carrying(2, 2000L));
+        underTest.registerNotificationDeque(new ConcurrentLinkedDeque<>());
+        int courierId = underTest.dispatch(DeliveryOrder.of("order-1", "meal", 5), 1L, NOW).courierId;
+        underTest.dispatch(DeliveryOrder.of("order-2", "meal", 5), 2L, NOW + 500L);
+
+        //when
+        underTest.courierArrived(CourierArrivedEvent.of(courierId, 1L, 3000L, NOW + 4200L));
+        underTest.courierArrived(CourierArrivedEvent.of(courierId, 2L, 2500L, NOW + 4200L));
+
+        //then
+        Mockito.verify(etaEstimatorMock, Mockito.times(1)).observeArrival(list.get(0), NOW, 4200L);
+        Mockito.verify(etaEstimatorMock, Mockito.times(1)).observeArrival(Mockito.any(Courier.class),
+                Mockito.anyLong(), Mockito.anyLong());
+    }
+
+    @Test
+    void mustEmulateTheNoisyTravel_givenTheEstimatorHasTravelNoise() {
+        //given
+        List<Courier> list = buildCourierList(1, CourierStatus.AVAILABLE);
+        Deque<OutputEvent> deque = new ConcurrentLinkedDeque<>();
+        VirtualTimeScheduler timer = new VirtualTimeScheduler(new VirtualClock(NOW));
+        Mockito.doReturn(true).when(etaEstimatorMock).hasTravelNoise();
+        Mockito.doReturn(4700L).when(etaEstimatorMock).emulateTravelTimeInMillis(Mockito.any(Courier.class));
+        underTest = new CourierFleetImpl(list, etaEstimatorMock, timer, EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT);
+        underTest.registerNotificationDeque(deque);
+
+        //when
+        DispatchResult actual = underTest.dispatch(validOrder, 1L, NOW);
+        timer.advanceTo(timer.nextDueTime());
+
+        //then
+        Assertions.assertThat(actual.ettMillis).isEqualTo(3000L);
+        CourierArrivedEvent actualEvent = (CourierArrivedEvent) deque.poll();
+        Assertions.assertThat(actualEvent).isNotNull();
+        Assertions.assertThat(actualEvent.createdAt).isEqualTo(NOW + 4700L);
+    }
+
     private List<Courier> buildCourierList(int size, CourierStatus status) {
         return IntStream.range(0, size)
                 .mapToObj(i -> CourierStatus.AVAILABLE == status ?
-                        Courier.ofAvailable(i, "Courier" + i) :
+                        Courier.ofAvailable(i, "Courier" + i, Location.of(0.5 * i, 0d)) :
                         Courier.ofDispatched(i, "Courier" + i))
                 .collect(Collectors.toList());
     }
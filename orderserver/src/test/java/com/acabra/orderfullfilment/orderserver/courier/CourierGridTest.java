@@ -0,0 +1,119 @@
+package com.acabra.orderfullfilment.orderserver.courier;
+
+import com.acabra.orderfullfilment.orderserver.courier.model.Courier;
+import com.acabra.orderfullfilment.orderserver.courier.model.Location;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class CourierGridTest {
+
+    private CourierGrid underTest;
+
+    @Test
+    void mustReturnNull_givenNoCouriers() {
+        //given
+        underTest = new CourierGrid(0.5d);
+
+        //when
+        Courier actual = underTest.pollNearest(Location.ORIGIN);
+
+        //then
+        Assertions.assertThat(actual).isNull();
+        Assertions.assertThat(underTest.size()).isEqualTo(0);
+    }
+
+    @Test
+    void mustPollTheNearestCourier_givenCloserCourierInAFartherCell() {
+        //given
+        underTest = new CourierGrid(1d);
+        Courier sameCellCorner = Courier.ofAvailable(0, "same-cell", Location.of(0.95d, 0.95d));
+        Courier nextCell = Courier.ofAvailable(1, "next-cell", Location.of(-0.1d, 0.5d));
+        underTest.add(sameCellCorner);
+        underTest.add(nextCell);
+
+        //when
+        Courier first = underTest.pollNearest(Location.of(0.1d, 0.5d));
+        Courier second = underTest.pollNearest(Location.of(0.1d, 0.5d));
+
+        //then
+        Assertions.assertThat(first).isSameAs(nextCell);
+        Assertions.assertThat(second).isSameAs(sameCellCorner);
+        Assertions.assertThat(underTest.size()).isEqualTo(0);
+    }
+
+    @Test
+    void mustPollInDistanceOrder_givenRandomCouriers() {
+        //given
+        underTest = new CourierGrid(0.5d);
+        Random random = new Random(42L);
+        Location target = Location.of(0.3d, -0.7d);
+        List<Courier> couriers = IntStream.range(0, 500)
+                .mapToObj(i -> Courier.ofAvailable(i, "Courier" + i,
+                        Location.of(random.nextDouble() * 10d - 5d, random.nextDouble() * 10d - 5d)))
+                .collect(Collectors.toList());
+        couriers.forEach(underTest::add);
+
+        //when
+        List<Courier> actual = new ArrayList<>();
+        for (Courier courier = underTest.pollNearest(target); null != courier; courier = underTest.pollNearest(target)) {
+            actual.add(courier);
+        }
+
+        //then
+        List<Courier> expected = couriers.stream()
+                .sorted(Comparator.comparingDouble(c -> c.getLocation().distanceTo(target)))
+                .collect(Collectors.toList());
+        Assertions.assertThat(actual).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void mustHandOutEveryCourierOnce_givenConcurrentPolls() throws Exception {
+        //given
+        underTest = new CourierGrid(0.5d);
+        Random random = new Random(7L);
+        int total = 2000;
+        IntStream.range(0, total)
+                .mapToObj(i -> Courier.ofAvailable(i, "Courier" + i,
+                        Location.of(random.nextDouble() * 4d - 2d, random.nextDouble() * 4d - 2d)))
+                .forEach(underTest::add);
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Set<Integer> polled = ConcurrentHashMap.newKeySet();
+
+        //when
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    int count = 0;
+                    for (Courier c = underTest.pollNearest(Location.ORIGIN); null != c;
+                         c = underTest.pollNearest(Location.ORIGIN)) {
+                        polled.add(c.id);
+                        count++;
+                    }
+                    return count;
+                }));
+            }
+            int sum = 0;
+            for (Future<Integer> future : futures) {
+                sum += future.get(30, TimeUnit.SECONDS);
+            }
+
+            //then
+            Assertions.assertThat(sum).isEqualTo(total);
+            Assertions.assertThat(polled).hasSize(total);
+            Assertions.assertThat(underTest.size()).isEqualTo(0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package com.acabra.orderfullfilment.orderserver.courier;
 
 import com.acabra.orderfullfilment.orderserver.courier.matcher.OrderCourierMatcher;
+import com.acabra.orderfullfilment.orderserver.core.timer.EmulationMode;
+import com.acabra.orderfullfilment.orderserver.core.timer.VirtualTimeScheduler;
 import com.acabra.orderfullfilment.orderserver.courier.matcher.OrderCourierMatcherFIFOImpl;
+import com.acabra.orderfullfilment.orderserver.courier.matcher.OrderCourierMatcherMatchedImpl;
+import com.acabra.orderfullfilment.orderserver.courier.model.Courier;
 import com.acabra.orderfullfilment.orderserver.courier.model.DispatchResult;
+import com.acabra.orderfullfilment.orderserver.courier.model.Location;
 import com.acabra.orderfullfilment.orderserver.event.*;
+import com.acabra.orderfullfilment.orderserver.kitchen.VirtualClock;
 import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
+import com.acabra.orderfullfilment.orderserver.utils.EtaEstimator;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,7 +19,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.util.Deque;
-import java.util.Optional;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedDeque;
 
@@ -48,29 +55,29 @@ class CourierServiceImplTest {
     void mustReturnEmptyNoCouriers() {
         //given
         long reservationId = 0L;
-        Mockito.when(fleetMock.dispatch(null, NOW)).thenReturn(DispatchResult.notDispatched());
+        Mockito.when(fleetMock.dispatch(null, reservationId, NOW, NOW)).thenReturn(DispatchResult.notDispatched());
 
         //when
-        Optional<Integer> actual = underTest.dispatchRequest(null, reservationId, NOW);
+        DispatchResult actual = underTest.dispatchRequest(null, reservationId, NOW);
 
         //then
-        Mockito.verify(fleetMock).dispatch(null, NOW);
-        Assertions.assertThat(actual.isEmpty()).isTrue();
+        Mockito.verify(fleetMock).dispatch(null, reservationId, NOW, NOW);
+        Assertions.assertThat(actual.isDispatched()).isFalse();
     }
 
     @Test
     void mustReturnCourierIdAvailableCourier() {
         //given
         long reservationId = 0L;
-        Mockito.when(fleetMock.dispatch(null, NOW)).thenReturn(DispatchResult.ofCompleted(5, 1));
+        Mockito.when(fleetMock.dispatch(null, reservationId, NOW, NOW)).thenReturn(DispatchResult.ofCompleted(5, 1));
 
         //when
-        Optional<Integer> actual = underTest.dispatchRequest(null, reservationId, NOW);
+        DispatchResult actual = underTest.dispatchRequest(null, reservationId, NOW);
 
         //then
-        Mockito.verify(fleetMock).dispatch(null, NOW);
-        Assertions.assertThat(actual.isPresent()).isTrue();
-        Assertions.assertThat(actual.get()).isEqualTo(5);
+        Mockito.verify(fleetMock).dispatch(null, reservationId, NOW, NOW);
+        Assertions.assertThat(actual.isDispatched()).isTrue();
+        Assertions.assertThat(actual.courierId).isEqualTo(5);
     }
 
     @Test
@@ -107,7 +114,7 @@ class CourierServiceImplTest {
         Mockito.doReturn(0).when(deliveryEventMock).getCourierId();
         Mockito.doNothing()
                 .when(fleetMock)
-                .release(0);
+                .release(0, 0L);
 
         //when
         underTest.processOrderDelivered(deliveryEventMock);
@@ -115,7 +122,7 @@ class CourierServiceImplTest {
         //then
 
         //verify
-        Mockito.verify(fleetMock, Mockito.times(1)).release(0);
+        Mockito.verify(fleetMock, Mockito.times(1)).release(0, 0L);
         Mockito.verify(deliveryEventMock, Mockito.times(1)).getCourierId();
     }
 
@@ -126,7 +133,7 @@ class CourierServiceImplTest {
 
         Mockito.doNothing()
                 .when(fleetMock)
-                .release(0);
+                .release(0, 0L);
         Mockito.doReturn(true).when(orderCourierMatcherMock).acceptCourierArrivedEvent(courierArrivedMock);
 
         //when
@@ -135,8 +142,9 @@ class CourierServiceImplTest {
         //then
         //verify
         Assertions.assertThat(actual).isEqualTo(true);
-        Mockito.verify(fleetMock, Mockito.times(0)).release(0);
+        Mockito.verify(fleetMock, Mockito.times(0)).release(0, 0L);
         Mockito.verify(orderCourierMatcherMock, Mockito.times(1)).acceptCourierArrivedEvent(courierArrivedMock);
+        Mockito.verify(fleetMock, Mockito.times(1)).courierArrived(courierArrivedMock);
     }
 
     @Test
@@ -163,7 +171,7 @@ class CourierServiceImplTest {
                 .registerNotificationDeque(mockDeque);
         Mockito.doReturn(dispatchResultStub)
                 .when(fleetMock)
-                .dispatch(orderStub, NOW);
+                .dispatch(orderStub, 1L, NOW, NOW + orderStub.prepTime);
         Mockito.doNothing()
                 .when(fleetMock)
                 .registerNotificationDeque(mockDeque);
@@ -175,13 +183,55 @@ class CourierServiceImplTest {
         underTest.registerNotificationDeque(mockDeque);
 
         //when
-        Optional<Integer> actual = underTest.dispatchRequest(orderStub, 1, NOW);
+        DispatchResult actual = underTest.dispatchRequest(orderStub, 1, NOW);
 
         //then
         Mockito.verify(fleetMock, Mockito.times(1)).registerNotificationDeque(mockDeque);
-        Mockito.verify(fleetMock, Mockito.times(1)).dispatch(orderStub, NOW);
+        Mockito.verify(fleetMock, Mockito.times(1)).dispatch(orderStub, 1L, NOW, NOW + orderStub.prepTime);
         Mockito.verify(mockDeque, Mockito.times(1)).offer(Mockito.any(CourierDispatchedEvent.class));
         Mockito.verify(orderCourierMatcherMock, Mockito.times(1)).registerNotificationDeque(mockDeque);
-        Assertions.assertThat(actual.orElse(null)).isEqualTo(2500);
+        Assertions.assertThat(actual.courierId).isEqualTo(2500);
     }
-}
\ No newline at end of file
+
+    @Test
+    void mustPickUpTheMeal_givenBoundedMatchedFleetPreparedTheMealBeforeThePlannedDispatch() {
+        //given
+        EtaEstimator etaEstimatorStub = Mockito.mock(EtaEstimator.class);
+        Mockito.doReturn(3).when(etaEstimatorStub).estimateCourierTravelTimeInSeconds(Mockito.any(Courier.class));
+        Mockito.doReturn(3).when(etaEstimatorStub).estimateLatestTravelTimeInSeconds(Mockito.any(Courier.class));
+        VirtualTimeScheduler timer = new VirtualTimeScheduler(new VirtualClock(NOW));
+        CourierFleetImpl fleet = new CourierFleetImpl(List.of(Courier.ofAvailable(0, "Courier0", Location.of(0d, 0d))),
+                etaEstimatorStub, timer, EmulationMode.SCHEDULED,
+                CourierFleetOptions.DEFAULT.bounded(60000L).planned(1000L));
+        Deque<OutputEvent> deque = new ConcurrentLinkedDeque<>();
+        underTest = new CourierServiceImpl(fleet, new OrderCourierMatcherMatchedImpl());
+        underTest.registerNotificationDeque(deque);
+        DispatchResult planned = underTest.dispatchRequest(DeliveryOrder.of("order-2", "meal", 20), 2L, NOW);
+        DispatchResult taken = underTest.dispatchRequest(DeliveryOrder.of("order-1", "meal", 2), 1L, NOW);
+        underTest.processCourierDispatchedEvent((CourierDispatchedEvent) deque.poll());
+        timer.advanceTo(NOW + 20000L);
+        deque.clear();
+
+        //when
+        boolean preparedAccepted = underTest.processOrderPrepared(OrderPreparedEvent.of(2L, "order-2", NOW + 20000L));
+        fleet.release(taken.courierId, NOW + 25000L);
+        CourierDispatchedEvent dispatched = (CourierDispatchedEvent) deque.poll();
+        underTest.processCourierDispatchedEvent(dispatched);
+        timer.advanceTo(timer.nextDueTime());
+        CourierArrivedEvent arrived = (CourierArrivedEvent) deque.poll();
+        boolean arrivalAccepted = underTest.processCourierArrived(arrived);
+
+        //then
+        Assertions.assertThat(taken.isDispatched()).isTrue();
+        Assertions.assertThat(planned.isPlanned()).isTrue();
+        Assertions.assertThat(preparedAccepted).isTrue();
+        Assertions.assertThat(dispatched.kitchenReservationId).isEqualTo(2L);
+        Assertions.assertThat(arrived.kitchenReservationId).isEqualTo(2L);
+        Assertions.assertThat(arrivalAccepted).isTrue();
+        OrderPickedUpEvent pickedUp = (OrderPickedUpEvent) deque.poll();
+        Assertions.assertThat(pickedUp).isNotNull();
+        Assertions.assertThat(pickedUp.mealOrderId).isEqualTo(2L);
+        Assertions.assertThat(pickedUp.courierId).isEqualTo(taken.courierId);
+        Assertions.assertThat(deque).isEmpty();
+    }
+}
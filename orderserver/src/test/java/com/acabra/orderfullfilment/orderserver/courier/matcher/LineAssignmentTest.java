@@ -0,0 +1,128 @@
+package com.acabra.orderfullfilment.orderserver.courier.matcher;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+class LineAssignmentTest {
+
+    @Test
+    void mustPairInOrder_givenBalancedSidesAndHighSkipCosts() {
+        //given
+        long[] left = {10, 20, 30};
+        long[] right = {12, 18, 40};
+        long[] skip = {1000, 1000, 1000};
+
+        //when
+        int[] actual = LineAssignment.solve(left, skip, right, skip);
+
+        //then
+        Assertions.assertThat(actual).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void mustLeaveUnassigned_givenSkippingIsCheaper() {
+        //given
+        long[] left = {10, 500};
+        long[] leftSkip = {1000, 5};
+        long[] right = {11};
+        long[] rightSkip = {1000};
+
+        //when
+        int[] actual = LineAssignment.solve(left, leftSkip, right, rightSkip);
+
+        //then
+        Assertions.assertThat(actual).containsExactly(0, LineAssignment.UNASSIGNED);
+    }
+
+    @Test
+    void mustReturnEmpty_givenNoLeftPositions() {
+        //when
+        int[] actual = LineAssignment.solve(new long[0], new long[0], new long[]{1, 2}, new long[]{3, 4});
+
+        //then
+        Assertions.assertThat(actual).isEmpty();
+    }
+
+    @Test
+    void mustMatchTheBruteForceOptimum_givenRandomInstances() {
+        //given
+        Random random = new Random(11L);
+
+        IntStream.range(0, 500).forEach(round -> {
+            long[] left = sortedRandom(random, random.nextInt(5));
+            long[] right = sortedRandom(random, random.nextInt(5));
+            long[] leftSkip = random.longs(left.length, 0, 100).toArray();
+            long[] rightSkip = random.longs(right.length, 0, 100).toArray();
+
+            //when
+            int[] actual = LineAssignment.solve(left, leftSkip, right, rightSkip);
+
+            //then
+            Assertions.assertThat(cost(actual, left, leftSkip, right, rightSkip))
+                    .isEqualTo(bruteForce(0, new boolean[right.length], left, leftSkip, right, rightSkip));
+        });
+    }
+
+    @Test
+    void mustSolveThousandsOfCandidates() {
+        //given
+        Random random = new Random(3L);
+        long[] left = sortedRandom(random, 3000);
+        long[] right = sortedRandom(random, 3000);
+        long[] skip = random.longs(3000, 0, 1000).toArray();
+
+        //when
+        int[] actual = LineAssignment.solve(left, skip, right, skip);
+
+        //then
+        Assertions.assertThat(actual).hasSize(3000);
+        Assertions.assertThat(Arrays.stream(actual).filter(j -> j != LineAssignment.UNASSIGNED).distinct().count())
+                .isEqualTo(Arrays.stream(actual).filter(j -> j != LineAssignment.UNASSIGNED).count());
+    }
+
+    private static long[] sortedRandom(Random random, int size) {
+        return random.longs(size, 0, 1000).sorted().toArray();
+    }
+
+    private static long cost(int[] assigned, long[] left, long[] leftSkip, long[] right, long[] rightSkip) {
+        long cost = 0L;
+        boolean[] used = new boolean[right.length];
+        for (int i = 0; i < assigned.length; i++) {
+            if (assigned[i] == LineAssignment.UNASSIGNED) {
+                cost += leftSkip[i];
+            } else {
+                used[assigned[i]] = true;
+                cost += Math.abs(left[i] - right[assigned[i]]);
+            }
+        }
+        for (int j = 0; j < right.length; j++) {
+            cost += used[j] ? 0L : rightSkip[j];
+        }
+        return cost;
+    }
+
+    private static long bruteForce(int i, boolean[] used, long[] left, long[] leftSkip, long[] right,
+                                   long[] rightSkip) {
+        if (i == left.length) {
+            long cost = 0L;
+            for (int j = 0; j < right.length; j++) {
+                cost += used[j] ? 0L : rightSkip[j];
+            }
+            return cost;
+        }
+        long best = leftSkip[i] + bruteForce(i + 1, used, left, leftSkip, right, rightSkip);
+        for (int j = 0; j < right.length; j++) {
+            if (!used[j]) {
+                used[j] = true;
+                best = Math.min(best, Math.abs(left[i] - right[j])
+                        + bruteForce(i + 1, used, left, leftSkip, right, rightSkip));
+                used[j] = false;
+            }
+        }
+        return best;
+    }
+}
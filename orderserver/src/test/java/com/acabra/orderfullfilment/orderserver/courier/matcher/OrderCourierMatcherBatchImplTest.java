@@ -0,0 +1,185 @@
+package com.acabra.orderfullfilment.orderserver.courier.matcher;
+
+import com.acabra.orderfullfilment.orderserver.core.timer.EventTimer;
+import com.acabra.orderfullfilment.orderserver.event.*;
+import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Supplier;
+
+class OrderCourierMatcherBatchImplTest {
+
+    private static final long WINDOW = 250L;
+    private static final DeliveryOrder ORDER = DeliveryOrder.of("order-id", "some-meal", 3);
+
+    private OrderCourierMatcherBatchImpl underTest;
+    private EventTimer timerMock;
+    private Deque<OutputEvent> deque;
+
+    @BeforeEach
+    public void setup() {
+        timerMock = Mockito.mock(EventTimer.class);
+        Mockito.doReturn(new CompletableFuture<>()).when(timerMock).schedule(Mockito.any(), Mockito.anyLong());
+        deque = new ConcurrentLinkedDeque<>();
+        underTest = new OrderCourierMatcherBatchImpl(timerMock, WINDOW);
+        underTest.registerNotificationDeque(deque);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Mockito.verifyNoMoreInteractions(timerMock);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void mustOpenASingleWindow_givenManyEventsBeforeItCloses() {
+        //given
+        ArgumentCaptor<Supplier<Boolean>> window = ArgumentCaptor.forClass(Supplier.class);
+
+        //when
+        underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(1L, "meal-1", 1000L));
+        underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(7, 2L, 3000L, 1200L));
+        underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(2L, "meal-2", 1100L));
+
+        //then
+        Mockito.verify(timerMock, Mockito.times(1)).schedule(window.capture(), Mockito.eq(WINDOW));
+        Assertions.assertThat(deque).isEmpty();
+        Assertions.assertThat(window.getValue().get()).isTrue();
+        Assertions.assertThat(deque).hasSize(1);
+        OrderPickedUpEvent pickedUp = (OrderPickedUpEvent) deque.poll();
+        Assertions.assertThat(pickedUp.courierId).isEqualTo(7);
+        Assertions.assertThat(pickedUp.mealOrderId).isEqualTo(1L);
+    }
+
+    @Test
+    void mustReportTheWaitUntilTheWindowClosed_givenMealAndCourierArrived() {
+        //given
+        underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(1L, "meal-1", 1000L));
+        underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(7, 1L, 3000L, 1200L));
+
+        //when
+        boolean pending = underTest.matchWindow(1300L);
+
+        //then
+        Mockito.verify(timerMock, Mockito.times(1)).schedule(Mockito.any(), Mockito.eq(WINDOW));
+        Assertions.assertThat(pending).isFalse();
+        OrderPickedUpEvent pickedUp = (OrderPickedUpEvent) deque.poll();
+        Assertions.assertThat(pickedUp).isNotNull();
+        Assertions.assertThat(pickedUp.createdAt).isEqualTo(1300L);
+        Assertions.assertThat(pickedUp.foodWaitTime).isEqualTo(300L);
+        Assertions.assertThat(pickedUp.courierWaitTime).isEqualTo(100L);
+        Assertions.assertThat(deque).isEmpty();
+    }
+
+    @Test
+    void mustHoldTheMealForAnIncomingCourier_givenItArrivesSoonerThanTheOthersWaited() {
+        //given
+        underTest.processCourierDispatchedEvent(CourierDispatchedEvent.of(0L, ORDER, 8, 2L, 1010L));
+        underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(1L, "meal-1", 990L));
+        underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(2L, "meal-2", 1000L));
+        underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(7, 1L, 995L, 995L));
+
+        //when
+        boolean pending = underTest.matchWindow(1000L);
+        OrderPickedUpEvent first = (OrderPickedUpEvent) deque.poll();
+        underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(8, 2L, 1010L, 1010L));
+        boolean pendingAfterArrival = underTest.matchWindow(1010L);
+        OrderPickedUpEvent second = (OrderPickedUpEvent) deque.poll();
+
+        //then
+        Mockito.verify(timerMock, Mockito.times(1)).schedule(Mockito.any(), Mockito.eq(WINDOW));
+        Assertions.assertThat(pending).isTrue();
+        Assertions.assertThat(first.courierId).isEqualTo(7);
+        Assertions.assertThat(first.mealOrderId).isEqualTo(1L);
+        Assertions.assertThat(pendingAfterArrival).isFalse();
+        Assertions.assertThat(second.courierId).isEqualTo(8);
+        Assertions.assertThat(second.mealOrderId).isEqualTo(2L);
+        Assertions.assertThat(second.foodWaitTime).isEqualTo(10L);
+        Assertions.assertThat(deque).isEmpty();
+    }
+
+    @Test
+    void mustNotStarveAnArrivedCourier_givenIncomingCouriersCloserToTheMeal() {
+        //given
+        underTest.processCourierDispatchedEvent(CourierDispatchedEvent.of(0L, ORDER, 8, 2L, 1001L));
+        underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(7, 1L, 400L, 400L));
+        underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(1L, "meal-1", 1000L));
+
+        //when
+        underTest.matchWindow(1000L);
+
+        //then
+        Mockito.verify(timerMock, Mockito.times(1)).schedule(Mockito.any(), Mockito.eq(WINDOW));
+        OrderPickedUpEvent pickedUp = (OrderPickedUpEvent) deque.poll();
+        Assertions.assertThat(pickedUp).isNotNull();
+        Assertions.assertThat(pickedUp.courierId).isEqualTo(7);
+        Assertions.assertThat(pickedUp.courierWaitTime).isEqualTo(600L);
+    }
+
+    @Test
+    void mustReturnTheHeldMeal_givenTheIncomingCourierAWindowLate() {
+        //given
+        underTest.processCourierDispatchedEvent(CourierDispatchedEvent.of(0L, ORDER, 8, 2L, 1010L));
+        underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(1L, "meal-1", 1000L));
+        Assertions.assertThat(underTest.matchWindow(1000L)).isTrue();
+        underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(7, 1L, 3000L, 1500L));
+
+        //when
+        boolean pending = underTest.matchWindow(1010L + WINDOW + 1L);
+        underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(8, 2L, 1010L, 1600L));
+
+        //then
+        Mockito.verify(timerMock, Mockito.times(1)).schedule(Mockito.any(), Mockito.eq(WINDOW));
+        Assertions.assertThat(pending).isFalse();
+        OrderPickedUpEvent pickedUp = (OrderPickedUpEvent) deque.poll();
+        Assertions.assertThat(pickedUp).isNotNull();
+        Assertions.assertThat(pickedUp.courierId).isEqualTo(7);
+        Assertions.assertThat(pickedUp.mealOrderId).isEqualTo(1L);
+        Assertions.assertThat(deque).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void mustAssignTheWindowOnTheSolver_givenTheTimerClosesIt() {
+        //given
+        Deque<Runnable> solver = new ConcurrentLinkedDeque<>();
+        underTest = new OrderCourierMatcherBatchImpl(timerMock, WINDOW, solver::offer);
+        underTest.registerNotificationDeque(deque);
+        ArgumentCaptor<Supplier<Boolean>> window = ArgumentCaptor.forClass(Supplier.class);
+        underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(1L, "meal-1", 1000L));
+        underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(7, 1L, 3000L, 1200L));
+        Mockito.verify(timerMock, Mockito.times(1)).schedule(window.capture(), Mockito.eq(WINDOW));
+
+        //when
+        window.getValue().get();
+        boolean publishedByTheTimer = !deque.isEmpty();
+        solver.poll().run();
+
+        //then
+        Assertions.assertThat(publishedByTheTimer).isFalse();
+        Assertions.assertThat(deque).hasSize(1);
+        Assertions.assertThat(solver).isEmpty();
+    }
+
+    @Test
+    void mustPublishNothing_givenOnlyMealsPrepared() {
+        //given
+        underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(1L, "meal-1", 1000L));
+
+        //when
+        boolean pending = underTest.matchWindow(2000L);
+
+        //then
+        Mockito.verify(timerMock, Mockito.times(1)).schedule(Mockito.any(), Mockito.eq(WINDOW));
+        Assertions.assertThat(pending).isFalse();
+        Assertions.assertThat(deque).isEmpty();
+    }
+}
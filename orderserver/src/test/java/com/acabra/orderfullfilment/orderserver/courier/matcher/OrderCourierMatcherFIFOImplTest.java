@@ -7,7 +7,10 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.util.Deque;
+import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 class OrderCourierMatcherFIFOImplTest {
 
@@ -34,7 +37,7 @@ class OrderCourierMatcherFIFOImplTest {
                 CompletableFuture.delayedExecutor(30, TimeUnit.MILLISECONDS));
 
         //when
-        boolean actual = underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(1, 100, 101));
+        boolean actual = underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(1, 0L, 100, 101));
 
         //then
         OutputEvent outputEvent = completionFuture.get();
@@ -54,7 +57,7 @@ class OrderCourierMatcherFIFOImplTest {
             return queue.poll();
         }, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
         CompletableFuture.runAsync(() ->
-                        underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(1, 100, 101)),
+                        underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(1, 0L, 100, 101)),
                 CompletableFuture.delayedExecutor(30, TimeUnit.MILLISECONDS));
 
         //when
@@ -74,7 +77,7 @@ class OrderCourierMatcherFIFOImplTest {
         CompletableFuture<OutputEvent> completionFuture = CompletableFuture
                 .supplyAsync(queue::poll, CompletableFuture.delayedExecutor(500, TimeUnit.MILLISECONDS));
         CompletableFuture.runAsync(() ->
-                        underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(1, 100, 101)),
+                        underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(1, 0L, 100, 101)),
                 CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
 
         //when
@@ -96,7 +99,7 @@ class OrderCourierMatcherFIFOImplTest {
         CompletableFuture<OutputEvent> completionFuture = CompletableFuture
                 .supplyAsync(queueMock::poll, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
         CompletableFuture.runAsync(() ->
-                underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(1, 100, 101)),
+                underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(1, 0L, 100, 101)),
             CompletableFuture.delayedExecutor(30, TimeUnit.MILLISECONDS));
 
         //when
@@ -107,4 +110,96 @@ class OrderCourierMatcherFIFOImplTest {
         Assertions.assertThat(outputEvent).isNull();
         Assertions.assertThat(actual).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void mustMatchInArrivalOrder_givenMealsWaiting() {
+        //given
+        underTest = new OrderCourierMatcherFIFOImpl(4);
+        Deque<OutputEvent> queue = new ConcurrentLinkedDeque<>();
+        underTest.registerNotificationDeque(queue);
+        IntStream.range(0, 10).forEach(i -> underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(i, "meal-" + i, i)));
+
+        //when
+        IntStream.range(0, 10).forEach(i -> underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(i, i, 100, 100 + i)));
+
+        //then
+        Assertions.assertThat(queue.stream()
+                .map(OrderPickedUpEvent.class::cast)
+                .map(evt -> evt.mealOrderId)
+                .collect(Collectors.toList())).containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+        Assertions.assertThat(underTest.mealsWaiting()).isEqualTo(0);
+        Assertions.assertThat(underTest.couriersWaiting()).isEqualTo(0);
+    }
+
+    @Test
+    public void mustNeverLeaveMealAndCourierWaiting_givenConcurrentArrivals() {
+        //given
+        underTest = new OrderCourierMatcherFIFOImpl(4);
+        Queue<OutputEvent> queue = new ConcurrentLinkedQueue<>();
+        underTest.registerNotificationDeque(queue);
+        int threads = 4;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        //when
+        CompletableFuture.allOf(IntStream.range(0, threads)
+                .mapToObj(t -> CompletableFuture.runAsync(() -> IntStream.range(0, perThread).forEach(i -> {
+                    if (t % 2 == 0) {
+                        underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(i, "meal-id", i));
+                    } else {
+                        underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(i, i, 100, i));
+                    }
+                }), executor))
+                .toArray(CompletableFuture[]::new)).join();
+        executor.shutdown();
+
+        //then
+        Assertions.assertThat(queue).hasSize(threads / 2 * perThread);
+        Assertions.assertThat(underTest.mealsWaiting()).isEqualTo(0);
+        Assertions.assertThat(underTest.couriersWaiting()).isEqualTo(0);
+    }
+
+    @Test
+    public void mustNeverLeaveMealAndCourierWaiting_givenArrivalsMeetingOnTheHandOffSlot() {
+        //given
+        underTest = new OrderCourierMatcherFIFOImpl(1, 1 << 12);
+        Queue<OutputEvent> queue = new ConcurrentLinkedQueue<>();
+        underTest.registerNotificationDeque(queue);
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //when
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> IntStream.range(0, perThread).forEach(i ->
+                        underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(i, "meal-id", i))), executor),
+                CompletableFuture.runAsync(() -> IntStream.range(0, perThread).forEach(i ->
+                        underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(i, i, 100, i))), executor))
+                .join();
+        executor.shutdown();
+
+        //then
+        Assertions.assertThat(queue).hasSize(perThread);
+        Assertions.assertThat(underTest.mealsWaiting()).isEqualTo(0);
+        Assertions.assertThat(underTest.couriersWaiting()).isEqualTo(0);
+    }
+
+    @Test
+    public void mustOnlyLeaveTheSurplusWaiting_givenMoreCouriersThanMeals() {
+        //given
+        underTest = new OrderCourierMatcherFIFOImpl(4);
+        Deque<OutputEvent> queue = new ConcurrentLinkedDeque<>();
+        underTest.registerNotificationDeque(queue);
+        IntStream.range(0, 7).forEach(i -> underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(i, i, 100, 100 + i)));
+
+        //when
+        IntStream.range(0, 5).forEach(i -> underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(i, "meal-" + i, i)));
+
+        //then
+        Assertions.assertThat(queue.stream()
+                .map(OrderPickedUpEvent.class::cast)
+                .map(evt -> evt.courierId)
+                .collect(Collectors.toList())).containsExactly(0, 1, 2, 3, 4);
+        Assertions.assertThat(underTest.mealsWaiting()).isEqualTo(0);
+        Assertions.assertThat(underTest.couriersWaiting()).isEqualTo(2);
+    }
+}
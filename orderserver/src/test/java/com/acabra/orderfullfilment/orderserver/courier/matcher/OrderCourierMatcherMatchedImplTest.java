@@ -4,6 +4,8 @@ import com.acabra.orderfullfilment.orderserver.TestUtils.DispatchMatch;
 
 import com.acabra.orderfullfilment.orderserver.TestUtils;
 import com.acabra.orderfullfilment.orderserver.event.CourierArrivedEvent;
+import com.acabra.orderfullfilment.orderserver.event.CourierDispatchedEvent;
+import com.acabra.orderfullfilment.orderserver.event.OrderPickedUpEvent;
 import com.acabra.orderfullfilment.orderserver.event.OrderPreparedEvent;
 import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
 import org.assertj.core.api.Assertions;
@@ -15,6 +17,9 @@ import org.mockito.Mockito;
 import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
 
 class OrderCourierMatcherMatchedImplTest {
 
@@ -46,7 +51,7 @@ class OrderCourierMatcherMatchedImplTest {
     public void shouldMatchOrder_givenMatchCourierIsWaiting() {
         //given
         OrderPreparedEvent orderWillBeMatched = OrderPreparedEvent.of(10, "", 1000);
-        CourierArrivedEvent courierWaiting = CourierArrivedEvent.of(1, 100, 100);
+        CourierArrivedEvent courierWaiting = CourierArrivedEvent.of(1, 0L, 100, 100);
 
         //register events to matcher
         buildMatchedOrdersAndCouriers().stream()
@@ -63,6 +68,28 @@ class OrderCourierMatcherMatchedImplTest {
         Assertions.assertThat(actual).isTrue();
     }
 
+    @Test
+    public void shouldMatchOrder_givenMealPreparedBeforeThePlannedCourierDispatched() {
+        //given
+        Queue<OutputEvent> deque = new ArrayDeque<>();
+        underTest.registerNotificationDeque(deque);
+        underTest.processCourierDispatchPlanned(10L);
+        boolean prepared = underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(10L, "", 1000L));
+        underTest.processCourierDispatchedEvent(CourierDispatchedEvent.of(1000L, null, 3, 10L, 1000L));
+
+        //when
+        boolean arrived = underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(3, 10L, 100L, 1500L));
+
+        //then
+        Assertions.assertThat(prepared).isTrue();
+        Assertions.assertThat(arrived).isTrue();
+        OrderPickedUpEvent pickedUp = (OrderPickedUpEvent) deque.poll();
+        Assertions.assertThat(pickedUp).isNotNull();
+        Assertions.assertThat(pickedUp.courierId).isEqualTo(3);
+        Assertions.assertThat(pickedUp.mealOrderId).isEqualTo(10L);
+        Assertions.assertThat(pickedUp.foodWaitTime).isEqualTo(500L);
+    }
+
     @Test
     public void shouldFail_givenExceptionThrownUnrecognizedOrder() {
         //given
@@ -78,7 +105,7 @@ class OrderCourierMatcherMatchedImplTest {
     @Test
     public void shouldNotMatchCourier_givenMatchOrderNotPresent() {
         //given
-        CourierArrivedEvent courierWillWait = CourierArrivedEvent.of(1, 100, 100);
+        CourierArrivedEvent courierWillWait = CourierArrivedEvent.of(1, 0L, 100, 100);
 
         //register events to matcher
         buildMatchedOrdersAndCouriers().stream()
@@ -95,7 +122,7 @@ class OrderCourierMatcherMatchedImplTest {
     @Test
     public void shouldMatchCourier_givenMatchOrderIsWaiting() {
         //given
-        CourierArrivedEvent courierWillBeMatched = CourierArrivedEvent.of(1, 100, 100);
+        CourierArrivedEvent courierWillBeMatched = CourierArrivedEvent.of(1, 0L, 100, 100);
         OrderPreparedEvent orderWaiting = OrderPreparedEvent.of(10, "", 0);
 
         //register events to matcher
@@ -116,7 +143,7 @@ class OrderCourierMatcherMatchedImplTest {
     @Test
     public void shouldFail_givenExceptionThrownUnrecognizedCourier() {
         //given
-        CourierArrivedEvent unrecognizedCourier = CourierArrivedEvent.of(10, 0, 0);
+        CourierArrivedEvent unrecognizedCourier = CourierArrivedEvent.of(10, 0L, 0, 0);
 
         //when
         boolean actual = underTest.acceptCourierArrivedEvent(unrecognizedCourier);
@@ -130,7 +157,7 @@ class OrderCourierMatcherMatchedImplTest {
     public void shouldFailPublication_givenMatchCourierNotPresent() {
         //given
         OrderPreparedEvent orderWillBeMatched = OrderPreparedEvent.of(10, "", 1000);
-        CourierArrivedEvent courierWaiting = CourierArrivedEvent.of(1, 100, 100);
+        CourierArrivedEvent courierWaiting = CourierArrivedEvent.of(1, 0L, 100, 100);
 
         //register events to matcher
         buildMatchedOrdersAndCouriers().stream()
@@ -151,6 +178,77 @@ class OrderCourierMatcherMatchedImplTest {
         Assertions.assertThat(actual).isTrue();
     }
 
+    @Test
+    public void shouldRejectEvent_givenReservationAlreadyMatched() {
+        //given
+        OrderPreparedEvent orderEvt = OrderPreparedEvent.of(10, "", 1000);
+        CourierArrivedEvent courierEvt = CourierArrivedEvent.of(1, 10L, 100, 100);
+        Queue<OutputEvent> deque = new ConcurrentLinkedQueue<>();
+        underTest.registerNotificationDeque(deque);
+        buildMatchedOrdersAndCouriers().stream()
+                .map(TestUtils::buildDispatchEvent)
+                .forEach(underTest::processCourierDispatchedEvent);
+        underTest.acceptOrderPreparedEvent(orderEvt);
+
+        //when
+        boolean duplicated = underTest.acceptOrderPreparedEvent(orderEvt);
+        boolean matched = underTest.acceptCourierArrivedEvent(courierEvt);
+        boolean afterMatch = underTest.acceptCourierArrivedEvent(courierEvt);
+
+        //then
+        Assertions.assertThat(duplicated).isFalse();
+        Assertions.assertThat(matched).isTrue();
+        Assertions.assertThat(afterMatch).isFalse();
+        Assertions.assertThat(deque).hasSize(1);
+    }
+
+    @Test
+    public void shouldPickUpEveryOrder_givenACourierCarryingSeveralOrders() {
+        //given
+        Queue<OutputEvent> deque = new ConcurrentLinkedQueue<>();
+        underTest.registerNotificationDeque(deque);
+        underTest.processCourierDispatchedEvent(CourierDispatchedEvent.of(1000, null, 3, 20L, 1000));
+        underTest.processCourierDispatchedEvent(CourierDispatchedEvent.of(1200, null, 3, 21L, 800));
+        underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(20L, "", 1500));
+        underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(21L, "", 1900));
+
+        //when
+        boolean first = underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(3, 21L, 800, 2000));
+        boolean second = underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(3, 20L, 1000, 2000));
+
+        //then
+        Assertions.assertThat(first).isTrue();
+        Assertions.assertThat(second).isTrue();
+        Assertions.assertThat(deque).hasSize(2);
+        Assertions.assertThat(deque.stream().map(e -> ((OrderPickedUpEvent) e).mealOrderId))
+                .containsExactly(21L, 20L);
+    }
+
+    @Test
+    public void shouldPublishOnePickupPerReservation_givenConcurrentArrivals() {
+        //given
+        int total = 2000;
+        Queue<OutputEvent> deque = new ConcurrentLinkedQueue<>();
+        underTest.registerNotificationDeque(deque);
+        IntStream.range(0, total)
+                .mapToObj(i -> DispatchMatch.builder().withCourier(i).withOrder(1000L + i).build())
+                .map(TestUtils::buildDispatchEvent)
+                .forEach(underTest::processCourierDispatchedEvent);
+
+        //when
+        CompletableFuture<Void> orders = CompletableFuture.runAsync(() -> IntStream.range(0, total)
+                .forEach(i -> underTest.acceptOrderPreparedEvent(OrderPreparedEvent.of(1000L + i, "", 500))));
+        CompletableFuture<Void> couriers = CompletableFuture.runAsync(() -> IntStream.range(0, total)
+                .forEach(i -> underTest.acceptCourierArrivedEvent(CourierArrivedEvent.of(i, 1000L + i, 100, 600))));
+        CompletableFuture.allOf(orders, couriers).join();
+
+        //then
+        Assertions.assertThat(deque).hasSize(total);
+        Assertions.assertThat(deque.stream()
+                .map(OrderPickedUpEvent.class::cast)
+                .allMatch(evt -> evt.mealOrderId == 1000L + evt.courierId)).isTrue();
+    }
+
     private List<DispatchMatch> buildMatchedOrdersAndCouriers() {
         return List.of(DispatchMatch.builder().withCourier(1).withOrder(10).build(),
                 DispatchMatch.builder().withCourier(2).withOrder(20).build(),
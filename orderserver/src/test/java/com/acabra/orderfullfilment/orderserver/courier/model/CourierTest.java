@@ -86,4 +86,43 @@ class CourierTest {
                 .isExactlyInstanceOf(IllegalStateException.class)
                 .hasMessageContaining("is already dispatched");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldCarryOrdersUpToItsCapacity() {
+        //given
+        Courier underTest = Courier.of(1, "name", null, null, 2);
+        underTest.assignDefaultCapacity(5);
+        underTest.dispatch();
+
+        //when
+        boolean second = underTest.tryLoad();
+        boolean third = underTest.tryLoad();
+
+        //then
+        Assertions.assertThat(underTest.getCapacity()).isEqualTo(2);
+        Assertions.assertThat(second).isTrue();
+        Assertions.assertThat(third).isFalse();
+        Assertions.assertThat(underTest.getLoad()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldBeAvailableAfterTheLastDelivery_givenSeveralOrdersCarried() {
+        //given
+        Courier underTest = Courier.ofAvailable(1, "name");
+        underTest.assignDefaultCapacity(3);
+        underTest.dispatch();
+        underTest.tryLoad();
+
+        //when
+        boolean firstDelivery = underTest.orderDelivered();
+        boolean joinedWhileDelivering = underTest.tryLoad();
+        boolean lastDelivery = underTest.orderDelivered();
+
+        //then
+        Assertions.assertThat(firstDelivery).isFalse();
+        Assertions.assertThat(joinedWhileDelivering).isFalse();
+        Assertions.assertThat(lastDelivery).isTrue();
+        Assertions.assertThat(underTest.isAvailable()).isTrue();
+        Assertions.assertThat(underTest.getLoad()).isEqualTo(0);
+    }
+}
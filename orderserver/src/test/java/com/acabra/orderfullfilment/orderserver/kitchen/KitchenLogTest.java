@@ -0,0 +1,181 @@
+package com.acabra.orderfullfilment.orderserver.kitchen;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class KitchenLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void mustReadEntriesSortedByTimestamp_givenConcurrentAppends() {
+        //given
+        KitchenLog underTest = new KitchenLog(1 << 20, directory, 1L << 20, 4, true);
+        int producers = 4;
+        int perProducer = 2000;
+
+        //when
+        CompletableFuture.allOf(IntStream.range(0, producers)
+                .mapToObj(p -> CompletableFuture.runAsync(() -> IntStream.range(0, perProducer)
+                        .forEach(i -> underTest.append(perProducer - i, "producer " + p + " message " + i))))
+                .toArray(CompletableFuture[]::new)).join();
+        List<KitchenLog.LogEntry> entries = underTest.readEntries();
+
+        //then
+        Assertions.assertThat(underTest.dropped()).isEqualTo(0L);
+        Assertions.assertThat(entries).hasSize(producers * perProducer);
+        Assertions.assertThat(entries.stream().map(e -> e.timeStamp).collect(Collectors.toList())).isSorted();
+        Assertions.assertThat(entries.get(0).render()).endsWith("message " + (perProducer - 1));
+    }
+
+    @Test
+    public void mustDropRecords_givenTheRingIsFull() {
+        //given
+        KitchenLog underTest = new KitchenLog(1 << 10, directory, 1L << 20, 4, false);
+        String message = "a message taking 104 bytes of the ring bu"; //20 header bytes + 41 chars * 2, aligned to 8
+
+        //when
+        IntStream.range(0, 20).forEach(i -> underTest.append(i, message));
+
+        //then
+        Assertions.assertThat(underTest.dropped()).isEqualTo(11L); //1024 bytes fit 9 records of 104 bytes
+        Assertions.assertThat(underTest.drain()).isEqualTo(9);
+        underTest.append(100L, message);
+        Assertions.assertThat(underTest.readEntries()).hasSize(10);
+    }
+
+    @Test
+    public void mustRollFilesAndKeepTheNewest_givenMaxFileSizeReached() throws IOException {
+        //given
+        KitchenLog underTest = new KitchenLog(1 << 12, directory, 1000L, 2, false);
+
+        //when
+        for (int i = 0; i < 100; i++) {
+            underTest.append(i, "message " + i);
+            underTest.drain();
+        }
+        List<KitchenLog.LogEntry> entries = underTest.readEntries();
+
+        //then
+        try (var files = Files.list(directory)) {
+            Assertions.assertThat(files.count()).isEqualTo(2L);
+        }
+        Assertions.assertThat(entries.size()).isLessThan(100);
+        Assertions.assertThat(entries.size() + underTest.rolledOff()).isEqualTo(100L);
+        Assertions.assertThat(entries.get(entries.size() - 1).render()).isEqualTo("message 99");
+    }
+
+    @Test
+    public void mustStopTheWriterAndKeepTheRecords_givenShutdown() {
+        //given
+        KitchenLog underTest = new KitchenLog(1 << 12, directory, 1L << 20, 4, true);
+        underTest.append(1L, "before shutdown");
+
+        //when
+        underTest.shutdown();
+        underTest.shutdown();
+        underTest.append(2L, "after shutdown");
+
+        //then
+        Assertions.assertThat(underTest.isWriterAlive()).isFalse();
+        Assertions.assertThat(underTest.readEntries()).extracting(KitchenLog.LogEntry::render)
+                .containsExactly("before shutdown", "after shutdown");
+    }
+
+    @Test
+    public void mustDeleteTheFilesAndTheirDirectories_givenTheLogPrinted() {
+        //given
+        Path first = directory.resolve("first");
+        Path second = directory.resolve("second");
+        KitchenLog underTest = new KitchenLog(1 << 12, first, 1L << 20, 4, false);
+        underTest.append(1L, "first directory");
+        underTest.drain();
+
+        //when
+        underTest.useDirectory(second);
+        underTest.append(2L, "second directory");
+        List<KitchenLog.LogEntry> entries = underTest.readEntries();
+        boolean bothWritten = Files.isDirectory(first) && Files.isDirectory(second);
+        underTest.printLog();
+
+        //then
+        Assertions.assertThat(entries).extracting(KitchenLog.LogEntry::render)
+                .containsExactly("first directory", "second directory");
+        Assertions.assertThat(bothWritten).isTrue();
+        Assertions.assertThat(first).doesNotExist();
+        Assertions.assertThat(second).doesNotExist();
+        Assertions.assertThat(underTest.readEntries()).isEmpty();
+    }
+
+    @Test
+    public void mustWrapAroundTheRing_givenRecordsDoNotFitAtTheEnd() {
+        //given
+        KitchenLog underTest = new KitchenLog(1 << 10, directory, 1L << 20, 4, false);
+
+        //when
+        for (int i = 0; i < 50; i++) {
+            underTest.append(i, "wrapping message number " + i);
+            underTest.drain();
+        }
+
+        //then
+        List<KitchenLog.LogEntry> entries = underTest.readEntries();
+        Assertions.assertThat(entries).hasSize(50);
+        Assertions.assertThat(entries.get(49).render()).isEqualTo("wrapping message number 49");
+        Assertions.assertThat(underTest.dropped()).isEqualTo(0L);
+    }
+
+    @Test
+    public void mustRenderStructuredRecords_givenTemplatesAndArguments() {
+        //given
+        KitchenLog underTest = new KitchenLog(1 << 10, directory, 1L << 20, 4, false);
+
+        //when
+        underTest.append(LogTemplate.ORDER_RECEIVED, 1L, 7L, 250L, "Cheese Pizza");
+        underTest.append(LogTemplate.ORDER_PICKED_UP, 2L, 7L, 3L);
+        underTest.append(LogTemplate.AVERAGE_METRICS, 3L, Double.doubleToLongBits(1.5d),
+                Double.doubleToLongBits(2.25d), 10L, 9L);
+        underTest.append(LogTemplate.SHUTDOWN, 4L);
+        underTest.drain();
+
+        //then
+        List<String> actual = underTest.readEntries().stream()
+                .map(KitchenLog.LogEntry::render)
+                .collect(Collectors.toList());
+        Assertions.assertThat(actual).containsExactly(
+                "[EVENT] order received: orderId[7] prepTime:[250]ms name:Cheese Pizza",
+                "[EVENT] order picked up: orderId[7] courierId[3]",
+                String.format("[METRICS] Avg. Food Wait Time: [%.4f]ms, Avg Courier Wait Time [%.4f]ms, " +
+                        "Total Orders Received 10, Total Orders Delivered 9", 1.5d, 2.25d),
+                "[SYSTEM] queue processing shutting down, no orders remaining");
+    }
+
+    @Test
+    public void formatTo_mustMatchTheDateTimeFormatter_givenEpochsWithinAndAcrossSeconds() {
+        //given
+        DateTimeFormatter expected = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+        long[] epochs = {1_600_000_000_123L, 1_600_000_000_007L, 1_600_000_001_050L, 1_600_000_000_999L};
+
+        for (long epoch : epochs) {
+            //when
+            String actual = KitchenClock.formatTo(new StringBuilder(), epoch).toString();
+
+            //then
+            Assertions.assertThat(actual).isEqualTo(LocalDateTime
+                    .ofInstant(Instant.ofEpochMilli(epoch), KitchenClock.UTC_PLUS_2).format(expected));
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.acabra.orderfullfilment.orderserver.kitchen;
 
 import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
+import com.acabra.orderfullfilment.orderserver.core.timer.EmulationMode;
+import com.acabra.orderfullfilment.orderserver.core.timer.HashedTimerWheel;
+import com.acabra.orderfullfilment.orderserver.core.timer.VirtualTimeScheduler;
 import com.acabra.orderfullfilment.orderserver.event.OrderPreparedEvent;
 import com.acabra.orderfullfilment.orderserver.event.OutputEvent;
 import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
@@ -68,6 +71,24 @@ class KitchenServiceImplTest {
         Assertions.assertThat(underTest.isKitchenIdle()).isTrue();
     }
 
+    @Test
+    void mustReleaseReservationOnce_givenMealPickedUp() {
+        //given
+        long reservationId = underTest.provideReservationId(deliveryStub);
+        int inFlightBefore = underTest.reservationsInFlight();
+
+        //when
+        boolean released = underTest.releaseReservation(reservationId);
+        boolean releasedAgain = underTest.releaseReservation(reservationId);
+
+        //then
+        Assertions.assertThat(inFlightBefore).isEqualTo(1);
+        Assertions.assertThat(released).isTrue();
+        Assertions.assertThat(releasedAgain).isFalse();
+        Assertions.assertThat(underTest.reservationsInFlight()).isEqualTo(0);
+        Assertions.assertThat(underTest.prepareMeal(reservationId, NOW)).isCompletedExceptionally();
+    }
+
     @Test
     void mustFailPrepareMeal_invalidReservationId() {
         //given
@@ -144,6 +165,31 @@ class KitchenServiceImplTest {
         Assertions.assertThat(underTest.isKitchenIdle()).isTrue();
     }
 
+    @Test
+    void notificationReleasedWhenDue_givenRealTimeEmulation() {
+        //given
+        HashedTimerWheel timer = new HashedTimerWheel();
+        KitchenService realTimeKitchen = new KitchenServiceImpl(timer, EmulationMode.REAL_TIME);
+        Deque<OutputEvent> deque = new ConcurrentLinkedDeque<>();
+        realTimeKitchen.registerNotificationDeque(deque);
+        DeliveryOrder quickOrder = DeliveryOrder.of("id-quick-order", "water", 1);
+        long reservationId = realTimeKitchen.provideReservationId(quickOrder);
+        long start = KitchenClock.now();
+
+        //when
+        CompletableFuture<Boolean> cookHandle = realTimeKitchen.prepareMeal(reservationId, start);
+        Assertions.assertThat(deque.isEmpty()).isTrue();
+        Boolean result = cookHandle.join();
+        timer.shutdown();
+
+        //then
+        Assertions.assertThat(result).isTrue();
+        OrderPreparedEvent event = (OrderPreparedEvent) deque.poll();
+        Assertions.assertThat(event).isNotNull();
+        Assertions.assertThat(event.createdAt).isGreaterThanOrEqualTo(start + quickOrder.prepTime);
+        Assertions.assertThat(realTimeKitchen.isKitchenIdle()).isTrue();
+    }
+
     @Test
     void notificationMissedAfterPrepareMeal_noQueueAvailableForNotification() throws ExecutionException, InterruptedException {
         //given
@@ -160,4 +206,63 @@ class KitchenServiceImplTest {
         Assertions.assertThat(cookHandle.isCompletedExceptionally()).isFalse();
         Assertions.assertThat(underTest.isKitchenIdle()).isTrue();
     }
-}
\ No newline at end of file
+
+    @Test
+    void mustCookQueuedMealOnceStationFrees_givenOneCookStation() {
+        //given
+        VirtualTimeScheduler timer = new VirtualTimeScheduler(new VirtualClock(NOW));
+        KitchenService kitchen = new KitchenServiceImpl(timer, EmulationMode.SCHEDULED,
+                PrepScheduler.of(1, "", OrderServerConfig.PREP_ORDER_FIFO));
+        Deque<OutputEvent> deque = new ConcurrentLinkedDeque<>();
+        kitchen.registerNotificationDeque(deque);
+        long firstId = kitchen.provideReservationId(deliveryStub);
+        long secondId = kitchen.provideReservationId(deliveryStub);
+
+        //when
+        CompletableFuture<Boolean> firstHandle = kitchen.prepareMeal(firstId, NOW, Long.MAX_VALUE);
+        CompletableFuture<Boolean> secondHandle = kitchen.prepareMeal(secondId, NOW, Long.MAX_VALUE);
+        long underPreparation = kitchen.mealsUnderPreparation();
+        long waiting = kitchen.mealsWaitingForStation();
+        timer.advanceTo(timer.nextDueTime());
+        long waitingAfterFirst = kitchen.mealsWaitingForStation();
+        timer.advanceTo(timer.nextDueTime());
+
+        //then
+        Assertions.assertThat(underPreparation).isEqualTo(1L);
+        Assertions.assertThat(waiting).isEqualTo(1L);
+        Assertions.assertThat(waitingAfterFirst).isEqualTo(0L);
+        Assertions.assertThat(firstHandle.join()).isTrue();
+        Assertions.assertThat(secondHandle.join()).isTrue();
+        OrderPreparedEvent first = (OrderPreparedEvent) deque.poll();
+        OrderPreparedEvent second = (OrderPreparedEvent) deque.poll();
+        Assertions.assertThat(first).isNotNull();
+        Assertions.assertThat(first.createdAt).isEqualTo(NOW + deliveryStub.prepTime);
+        Assertions.assertThat(second).isNotNull();
+        Assertions.assertThat(second.createdAt).isEqualTo(NOW + 2 * deliveryStub.prepTime);
+        Assertions.assertThat(kitchen.isKitchenIdle()).isTrue();
+    }
+
+    @Test
+    void mustNotCookQueuedMeal_givenReservationCancelledWhileWaiting() {
+        //given
+        VirtualTimeScheduler timer = new VirtualTimeScheduler(new VirtualClock(NOW));
+        KitchenService kitchen = new KitchenServiceImpl(timer, EmulationMode.SCHEDULED,
+                PrepScheduler.of(1, "", OrderServerConfig.PREP_ORDER_FIFO));
+        Deque<OutputEvent> deque = new ConcurrentLinkedDeque<>();
+        kitchen.registerNotificationDeque(deque);
+        long firstId = kitchen.provideReservationId(deliveryStub);
+        long secondId = kitchen.provideReservationId(deliveryStub);
+        kitchen.prepareMeal(firstId, NOW, Long.MAX_VALUE);
+        CompletableFuture<Boolean> secondHandle = kitchen.prepareMeal(secondId, NOW, Long.MAX_VALUE);
+
+        //when
+        kitchen.cancelCookReservation(secondId);
+        timer.advanceTo(timer.nextDueTime());
+
+        //then
+        Assertions.assertThat(secondHandle.join()).isFalse();
+        Assertions.assertThat(deque).hasSize(1);
+        Assertions.assertThat(timer.pendingTasks()).isEqualTo(0);
+        Assertions.assertThat(kitchen.isKitchenIdle()).isTrue();
+    }
+}
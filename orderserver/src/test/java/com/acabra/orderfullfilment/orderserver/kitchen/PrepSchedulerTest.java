@@ -0,0 +1,186 @@
+package com.acabra.orderfullfilment.orderserver.kitchen;
+
+import com.acabra.orderfullfilment.orderserver.config.OrderServerConfig;
+import com.acabra.orderfullfilment.orderserver.model.DeliveryOrder;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PrepSchedulerTest {
+
+    private static final long NOW = 190900000L;
+    private final DeliveryOrder longOrder = DeliveryOrder.of("id-long", "banana-split", 9);
+    private final DeliveryOrder shortOrder = DeliveryOrder.of("id-short", "ice-cream", 2);
+    private final DeliveryOrder middleOrder = DeliveryOrder.of("id-middle", "pancakes", 5);
+
+    @Test
+    void mustQueueMeal_givenEveryStationBusy() {
+        //given
+        PrepScheduler underTest = PrepScheduler.of(1, "", OrderServerConfig.PREP_ORDER_FIFO);
+        PrepScheduler.Meal first = underTest.request(0L, longOrder, NOW, Long.MAX_VALUE);
+
+        //when
+        PrepScheduler.Meal second = underTest.request(1L, shortOrder, NOW + 1000L, Long.MAX_VALUE);
+        long waiting = underTest.waiting();
+        PrepScheduler.Meal next = underTest.next(first, first.readyAt());
+
+        //then
+        Assertions.assertThat(first.isQueued()).isFalse();
+        Assertions.assertThat(first.startAt()).isEqualTo(NOW);
+        Assertions.assertThat(second.isQueued()).isTrue();
+        Assertions.assertThat(waiting).isEqualTo(1L);
+        Assertions.assertThat(next).isSameAs(second);
+        Assertions.assertThat(next.startAt()).isEqualTo(NOW + longOrder.prepTime);
+        Assertions.assertThat(underTest.waiting()).isEqualTo(0L);
+    }
+
+    @Test
+    void mustStartMealWhenStationFrees_givenStationFreedAfterTheRequest() {
+        //given
+        PrepScheduler underTest = PrepScheduler.of(1, "", OrderServerConfig.PREP_ORDER_FIFO);
+        PrepScheduler.Meal first = underTest.request(0L, longOrder, NOW, Long.MAX_VALUE);
+        Assertions.assertThat(underTest.next(first, first.readyAt())).isNull();
+
+        //when
+        PrepScheduler.Meal second = underTest.request(1L, shortOrder, NOW + 1000L, Long.MAX_VALUE);
+
+        //then
+        Assertions.assertThat(second.isQueued()).isFalse();
+        Assertions.assertThat(second.startAt()).isEqualTo(first.readyAt());
+    }
+
+    @Test
+    void mustServeShortestPreparationFirst_givenShortestPrepOrder() {
+        //given
+        PrepScheduler underTest = PrepScheduler.of(1, "", OrderServerConfig.PREP_ORDER_SHORTEST_PREP);
+        PrepScheduler.Meal cooking = underTest.request(0L, longOrder, NOW, Long.MAX_VALUE);
+        PrepScheduler.Meal middle = underTest.request(1L, middleOrder, NOW, Long.MAX_VALUE);
+        PrepScheduler.Meal quick = underTest.request(2L, shortOrder, NOW, Long.MAX_VALUE);
+
+        //when
+        PrepScheduler.Meal first = underTest.next(cooking, cooking.readyAt());
+        PrepScheduler.Meal second = underTest.next(first, first.readyAt());
+
+        //then
+        Assertions.assertThat(first).isSameAs(quick);
+        Assertions.assertThat(second).isSameAs(middle);
+        Assertions.assertThat(second.startAt()).isEqualTo(NOW + longOrder.prepTime + shortOrder.prepTime);
+    }
+
+    @Test
+    void mustServeShortestPreparationFirst_givenNoPrepOrder() {
+        //given
+        PrepScheduler underTest = PrepScheduler.of(1, "", null);
+        PrepScheduler.Meal cooking = underTest.request(0L, longOrder, NOW, Long.MAX_VALUE);
+        underTest.request(1L, middleOrder, NOW, Long.MAX_VALUE);
+        PrepScheduler.Meal quick = underTest.request(2L, shortOrder, NOW, Long.MAX_VALUE);
+
+        //when
+        PrepScheduler.Meal first = underTest.next(cooking, cooking.readyAt());
+
+        //then
+        Assertions.assertThat(first).isSameAs(quick);
+    }
+
+    @Test
+    void mustExpectTheMealReadyAfterTheMealsQueuedAhead_givenEveryStationBusy() {
+        //given
+        PrepScheduler underTest = PrepScheduler.of(2, "", OrderServerConfig.PREP_ORDER_SHORTEST_PREP);
+        long expectedWhileFree = underTest.expectedReadyAt(middleOrder, NOW);
+        underTest.request(0L, longOrder, NOW, Long.MAX_VALUE);
+        PrepScheduler.Meal cooking = underTest.request(1L, shortOrder, NOW, Long.MAX_VALUE);
+        underTest.request(2L, middleOrder, NOW, Long.MAX_VALUE);
+        underTest.request(3L, longOrder, NOW, Long.MAX_VALUE);
+
+        //when
+        long expectedMiddle = underTest.expectedReadyAt(middleOrder, NOW + 1000L);
+        long expectedShort = underTest.expectedReadyAt(shortOrder, NOW + 1000L);
+        PrepScheduler.Meal next = underTest.next(cooking, cooking.readyAt());
+
+        //then
+        Assertions.assertThat(expectedWhileFree).isEqualTo(NOW + middleOrder.prepTime);
+        //the middle meal queued ahead starts as the short one is ready, its station frees up first again
+        Assertions.assertThat(expectedMiddle).isEqualTo(NOW + shortOrder.prepTime + 2 * middleOrder.prepTime);
+        //the short meal goes ahead of every queued meal
+        Assertions.assertThat(expectedShort).isEqualTo(NOW + shortOrder.prepTime + shortOrder.prepTime);
+        Assertions.assertThat(next.readyAt()).isEqualTo(NOW + shortOrder.prepTime + middleOrder.prepTime);
+    }
+
+    @Test
+    void mustServeMostUrgentCourierFirst_givenCourierEtaOrder() {
+        //given
+        PrepScheduler underTest = PrepScheduler.of(1, "", OrderServerConfig.PREP_ORDER_COURIER_ETA);
+        PrepScheduler.Meal cooking = underTest.request(0L, longOrder, NOW, Long.MAX_VALUE);
+        //must start by NOW + 10s to be ready for its courier
+        PrepScheduler.Meal relaxed = underTest.request(1L, shortOrder, NOW, NOW + 12000L);
+        //must start by NOW + 5s to be ready for its courier
+        PrepScheduler.Meal urgent = underTest.request(2L, middleOrder, NOW, NOW + 10000L);
+        PrepScheduler.Meal unknown = underTest.request(3L, shortOrder, NOW, Long.MAX_VALUE);
+
+        //when
+        PrepScheduler.Meal first = underTest.next(cooking, cooking.readyAt());
+        PrepScheduler.Meal second = underTest.next(first, first.readyAt());
+        PrepScheduler.Meal third = underTest.next(second, second.readyAt());
+
+        //then
+        Assertions.assertThat(first).isSameAs(urgent);
+        Assertions.assertThat(second).isSameAs(relaxed);
+        Assertions.assertThat(third).isSameAs(unknown);
+    }
+
+    @Test
+    void mustCookOnTheStationsOfTheDish_givenStationsByDish() {
+        //given
+        PrepScheduler underTest = PrepScheduler.of(1, "Burger:2, other:0", OrderServerConfig.PREP_ORDER_FIFO);
+        DeliveryOrder burger = DeliveryOrder.of("id-burger", "Burger", 5);
+        DeliveryOrder pizza = DeliveryOrder.of("id-pizza", "Cheese Pizza", 2);
+
+        //when
+        PrepScheduler.Meal firstBurger = underTest.request(0L, burger, NOW, Long.MAX_VALUE);
+        PrepScheduler.Meal secondBurger = underTest.request(1L, burger, NOW, Long.MAX_VALUE);
+        PrepScheduler.Meal thirdBurger = underTest.request(2L, burger, NOW, Long.MAX_VALUE);
+        PrepScheduler.Meal firstPizza = underTest.request(3L, pizza, NOW, Long.MAX_VALUE);
+        PrepScheduler.Meal secondPizza = underTest.request(4L, pizza, NOW, Long.MAX_VALUE);
+        PrepScheduler.Meal other = underTest.request(5L, longOrder, NOW, Long.MAX_VALUE);
+        PrepScheduler.Meal anotherOther = underTest.request(6L, longOrder, NOW, Long.MAX_VALUE);
+
+        //then
+        Assertions.assertThat(firstBurger.isQueued()).isFalse();
+        Assertions.assertThat(secondBurger.isQueued()).isFalse();
+        Assertions.assertThat(thirdBurger.isQueued()).isTrue();
+        Assertions.assertThat(firstPizza.isQueued()).isFalse();
+        Assertions.assertThat(secondPizza.isQueued()).isTrue();
+        Assertions.assertThat(other.isQueued()).isFalse();
+        Assertions.assertThat(anotherOther.isQueued()).isFalse();
+        Assertions.assertThat(underTest.waiting()).isEqualTo(2L);
+    }
+
+    @Test
+    void mustStartEveryMealRightAway_givenUnlimitedStations() {
+        //given
+        PrepScheduler underTest = PrepScheduler.unlimited();
+
+        //when
+        PrepScheduler.Meal first = underTest.request(0L, longOrder, NOW, Long.MAX_VALUE);
+        PrepScheduler.Meal second = underTest.request(1L, longOrder, NOW + 5L, Long.MAX_VALUE);
+
+        //then
+        Assertions.assertThat(first.startAt()).isEqualTo(NOW);
+        Assertions.assertThat(second.startAt()).isEqualTo(NOW + 5L);
+        Assertions.assertThat(underTest.next(first, first.readyAt())).isNull();
+        Assertions.assertThat(underTest.waiting()).isEqualTo(0L);
+    }
+
+    @Test
+    void mustFail_givenInvalidConfiguration() {
+        Assertions.assertThatThrownBy(() -> PrepScheduler.of(1, "Lasagna:2", OrderServerConfig.PREP_ORDER_FIFO))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Lasagna");
+        Assertions.assertThatThrownBy(() -> PrepScheduler.of(1, "Burger", OrderServerConfig.PREP_ORDER_FIFO))
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(() -> PrepScheduler.of(1, "Burger:-1", OrderServerConfig.PREP_ORDER_FIFO))
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(() -> PrepScheduler.of(1, "", "random"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("random");
+    }
+}
@@ -0,0 +1,114 @@
+package com.acabra.orderfullfilment.orderserver.kitchen;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class ReservationTableTest {
+
+    @Test
+    public void mustHandOutIncreasingIds_andFindTheirValues() {
+        //given
+        ReservationTable<String> underTest = new ReservationTable<>();
+
+        //when
+        long first = underTest.reserve("first");
+        long second = underTest.reserve("second");
+
+        //then
+        Assertions.assertThat(second).isEqualTo(first + 1);
+        Assertions.assertThat(underTest.get(first)).isEqualTo("first");
+        Assertions.assertThat(underTest.get(second)).isEqualTo("second");
+        Assertions.assertThat(underTest.get(second + 1)).isNull();
+        Assertions.assertThat(underTest.inFlight()).isEqualTo(2);
+    }
+
+    @Test
+    public void mustReleaseOnce() {
+        //given
+        ReservationTable<String> underTest = new ReservationTable<>();
+        long id = underTest.reserve("value");
+
+        //when
+        String released = underTest.release(id);
+        String releasedAgain = underTest.release(id);
+
+        //then
+        Assertions.assertThat(released).isEqualTo("value");
+        Assertions.assertThat(releasedAgain).isNull();
+        Assertions.assertThat(underTest.get(id)).isNull();
+        Assertions.assertThat(underTest.inFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void mustDropSegments_givenEveryReservationReleased() {
+        //given
+        ReservationTable<Long> underTest = new ReservationTable<>();
+        int window = 3 * ReservationTable.SEGMENT_SIZE;
+        Deque<Long> inFlight = new ArrayDeque<>();
+
+        //when
+        for (long i = 0; i < 200L * ReservationTable.SEGMENT_SIZE; i++) {
+            inFlight.offer(underTest.reserve(i));
+            if (inFlight.size() > window) {
+                long id = inFlight.poll();
+                Assertions.assertThat(underTest.release(id)).isEqualTo(id);
+            }
+        }
+
+        //then
+        Assertions.assertThat(underTest.inFlight()).isEqualTo(window);
+        Assertions.assertThat(underTest.segments()).isLessThanOrEqualTo(4);
+        inFlight.forEach(id -> Assertions.assertThat(underTest.get(id)).isEqualTo(id));
+    }
+
+    @Test
+    public void mustGrowTheDirectory_givenOldReservationsStillInFlight() {
+        //given
+        ReservationTable<Long> underTest = new ReservationTable<>();
+        long pinned = underTest.reserve(-1L);
+        int total = 100 * ReservationTable.SEGMENT_SIZE;
+
+        //when
+        IntStream.range(0, total).forEach(i -> underTest.release(underTest.reserve((long) i)));
+
+        //then
+        Assertions.assertThat(underTest.get(pinned)).isEqualTo(-1L);
+        Assertions.assertThat(underTest.inFlight()).isEqualTo(1);
+        Assertions.assertThat(underTest.segments()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void mustKeepEveryReservation_givenConcurrentReserveAndRelease() {
+        //given
+        ReservationTable<Long> underTest = new ReservationTable<>();
+        int threads = 4;
+        int perThread = 50 * ReservationTable.SEGMENT_SIZE;
+
+        //when
+        List<CompletableFuture<Long>> workers = IntStream.range(0, threads)
+                .mapToObj(t -> CompletableFuture.supplyAsync(() -> {
+                    long missed = 0;
+                    for (long i = 0; i < perThread; i++) {
+                        long id = underTest.reserve(i);
+                        if (!Long.valueOf(i).equals(underTest.release(id))) {
+                            missed++;
+                        }
+                    }
+                    return missed;
+                }))
+                .collect(Collectors.toList());
+        long misses = workers.stream().mapToLong(CompletableFuture::join).sum();
+
+        //then
+        Assertions.assertThat(misses).isEqualTo(0L);
+        Assertions.assertThat(underTest.inFlight()).isEqualTo(0);
+        Assertions.assertThat(underTest.segments()).isLessThanOrEqualTo(threads);
+    }
+}
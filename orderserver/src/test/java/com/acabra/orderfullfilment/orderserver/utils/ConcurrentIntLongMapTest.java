@@ -0,0 +1,26 @@
+package com.acabra.orderfullfilment.orderserver.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentIntLongMapTest {
+
+    private static final long MISSING = -1L;
+
+    @Test
+    public void mustMapEveryInt_givenTheIntRangeBounds() {
+        //given
+        ConcurrentIntLongMap underTest = new ConcurrentIntLongMap(MISSING);
+
+        //when
+        underTest.put(Integer.MIN_VALUE, 1L);
+        underTest.put(Integer.MAX_VALUE, 2L);
+
+        //then
+        Assertions.assertThat(underTest.get(Integer.MIN_VALUE)).isEqualTo(1L);
+        Assertions.assertThat(underTest.get(Integer.MAX_VALUE)).isEqualTo(2L);
+        Assertions.assertThat(underTest.remove(Integer.MIN_VALUE)).isEqualTo(1L);
+        Assertions.assertThat(underTest.get(Integer.MIN_VALUE)).isEqualTo(MISSING);
+        Assertions.assertThat(underTest.size()).isEqualTo(1);
+    }
+}
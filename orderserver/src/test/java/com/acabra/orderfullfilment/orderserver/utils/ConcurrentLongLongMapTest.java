@@ -0,0 +1,101 @@
+package com.acabra.orderfullfilment.orderserver.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+class ConcurrentLongLongMapTest {
+
+    private static final long MISSING = Long.MIN_VALUE;
+
+    @Test
+    public void mustReturnMissingValue_givenKeyNotMapped() {
+        //given
+        ConcurrentLongLongMap underTest = new ConcurrentLongLongMap(MISSING);
+
+        //when
+        long actual = underTest.get(3L);
+
+        //then
+        Assertions.assertThat(actual).isEqualTo(MISSING);
+        Assertions.assertThat(underTest.containsKey(3L)).isFalse();
+        Assertions.assertThat(underTest.remove(3L)).isEqualTo(MISSING);
+        Assertions.assertThat(underTest.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void mustBehaveAsAHashMap_givenRandomOperations() {
+        //given
+        ConcurrentLongLongMap underTest = new ConcurrentLongLongMap(MISSING, 2, 8);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(11L);
+
+        //when
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(512) - 256;
+            long value = i;
+            switch (random.nextInt(3)) {
+                case 0:
+                    Assertions.assertThat(underTest.put(key, value)).isEqualTo(orMissing(expected.put(key, value)));
+                    break;
+                case 1:
+                    Assertions.assertThat(underTest.remove(key)).isEqualTo(orMissing(expected.remove(key)));
+                    break;
+                default:
+                    Assertions.assertThat(underTest.get(key)).isEqualTo(orMissing(expected.get(key)));
+            }
+        }
+
+        //then
+        Assertions.assertThat(underTest.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> Assertions.assertThat(underTest.get(key)).isEqualTo(value));
+    }
+
+    @Test
+    public void mustKeepEveryEntry_givenConcurrentWriters() {
+        //given
+        ConcurrentLongLongMap underTest = new ConcurrentLongLongMap(MISSING, 4, 16);
+        int writers = 4;
+        int total = 200_000;
+
+        //when
+        CompletableFuture.allOf(IntStream.range(0, writers)
+                .mapToObj(w -> CompletableFuture.runAsync(() -> {
+                    for (int i = w; i < total; i += writers) {
+                        underTest.put(i, i);
+                        if (i % 3 == 0) {
+                            underTest.remove(i);
+                        }
+                    }
+                }))
+                .toArray(CompletableFuture[]::new)).join();
+
+        //then
+        Assertions.assertThat(underTest.size()).isEqualTo(IntStream.range(0, total).filter(i -> i % 3 != 0).count());
+        for (int i = 0; i < total; i++) {
+            Assertions.assertThat(underTest.get(i)).isEqualTo(i % 3 == 0 ? MISSING : (long) i);
+        }
+    }
+
+    @Test
+    public void mustFail_givenReservedKey() {
+        //given
+        ConcurrentLongLongMap underTest = new ConcurrentLongLongMap(MISSING);
+
+        //when
+
+        //then
+        Assertions.assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> underTest.put(Long.MIN_VALUE, 1L));
+        Assertions.assertThat(underTest.containsKey(Long.MIN_VALUE)).isFalse();
+    }
+
+    private static long orMissing(Long value) {
+        return null == value ? MISSING : value;
+    }
+}
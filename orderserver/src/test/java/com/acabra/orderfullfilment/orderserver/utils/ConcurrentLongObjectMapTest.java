@@ -0,0 +1,149 @@
+package com.acabra.orderfullfilment.orderserver.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+class ConcurrentLongObjectMapTest {
+
+    @Test
+    public void mustPutGetAndRemove_givenKeysAcrossResizes() {
+        //given
+        ConcurrentLongObjectMap<String> underTest = new ConcurrentLongObjectMap<>(4, 4);
+        int total = 10_000;
+
+        //when
+        IntStream.range(0, total).forEach(i -> underTest.put(i, "value" + i));
+
+        //then
+        Assertions.assertThat(underTest.size()).isEqualTo(total);
+        Assertions.assertThat(underTest.get(0L)).isEqualTo("value0");
+        Assertions.assertThat(underTest.get(total - 1)).isEqualTo("value" + (total - 1));
+        Assertions.assertThat(underTest.get(total)).isNull();
+        IntStream.range(0, total).filter(i -> i % 2 == 0).forEach(i ->
+                Assertions.assertThat(underTest.remove(i)).isEqualTo("value" + i));
+        Assertions.assertThat(underTest.size()).isEqualTo(total / 2);
+        IntStream.range(0, total).forEach(i ->
+                Assertions.assertThat(underTest.get(i)).isEqualTo(i % 2 == 0 ? null : "value" + i));
+    }
+
+    @Test
+    public void mustBehaveAsAHashMap_givenRandomOperations() {
+        //given
+        ConcurrentLongObjectMap<Long> underTest = new ConcurrentLongObjectMap<>(2, 8);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(7L);
+
+        //when
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(512) - 256;
+            switch (random.nextInt(4)) {
+                case 0:
+                    Assertions.assertThat(underTest.put(key, (long) i)).isEqualTo(expected.put(key, (long) i));
+                    break;
+                case 1:
+                    Assertions.assertThat(underTest.remove(key)).isEqualTo(expected.remove(key));
+                    break;
+                case 2:
+                    Assertions.assertThat(underTest.putIfAbsent(key, (long) i)).isEqualTo(expected.putIfAbsent(key, (long) i));
+                    break;
+                default:
+                    Assertions.assertThat(underTest.get(key)).isEqualTo(expected.get(key));
+            }
+        }
+
+        //then
+        Assertions.assertThat(underTest.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> Assertions.assertThat(underTest.get(key)).isEqualTo(value));
+    }
+
+    @Test
+    public void mustRemoveOnlyTheGivenValue() {
+        //given
+        ConcurrentLongObjectMap<String> underTest = new ConcurrentLongObjectMap<>();
+        String value = "value";
+        underTest.put(3L, value);
+
+        //when
+        boolean removedOther = underTest.remove(3L, "other");
+        boolean removed = underTest.remove(3L, value);
+
+        //then
+        Assertions.assertThat(removedOther).isFalse();
+        Assertions.assertThat(removed).isTrue();
+        Assertions.assertThat(underTest.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void mustInsertUpdateAndRemove_givenCompute() {
+        //given
+        ConcurrentLongObjectMap<String> underTest = new ConcurrentLongObjectMap<>();
+
+        //when
+        String inserted = underTest.compute(5L, current -> null == current ? "first" : current + "-again");
+        String updated = underTest.compute(5L, current -> null == current ? "first" : current + "-again");
+        String updatedValue = underTest.get(5L);
+        String removed = underTest.compute(5L, current -> null);
+
+        //then
+        Assertions.assertThat(inserted).isEqualTo("first");
+        Assertions.assertThat(updated).isEqualTo("first-again");
+        Assertions.assertThat(updatedValue).isEqualTo("first-again");
+        Assertions.assertThat(removed).isNull();
+        Assertions.assertThat(underTest.containsKey(5L)).isFalse();
+    }
+
+    @Test
+    public void mustFail_givenReservedKeyOrNullValue() {
+        //given
+        ConcurrentLongObjectMap<String> underTest = new ConcurrentLongObjectMap<>();
+
+        //when
+
+        //then
+        Assertions.assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> underTest.put(Long.MIN_VALUE, "value"));
+        Assertions.assertThatExceptionOfType(NullPointerException.class)
+                .isThrownBy(() -> underTest.put(1L, null));
+        Assertions.assertThat(underTest.get(Long.MIN_VALUE)).isNull();
+        Assertions.assertThat(underTest.remove(Long.MIN_VALUE)).isNull();
+    }
+
+    @Test
+    public void mustKeepEveryEntry_givenConcurrentWriters() {
+        //given
+        ConcurrentLongObjectMap<Long> underTest = new ConcurrentLongObjectMap<>(4, 16);
+        int writers = 4;
+        int perWriter = 50_000;
+        AtomicInteger misses = new AtomicInteger();
+
+        //when
+        CompletableFuture.allOf(IntStream.range(0, writers)
+                .mapToObj(w -> CompletableFuture.runAsync(() -> {
+                    for (long i = w; i < (long) writers * perWriter; i += writers) {
+                        underTest.put(i, i);
+                        if (!Long.valueOf(i).equals(underTest.get(i))) {
+                            misses.incrementAndGet();
+                        }
+                        if (i % 3 == 0) {
+                            underTest.remove(i);
+                        }
+                    }
+                }))
+                .toArray(CompletableFuture[]::new)).join();
+
+        //then
+        Assertions.assertThat(misses.get()).isEqualTo(0);
+        long expectedSize = IntStream.range(0, writers * perWriter).filter(i -> i % 3 != 0).count();
+        Assertions.assertThat(underTest.size()).isEqualTo(expectedSize);
+        for (long i = 0; i < (long) writers * perWriter; i++) {
+            Assertions.assertThat(underTest.get(i)).isEqualTo(i % 3 == 0 ? null : i);
+        }
+    }
+}
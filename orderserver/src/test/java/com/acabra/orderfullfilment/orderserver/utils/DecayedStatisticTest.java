@@ -0,0 +1,59 @@
+package com.acabra.orderfullfilment.orderserver.utils;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class DecayedStatisticTest {
+
+    @Test
+    void mustAverageEvenly_givenFewerSamplesThanTheDecayWeighs() {
+        //given
+        DecayedStatistic underTest = DecayedStatistic.EMPTY;
+
+        //when
+        underTest = underTest.update(1d, 0.1d).update(2d, 0.1d).update(3d, 0.1d);
+
+        //then
+        Assertions.assertThat(underTest.count).isEqualTo(3);
+        Assertions.assertThat(underTest.mean).isCloseTo(2d, Offset.offset(1e-9));
+        Assertions.assertThat(underTest.variance).isCloseTo(2d / 3d, Offset.offset(1e-9));
+    }
+
+    @Test
+    void mustTrackMeanVarianceAndP90_givenUniformSamples() {
+        //given
+        Random random = new Random(7L);
+        DecayedStatistic underTest = DecayedStatistic.EMPTY;
+
+        //when
+        for (int i = 0; i < 20000; i++) {
+            underTest = underTest.update(0.5d + random.nextDouble(), 0.005d);
+        }
+
+        //then
+        Assertions.assertThat(underTest.mean).isCloseTo(1d, Offset.offset(0.05d));
+        Assertions.assertThat(underTest.variance).isCloseTo(1d / 12d, Offset.offset(0.02d));
+        Assertions.assertThat(underTest.p90).isCloseTo(1.4d, Offset.offset(0.05d));
+    }
+
+    @Test
+    void mustForgetOldSamples_givenTheSeriesShifts() {
+        //given
+        DecayedStatistic underTest = DecayedStatistic.EMPTY;
+        for (int i = 0; i < 100; i++) {
+            underTest = underTest.update(1d, 0.2d);
+        }
+
+        //when
+        for (int i = 0; i < 50; i++) {
+            underTest = underTest.update(2d, 0.2d);
+        }
+
+        //then
+        Assertions.assertThat(underTest.mean).isCloseTo(2d, Offset.offset(0.01d));
+        Assertions.assertThat(underTest.p90).isCloseTo(2d, Offset.offset(0.05d));
+    }
+}
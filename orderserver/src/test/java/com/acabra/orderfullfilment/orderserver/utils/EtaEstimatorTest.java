@@ -2,16 +2,21 @@ package com.acabra.orderfullfilment.orderserver.utils;
 
 import com.acabra.orderfullfilment.orderserver.config.CourierConfig;
 import com.acabra.orderfullfilment.orderserver.courier.model.Courier;
+import com.acabra.orderfullfilment.orderserver.courier.model.Location;
+import com.acabra.orderfullfilment.orderserver.kitchen.KitchenClock;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.ZonedDateTime;
 import java.util.LongSummaryStatistics;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.IntStream;
 
 @ExtendWith(SpringExtension.class)
@@ -45,4 +50,137 @@ class EtaEstimatorTest {
         Assertions.assertThat(stats.getMax()).isEqualTo(expectedUpperBound);
     }
 
-}
\ No newline at end of file
+    @Test
+    void mustGrowWithDistanceToTheKitchen_givenCouriersWithLocation() {
+        //given
+        Courier atKitchen = Courier.ofAvailable(1, "Peter", Location.ORIGIN);
+        Courier halfway = Courier.ofAvailable(2, "Paul", Location.of(0d, -2.5d));
+        Courier atTheEdge = Courier.ofAvailable(3, "Mary", Location.of(3d, 4d));
+        Courier beyond = Courier.ofAvailable(4, "John", Location.of(30d, 40d));
+
+        //when
+        int actualAtKitchen = underTest.estimateCourierTravelTimeInSeconds(atKitchen);
+        int actualHalfway = underTest.estimateCourierTravelTimeInSeconds(halfway);
+        int actualAtTheEdge = underTest.estimateCourierTravelTimeInSeconds(atTheEdge);
+        int actualBeyond = underTest.estimateCourierTravelTimeInSeconds(beyond);
+
+        //then
+        Assertions.assertThat(actualAtKitchen).isEqualTo(3);
+        Assertions.assertThat(actualHalfway).isEqualTo(9);
+        Assertions.assertThat(actualAtTheEdge).isEqualTo(15);
+        Assertions.assertThat(actualBeyond).isEqualTo(15);
+    }
+
+    @Test
+    void mustLearnTheTravelTimeOfTheCourier_givenEnoughArrivals() {
+        //given
+        Courier slow = Courier.ofAvailable(1, "Peter", Location.of(0d, -2.5d));
+        Courier other = Courier.ofAvailable(2, "Paul", Location.of(0d, -2.5d));
+        long anotherHour = KitchenClock.now() + 3_600_000L;
+
+        //when
+        int beforeArrivals = underTest.estimateCourierTravelTimeInSeconds(slow);
+        IntStream.range(0, EtaEstimator.MIN_OBSERVATIONS)
+                .forEach(i -> underTest.observeArrival(slow, anotherHour, 18000L));
+
+        //then
+        Assertions.assertThat(beforeArrivals).isEqualTo(9);
+        Assertions.assertThat(underTest.estimateCourierTravelTimeInSeconds(slow)).isEqualTo(18);
+        Assertions.assertThat(underTest.estimateLatestTravelTimeInSeconds(slow)).isEqualTo(18);
+        Assertions.assertThat(underTest.estimateCourierTravelTimeInSeconds(other)).isEqualTo(9);
+    }
+
+    @Test
+    void mustUseTheHourOfTheDay_givenCourierWithoutArrivals() {
+        //given
+        Courier atTheEdge = Courier.ofAvailable(3, "Mary", Location.of(3d, 4d));
+        Courier newcomer = Courier.ofAvailable(4, "John", Location.of(0d, -2.5d));
+        long now = KitchenClock.now();
+
+        //when
+        IntStream.range(0, EtaEstimator.MIN_OBSERVATIONS)
+                .forEach(i -> underTest.observeArrival(atTheEdge, now, 7500L));
+
+        //then
+        Assertions.assertThat(underTest.estimateCourierTravelTimeInSeconds(newcomer)).isEqualTo(5);
+    }
+
+    @Test
+    void mustTakeTheHourAtTheKitchen_givenTimesAcrossTheDay() {
+        //given
+        long summerNoon = ZonedDateTime.of(2021, 7, 1, 12, 0, 0, 0, KitchenClock.UTC_PLUS_2).toInstant().toEpochMilli();
+        long winterMidnight = ZonedDateTime.of(2021, 1, 1, 0, 30, 0, 0, KitchenClock.UTC_PLUS_2).toInstant()
+                .toEpochMilli();
+
+        //when
+        int noon = EtaEstimator.hourOf(summerNoon);
+        int midnight = EtaEstimator.hourOf(winterMidnight);
+
+        //then
+        Assertions.assertThat(noon).isEqualTo(12);
+        Assertions.assertThat(midnight).isEqualTo(0);
+    }
+
+    @Test
+    void mustNotLearn_givenNoTravelFromTheKitchen() {
+        //given
+        CourierConfig noFloorConfig = Mockito.mock(CourierConfig.class);
+        Mockito.doReturn(0).when(noFloorConfig).getMinEta();
+        Mockito.doReturn(15).when(noFloorConfig).getMaxEta();
+        Mockito.doReturn(5d).when(noFloorConfig).getServiceRadiusKm();
+        Mockito.doReturn(1d).when(noFloorConfig).getGridCellKm();
+        underTest = new EtaEstimator(noFloorConfig);
+        Courier atTheKitchen = Courier.ofAvailable(6, "Paul", Location.ORIGIN);
+        Courier atTheEdge = Courier.ofAvailable(7, "Lucy", Location.of(3d, 4d));
+
+        //when
+        IntStream.range(0, EtaEstimator.MIN_OBSERVATIONS)
+                .forEach(i -> underTest.observeArrival(atTheKitchen, KitchenClock.now(), 0L));
+
+        //then
+        Assertions.assertThat(underTest.estimateCourierTravelTimeInSeconds(atTheEdge)).isEqualTo(15);
+    }
+
+    @Test
+    void mustNotLearn_givenCourierWithoutLocation() {
+        //given
+        Courier unplaced = Courier.ofAvailable(5, "Anne");
+        Courier placed = Courier.ofAvailable(5, "Anne", Location.ORIGIN);
+
+        //when
+        IntStream.range(0, EtaEstimator.MIN_OBSERVATIONS)
+                .forEach(i -> underTest.observeArrival(unplaced, KitchenClock.now(), 60000L));
+
+        //then
+        Assertions.assertThat(underTest.estimateCourierTravelTimeInSeconds(placed)).isEqualTo(3);
+    }
+
+    @Test
+    void mustCountEveryArrival_givenConcurrentObservations() {
+        //given
+        Courier courier = Courier.ofAvailable(6, "Luke", Location.ORIGIN);
+        long anotherHour = KitchenClock.now() + 3_600_000L;
+
+        //when
+        CompletableFuture.allOf(IntStream.range(0, 4)
+                .mapToObj(t -> CompletableFuture.runAsync(() -> IntStream.range(0, 5000)
+                        .forEach(i -> underTest.observeArrival(courier, anotherHour, 6000L))))
+                .toArray(CompletableFuture[]::new)).join();
+
+        //then
+        Assertions.assertThat(underTest.estimateCourierTravelTimeInSeconds(courier)).isEqualTo(6);
+    }
+
+    @Test
+    void mustEmulateTheLinearTravelTime_givenNoTravelNoise() {
+        //given
+        Courier halfway = Courier.ofAvailable(7, "Mark", Location.of(0d, -2.5d));
+
+        //when
+        long actual = underTest.emulateTravelTimeInMillis(halfway);
+
+        //then
+        Assertions.assertThat(underTest.hasTravelNoise()).isFalse();
+        Assertions.assertThat(actual).isEqualTo(9000L);
+    }
+}